@@ -2,20 +2,31 @@ package com.joyent.manta.benchmark;
 
 import com.joyent.manta.client.MantaClient;
 import com.joyent.manta.client.MantaObjectInputStream;
+import com.joyent.manta.client.MantaThreadFactory;
 import com.joyent.manta.config.ChainedConfigContext;
 import com.joyent.manta.config.ConfigContext;
 import com.joyent.manta.config.DefaultsConfigContext;
+import com.joyent.manta.config.MapConfigContext;
+import com.joyent.manta.config.StandardConfigContext;
 import com.joyent.manta.config.SystemSettingsConfigContext;
+import com.joyent.manta.emulator.MantaEmulator;
+import com.joyent.manta.emulator.MantaEmulatorKeys;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Benchmark class that can be invoked to get some simple benchmarks about
@@ -44,6 +55,28 @@ public final class Benchmark {
      */
     private static final int SKIP_VALUE = 1024;
 
+    /**
+     * System property that runs the benchmark against an in-process emulator
+     * instead of the configured Manta.
+     */
+    private static final String EMULATOR_PROPERTY = "manta.benchmark.emulator";
+
+    /**
+     * System property setting the number of concurrent operations run after
+     * measuring latency, or 0 to skip measuring concurrency.
+     */
+    private static final String CONCURRENCY_PROPERTY = "manta.benchmark.concurrency";
+
+    /**
+     * Counter used to give each benchmark thread a unique name.
+     */
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * Account used with the emulator when no user is configured.
+     */
+    private static final String EMULATOR_USER = "benchmark";
+
     /**
      * Configuration context that informs the Manta client about its settings.
      */
@@ -54,6 +87,11 @@ public final class Benchmark {
      */
     private static MantaClient client;
 
+    /**
+     * In-process emulator or null when benchmarking the configured Manta.
+     */
+    private static MantaEmulator emulator;
+
     /**
      * Unique test run id.
      */
@@ -80,6 +118,11 @@ public final class Benchmark {
                 new DefaultsConfigContext(),
                 new SystemSettingsConfigContext()
         );
+
+        if (Boolean.getBoolean(EMULATOR_PROPERTY)) {
+            config = startEmulator(config);
+        }
+
         client = new MantaClient(config);
         testDirectory = String.format("%s/stor/benchmark-%s",
                 config.getMantaHomeDirectory(), testRunId);
@@ -130,14 +173,55 @@ public final class Benchmark {
             System.out.printf("Average full latency: %d ms\n", fullAverage);
             System.out.printf("Average server latency: %d ms\n", serverAverage);
             System.out.printf("Total test time: %d ms\n", totalTime);
+
+            final int concurrency = Integer.getInteger(CONCURRENCY_PROPERTY, 0);
+
+            if (concurrency > 0) {
+                measureConcurrency(path, concurrency);
+            }
         } catch (IOException e) {
             LOG.error("Error running benchmark", e);
         } finally {
             cleanUp();
             client.closeQuietly();
+
+            if (emulator != null) {
+                emulator.close();
+            }
         }
     }
 
+    /**
+     * Starts an in-process emulator with a new key, so that the client can
+     * be measured without the network and server latency of Manta.
+     *
+     * @param systemConfig configuration from the system settings
+     * @return configuration pointing at the emulator
+     * @throws IOException thrown when the emulator can't be started
+     */
+    private static ConfigContext startEmulator(final ConfigContext systemConfig) throws IOException {
+        String user = EMULATOR_USER;
+
+        if (System.getProperty(MapConfigContext.MANTA_USER_KEY) != null) {
+            user = systemConfig.getMantaUser();
+        }
+
+        final KeyPair keyPair = MantaEmulatorKeys.generateKeyPair();
+        final File keyFile = File.createTempFile("manta-emulator", ".pem");
+        keyFile.deleteOnExit();
+        FileUtils.writeStringToFile(keyFile, MantaEmulatorKeys.toPem(keyPair), StandardCharsets.US_ASCII);
+
+        emulator = new MantaEmulator().addKey(user, keyPair.getPublic()).start();
+
+        System.out.printf("Benchmarking against Manta emulator at %s\n", emulator.getURL());
+
+        return new ChainedConfigContext(systemConfig, new StandardConfigContext()
+                .setMantaURL(emulator.getURL())
+                .setMantaUser(user)
+                .setMantaKeyId(MantaEmulatorKeys.fingerprint(keyPair.getPublic()))
+                .setMantaKeyPath(keyFile.getAbsolutePath()));
+    }
+
     /**
      * Creates test directory.
      *
@@ -174,6 +258,59 @@ public final class Benchmark {
         }
     }
 
+    /**
+     * Measures the time to run HEAD requests from many threads at the same
+     * time, each thread blocking until its request completes. The threads
+     * are virtual threads when <code>manta.virtual_threads</code> is enabled
+     * and the JVM supports them.
+     *
+     * @param path path of the object to request
+     * @param concurrency number of threads making a request at the same time
+     * @throws InterruptedException thrown when interrupted while waiting for the threads
+     */
+    private static void measureConcurrency(final String path, final int concurrency)
+            throws InterruptedException {
+        final MantaThreadFactory threadFactory = new MantaThreadFactory("manta-benchmark-",
+                THREAD_COUNTER, Boolean.TRUE.equals(config.useVirtualThreads()));
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(concurrency);
+        final AtomicInteger failures = new AtomicInteger();
+
+        String threadType = "platform";
+
+        if (threadFactory.isVirtual()) {
+            threadType = "virtual";
+        }
+
+        System.out.printf("Running %d concurrent HEAD requests on %s threads\n", concurrency, threadType);
+
+        for (int i = 0; i < concurrency; i++) {
+            threadFactory.newThread(() -> {
+                try {
+                    start.await();
+                    client.head(path);
+                } catch (IOException | RuntimeException e) {
+                    failures.incrementAndGet();
+                    LOG.debug("Concurrent request failed", e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        final long startNanos = System.nanoTime();
+        start.countDown();
+        done.await();
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        System.out.printf("Concurrent requests: %d succeeded, %d failed in %d ms (%d requests/s)\n",
+                concurrency - failures.get(), failures.get(), elapsedMillis,
+                concurrency * TimeUnit.SECONDS.toMillis(1) / Math.max(elapsedMillis, 1));
+    }
+
     /**
      * Measures the total time to get an object from Manta.
      *
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+/**
+ * <p>Concurrency limiter that adjusts its limit using additive increase and
+ * multiplicative decrease (AIMD). Each request that completes normally
+ * while the limiter is in use raises the limit by 1/limit, so the limit
+ * grows by about one per round trip. Each request that fails, or whose
+ * latency is well above the average latency, reduces the limit by a
+ * fixed ratio.</p>
+ *
+ * <p>Requests beyond the limit are rejected immediately rather than queued,
+ * so that callers don't pile up waiting on a struggling endpoint.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class AdaptiveConcurrencyLimiter {
+    /**
+     * Ratio the limit is multiplied by when a request is dropped.
+     */
+    private static final double BACKOFF_RATIO = 0.9;
+
+    /**
+     * Weight of each new sample in the average latency.
+     */
+    private static final double LATENCY_SMOOTHING = 0.1;
+
+    /**
+     * Multiple of the average latency above which a request is treated as
+     * a sign of congestion.
+     */
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    /**
+     * Latency in milliseconds below which requests are never treated as a
+     * sign of congestion.
+     */
+    private static final long MIN_CONGESTED_LATENCY_MILLIS = 500L;
+
+    /**
+     * Lowest value of the limit.
+     */
+    private final int minLimit;
+
+    /**
+     * Highest value of the limit.
+     */
+    private final int maxLimit;
+
+    /**
+     * Current limit.
+     */
+    private double limit;
+
+    /**
+     * Number of requests in flight.
+     */
+    private int inFlight;
+
+    /**
+     * Exponentially weighted average latency in milliseconds or zero before
+     * the first sample.
+     */
+    private double averageLatencyMillis;
+
+    /**
+     * Creates a new instance starting at the maximum limit.
+     *
+     * @param minLimit lowest value of the limit
+     * @param maxLimit highest value of the limit
+     */
+    AdaptiveConcurrencyLimiter(final int minLimit, final int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must be 1 or greater and min must not exceed max");
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = maxLimit;
+    }
+
+    /**
+     * Attempts to start a request.
+     *
+     * @return true if the request may proceed, false if the limit has been reached
+     */
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int)limit) {
+            return false;
+        }
+
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Records the completion of a request that didn't fail.
+     *
+     * @param latencyMillis latency of the request in milliseconds or a
+     *                      negative number if it shouldn't be sampled
+     */
+    synchronized void onSuccess(final long latencyMillis) {
+        final boolean wasBusy = inFlight * 2 >= limit;
+        inFlight--;
+
+        if (latencyMillis >= 0) {
+            final double average = averageLatencyMillis;
+
+            if (average == 0.0) {
+                averageLatencyMillis = latencyMillis;
+            } else {
+                averageLatencyMillis = average + LATENCY_SMOOTHING * (latencyMillis - average);
+            }
+
+            if (average > 0.0
+                    && latencyMillis > MIN_CONGESTED_LATENCY_MILLIS
+                    && latencyMillis > average * LATENCY_TOLERANCE) {
+                decrease();
+                return;
+            }
+        }
+
+        // Only grow when the limit is actually being used
+        if (wasBusy) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * Records the completion of a request that failed or timed out.
+     */
+    synchronized void onDropped() {
+        inFlight--;
+        decrease();
+    }
+
+    /**
+     * Releases a request that was never sent, without adjusting the limit.
+     */
+    synchronized void release() {
+        inFlight--;
+    }
+
+    /**
+     * Multiplicatively decreases the limit.
+     */
+    private void decrease() {
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+    }
+
+    /**
+     * @return current limit of concurrent requests
+     */
+    synchronized int getLimit() {
+        return (int)limit;
+    }
+
+    /**
+     * @return number of requests in flight
+     */
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+}
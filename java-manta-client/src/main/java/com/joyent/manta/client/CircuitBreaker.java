@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Circuit breaker that stops sending requests to an endpoint after a
+ * number of consecutive failures. While open, requests are rejected
+ * immediately. After a cool down period, a single probe request is let
+ * through: if it succeeds the circuit closes, otherwise it opens again.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class CircuitBreaker {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /**
+     * States of the circuit.
+     */
+    enum State {
+        /**
+         * Requests are allowed.
+         */
+        CLOSED,
+        /**
+         * Requests are rejected.
+         */
+        OPEN,
+        /**
+         * A single probe request is allowed.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Name of the endpoint, used for logging.
+     */
+    private final String name;
+
+    /**
+     * Number of consecutive failures that opens the circuit.
+     */
+    private final int failureThreshold;
+
+    /**
+     * Milliseconds the circuit stays open before allowing a probe.
+     */
+    private final long openMillis;
+
+    /**
+     * Source of the current time in milliseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Current state.
+     */
+    private State state = State.CLOSED;
+
+    /**
+     * Number of consecutive failures.
+     */
+    private int failures;
+
+    /**
+     * Time in milliseconds when the circuit was opened.
+     */
+    private long openedAt;
+
+    /**
+     * Flag indicating that the probe request is in flight.
+     */
+    private boolean probeInFlight;
+
+    /**
+     * Time in milliseconds when the probe request was sent.
+     */
+    private long probeStartedAt;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param name name of the endpoint, used for logging
+     * @param failureThreshold number of consecutive failures that opens the circuit
+     * @param openMillis milliseconds the circuit stays open before allowing a probe
+     * @param clock source of the current time in milliseconds
+     */
+    CircuitBreaker(final String name,
+                   final int failureThreshold,
+                   final long openMillis,
+                   final LongSupplier clock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Determines if a request may be sent.
+     *
+     * @return true if the request may be sent
+     */
+    synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.getAsLong() - openedAt < openMillis) {
+                    return false;
+                }
+
+                state = State.HALF_OPEN;
+                startProbe();
+                LOG.info("Circuit for [{}] is half open, sending probe request", name);
+                return true;
+            default:
+                /* A probe that never reports back, because the request failed
+                 * before being sent, is replaced after the open period. */
+                if (probeInFlight && clock.getAsLong() - probeStartedAt < openMillis) {
+                    return false;
+                }
+
+                startProbe();
+                return true;
+        }
+    }
+
+    /**
+     * Marks the probe request as in flight.
+     */
+    private void startProbe() {
+        probeInFlight = true;
+        probeStartedAt = clock.getAsLong();
+    }
+
+    /**
+     * Records a request that reached a healthy endpoint.
+     */
+    synchronized void onSuccess() {
+        failures = 0;
+        probeInFlight = false;
+
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            LOG.info("Circuit for [{}] closed", name);
+        }
+    }
+
+    /**
+     * Records a request that failed because the endpoint is unhealthy.
+     */
+    synchronized void onFailure() {
+        failures++;
+        probeInFlight = false;
+
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            LOG.warn("Circuit for [{}] opened after {} consecutive failures", name, failures);
+        }
+    }
+
+    /**
+     * @return current state of the circuit
+     */
+    synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,497 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>Case insensitive {@link Map} of strings that uses open addressing with
+ * linear probing. Keys and values are stored in two flat arrays, so no
+ * entry objects are allocated when adding metadata. Keys are converted to
+ * lowercase in the same way as
+ * {@link org.apache.commons.collections4.map.CaseInsensitiveMap}, but keys
+ * that are already lowercase are stored and looked up without creating a
+ * new string.</p>
+ *
+ * <p>Removed entries are marked with a tombstone, so that iteration order
+ * isn't disturbed by removals. Tombstones are cleared when the map is
+ * resized.</p>
+ *
+ * <p>This class isn't thread-safe.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class CompactCaseInsensitiveMap extends AbstractMap<String, String> implements Serializable {
+    private static final long serialVersionUID = 6071617467413823472L;
+
+    /**
+     * Number of slots allocated for an empty map. Must be a power of two.
+     */
+    private static final int DEFAULT_CAPACITY = 8;
+
+    /**
+     * Marker for a slot whose entry has been removed.
+     */
+    private static final Object TOMBSTONE = new Object();
+
+    /**
+     * Number of bits the high half of a hash code is shifted to spread it
+     * into the low bits used to select a slot.
+     */
+    private static final int HASH_SPREAD_SHIFT = 16;
+
+    /**
+     * Slots containing lowercase keys, {@link #TOMBSTONE} or null.
+     */
+    private transient Object[] keys;
+
+    /**
+     * Values stored at the same index as their key.
+     */
+    private transient String[] values;
+
+    /**
+     * Number of entries in the map.
+     */
+    private transient int size;
+
+    /**
+     * Number of slots that are either occupied or a tombstone.
+     */
+    private transient int used;
+
+    /**
+     * Entry set view, created on first use.
+     */
+    private transient Set<Map.Entry<String, String>> entrySet;
+
+    /**
+     * Creates a new empty map.
+     */
+    CompactCaseInsensitiveMap() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Allocates empty arrays with the specified number of slots.
+     *
+     * @param capacity number of slots, must be a power of two
+     */
+    private void allocate(final int capacity) {
+        keys = new Object[capacity];
+        values = new String[capacity];
+        size = 0;
+        used = 0;
+    }
+
+    /**
+     * Converts a key to lowercase, returning the same instance when it is
+     * already lowercase.
+     *
+     * @param key key to convert
+     * @return lowercase key
+     */
+    static String convertKey(final String key) {
+        final int length = key.length();
+
+        for (int i = 0; i < length; i++) {
+            final char c = key.charAt(i);
+
+            if (Character.toLowerCase(Character.toUpperCase(c)) != c) {
+                final char[] chars = key.toCharArray();
+
+                for (int j = i; j < length; j++) {
+                    chars[j] = Character.toLowerCase(Character.toUpperCase(chars[j]));
+                }
+
+                return new String(chars);
+            }
+        }
+
+        return key;
+    }
+
+    /**
+     * Calculates the first slot to probe for a key.
+     *
+     * @param key lowercase key
+     * @param mask slot count minus one
+     * @return slot index
+     */
+    private static int slot(final String key, final int mask) {
+        final int hash = key.hashCode();
+        return (hash ^ (hash >>> HASH_SPREAD_SHIFT)) & mask;
+    }
+
+    /**
+     * Finds the slot containing the specified key.
+     *
+     * @param key lowercase key
+     * @return slot index or -1 if the key isn't present
+     */
+    private int indexOf(final String key) {
+        final int mask = keys.length - 1;
+        int index = slot(key, mask);
+
+        while (true) {
+            final Object current = keys[index];
+
+            if (current == null) {
+                return -1;
+            }
+
+            if (current != TOMBSTONE && current.equals(key)) {
+                return index;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Finds the slot containing the specified key.
+     *
+     * @param key key of any case, may be of any type
+     * @return slot index or -1 if the key isn't present
+     */
+    private int indexOfObject(final Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+
+        return indexOf(convertKey((String)key));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return indexOfObject(key) >= 0;
+    }
+
+    @Override
+    public String get(final Object key) {
+        final int index = indexOfObject(key);
+
+        if (index < 0) {
+            return null;
+        }
+
+        return values[index];
+    }
+
+    @Override
+    public String put(final String key, final String value) {
+        Objects.requireNonNull(key, "Key must be present");
+
+        final String converted = convertKey(key);
+        final int mask = keys.length - 1;
+        int index = slot(converted, mask);
+        int firstTombstone = -1;
+
+        while (true) {
+            final Object current = keys[index];
+
+            if (current == null) {
+                break;
+            }
+
+            if (current == TOMBSTONE) {
+                if (firstTombstone < 0) {
+                    firstTombstone = index;
+                }
+            } else if (current.equals(converted)) {
+                final String previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        if (firstTombstone >= 0) {
+            index = firstTombstone;
+        } else {
+            used++;
+        }
+
+        keys[index] = converted;
+        values[index] = value;
+        size++;
+
+        // Keep the load of occupied slots and tombstones at 75% or less
+        if (used > keys.length - (keys.length >>> 2)) {
+            rehash();
+        }
+
+        return null;
+    }
+
+    @Override
+    public String remove(final Object key) {
+        final int index = indexOfObject(key);
+
+        if (index < 0) {
+            return null;
+        }
+
+        final String previous = values[index];
+        removeAt(index);
+        return previous;
+    }
+
+    /**
+     * Removes the entry in the specified slot, leaving a tombstone.
+     *
+     * @param index slot index
+     */
+    private void removeAt(final int index) {
+        keys[index] = TOMBSTONE;
+        values[index] = null;
+        size--;
+    }
+
+    @Override
+    public void clear() {
+        allocate(keys.length);
+    }
+
+    /**
+     * Rebuilds the slots without tombstones, doubling the capacity when
+     * more than half of the slots contain entries.
+     */
+    private void rehash() {
+        final Object[] oldKeys = keys;
+        final String[] oldValues = values;
+
+        int capacity = oldKeys.length;
+        if (size > capacity >>> 1) {
+            capacity <<= 1;
+        }
+
+        allocate(capacity);
+        final int mask = capacity - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            final Object key = oldKeys[i];
+
+            if (key == null || key == TOMBSTONE) {
+                continue;
+            }
+
+            int index = slot((String)key, mask);
+            while (keys[index] != null) {
+                index = (index + 1) & mask;
+            }
+
+            keys[index] = key;
+            values[index] = oldValues[i];
+            size++;
+            used++;
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+
+        return entrySet;
+    }
+
+    /**
+     * Writes the entries of the map as pairs of keys and values.
+     *
+     * @param out stream to write to
+     * @throws IOException thrown when the stream can't be written
+     */
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null && keys[i] != TOMBSTONE) {
+                out.writeObject(keys[i]);
+                out.writeObject(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads the entries of the map as pairs of keys and values.
+     *
+     * @param in stream to read from
+     * @throws IOException thrown when the stream can't be read
+     * @throws ClassNotFoundException thrown when a serialized class can't be found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        final int count = in.readInt();
+        allocate(DEFAULT_CAPACITY);
+
+        for (int i = 0; i < count; i++) {
+            put((String)in.readObject(), (String)in.readObject());
+        }
+    }
+
+    /**
+     * Entry set view that reads directly from the slots.
+     */
+    private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            CompactCaseInsensitiveMap.this.clear();
+        }
+    }
+
+    /**
+     * Iterator over the occupied slots.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<String, String>> {
+        /**
+         * Slots being iterated, so that a rehash doesn't affect the iteration.
+         */
+        private final Object[] slots = keys;
+
+        /**
+         * Index of the next slot to inspect.
+         */
+        private int next;
+
+        /**
+         * Index of the slot last returned or -1 if there is none.
+         */
+        private int last = -1;
+
+        /**
+         * Advances to the next occupied slot.
+         *
+         * @return true if there is an occupied slot
+         */
+        @Override
+        public boolean hasNext() {
+            while (next < slots.length) {
+                if (slots[next] != null && slots[next] != TOMBSTONE) {
+                    return true;
+                }
+
+                next++;
+            }
+
+            return false;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            last = next++;
+            return new Entry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+
+            if (slots != keys) {
+                throw new ConcurrentModificationException();
+            }
+
+            removeAt(last);
+            last = -1;
+        }
+    }
+
+    /**
+     * Entry that reads and writes its value through to its slot.
+     */
+    private final class Entry implements Map.Entry<String, String> {
+        /**
+         * Slot index of the entry.
+         */
+        private final int index;
+
+        /**
+         * Key of the entry.
+         */
+        private final String key;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param index slot index of the entry
+         */
+        private Entry(final int index) {
+            this.index = index;
+            this.key = (String)keys[index];
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public String getValue() {
+            return values[index];
+        }
+
+        @Override
+        public String setValue(final String value) {
+            final String previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+
+            final Map.Entry<?, ?> other = (Map.Entry<?, ?>)o;
+            return key.equals(other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+}
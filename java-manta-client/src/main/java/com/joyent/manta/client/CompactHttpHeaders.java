@@ -0,0 +1,400 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.util.Types;
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Compact read-only store of HTTP headers as a flat array of alternating
+ * names and values. Header names are interned, so that the many instances
+ * created from the results of HEAD requests and directory listings share
+ * a single copy of each name. Compared to {@link HttpHeaders}, this avoids
+ * allocating a list for each header value and the reflection used to read
+ * and write the typed header fields.</p>
+ *
+ * <p>Instances are immutable and can be shared between
+ * {@link MantaHttpHeaders} instances. When headers need to be modified or
+ * accessed as typed values, they are converted to {@link HttpHeaders} using
+ * the same header parsing used by the Google HTTP Client.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class CompactHttpHeaders {
+    /**
+     * Alternating header names and values. Names are stored at even indexes
+     * and their values at the following odd index.
+     */
+    private final String[] namesAndValues;
+
+    /**
+     * Lazily parsed value of the Content-Length header.
+     */
+    private volatile Long contentLength;
+
+    /**
+     * Flag indicating that the Content-Length header has been parsed. It is
+     * written after the value, so a reader that sees it set sees the value.
+     */
+    private volatile boolean contentLengthParsed = false;
+
+    /**
+     * Lazily parsed value of the Result-Set-Size header.
+     */
+    private volatile Long resultSetSize;
+
+    /**
+     * Flag indicating that the Result-Set-Size header has been parsed.
+     */
+    private volatile boolean resultSetSizeParsed = false;
+
+    /**
+     * Creates a new instance backed by the specified array. The array must
+     * not be modified after being passed to this constructor.
+     *
+     * @param namesAndValues alternating header names and values
+     */
+    private CompactHttpHeaders(final String[] namesAndValues) {
+        this.namesAndValues = namesAndValues;
+    }
+
+    /**
+     * Creates a new instance from alternating header names and values.
+     * Null values are skipped.
+     *
+     * @param namesAndValues alternating header names and values
+     * @return new instance
+     */
+    static CompactHttpHeaders of(final String... namesAndValues) {
+        if (namesAndValues.length % 2 != 0) {
+            throw new IllegalArgumentException("Header names and values must be paired");
+        }
+
+        int count = 0;
+        for (int i = 1; i < namesAndValues.length; i += 2) {
+            if (namesAndValues[i] != null) {
+                count++;
+            }
+        }
+
+        final String[] compacted = new String[count * 2];
+        int pos = 0;
+
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (namesAndValues[i + 1] == null) {
+                continue;
+            }
+
+            compacted[pos++] = namesAndValues[i].intern();
+            compacted[pos++] = namesAndValues[i + 1];
+        }
+
+        return new CompactHttpHeaders(compacted);
+    }
+
+    /**
+     * Creates a new instance from the headers of an Apache HTTP Client response.
+     * Each header value is kept verbatim, as it would be when read through
+     * the Google HTTP Client, rather than being split into header elements.
+     *
+     * @param headers headers to copy
+     * @return new instance
+     */
+    static CompactHttpHeaders fromApache(final Header[] headers) {
+        final String[] namesAndValues = new String[headers.length * 2];
+        int pos = 0;
+
+        for (Header header : headers) {
+            if (header == null || header.getValue() == null) {
+                continue;
+            }
+
+            namesAndValues[pos++] = header.getName().intern();
+            namesAndValues[pos++] = header.getValue();
+        }
+
+        if (pos == namesAndValues.length) {
+            return new CompactHttpHeaders(namesAndValues);
+        }
+
+        final String[] trimmed = new String[pos];
+        System.arraycopy(namesAndValues, 0, trimmed, 0, pos);
+        return new CompactHttpHeaders(trimmed);
+    }
+
+    /**
+     * Creates a new instance from the headers of a Google HTTP Client response.
+     *
+     * @param headers headers to copy
+     * @return new instance
+     */
+    static CompactHttpHeaders fromGoogle(final HttpHeaders headers) {
+        final List<String> namesAndValues = new ArrayList<>(headers.size() * 2);
+
+        for (Map.Entry<String, Object> entry : headers.entrySet()) {
+            final Object value = entry.getValue();
+
+            if (value == null) {
+                continue;
+            }
+
+            final String name = entry.getKey().intern();
+
+            if (value instanceof Iterable<?> || value.getClass().isArray()) {
+                for (Object multiple : Types.iterableOf(value)) {
+                    if (multiple != null) {
+                        namesAndValues.add(name);
+                        namesAndValues.add(MantaUtils.asString(multiple));
+                    }
+                }
+            } else {
+                namesAndValues.add(name);
+                namesAndValues.add(MantaUtils.asString(value));
+            }
+        }
+
+        return new CompactHttpHeaders(namesAndValues.toArray(new String[namesAndValues.size()]));
+    }
+
+    /**
+     * Finds the first value of the specified header.
+     *
+     * @param name case-insensitive header name
+     * @return first value or null if the header isn't present
+     */
+    String first(final String name) {
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (namesAndValues[i].equalsIgnoreCase(name)) {
+                return namesAndValues[i + 1];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds all of the values of the specified header.
+     *
+     * @param name case-insensitive header name
+     * @return list of values, empty if the header isn't present
+     */
+    List<String> all(final String name) {
+        List<String> values = null;
+
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (namesAndValues[i].equalsIgnoreCase(name)) {
+                if (values == null) {
+                    values = new ArrayList<>(1);
+                }
+
+                values.add(namesAndValues[i + 1]);
+            }
+        }
+
+        if (values == null) {
+            return Collections.emptyList();
+        }
+
+        return values;
+    }
+
+    /**
+     * @return the value of the Content-Length header parsed once or null if not present
+     */
+    Long contentLength() {
+        if (!contentLengthParsed) {
+            contentLength = parseLong(first("content-length"));
+            contentLengthParsed = true;
+        }
+
+        return contentLength;
+    }
+
+    /**
+     * @return the value of the Result-Set-Size header parsed once or null if not present
+     */
+    Long resultSetSize() {
+        if (!resultSetSizeParsed) {
+            resultSetSize = parseLong(first(MantaHttpHeaders.RESULT_SET_SIZE));
+            resultSetSizeParsed = true;
+        }
+
+        return resultSetSize;
+    }
+
+    /**
+     * Parses a header value as a long.
+     *
+     * @param value header value to parse
+     * @return parsed value or null if the value is missing or not a number
+     */
+    private static Long parseLong(final String value) {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns all of the headers whose names start with the specified
+     * prefix, keyed by lowercase name.
+     *
+     * @param prefix lowercase header name prefix
+     * @return map of header names to their values
+     */
+    Map<String, List<String>> withPrefix(final String prefix) {
+        final Map<String, List<String>> matches = new HashMap<>();
+
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            final String name = namesAndValues[i];
+
+            if (name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                matches.computeIfAbsent(name.toLowerCase(), k -> new ArrayList<>(1))
+                        .add(namesAndValues[i + 1]);
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * @return all of the headers keyed by lowercase name
+     */
+    Map<String, List<String>> asMap() {
+        return withPrefix("");
+    }
+
+    /**
+     * @return true if there are no headers
+     */
+    boolean isEmpty() {
+        return namesAndValues.length == 0;
+    }
+
+    /**
+     * Converts the headers to Apache HTTP Client headers without
+     * materializing a {@link HttpHeaders} instance.
+     *
+     * @return array of headers
+     */
+    Header[] toApache() {
+        final Header[] headers = new Header[namesAndValues.length / 2];
+
+        for (int i = 0; i < headers.length; i++) {
+            headers[i] = new BasicHeader(namesAndValues[i * 2], namesAndValues[i * 2 + 1]);
+        }
+
+        return headers;
+    }
+
+    /**
+     * Converts the headers to a mutable Google HTTP Client {@link HttpHeaders}
+     * instance. The values are parsed in exactly the same way as the
+     * headers of a HTTP response.
+     *
+     * @return new headers instance
+     */
+    HttpHeaders toGoogle() {
+        final HttpHeaders headers = new HttpHeaders();
+
+        try {
+            headers.fromHttpResponse(new HeaderOnlyResponse(), null);
+        } catch (IOException e) {
+            // This is never thrown because we don't do any I/O
+            throw new UncheckedIOException(e);
+        }
+
+        return headers;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("{");
+
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+
+            sb.append(namesAndValues[i]).append('=').append(namesAndValues[i + 1]);
+        }
+
+        return sb.append('}').toString();
+    }
+
+    /**
+     * {@link LowLevelHttpResponse} implementation that only provides headers.
+     * This allows us to use the Google HTTP Client's own header parsing
+     * when converting to {@link HttpHeaders}.
+     */
+    private final class HeaderOnlyResponse extends LowLevelHttpResponse {
+        @Override
+        public InputStream getContent() {
+            return null;
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return null;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1L;
+        }
+
+        @Override
+        public String getContentType() {
+            return null;
+        }
+
+        @Override
+        public String getStatusLine() {
+            return null;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return 0;
+        }
+
+        @Override
+        public String getReasonPhrase() {
+            return null;
+        }
+
+        @Override
+        public int getHeaderCount() {
+            return namesAndValues.length / 2;
+        }
+
+        @Override
+        public String getHeaderName(final int index) {
+            return namesAndValues[index * 2];
+        }
+
+        @Override
+        public String getHeaderValue(final int index) {
+            return namesAndValues[index * 2 + 1];
+        }
+    }
+}
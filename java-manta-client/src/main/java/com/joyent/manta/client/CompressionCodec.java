@@ -0,0 +1,228 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.HttpEncoding;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.util.StreamingContent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Enum of the compression codecs that can be transparently applied to object
+ * data uploaded to Manta. The codec used is recorded on the object as its
+ * <code>Content-Encoding</code> header, so that any standards compliant HTTP
+ * client (including this one) is able to decompress the data on download.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public enum CompressionCodec {
+    /**
+     * Gzip compression (RFC 1952).
+     */
+    GZIP("gzip") {
+        @Override
+        public OutputStream compress(final OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+
+        @Override
+        public InputStream decompress(final InputStream in) throws IOException {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+    },
+
+    /**
+     * Deflate compression (RFC 1950).
+     */
+    DEFLATE("deflate") {
+        @Override
+        public OutputStream compress(final OutputStream out) throws IOException {
+            return new DeflaterOutputStream(out);
+        }
+
+        @Override
+        public InputStream decompress(final InputStream in) throws IOException {
+            return new InflaterInputStream(in);
+        }
+    };
+
+    /**
+     * Value used in configuration to indicate that no compression is applied.
+     */
+    public static final String NONE = "none";
+
+    /**
+     * Size of the buffer used by the compression streams.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Value of the <code>Content-Encoding</code> header associated with the codec.
+     */
+    private final String contentEncoding;
+
+    /**
+     * Creates a new codec instance.
+     *
+     * @param contentEncoding value of the <code>Content-Encoding</code> header
+     */
+    CompressionCodec(final String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * @return value of the <code>Content-Encoding</code> header associated with the codec
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Wraps the passed stream with a stream that compresses all data written to it.
+     * Closing the returned stream will close the passed stream.
+     *
+     * @param out stream to write compressed data to
+     * @return stream that accepts uncompressed data
+     * @throws IOException thrown when the compression header can't be written
+     */
+    public abstract OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * Wraps the passed stream with a stream that decompresses all data read from it.
+     *
+     * @param in stream to read compressed data from
+     * @return stream that provides uncompressed data
+     * @throws IOException thrown when the compression header can't be read
+     */
+    public abstract InputStream decompress(InputStream in) throws IOException;
+
+    /**
+     * Creates a Google HTTP Client {@link HttpEncoding} that compresses request
+     * content using this codec. The HTTP client will set the
+     * <code>Content-Encoding</code> header for us.
+     *
+     * @return encoding instance to assign to a request
+     */
+    HttpEncoding asHttpEncoding() {
+        return new HttpEncoding() {
+            @Override
+            public String getName() {
+                return contentEncoding;
+            }
+
+            @Override
+            public void encode(final StreamingContent content, final OutputStream out)
+                    throws IOException {
+                /* We shield the transport's stream from being closed because it is
+                 * up to the HTTP client to close it once the request is finished. */
+                try (OutputStream compressed = compress(new CloseShieldOutputStream(out))) {
+                    content.writeTo(compressed);
+                }
+            }
+        };
+    }
+
+    /**
+     * Finds the codec associated with the passed <code>Content-Encoding</code>
+     * header value or configuration value.
+     *
+     * @param contentEncoding header or configuration value to look up
+     * @return matching codec or null when no compression is specified or it isn't supported
+     */
+    public static CompressionCodec fromContentEncoding(final String contentEncoding) {
+        if (contentEncoding == null) {
+            return null;
+        }
+
+        final String normalized = contentEncoding.trim().toLowerCase(Locale.ENGLISH);
+
+        for (CompressionCodec codec : values()) {
+            if (codec.contentEncoding.equals(normalized)) {
+                return codec;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the content of a HTTP response decompressed according to its
+     * <code>Content-Encoding</code> header. The Google HTTP Client already
+     * decompresses gzip encoded responses, so we only need to handle the
+     * remaining codecs.
+     *
+     * @param response HTTP response to read content from
+     * @return decompressed content stream
+     * @throws IOException thrown when the response content can't be read
+     */
+    static InputStream decodedContent(final HttpResponse response) throws IOException {
+        final InputStream content = response.getContent();
+        final CompressionCodec codec = fromContentEncoding(response.getContentEncoding());
+
+        if (content == null || codec == null || codec.equals(GZIP)) {
+            return content;
+        }
+
+        return codec.decompress(content);
+    }
+
+    /**
+     * {@link OutputStream} that proxies all writes to an underlying stream, but
+     * only flushes the underlying stream when closed.
+     */
+    private static final class CloseShieldOutputStream extends OutputStream {
+        /**
+         * Underlying stream that we don't close.
+         */
+        private final OutputStream out;
+
+        /**
+         * Flag indicating that this stream has been closed.
+         */
+        private volatile boolean closed = false;
+
+        /**
+         * Creates a new instance wrapping the specified stream.
+         *
+         * @param out stream to shield
+         */
+        private CloseShieldOutputStream(final OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            out.flush();
+        }
+    }
+}
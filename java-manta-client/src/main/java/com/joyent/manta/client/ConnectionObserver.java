@@ -0,0 +1,34 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import java.net.InetAddress;
+
+/**
+ * Receives the outcome of each connection opened to a Manta load balancer.
+ * A {@link org.apache.http.conn.DnsResolver} passed to
+ * {@link HttpRequestFactoryProvider} that implements this interface is
+ * notified of every connection attempt, so that it can take the health of
+ * each address into account when resolving.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public interface ConnectionObserver {
+    /**
+     * Called when a connection was opened, including the TLS handshake
+     * for secure connections.
+     *
+     * @param address address connected to
+     * @param latencyMillis milliseconds taken to open the connection
+     */
+    void onConnected(InetAddress address, long latencyMillis);
+
+    /**
+     * Called when a connection couldn't be opened.
+     *
+     * @param address address that couldn't be connected to
+     */
+    void onConnectFailed(InetAddress address);
+}
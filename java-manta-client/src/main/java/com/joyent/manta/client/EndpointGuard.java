@@ -0,0 +1,351 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+import com.joyent.manta.exception.MantaLoadSheddingException;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Guards each Manta endpoint with an {@link AdaptiveConcurrencyLimiter}
+ * and a {@link CircuitBreaker}. Requests are tracked from the time they are
+ * sent until the response headers are received, so the permit of a request
+ * is released before its response body is read.</p>
+ *
+ * <p>Responses with the statuses 429, 502, 503 and 504, as well as I/O
+ * errors such as timeouts, count as failures. Any other response shows
+ * that the endpoint is healthy.</p>
+ *
+ * <p>Permits are acquired by the request's execute interceptor, which the
+ * HTTP client invokes just before preparing the content and sending each
+ * attempt, and released by the handler of the attempt's outcome. If
+ * preparing the content fails, for example because a compressed upload
+ * can't be read to compute its length, the HTTP client invokes no handler
+ * at all. Guarded requests are therefore executed with
+ * {@link #execute(HttpRequest)}, which releases the permit of an attempt
+ * that never reported back once the request is done.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+class EndpointGuard {
+    /**
+     * Number of consecutive failures that opens an endpoint's circuit.
+     */
+    static final int FAILURE_THRESHOLD = 5;
+
+    /**
+     * Milliseconds an endpoint's circuit stays open before allowing a probe.
+     */
+    static final long OPEN_MILLIS = 5000L;
+
+    /**
+     * HTTP status code for too many requests.
+     */
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * HTTP status code for bad gateway.
+     */
+    private static final int HTTP_BAD_GATEWAY = 502;
+
+    /**
+     * HTTP status code for service unavailable.
+     */
+    private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
+    /**
+     * HTTP status code for gateway timeout.
+     */
+    private static final int HTTP_GATEWAY_TIMEOUT = 504;
+
+    /**
+     * Highest concurrency limit for each endpoint.
+     */
+    private final int maxConcurrency;
+
+    /**
+     * Source of the current time in milliseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Limiter and circuit breaker of each endpoint, keyed by host and port.
+     */
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxConcurrency highest concurrency limit for each endpoint
+     */
+    EndpointGuard(final int maxConcurrency) {
+        this(maxConcurrency, () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxConcurrency highest concurrency limit for each endpoint
+     * @param clock source of the current time in milliseconds
+     */
+    EndpointGuard(final int maxConcurrency, final LongSupplier clock) {
+        this.maxConcurrency = maxConcurrency;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates the tracker for a single request, which is used as the
+     * request's execute interceptor.
+     *
+     * @param interceptor interceptor invoked before a permit is acquired for each attempt
+     * @return new tracker instance
+     */
+    Tracker newTracker(final HttpExecuteInterceptor interceptor) {
+        return new Tracker(interceptor);
+    }
+
+    /**
+     * Executes a request and releases the permit of an attempt that never
+     * reported back, because the request failed after the permit was
+     * acquired but before the attempt was sent.
+     *
+     * @param request request to execute
+     * @return response of the request
+     * @throws IOException thrown when the request failed
+     */
+    static HttpResponse execute(final HttpRequest request) throws IOException {
+        final HttpExecuteInterceptor interceptor = request.getInterceptor();
+
+        if (!(interceptor instanceof Tracker)) {
+            return request.execute();
+        }
+
+        try {
+            return request.execute();
+        } finally {
+            ((Tracker)interceptor).abandon();
+        }
+    }
+
+    /**
+     * Finds the limiter and circuit breaker for the endpoint of a URL.
+     *
+     * @param url request URL
+     * @return endpoint state
+     */
+    Endpoint endpointFor(final GenericUrl url) {
+        final String key = url.getHost() + ":" + url.getPort();
+        return endpoints.computeIfAbsent(key, k -> new Endpoint(k,
+                new AdaptiveConcurrencyLimiter(1, maxConcurrency),
+                new CircuitBreaker(k, FAILURE_THRESHOLD, OPEN_MILLIS, clock)));
+    }
+
+    /**
+     * Determines if a response status means that the endpoint is unhealthy.
+     *
+     * @param statusCode HTTP status code
+     * @return true if the status counts as a failure
+     */
+    static boolean isFailureStatus(final int statusCode) {
+        switch (statusCode) {
+            case HTTP_TOO_MANY_REQUESTS:
+            case HTTP_BAD_GATEWAY:
+            case HTTP_SERVICE_UNAVAILABLE:
+            case HTTP_GATEWAY_TIMEOUT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Limiter and circuit breaker of a single endpoint.
+     */
+    static final class Endpoint {
+        /**
+         * Host and port of the endpoint.
+         */
+        private final String name;
+
+        /**
+         * Concurrency limiter of the endpoint.
+         */
+        private final AdaptiveConcurrencyLimiter limiter;
+
+        /**
+         * Circuit breaker of the endpoint.
+         */
+        private final CircuitBreaker breaker;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param name host and port of the endpoint
+         * @param limiter concurrency limiter of the endpoint
+         * @param breaker circuit breaker of the endpoint
+         */
+        private Endpoint(final String name,
+                         final AdaptiveConcurrencyLimiter limiter,
+                         final CircuitBreaker breaker) {
+            this.name = name;
+            this.limiter = limiter;
+            this.breaker = breaker;
+        }
+
+        /**
+         * @return concurrency limiter of the endpoint
+         */
+        AdaptiveConcurrencyLimiter getLimiter() {
+            return limiter;
+        }
+
+        /**
+         * @return circuit breaker of the endpoint
+         */
+        CircuitBreaker getBreaker() {
+            return breaker;
+        }
+    }
+
+    /**
+     * Tracks each attempt of a single request. A request is only ever
+     * executed by one thread at a time, so this class isn't thread-safe.
+     */
+    final class Tracker implements HttpExecuteInterceptor {
+        /**
+         * Interceptor invoked before a permit is acquired, so that a
+         * failure to sign can't leak a permit.
+         */
+        private final HttpExecuteInterceptor interceptor;
+
+        /**
+         * Endpoint of the attempt in flight or null if there is none.
+         */
+        private Endpoint current;
+
+        /**
+         * Time in milliseconds when the attempt in flight was sent.
+         */
+        private long startedAt;
+
+        /**
+         * Flag indicating if the latency of the attempt should be sampled.
+         */
+        private boolean sampleLatency;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param interceptor interceptor invoked before a permit is acquired
+         */
+        private Tracker(final HttpExecuteInterceptor interceptor) {
+            this.interceptor = interceptor;
+        }
+
+        @Override
+        public void intercept(final HttpRequest request) throws IOException {
+            interceptor.intercept(request);
+            beforeExecute(request);
+        }
+
+        /**
+         * Acquires a permit for an attempt of the request.
+         *
+         * @param request request about to be sent
+         * @throws MantaLoadSheddingException thrown when the request is rejected
+         */
+        void beforeExecute(final HttpRequest request) throws MantaLoadSheddingException {
+            // A previous attempt that never reported back can't be in flight anymore
+            abandon();
+
+            final Endpoint endpoint = endpointFor(request.getUrl());
+
+            if (!endpoint.limiter.tryAcquire()) {
+                String msg = String.format("Concurrency limit of %d reached for [%s]",
+                        endpoint.limiter.getLimit(), endpoint.name);
+                throw new MantaLoadSheddingException(msg);
+            }
+
+            if (!endpoint.breaker.allowRequest()) {
+                endpoint.limiter.release();
+                String msg = String.format("Circuit is open for [%s]", endpoint.name);
+                throw new MantaLoadSheddingException(msg);
+            }
+
+            current = endpoint;
+            startedAt = clock.getAsLong();
+            /* Uploads take as long as their content takes to send, so only
+             * requests without content say anything about congestion. */
+            sampleLatency = request.getContent() == null;
+        }
+
+        /**
+         * Releases the permit of the attempt after receiving a response.
+         *
+         * @param response response received
+         */
+        void afterResponse(final HttpResponse response) {
+            final Endpoint endpoint = current;
+
+            if (endpoint == null) {
+                return;
+            }
+
+            current = null;
+
+            if (isFailureStatus(response.getStatusCode())) {
+                endpoint.limiter.onDropped();
+                endpoint.breaker.onFailure();
+                return;
+            }
+
+            long latency = -1L;
+            if (sampleLatency) {
+                latency = clock.getAsLong() - startedAt;
+            }
+
+            endpoint.limiter.onSuccess(latency);
+            endpoint.breaker.onSuccess();
+        }
+
+        /**
+         * Releases the permit of an attempt that never reported back,
+         * without counting it as a success or a failure of the endpoint.
+         */
+        void abandon() {
+            final Endpoint endpoint = current;
+
+            if (endpoint == null) {
+                return;
+            }
+
+            current = null;
+            endpoint.limiter.release();
+        }
+
+        /**
+         * Releases the permit of the attempt after an I/O error.
+         */
+        void afterIOException() {
+            final Endpoint endpoint = current;
+
+            if (endpoint == null) {
+                return;
+            }
+
+            current = null;
+            endpoint.limiter.onDropped();
+            endpoint.breaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.util.BackOff;
+import com.joyent.manta.config.ConfigContext;
+import com.joyent.manta.config.DefaultsConfigContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Default {@link RetryPolicy} that retries idempotent requests with
+ * exponential backoff and full jitter: the delay before the nth retry is
+ * chosen at random between zero and the base delay multiplied by 2^n,
+ * capped at the maximum delay. Randomizing the whole delay spreads out the
+ * retries of many clients that failed at the same time.</p>
+ *
+ * <p>Retries may also be limited by a retry budget shared by all requests,
+ * configured with {@link ConfigContext#getRetryBudget()}. Each retry spends
+ * a token and each successful request earns back a tenth of one, so that
+ * when Manta is unavailable, clients quickly stop retrying rather than
+ * multiplying the load on it. There is no budget unless one is configured,
+ * so by default every request may make all of its retries.</p>
+ *
+ * <p>GET, HEAD, PUT, DELETE and OPTIONS requests are retried. POST requests
+ * are not retried because Manta may have already acted on them.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(ExponentialBackoffRetryPolicy.class);
+
+    /**
+     * Number of budget units that make up one retry token.
+     */
+    private static final int UNITS_PER_TOKEN = 10;
+
+    /**
+     * Maximum exponent used to calculate delays, so that the delay doesn't overflow.
+     */
+    private static final int MAX_EXPONENT = 30;
+
+    /**
+     * HTTP status code for too many requests.
+     */
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * HTTP status code for internal server error.
+     */
+    private static final int HTTP_INTERNAL_SERVER_ERROR = 500;
+
+    /**
+     * HTTP status code for bad gateway.
+     */
+    private static final int HTTP_BAD_GATEWAY = 502;
+
+    /**
+     * HTTP status code for service unavailable.
+     */
+    private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
+    /**
+     * HTTP status code for gateway timeout.
+     */
+    private static final int HTTP_GATEWAY_TIMEOUT = 504;
+
+    /**
+     * Delay in milliseconds before the first retry.
+     */
+    private final long baseDelayMillis;
+
+    /**
+     * Maximum delay in milliseconds before a retry.
+     */
+    private final long maxDelayMillis;
+
+    /**
+     * Maximum number of budget units or 0 when there is no retry budget.
+     */
+    private final int maxBudgetUnits;
+
+    /**
+     * Remaining retry budget in units of a tenth of a retry.
+     */
+    private final AtomicInteger budget;
+
+    /**
+     * Number of retries made.
+     */
+    private final AtomicLong retryCount = new AtomicLong();
+
+    /**
+     * Number of retries denied because the retry budget was spent.
+     */
+    private final AtomicLong budgetExhaustedCount = new AtomicLong();
+
+    /**
+     * Total milliseconds of backoff delay calculated.
+     */
+    private final AtomicLong totalDelayMillis = new AtomicLong();
+
+    /**
+     * Creates a new instance using the retry delays in the specified configuration.
+     *
+     * @param config configuration context
+     */
+    public ExponentialBackoffRetryPolicy(final ConfigContext config) {
+        this(valueOrDefault(config.getRetryBaseDelay(), DefaultsConfigContext.DEFAULT_RETRY_BASE_DELAY),
+             valueOrDefault(config.getRetryMaxDelay(), DefaultsConfigContext.DEFAULT_RETRY_MAX_DELAY),
+             (int)valueOrDefault(config.getRetryBudget(), DefaultsConfigContext.DEFAULT_RETRY_BUDGET));
+    }
+
+    /**
+     * Creates a new instance without a retry budget.
+     *
+     * @param baseDelayMillis delay in milliseconds before the first retry
+     * @param maxDelayMillis maximum delay in milliseconds before a retry
+     */
+    public ExponentialBackoffRetryPolicy(final long baseDelayMillis, final long maxDelayMillis) {
+        this(baseDelayMillis, maxDelayMillis, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param baseDelayMillis delay in milliseconds before the first retry
+     * @param maxDelayMillis maximum delay in milliseconds before a retry
+     * @param retryBudget maximum number of retry tokens shared by all requests, or 0 for no budget
+     */
+    public ExponentialBackoffRetryPolicy(final long baseDelayMillis, final long maxDelayMillis,
+                                         final int retryBudget) {
+        if (baseDelayMillis < 0 || maxDelayMillis < 0) {
+            throw new IllegalArgumentException("Retry delays must be zero or greater");
+        }
+
+        if (retryBudget < 0 || retryBudget > Integer.MAX_VALUE / UNITS_PER_TOKEN) {
+            throw new IllegalArgumentException("Retry budget must be between zero and "
+                    + Integer.MAX_VALUE / UNITS_PER_TOKEN);
+        }
+
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxBudgetUnits = retryBudget * UNITS_PER_TOKEN;
+        this.budget = new AtomicInteger(maxBudgetUnits);
+    }
+
+    /**
+     * Returns the specified value or the default value if it is null.
+     *
+     * @param value value to check
+     * @param defaultValue default value
+     * @return value or default value
+     */
+    private static long valueOrDefault(final Integer value, final int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+
+        return value;
+    }
+
+    @Override
+    public boolean isRetryableMethod(final String method) {
+        if (method == null) {
+            return false;
+        }
+
+        switch (method.toUpperCase(Locale.ENGLISH)) {
+            case "GET":
+            case "HEAD":
+            case "PUT":
+            case "DELETE":
+            case "OPTIONS":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public boolean isRetryableStatusCode(final int statusCode) {
+        switch (statusCode) {
+            case HTTP_TOO_MANY_REQUESTS:
+            case HTTP_INTERNAL_SERVER_ERROR:
+            case HTTP_BAD_GATEWAY:
+            case HTTP_SERVICE_UNAVAILABLE:
+            case HTTP_GATEWAY_TIMEOUT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public BackOff newBackOff() {
+        return new JitteredBackOff();
+    }
+
+    @Override
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    @Override
+    public void onSuccess() {
+        if (maxBudgetUnits > 0) {
+            budget.updateAndGet(units -> Math.min(maxBudgetUnits, units + 1));
+        }
+    }
+
+    /**
+     * Spends one retry token from the budget, if there is one.
+     *
+     * @return true if there is no budget or a token was available
+     */
+    @Override
+    public boolean tryAcquireRetry() {
+        if (maxBudgetUnits == 0) {
+            retryCount.incrementAndGet();
+            return true;
+        }
+
+        while (true) {
+            final int units = budget.get();
+
+            if (units < UNITS_PER_TOKEN) {
+                budgetExhaustedCount.incrementAndGet();
+                LOG.debug("Retry budget exhausted, not retrying request");
+                return false;
+            }
+
+            if (budget.compareAndSet(units, units - UNITS_PER_TOKEN)) {
+                retryCount.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Calculates the upper bound of the delay before a retry, which is the
+     * base delay multiplied by 2^attempt, capped at the maximum delay. The
+     * cap is checked before shifting, so that the delay can't overflow.
+     *
+     * @param attempt number of retries already made by the request
+     * @return upper bound of the delay in milliseconds
+     */
+    long delayCeiling(final int attempt) {
+        final int exponent = Math.min(attempt, MAX_EXPONENT);
+
+        if (baseDelayMillis > maxDelayMillis >> exponent) {
+            return maxDelayMillis;
+        }
+
+        return baseDelayMillis << exponent;
+    }
+
+    /**
+     * @return number of retries allowed by the policy
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * @return number of retries denied because the retry budget was spent
+     */
+    public long getBudgetExhaustedCount() {
+        return budgetExhaustedCount.get();
+    }
+
+    /**
+     * @return total milliseconds of backoff delay calculated for all retries
+     */
+    public long getTotalDelayMillis() {
+        return totalDelayMillis.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ExponentialBackoffRetryPolicy{"
+                + "baseDelayMillis=" + baseDelayMillis
+                + ", maxDelayMillis=" + maxDelayMillis
+                + ", retryBudget=" + maxBudgetUnits / UNITS_PER_TOKEN
+                + ", retryCount=" + retryCount
+                + ", budgetExhaustedCount=" + budgetExhaustedCount
+                + ", totalDelayMillis=" + totalDelayMillis
+                + '}';
+    }
+
+    /**
+     * Backoff state for the retries of a single request.
+     */
+    private final class JitteredBackOff implements BackOff {
+        /**
+         * Number of retries made by the request.
+         */
+        private int attempt = 0;
+
+        @Override
+        public long nextBackOffMillis() {
+            final long ceiling = delayCeiling(attempt);
+            attempt++;
+
+            final long delay = ThreadLocalRandom.current().nextLong(Math.min(ceiling, Long.MAX_VALUE - 1) + 1);
+            totalDelayMillis.addAndGet(delay);
+
+            return delay;
+        }
+
+        @Override
+        public void reset() {
+            attempt = 0;
+        }
+    }
+}
@@ -0,0 +1,417 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import org.apache.http.conn.DnsResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Implementation of {@link DnsResolver} that caches the results of DNS
+ * queries and orders the addresses of a host by their health. The latency
+ * and error rate of the connections opened to each address are tracked as
+ * exponentially weighted moving averages, and addresses are picked at
+ * random with a weight favoring fast addresses without errors.</p>
+ *
+ * <p>An address that fails to connect several times in a row is ejected
+ * for a while: it is moved to the end of the results, where it is only
+ * connected to if every other address fails. If all addresses of a host
+ * are ejected, they are all used as usual.</p>
+ *
+ * <p>When a DNS query fails, the last addresses resolved for the host
+ * continue to be used.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class HealthAwareDnsResolver implements DnsResolver, ConnectionObserver {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(HealthAwareDnsResolver.class);
+
+    /**
+     * Weight of each new sample in the moving averages.
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * Milliseconds added to the average latency of every address, so that
+     * a few milliseconds of difference between fast addresses don't matter.
+     */
+    private static final double LATENCY_OFFSET_MILLIS = 10.0;
+
+    /**
+     * Lowest share of its weight that an address keeps because of errors.
+     */
+    private static final double MIN_HEALTH = 0.05;
+
+    /**
+     * Number of consecutive connection failures that ejects an address.
+     */
+    static final int EJECTION_THRESHOLD = 3;
+
+    /**
+     * Default milliseconds that an address stays ejected.
+     */
+    static final long DEFAULT_EJECTION_MILLIS = 30_000L;
+
+    /**
+     * Strategy used to query DNS.
+     */
+    @FunctionalInterface
+    public interface AddressLookup {
+        /**
+         * Resolves all of the addresses of a host.
+         *
+         * @param host host name to resolve
+         * @return addresses of the host
+         * @throws UnknownHostException thrown when the host can't be resolved
+         */
+        InetAddress[] lookup(String host) throws UnknownHostException;
+    }
+
+    /**
+     * Milliseconds that the results of a DNS query are cached.
+     */
+    private final long ttlMillis;
+
+    /**
+     * Milliseconds that an address stays ejected.
+     */
+    private final long ejectionMillis;
+
+    /**
+     * Strategy used to query DNS.
+     */
+    private final AddressLookup lookup;
+
+    /**
+     * Source of the current time in milliseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Cached DNS results keyed by host name.
+     */
+    private final ConcurrentMap<String, CachedAddresses> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Health of each address keyed by the textual address.
+     */
+    private final ConcurrentMap<String, AddressHealth> health = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance that queries DNS using {@link InetAddress}.
+     *
+     * @param ttlMillis milliseconds that the results of a DNS query are cached
+     */
+    public HealthAwareDnsResolver(final long ttlMillis) {
+        this(ttlMillis, DEFAULT_EJECTION_MILLIS, InetAddress::getAllByName,
+                () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param ttlMillis milliseconds that the results of a DNS query are cached
+     * @param ejectionMillis milliseconds that a failing address stays ejected
+     * @param lookup strategy used to query DNS
+     * @param clock source of the current time in milliseconds
+     */
+    public HealthAwareDnsResolver(final long ttlMillis,
+                                  final long ejectionMillis,
+                                  final AddressLookup lookup,
+                                  final LongSupplier clock) {
+        if (ttlMillis < 0 || ejectionMillis < 0) {
+            throw new IllegalArgumentException("TTL and ejection time must be zero or greater");
+        }
+
+        this.ttlMillis = ttlMillis;
+        this.ejectionMillis = ejectionMillis;
+        this.lookup = lookup;
+        this.clock = clock;
+    }
+
+    @Override
+    public InetAddress[] resolve(final String host) throws UnknownHostException {
+        final long now = clock.getAsLong();
+        final InetAddress[] addresses = order(lookupCached(host, now), now);
+        ShufflingDnsResolver.applySelection(addresses);
+
+        return addresses;
+    }
+
+    /**
+     * Finds the addresses of a host in the cache, querying DNS if they
+     * aren't cached or have expired.
+     *
+     * @param host host name to resolve
+     * @param now current time in milliseconds
+     * @return addresses of the host, which must not be modified
+     * @throws UnknownHostException thrown when the host can't be resolved
+     */
+    private InetAddress[] lookupCached(final String host, final long now) throws UnknownHostException {
+        final CachedAddresses cached = cache.get(host);
+
+        if (cached != null && now < cached.expiresAt) {
+            return cached.addresses;
+        }
+
+        final InetAddress[] addresses;
+
+        try {
+            addresses = lookup.lookup(host);
+        } catch (UnknownHostException e) {
+            if (cached == null) {
+                throw e;
+            }
+
+            LOG.warn("Unable to resolve [{}], using previously resolved addresses", host);
+            return cached.addresses;
+        }
+
+        if (addresses == null || addresses.length == 0) {
+            throw new UnknownHostException(host);
+        }
+
+        cache.put(host, new CachedAddresses(addresses.clone(), now + ttlMillis));
+        return addresses;
+    }
+
+    /**
+     * Orders addresses by a weighted random choice, with ejected addresses
+     * last.
+     *
+     * @param addresses addresses of a host
+     * @param now current time in milliseconds
+     * @return new array of the addresses in order of preference
+     */
+    private InetAddress[] order(final InetAddress[] addresses, final long now) {
+        final Random random = ThreadLocalRandom.current();
+        final Ranked[] ranked = new Ranked[addresses.length];
+        boolean allEjected = true;
+
+        for (int i = 0; i < addresses.length; i++) {
+            final AddressHealth addressHealth = health.get(addresses[i].getHostAddress());
+            final boolean ejected = addressHealth != null && addressHealth.isEjected(now);
+            final double weight;
+
+            if (addressHealth == null) {
+                weight = AddressHealth.UNKNOWN_WEIGHT;
+            } else {
+                weight = addressHealth.weight();
+            }
+
+            /* Weighted random sampling without replacement: the address with
+             * the lowest key is picked first. */
+            final double key = -Math.log(1.0 - random.nextDouble()) / weight;
+            ranked[i] = new Ranked(addresses[i], ejected, key);
+            allEjected &= ejected;
+        }
+
+        Comparator<Ranked> comparator = Comparator.comparingDouble(r -> r.key);
+
+        if (!allEjected) {
+            comparator = Comparator.<Ranked, Boolean>comparing(r -> r.ejected).thenComparing(comparator);
+        }
+
+        Arrays.sort(ranked, comparator);
+
+        final InetAddress[] ordered = new InetAddress[ranked.length];
+
+        for (int i = 0; i < ranked.length; i++) {
+            ordered[i] = ranked[i].address;
+        }
+
+        return ordered;
+    }
+
+    @Override
+    public void onConnected(final InetAddress address, final long latencyMillis) {
+        healthOf(address).onSuccess(latencyMillis);
+    }
+
+    @Override
+    public void onConnectFailed(final InetAddress address) {
+        if (healthOf(address).onFailure(clock.getAsLong(), ejectionMillis)) {
+            LOG.warn("Ejecting load balancer address [{}] for {}ms after {} consecutive failures",
+                    address.getHostAddress(), ejectionMillis, EJECTION_THRESHOLD);
+        }
+    }
+
+    /**
+     * @param address address to find
+     * @return health of the address, created if it isn't tracked yet
+     */
+    private AddressHealth healthOf(final InetAddress address) {
+        return health.computeIfAbsent(address.getHostAddress(), k -> new AddressHealth());
+    }
+
+    /**
+     * Determines if an address is currently ejected.
+     *
+     * @param address address to check
+     * @return true if the address is ejected
+     */
+    boolean isEjected(final InetAddress address) {
+        final AddressHealth addressHealth = health.get(address.getHostAddress());
+        return addressHealth != null && addressHealth.isEjected(clock.getAsLong());
+    }
+
+    /**
+     * Addresses resolved for a host and their expiration time.
+     */
+    private static final class CachedAddresses {
+        /**
+         * Resolved addresses.
+         */
+        private final InetAddress[] addresses;
+
+        /**
+         * Time in milliseconds after which the addresses are resolved again.
+         */
+        private final long expiresAt;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param addresses resolved addresses
+         * @param expiresAt time in milliseconds after which the addresses are resolved again
+         */
+        private CachedAddresses(final InetAddress[] addresses, final long expiresAt) {
+            this.addresses = addresses;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Address with its sort key.
+     */
+    private static final class Ranked {
+        /**
+         * Address being ranked.
+         */
+        private final InetAddress address;
+
+        /**
+         * Flag indicating if the address is ejected.
+         */
+        private final boolean ejected;
+
+        /**
+         * Random key weighted by the health of the address.
+         */
+        private final double key;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param address address being ranked
+         * @param ejected flag indicating if the address is ejected
+         * @param key random key weighted by the health of the address
+         */
+        private Ranked(final InetAddress address, final boolean ejected, final double key) {
+            this.address = address;
+            this.ejected = ejected;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Latency and error averages of a single address.
+     */
+    private static final class AddressHealth {
+        /**
+         * Weight of an address without any connections, which equals the
+         * weight of an address without latency or errors so that new
+         * addresses are tried quickly.
+         */
+        private static final double UNKNOWN_WEIGHT = 1.0 / LATENCY_OFFSET_MILLIS;
+
+        /**
+         * Average connection latency in milliseconds or zero before the
+         * first connection.
+         */
+        private double latencyMillis;
+
+        /**
+         * Average share of connections that failed.
+         */
+        private double errorRate;
+
+        /**
+         * Number of consecutive connection failures.
+         */
+        private int consecutiveFailures;
+
+        /**
+         * Time in milliseconds until which the address is ejected.
+         */
+        private long ejectedUntil = Long.MIN_VALUE;
+
+        /**
+         * Records a successful connection.
+         *
+         * @param latency milliseconds taken to connect
+         */
+        synchronized void onSuccess(final long latency) {
+            if (latencyMillis == 0.0) {
+                latencyMillis = latency;
+            } else {
+                latencyMillis += SMOOTHING * (latency - latencyMillis);
+            }
+
+            errorRate -= SMOOTHING * errorRate;
+            consecutiveFailures = 0;
+            ejectedUntil = Long.MIN_VALUE;
+        }
+
+        /**
+         * Records a failed connection.
+         *
+         * @param now current time in milliseconds
+         * @param ejectionMillis milliseconds that the address stays ejected
+         * @return true if the address was ejected by this failure
+         */
+        synchronized boolean onFailure(final long now, final long ejectionMillis) {
+            errorRate += SMOOTHING * (1.0 - errorRate);
+            consecutiveFailures++;
+
+            if (consecutiveFailures >= EJECTION_THRESHOLD && now >= ejectedUntil) {
+                ejectedUntil = now + ejectionMillis;
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * @param now current time in milliseconds
+         * @return true if the address is ejected
+         */
+        synchronized boolean isEjected(final long now) {
+            return now < ejectedUntil;
+        }
+
+        /**
+         * @return weight of the address when picking an address at random
+         */
+        synchronized double weight() {
+            final double healthy = Math.max(MIN_HEALTH, 1.0 - errorRate);
+            return healthy / (latencyMillis + LATENCY_OFFSET_MILLIS);
+        }
+    }
+}
@@ -7,7 +7,9 @@ import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpRequestFactory;
 import com.google.api.client.http.HttpResponse;
 import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.HttpStatusCodes;
 import com.google.api.client.util.ObjectParser;
+import com.joyent.manta.config.ConfigContext;
 import com.joyent.manta.exception.MantaClientHttpResponseException;
 import com.joyent.manta.exception.MantaIOException;
 import org.apache.commons.lang3.exception.ExceptionContext;
@@ -47,6 +49,16 @@ public class HttpHelper {
      */
     private final HttpRequestFactory httpRequestFactory;
 
+    /**
+     * Codec used to compress uploaded content or null when compression is disabled.
+     */
+    private final CompressionCodec compressionCodec;
+
+    /**
+     * Hedger of slow GET and HEAD requests or null when hedging is disabled.
+     */
+    private final RequestHedger requestHedger;
+
 
     /**
      * Creates a new instance of the helper class.
@@ -56,8 +68,52 @@ public class HttpHelper {
      */
     public HttpHelper(final String url,
                       final HttpRequestFactory httpRequestFactory) {
+        this(url, httpRequestFactory, null);
+    }
+
+
+    /**
+     * Creates a new instance of the helper class.
+     *
+     * @param url base Manta URL
+     * @param httpRequestFactory request creation class
+     * @param config configuration context object or null to use defaults
+     */
+    public HttpHelper(final String url,
+                      final HttpRequestFactory httpRequestFactory,
+                      final ConfigContext config) {
+        this(url, httpRequestFactory, config, null);
+    }
+
+
+    /**
+     * Creates a new instance of the helper class.
+     *
+     * @param url base Manta URL
+     * @param httpRequestFactory request creation class
+     * @param config configuration context object or null to use defaults
+     * @param requestHedger hedger of slow GET and HEAD requests or null to disable
+     */
+    HttpHelper(final String url,
+               final HttpRequestFactory httpRequestFactory,
+               final ConfigContext config,
+               final RequestHedger requestHedger) {
         this.url = url;
         this.httpRequestFactory = httpRequestFactory;
+        this.requestHedger = requestHedger;
+
+        if (config == null) {
+            this.compressionCodec = null;
+        } else {
+            final String compression = config.getContentCompression();
+            this.compressionCodec = CompressionCodec.fromContentEncoding(compression);
+
+            if (this.compressionCodec == null && compression != null
+                    && !compression.trim().equalsIgnoreCase(CompressionCodec.NONE)) {
+                LOG.warn("Unsupported content compression [{}] - uploads will not be compressed",
+                        compression);
+            }
+        }
     }
 
 
@@ -69,17 +125,32 @@ public class HttpHelper {
      * @throws IOException when there is a problem getting the object over the network
      */
     protected HttpResponse httpHead(final String path) throws IOException {
+        return httpHead(path, null);
+    }
+
+
+    /**
+     * Executes a HTTP HEAD against the remote Manta API.
+     *
+     * @param path The fully qualified path of the object. i.e. /user/stor/foo/bar/baz
+     * @param timeouts timeouts overriding the configured timeouts or null
+     * @return Google HTTP Client response object
+     * @throws IOException when there is a problem getting the object over the network
+     */
+    protected HttpResponse httpHead(final String path,
+                                    final MantaTimeouts timeouts) throws IOException {
         Objects.requireNonNull(path, "Path must not be null");
 
         LOG.debug("HEAD   {}", path);
 
         final GenericUrl genericUrl = new GenericUrl(this.url + formatPath(path));
-        final HttpRequest request = httpRequestFactory.buildHeadRequest(genericUrl);
+        final HttpRequest request = buildHeadRequest(genericUrl, timeouts);
 
         HttpResponse response = null;
 
         try {
-            response = request.execute();
+            response = executeIdempotent(request,
+                    () -> buildHeadRequest(genericUrl, timeouts));
             LOG.debug("HEAD   {} response [{}] {} ", path, response.getStatusCode(),
                     response.getStatusMessage());
             return response;
@@ -138,10 +209,28 @@ public class HttpHelper {
     protected HttpResponse httpGet(final String path,
                                    final ObjectParser parser,
                                    final MantaHttpHeaders headers) throws IOException {
+        return httpGet(path, parser, headers, null);
+    }
+
+
+    /**
+     * Executes a HTTP GET against the remote Manta API.
+     *
+     * @param path The fully qualified path of the object. i.e. /user/stor/foo/bar/baz
+     * @param parser Parser used for parsing response into a POJO
+     * @param headers optional HTTP headers to include when getting an object
+     * @param timeouts timeouts overriding the configured timeouts or null
+     * @return Google HTTP Client response object
+     * @throws IOException when there is a problem getting the object over the network
+     */
+    protected HttpResponse httpGet(final String path,
+                                   final ObjectParser parser,
+                                   final MantaHttpHeaders headers,
+                                   final MantaTimeouts timeouts) throws IOException {
         Objects.requireNonNull(path, "Path must not be null");
 
         final GenericUrl genericUrl = new GenericUrl(this.url + formatPath(path));
-        return httpGet(genericUrl, parser, headers);
+        return httpGet(genericUrl, parser, headers, timeouts);
     }
 
 
@@ -171,28 +260,94 @@ public class HttpHelper {
     protected HttpResponse httpGet(final GenericUrl genericUrl,
                                    final ObjectParser parser,
                                    final MantaHttpHeaders headers) throws IOException {
+        return httpGet(genericUrl, parser, headers, null);
+    }
+
+
+    /**
+     * Executes a HTTP GET against the remote Manta API.
+     *
+     * @param genericUrl The URL to the object on Manta
+     * @param parser Parser used for parsing response into a POJO
+     * @param headers optional HTTP headers to include when getting an object
+     * @param timeouts timeouts overriding the configured timeouts or null
+     * @return Google HTTP Client response object
+     * @throws IOException when there is a problem getting the object over the network
+     */
+    protected HttpResponse httpGet(final GenericUrl genericUrl,
+                                   final ObjectParser parser,
+                                   final MantaHttpHeaders headers,
+                                   final MantaTimeouts timeouts) throws IOException {
         Objects.requireNonNull(genericUrl, "URL must be present");
 
         LOG.debug("GET    {}", genericUrl.getRawPath());
 
-        final HttpRequest request = httpRequestFactory.buildGetRequest(genericUrl);
+        final HttpRequest request = buildGetRequest(genericUrl, parser, headers, timeouts);
 
-        if (headers != null) {
-            request.setHeaders(headers.asGoogleClientHttpHeaders());
-        }
+        HttpResponse response = null;
 
-        if (parser != null) {
-            request.setParser(parser);
+        try {
+            response = executeIdempotent(request,
+                    () -> buildGetRequest(genericUrl, parser, headers, timeouts));
+            LOG.debug("GET    {} response [{}] {} ",
+                    genericUrl.getRawPath(),
+                    response.getStatusCode(),
+                    response.getStatusMessage());
+        } catch (IOException | UncheckedIOException e) {
+            throw buildException(e, request, response);
         }
 
+        return response;
+    }
+
+
+    /**
+     * Executes a conditional HTTP GET against the remote Manta API that
+     * only returns content when the object has changed. Unlike the other
+     * GET methods, a 304 Not Modified response is returned rather than
+     * thrown as an exception.
+     *
+     * @param path The fully qualified path of the object. i.e. /user/stor/foo/bar/baz
+     * @param etag entity tag of the known version of the object or null
+     * @param lastModified last modified date of the known version of the object or null
+     * @param timeouts timeouts overriding the configured timeouts or null
+     * @return Google HTTP Client response object with a 2xx or 304 status code
+     * @throws IOException when there is a problem getting the object over the network
+     */
+    HttpResponse httpConditionalGet(final String path,
+                                    final String etag,
+                                    final String lastModified,
+                                    final MantaTimeouts timeouts) throws IOException {
+        Objects.requireNonNull(path, "Path must not be null");
+
+        final GenericUrl genericUrl = new GenericUrl(this.url + formatPath(path));
+
+        LOG.debug("GET    {} if changed", genericUrl.getRawPath());
+
+        // Headers are created for each request because they are modified while signing
+        final RequestHedger.DuplicateRequest builder = () -> {
+            final MantaHttpHeaders headers = new MantaHttpHeaders();
+            headers.setIfNoneMatch(etag);
+            headers.setIfModifiedSince(lastModified);
+
+            return buildGetRequest(genericUrl, null, headers, timeouts)
+                    .setThrowExceptionOnExecuteError(false);
+        };
+
+        final HttpRequest request = builder.build();
         HttpResponse response = null;
 
         try {
-            response = request.execute();
+            response = executeIdempotent(request, builder);
             LOG.debug("GET    {} response [{}] {} ",
                     genericUrl.getRawPath(),
                     response.getStatusCode(),
                     response.getStatusMessage());
+
+            if (!response.isSuccessStatusCode()
+                    && response.getStatusCode() != HttpStatusCodes.STATUS_CODE_NOT_MODIFIED) {
+                throw new HttpResponseException(response);
+            }
         } catch (IOException | UncheckedIOException e) {
             throw buildException(e, request, response);
         }
@@ -201,6 +356,79 @@ public class HttpHelper {
     }
 
 
+    /**
+     * Builds a HTTP GET request.
+     *
+     * @param genericUrl The URL to the object on Manta
+     * @param parser Parser used for parsing response into a POJO or null
+     * @param headers optional HTTP headers to include when getting an object
+     * @param timeouts timeouts overriding the configured timeouts or null
+     * @return request ready to be executed
+     * @throws IOException thrown when the request can't be built
+     */
+    private HttpRequest buildGetRequest(final GenericUrl genericUrl,
+                                        final ObjectParser parser,
+                                        final MantaHttpHeaders headers,
+                                        final MantaTimeouts timeouts) throws IOException {
+        final HttpRequest request = httpRequestFactory.buildGetRequest(genericUrl);
+
+        if (timeouts != null) {
+            timeouts.applyTo(request);
+        }
+
+        if (headers != null) {
+            request.setHeaders(headers.asGoogleClientHttpHeaders());
+        }
+
+        if (parser != null) {
+            request.setParser(parser);
+        }
+
+        return request;
+    }
+
+
+    /**
+     * Builds a HTTP HEAD request.
+     *
+     * @param genericUrl The URL to the object on Manta
+     * @param timeouts timeouts overriding the configured timeouts or null
+     * @return request ready to be executed
+     * @throws IOException thrown when the request can't be built
+     */
+    private HttpRequest buildHeadRequest(final GenericUrl genericUrl,
+                                         final MantaTimeouts timeouts) throws IOException {
+        final HttpRequest request = httpRequestFactory.buildHeadRequest(genericUrl);
+
+        if (timeouts != null) {
+            timeouts.applyTo(request);
+        }
+
+        return request;
+    }
+
+
+    /**
+     * Executes an idempotent request, hedging it when hedging is enabled.
+     * The duplicate is built from the same arguments as the request rather
+     * than copied, because the request is modified while it is signed.
+     *
+     * @param request request to execute
+     * @param duplicate supplier of a duplicate of the request
+     * @return response of the request
+     * @throws IOException thrown when the request failed
+     */
+    private HttpResponse executeIdempotent(final HttpRequest request,
+                                           final RequestHedger.DuplicateRequest duplicate)
+            throws IOException {
+        if (requestHedger == null) {
+            return EndpointGuard.execute(request);
+        }
+
+        return requestHedger.execute(request, duplicate);
+    }
+
+
     /**
      * Utility method for handling HTTP POST to the Google HTTP Client.
      *
@@ -245,6 +473,32 @@ public class HttpHelper {
     }
 
 
+    /**
+     * Determines if the content of a request should be transparently
+     * compressed. We never compress empty content or content that the caller
+     * has already assigned a <code>Content-Encoding</code> or a
+     * <code>Content-MD5</code> checksum to, because the checksum would no
+     * longer match the stored content.
+     *
+     * @param headers HTTP headers to be sent with the request
+     * @param content content to be sent with the request
+     * @return true if the content should be compressed
+     * @throws IOException thrown when the content length can't be computed
+     */
+    private boolean shouldCompress(final MantaHttpHeaders headers,
+                                   final HttpContent content) throws IOException {
+        if (compressionCodec == null || content == null) {
+            return false;
+        }
+
+        if (headers.getContentEncoding() != null || headers.getContentMD5() != null) {
+            return false;
+        }
+
+        return content.getLength() != 0;
+    }
+
+
     /**
      * Executes an HTTP PUT against the remote Manta API.
      *
@@ -299,9 +553,13 @@ public class HttpHelper {
 
         request.setHeaders(httpHeaders.asGoogleClientHttpHeaders());
 
+        if (shouldCompress(httpHeaders, content)) {
+            request.setEncoding(compressionCodec.asHttpEncoding());
+        }
+
         HttpResponse response = null;
         try {
-            response = request.execute();
+            response = EndpointGuard.execute(request);
             LOG.debug("PUT    {} response [{}] {} ", path, response.getStatusCode(),
                     response.getStatusMessage());
             final MantaHttpHeaders responseHeaders = new MantaHttpHeaders(response.getHeaders());
@@ -371,7 +629,7 @@ public class HttpHelper {
         HttpResponse response = null;
 
         try {
-            response = request.execute();
+            response = EndpointGuard.execute(request);
             LOG.debug(logMessage, logParameters, response.getStatusCode(),
                     response.getStatusMessage());
 
@@ -411,7 +669,7 @@ public class HttpHelper {
         HttpResponse response = null;
 
         try {
-            response = request.execute();
+            response = EndpointGuard.execute(request);
             LOG.debug(logMessage, logParameters, response.getStatusCode(),
                     response.getStatusMessage());
 
@@ -4,7 +4,7 @@
 package com.joyent.manta.client;
 
 import com.google.api.client.http.HttpExecuteInterceptor;
-import com.google.api.client.http.HttpIOExceptionHandler;
+import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpRequestFactory;
 import com.google.api.client.http.HttpRequestInitializer;
 import com.google.api.client.http.HttpResponseInterceptor;
@@ -19,12 +19,15 @@ import com.joyent.http.signature.google.httpclient.RequestHttpSigner;
 import com.joyent.manta.config.ConfigContext;
 import com.joyent.manta.config.DefaultsConfigContext;
 import com.joyent.manta.config.MapConfigContext;
+import com.joyent.manta.exception.MantaClientException;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.params.HttpClientParams;
 import org.apache.http.conn.DnsResolver;
 import org.apache.http.conn.scheme.PlainSocketFactory;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
-import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.conn.scheme.SchemeSocketFactory;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.apache.http.impl.conn.ProxySelectorRoutePlanner;
@@ -36,6 +39,7 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.net.ProxySelector;
 
 import static com.joyent.manta.config.MapConfigContext.MANTA_NO_NATIVE_SIGS_KEY;
@@ -89,6 +93,31 @@ public class HttpRequestFactoryProvider implements AutoCloseable {
      */
     private final ConfigContext config;
 
+    /**
+     * Policy deciding which failed requests are retried and how long to wait.
+     */
+    private final RetryPolicy retryPolicy;
+
+    /**
+     * Limiter and circuit breaker for each endpoint or null when disabled.
+     */
+    private final EndpointGuard endpointGuard;
+
+    /**
+     * Hedger of slow GET and HEAD requests or null when disabled.
+     */
+    private final RequestHedger requestHedger;
+
+    /**
+     * Resolver choosing the load balancer addresses to connect to.
+     */
+    private final DnsResolver dnsResolver;
+
+    /**
+     * TLS socket factory of the Apache HTTP Client or null for other transports.
+     */
+    private MantaSSLSocketFactory sslSocketFactory;
+
     /**
      * Creates a new instance of class configured using the passed
      * {@link RequestHttpSigner}.
@@ -100,7 +129,44 @@ public class HttpRequestFactoryProvider implements AutoCloseable {
     public HttpRequestFactoryProvider(final RequestHttpSigner httpSigner,
                                       final ConfigContext config)
             throws IOException {
+        this(httpSigner, config, buildDnsResolver(config));
+    }
+
+    /**
+     * Creates a new instance of class configured using the passed
+     * {@link RequestHttpSigner} that connects to the addresses chosen by
+     * the passed {@link DnsResolver}. If the resolver implements
+     * {@link ConnectionObserver}, it is notified of every connection opened.
+     *
+     * @param httpSigner HTTP Signer used to sign Google HTTP requests
+     * @param config library configuration context reference
+     * @param dnsResolver resolver choosing the load balancer addresses to connect to
+     * @throws IOException thrown when the instance can't be setup properly
+     */
+    public HttpRequestFactoryProvider(final RequestHttpSigner httpSigner,
+                                      final ConfigContext config,
+                                      final DnsResolver dnsResolver)
+            throws IOException {
+        this(httpSigner, config, dnsResolver, null);
+    }
+
+    /**
+     * Creates a new instance of class that sends requests using the passed
+     * transport rather than the transport named in the configuration.
+     *
+     * @param httpSigner HTTP Signer used to sign Google HTTP requests
+     * @param config library configuration context reference
+     * @param dnsResolver resolver choosing the load balancer addresses to connect to
+     * @param transport transport used to send requests or null to use the configured transport
+     * @throws IOException thrown when the instance can't be setup properly
+     */
+    HttpRequestFactoryProvider(final RequestHttpSigner httpSigner,
+                               final ConfigContext config,
+                               final DnsResolver dnsResolver,
+                               final HttpTransport transport)
+            throws IOException {
         this.config = config;
+        this.dnsResolver = dnsResolver;
 
         /* Disable native signature generation if configured
          * There may be a race condition here because this flag is triggered
@@ -110,7 +176,108 @@ public class HttpRequestFactoryProvider implements AutoCloseable {
             System.setProperty(MapConfigContext.MANTA_NO_NATIVE_SIGS_KEY, "false");
         }
 
-        this.requestFactory = buildRequestFactory(httpSigner);
+        this.retryPolicy = buildRetryPolicy(config);
+
+        if (BooleanUtils.isTrue(config.useAdaptiveConcurrency())) {
+            this.endpointGuard = new EndpointGuard(maximumConnections(config));
+        } else {
+            this.endpointGuard = null;
+        }
+
+        if (config.getHedgePercentile() != null && config.getHedgePercentile() > 0) {
+            this.requestHedger = new RequestHedger(config.getHedgePercentile(),
+                    maximumConnections(config), MantaThreadFactory.useVirtualThreads(config));
+        } else {
+            this.requestHedger = null;
+        }
+
+        this.requestFactory = buildRequestFactory(httpSigner, transport);
+    }
+
+    /**
+     * @param config library configuration context reference
+     * @return configured maximum number of connections or the default
+     */
+    private static int maximumConnections(final ConfigContext config) {
+        if (config.getMaximumConnections() == null) {
+            return DefaultsConfigContext.DEFAULT_MAX_CONNS;
+        }
+
+        return config.getMaximumConnections();
+    }
+
+    /**
+     * Creates the DNS resolver selected by the configuration. Addresses are
+     * cached and selected by their health when a DNS cache TTL is set, and
+     * shuffled on every connection otherwise.
+     *
+     * @param config library configuration context reference
+     * @return configured DNS resolver
+     */
+    static DnsResolver buildDnsResolver(final ConfigContext config) {
+        final Integer ttl = config.getDnsCacheTTL();
+
+        if (ttl != null && ttl > 0) {
+            return new HealthAwareDnsResolver(ttl);
+        }
+
+        return new ShufflingDnsResolver();
+    }
+
+    /**
+     * Creates the retry policy implementation named in the configuration.
+     *
+     * @param config library configuration context reference
+     * @return configured retry policy
+     */
+    static RetryPolicy buildRetryPolicy(final ConfigContext config) {
+        final String className;
+
+        if (config.getRetryPolicy() == null) {
+            className = DefaultsConfigContext.DEFAULT_RETRY_POLICY;
+        } else {
+            className = config.getRetryPolicy();
+        }
+
+        if (className.equals(ExponentialBackoffRetryPolicy.class.getName())) {
+            return new ExponentialBackoffRetryPolicy(config);
+        }
+
+        try {
+            final Class<?> policyClass = Class.forName(className);
+            return policyClass.asSubclass(RetryPolicy.class)
+                    .getConstructor(ConfigContext.class)
+                    .newInstance(config);
+        } catch (ClassNotFoundException | ClassCastException | NoSuchMethodException
+                | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            String msg = String.format("Unable to create retry policy: %s", className);
+            throw new MantaClientException(msg, e);
+        }
+    }
+
+    /**
+     * @param timeout configured timeout in milliseconds or null
+     * @return the timeout or the general timeout when it isn't set
+     */
+    private int timeoutOrDefault(final Integer timeout) {
+        if (timeout != null) {
+            return timeout;
+        }
+
+        return valueOrDefault(config.getTimeout(), DefaultsConfigContext.DEFAULT_HTTP_TIMEOUT);
+    }
+
+    /**
+     * @param value configured value or null
+     * @param defaultValue value used when the configured value isn't set
+     * @return the configured value or the default value
+     */
+    private static int valueOrDefault(final Integer value, final int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+
+        return value;
     }
 
     /**
@@ -135,27 +302,31 @@ public class HttpRequestFactoryProvider implements AutoCloseable {
      * @return a configured instance of {@link HttpClient}
      */
     private HttpClient buildHttpClient() {
-        final HttpParams params = HTTP_PARAMS;
-        final SSLSocketFactory socketFactory = new MantaSSLSocketFactory(config);
-        final PlainSocketFactory plainSocketFactory = PlainSocketFactory.getSocketFactory();
+        // Copied because the connection pool timeout is specific to this client
+        final HttpParams params = HTTP_PARAMS.copy();
+        HttpClientParams.setConnectionManagerTimeout(params,
+                valueOrDefault(config.getConnectionRequestTimeout(),
+                        DefaultsConfigContext.DEFAULT_CONNECTION_REQUEST_TIMEOUT));
+        this.sslSocketFactory = new MantaSSLSocketFactory(config);
+        SchemeSocketFactory socketFactory = sslSocketFactory;
+        SchemeSocketFactory plainSocketFactory = PlainSocketFactory.getSocketFactory();
         final ProxySelector proxySelector = ProxySelector.getDefault();
 
+        if (dnsResolver instanceof ConnectionObserver) {
+            final ConnectionObserver observer = (ConnectionObserver)dnsResolver;
+            socketFactory = ObservedSocketFactory.wrap(socketFactory, observer);
+            plainSocketFactory = ObservedSocketFactory.wrap(plainSocketFactory, observer);
+        }
+
         // See http://hc.apache.org/httpcomponents-client-ga/tutorial/html/connmgmt.html
         final SchemeRegistry registry = new SchemeRegistry();
         registry.register(new Scheme("http", HTTP_PORT, plainSocketFactory));
         registry.register(new Scheme("https", HTTPS_PORT, socketFactory));
 
-
-        final DnsResolver resolver = new ShufflingDnsResolver();
         final PoolingClientConnectionManager connectionManager =
-                new PoolingClientConnectionManager(registry, resolver);
+                new PoolingClientConnectionManager(registry, dnsResolver);
 
-        final int maxConns;
-        if (config.getMaximumConnections() == null) {
-            maxConns = DefaultsConfigContext.DEFAULT_MAX_CONNS;
-        } else {
-            maxConns = config.getMaximumConnections();
-        }
+        final int maxConns = maximumConnections(config);
 
         connectionManager.setMaxTotal(maxConns);
         connectionManager.setDefaultMaxPerRoute(maxConns);
@@ -170,32 +341,44 @@ public class HttpRequestFactoryProvider implements AutoCloseable {
     }
 
     /**
-     * Builds a configured instance of {@link HttpRequestFactory}.
+     * Creates the {@link HttpTransport} named in the configuration.
      *
-     * @param httpSigner HTTP Signer used to sign Google HTTP requests or null to disable
-     * @return configured instance of {@link HttpRequestFactory}
-     * @throws IOException thrown when the instance can't be setup properly
+     * @return configured transport
      */
-    private HttpRequestFactory buildRequestFactory(final RequestHttpSigner httpSigner)
-            throws IOException {
-        final HttpTransport transport;
-
+    private HttpTransport buildTransport() {
         /* We only allow three choices for HttpTransport because we shade the
          * Google HTTP Client libraries, so even if you stick in another
          * library, you will have to make it comply with a munged classpath.
          */
         switch (config.getHttpTransport()) {
             case "MockHttpTransport":
-                transport = new MockHttpTransport();
-                break;
+                return new MockHttpTransport();
             case "NetHttpTransport":
-                transport = new NetHttpTransport();
-                break;
+                return new NetHttpTransport();
             case "ApacheHttpTransport":
-                transport = new ApacheHttpTransport(buildHttpClient());
-                break;
+                return new ApacheHttpTransport(buildHttpClient());
             default:
-                transport = new ApacheHttpTransport(buildHttpClient());
+                return new ApacheHttpTransport(buildHttpClient());
+        }
+    }
+
+    /**
+     * Builds a configured instance of {@link HttpRequestFactory}.
+     *
+     * @param httpSigner HTTP Signer used to sign Google HTTP requests or null to disable
+     * @param configuredTransport transport used to send requests or null to use the configured transport
+     * @return configured instance of {@link HttpRequestFactory}
+     * @throws IOException thrown when the instance can't be setup properly
+     */
+    private HttpRequestFactory buildRequestFactory(final RequestHttpSigner httpSigner,
+                                                   final HttpTransport configuredTransport)
+            throws IOException {
+        final HttpTransport transport;
+
+        if (configuredTransport != null) {
+            transport = configuredTransport;
+        } else {
+            transport = buildTransport();
         }
 
         if (LOG.isDebugEnabled()) {
@@ -208,23 +391,106 @@ public class HttpRequestFactoryProvider implements AutoCloseable {
         final HttpExecuteInterceptor signingInterceptor =
                 new SigningInterceptor(config, httpSigner);
 
-        final HttpResponseInterceptor responseInterceptor = response -> MDC.remove("mantaRequestId");
+        final HttpResponseInterceptor responseInterceptor = response -> {
+            MDC.remove("mantaRequestId");
+
+            if (response.isSuccessStatusCode()) {
+                retryPolicy.onSuccess();
+            }
+        };
 
-        final HttpIOExceptionHandler exceptionHandler = new MantaIOExceptionHandler();
+        final int connectTimeout = timeoutOrDefault(config.getConnectTimeout());
+        final int readTimeout = timeoutOrDefault(config.getReadTimeout());
+        final long deadlineMillis = valueOrDefault(config.getRequestDeadline(),
+                DefaultsConfigContext.DEFAULT_REQUEST_DEADLINE);
 
         final HttpRequestInitializer initializer = request -> {
-            request.setInterceptor(signingInterceptor);
             request.setResponseInterceptor(responseInterceptor);
             request.setParser(new JsonObjectParser(JSON_FACTORY));
             request.setLoggingEnabled(false);
             request.setNumberOfRetries(config.getRetries());
-            request.setIOExceptionHandler(exceptionHandler);
+            request.setConnectTimeout(connectTimeout);
+            request.setReadTimeout(readTimeout);
+
+            // The deadline and backoff state belong to a single request
+            final RequestDeadline deadline = new RequestDeadline(deadlineMillis);
+            final HttpExecuteInterceptor interceptor = r -> {
+                deadline.beforeAttempt(r);
+                signingInterceptor.intercept(r);
+            };
+
+            if (endpointGuard != null) {
+                guard(request, endpointGuard.newTracker(interceptor), responseInterceptor, deadline);
+                return;
+            }
+
+            final MantaRetryHandler retryHandler = new MantaRetryHandler(retryPolicy, deadline);
+            request.setInterceptor(interceptor);
+            request.setIOExceptionHandler(retryHandler);
+            request.setUnsuccessfulResponseHandler(retryHandler);
         };
 
         return transport.createRequestFactory(initializer);
     }
 
 
+    /**
+     * Sets up the handlers of a request so that each attempt is tracked by
+     * the limiter and circuit breaker of its endpoint. The tracker acquires
+     * permits after signing, so that a failure to sign can't leak a permit.
+     * The retry handler releases the permits of failed attempts, because
+     * the response interceptor is only invoked for the last attempt.
+     *
+     * @param request request to guard
+     * @param tracker tracker of the request's attempts wrapping its execute interceptor
+     * @param responseInterceptor interceptor invoked for the final response
+     * @param deadline deadline shared by all of the attempts of the request
+     */
+    private void guard(final HttpRequest request,
+                       final EndpointGuard.Tracker tracker,
+                       final HttpResponseInterceptor responseInterceptor,
+                       final RequestDeadline deadline) {
+        final MantaRetryHandler retryHandler = new MantaRetryHandler(retryPolicy, deadline, tracker);
+
+        request.setInterceptor(tracker);
+        request.setResponseInterceptor(response -> {
+            tracker.afterResponse(response);
+            responseInterceptor.interceptResponse(response);
+        });
+        request.setIOExceptionHandler(retryHandler);
+        request.setUnsuccessfulResponseHandler(retryHandler);
+    }
+
+
+    /**
+     * @return policy deciding which failed requests are retried and how long to wait
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @return limiter and circuit breaker for each endpoint or null when disabled
+     */
+    EndpointGuard getEndpointGuard() {
+        return endpointGuard;
+    }
+
+    /**
+     * @return hedger of slow GET and HEAD requests or null when disabled
+     */
+    RequestHedger getRequestHedger() {
+        return requestHedger;
+    }
+
+    /**
+     * @return TLS socket factory counting handshakes or null when the
+     *         Apache HTTP Client transport isn't used
+     */
+    public MantaSSLSocketFactory getSSLSocketFactory() {
+        return sslSocketFactory;
+    }
+
     /**
      * @return configured instance of {@link HttpRequestFactory}
      */
@@ -234,9 +500,13 @@ public class HttpRequestFactoryProvider implements AutoCloseable {
 
     @Override
     public void close() throws Exception {
+        if (requestHedger != null) {
+            requestHedger.close();
+        }
+
         final HttpTransport transport = requestFactory.getTransport();
 
-        if (config.getHttpTransport().equals("ApacheHttpTransport")) {
+        if (transport instanceof ApacheHttpTransport) {
             // We know this will cast fine because it is configured as such
             @SuppressWarnings("unchecked")
             ApacheHttpTransport apacheTransport = (ApacheHttpTransport)transport;
@@ -0,0 +1,322 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * <p>{@link MantaPublisher} of the items read from a blocking source, such
+ * as a directory listing or the content of an object. The source is only
+ * opened and read by tasks run on an executor, when the subscriber has
+ * requested items, so that subscribers running on event loops never
+ * block and no more items are read than were requested.</p>
+ *
+ * <p>Each subscriber opens its own source. The source is closed when it
+ * is exhausted, when it fails and when the subscription is cancelled.</p>
+ *
+ * @param <T> type of the published items
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class MantaBlockingPublisher<T> implements MantaPublisher<T> {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MantaBlockingPublisher.class);
+
+    /**
+     * Executor running the tasks reading the source.
+     */
+    private final Executor executor;
+
+    /**
+     * Factory opening a new source for each subscriber.
+     */
+    private final SourceFactory<T> sourceFactory;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param executor executor running the tasks reading the source
+     * @param sourceFactory factory opening a new source for each subscriber
+     */
+    MantaBlockingPublisher(final Executor executor, final SourceFactory<T> sourceFactory) {
+        this.executor = Objects.requireNonNull(executor, "Executor must be present");
+        this.sourceFactory = Objects.requireNonNull(sourceFactory, "Source factory must be present");
+    }
+
+    /**
+     * Creates a publisher of the elements of a {@link Stream}, such as the
+     * streams returned by {@link MantaClient#listObjects(String)}.
+     *
+     * @param executor executor running the tasks reading the stream
+     * @param streamFactory factory opening a new stream for each subscriber
+     * @param <T> type of the published items
+     * @return new instance
+     */
+    static <T> MantaBlockingPublisher<T> fromStream(final Executor executor,
+                                                    final StreamFactory<T> streamFactory) {
+        return new MantaBlockingPublisher<>(executor, () -> {
+            final Stream<T> stream = streamFactory.open();
+            final Iterator<T> iterator = stream.iterator();
+
+            return new Source<T>() {
+                @Override
+                public T next() {
+                    if (iterator.hasNext()) {
+                        return iterator.next();
+                    }
+
+                    return null;
+                }
+
+                @Override
+                public void close() {
+                    stream.close();
+                }
+            };
+        });
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber must be present");
+        final BlockingSubscription subscription = new BlockingSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * Factory opening a new source of items.
+     *
+     * @param <T> type of the items
+     */
+    @FunctionalInterface
+    interface SourceFactory<T> {
+        /**
+         * @return new source
+         * @throws IOException thrown when the source can't be opened
+         */
+        Source<T> open() throws IOException;
+    }
+
+    /**
+     * Factory opening a new {@link Stream} of items.
+     *
+     * @param <T> type of the items
+     */
+    @FunctionalInterface
+    interface StreamFactory<T> {
+        /**
+         * @return new stream, closed once it has been read
+         * @throws IOException thrown when the stream can't be opened
+         */
+        Stream<T> open() throws IOException;
+    }
+
+    /**
+     * Blocking source of items.
+     *
+     * @param <T> type of the items
+     */
+    interface Source<T> extends AutoCloseable {
+        /**
+         * Reads the next item, blocking until it is available.
+         *
+         * @return next item or null when there are no more items
+         * @throws IOException thrown when the item can't be read
+         */
+        T next() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Subscription reading the requested items from a source on the
+     * executor. Signals to the subscriber are serialized by only running
+     * one drain task at a time: a task is only submitted by the caller
+     * that increments {@link #workInProgress} from zero, and the running
+     * task keeps draining until it has caught up with every increment.
+     */
+    private final class BlockingSubscription implements Subscription, Runnable {
+        /**
+         * Subscriber receiving the items.
+         */
+        private final Subscriber<? super T> subscriber;
+
+        /**
+         * Number of items requested and not yet emitted, capped at {@link Long#MAX_VALUE}.
+         */
+        private final AtomicLong requested = new AtomicLong();
+
+        /**
+         * Number of signals not yet handled by the drain task.
+         */
+        private final AtomicInteger workInProgress = new AtomicInteger();
+
+        /**
+         * Flag indicating that the subscription was cancelled.
+         */
+        private volatile boolean cancelled;
+
+        /**
+         * Invalid request to report to the subscriber or null.
+         */
+        private volatile IllegalArgumentException invalidRequest;
+
+        /**
+         * Source of the items or null until items are first requested.
+         * Only accessed by the drain task.
+         */
+        private Source<T> source;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param subscriber subscriber receiving the items
+         */
+        private BlockingSubscription(final Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException(
+                        "Number of requested items must be greater than zero, but was " + n);
+            } else {
+                requested.getAndUpdate(current -> {
+                    final long sum = current + n;
+
+                    if (sum < 0) {
+                        return Long.MAX_VALUE;
+                    }
+
+                    return sum;
+                });
+            }
+
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            signal();
+        }
+
+        /**
+         * Schedules the drain task unless it is already running.
+         */
+        private void signal() {
+            if (workInProgress.getAndIncrement() != 0) {
+                return;
+            }
+
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                cancelled = true;
+                subscriber.onError(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+
+            do {
+                while (true) {
+                    if (cancelled) {
+                        closeSource();
+                        return;
+                    }
+
+                    if (invalidRequest != null) {
+                        terminate(invalidRequest);
+                        return;
+                    }
+
+                    if (requested.get() == 0) {
+                        break;
+                    }
+
+                    final T item;
+
+                    try {
+                        if (source == null) {
+                            source = sourceFactory.open();
+                        }
+
+                        item = source.next();
+                    } catch (IOException | RuntimeException e) {
+                        terminate(e);
+                        return;
+                    }
+
+                    if (item == null) {
+                        terminate(null);
+                        return;
+                    }
+
+                    requested.decrementAndGet();
+
+                    try {
+                        subscriber.onNext(item);
+                    } catch (RuntimeException e) {
+                        LOG.warn("Subscriber failed to receive item, cancelling subscription", e);
+                        cancelled = true;
+                    }
+                }
+
+                missed = workInProgress.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Closes the source and completes the subscription. The work in
+         * progress counter is left above zero so that no drain task is
+         * scheduled afterwards.
+         *
+         * @param error error to signal or null to signal completion
+         */
+        private void terminate(final Exception error) {
+            cancelled = true;
+            closeSource();
+
+            if (error == null) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(error);
+            }
+        }
+
+        /**
+         * Closes the source if it was opened.
+         */
+        private void closeSource() {
+            if (source == null) {
+                return;
+            }
+
+            try {
+                source.close();
+            } catch (IOException | RuntimeException e) {
+                LOG.debug("Unable to close publisher source", e);
+            }
+
+            source = null;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Pool of fixed size byte arrays borrowed by the client when copying
+ * object content, so that transferring large amounts of data doesn't
+ * allocate a new buffer for each transfer.</p>
+ *
+ * <p>Pooled buffers are split between arenas, and each thread borrows
+ * from and returns to the arena selected by its id, so that threads
+ * rarely contend for the same buffers. Borrowing and returning are lock
+ * free and don't allocate. When an arena is empty a new buffer is
+ * allocated, and when it is full a returned buffer is left to the
+ * garbage collector, so the pool never holds more than
+ * <code>arenas * buffersPerArena</code> buffers.</p>
+ *
+ * <p>All of the client's transfers share the {@link #getDefault() default}
+ * pool, whose counters can be used to monitor how often buffers are
+ * reused.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public final class MantaBufferPool {
+    /**
+     * Size of the buffers of the default pool.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Number of buffers kept by each arena of the default pool.
+     */
+    private static final int DEFAULT_BUFFERS_PER_ARENA = 4;
+
+    /**
+     * Pool shared by all of the client's transfers.
+     */
+    private static final MantaBufferPool DEFAULT = new MantaBufferPool(DEFAULT_BUFFER_SIZE,
+            Runtime.getRuntime().availableProcessors(), DEFAULT_BUFFERS_PER_ARENA);
+
+    /**
+     * Size of each buffer in bytes.
+     */
+    private final int bufferSize;
+
+    /**
+     * Number of arenas.
+     */
+    private final int arenas;
+
+    /**
+     * Number of buffers kept by each arena.
+     */
+    private final int buffersPerArena;
+
+    /**
+     * Slots of the pooled buffers, with the slots of each arena next to
+     * each other. Empty slots are null.
+     */
+    private final AtomicReferenceArray<byte[]> slots;
+
+    /**
+     * Number of buffers borrowed.
+     */
+    private final LongAdder acquired = new LongAdder();
+
+    /**
+     * Number of buffers allocated because the arena was empty.
+     */
+    private final LongAdder allocated = new LongAdder();
+
+    /**
+     * Number of buffers returned.
+     */
+    private final LongAdder released = new LongAdder();
+
+    /**
+     * Number of returned buffers discarded because the arena was full.
+     */
+    private final LongAdder discarded = new LongAdder();
+
+    /**
+     * Creates a new pool.
+     *
+     * @param bufferSize size of each buffer in bytes
+     * @param arenas number of arenas
+     * @param buffersPerArena number of buffers kept by each arena
+     */
+    public MantaBufferPool(final int bufferSize, final int arenas, final int buffersPerArena) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be greater than zero");
+        }
+
+        if (arenas < 1) {
+            throw new IllegalArgumentException("Number of arenas must be greater than zero");
+        }
+
+        if (buffersPerArena < 0) {
+            throw new IllegalArgumentException("Number of buffers per arena must not be negative");
+        }
+
+        this.bufferSize = bufferSize;
+        this.arenas = arenas;
+        this.buffersPerArena = buffersPerArena;
+        this.slots = new AtomicReferenceArray<>(arenas * buffersPerArena);
+    }
+
+    /**
+     * @return pool shared by all of the client's transfers
+     */
+    public static MantaBufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Borrows a buffer, which should be returned with
+     * {@link #release(byte[])} once it is no longer used. The content of
+     * the buffer is undefined.
+     *
+     * @return buffer of {@link #getBufferSize()} bytes
+     */
+    public byte[] acquire() {
+        acquired.increment();
+        final int first = firstSlot();
+
+        for (int i = first; i < first + buffersPerArena; i++) {
+            final byte[] buffer = slots.getAndSet(i, null);
+
+            if (buffer != null) {
+                return buffer;
+            }
+        }
+
+        allocated.increment();
+        return new byte[bufferSize];
+    }
+
+    /**
+     * Returns a buffer borrowed with {@link #acquire()}. The buffer must
+     * not be used afterwards. Null and buffers of a different size are
+     * ignored.
+     *
+     * @param buffer buffer to return
+     */
+    public void release(final byte[] buffer) {
+        if (buffer == null || buffer.length != bufferSize) {
+            return;
+        }
+
+        released.increment();
+        final int first = firstSlot();
+
+        for (int i = first; i < first + buffersPerArena; i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, buffer)) {
+                return;
+            }
+        }
+
+        discarded.increment();
+    }
+
+    /**
+     * Copies all of the bytes of a stream to another through a pooled
+     * buffer. Neither stream is closed.
+     *
+     * @param in stream to read from
+     * @param out stream to write to
+     * @return number of bytes copied
+     * @throws IOException thrown when the streams can't be read or written
+     */
+    public long copy(final InputStream in, final OutputStream out) throws IOException {
+        final byte[] buffer = acquire();
+        long total = 0;
+
+        try {
+            int read;
+
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                total += read;
+            }
+        } finally {
+            release(buffer);
+        }
+
+        return total;
+    }
+
+    /**
+     * @return index of the first slot of the calling thread's arena
+     */
+    private int firstSlot() {
+        return (int)(Thread.currentThread().getId() % arenas) * buffersPerArena;
+    }
+
+    /**
+     * @return size of each buffer in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return number of buffers borrowed since the pool was created
+     */
+    public long getAcquired() {
+        return acquired.sum();
+    }
+
+    /**
+     * @return number of buffers allocated because no pooled buffer was available
+     */
+    public long getAllocated() {
+        return allocated.sum();
+    }
+
+    /**
+     * @return number of buffers returned since the pool was created
+     */
+    public long getReleased() {
+        return released.sum();
+    }
+
+    /**
+     * @return number of returned buffers left to the garbage collector because the pool was full
+     */
+    public long getDiscarded() {
+        return discarded.sum();
+    }
+
+    /**
+     * @return number of buffers currently borrowed
+     */
+    public long getOutstanding() {
+        return acquired.sum() - released.sum();
+    }
+
+    /**
+     * @return number of buffers currently held by the pool
+     */
+    public int getPooled() {
+        int pooled = 0;
+
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null) {
+                pooled++;
+            }
+        }
+
+        return pooled;
+    }
+
+    @Override
+    public String toString() {
+        return "MantaBufferPool{"
+                + "bufferSize=" + bufferSize
+                + ", arenas=" + arenas
+                + ", buffersPerArena=" + buffersPerArena
+                + ", pooled=" + getPooled()
+                + ", acquired=" + getAcquired()
+                + ", allocated=" + getAllocated()
+                + ", released=" + getReleased()
+                + ", discarded=" + getDiscarded()
+                + '}';
+    }
+}
@@ -0,0 +1,516 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.joyent.manta.config.ConfigContext;
+import com.joyent.manta.config.DefaultsConfigContext;
+import com.joyent.manta.exception.MantaClientException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * <p>Fluent interface for running a large number of small operations, such
+ * as metadata updates, snaplinks, deletes, HEAD requests and directory
+ * creations. Queued operations are run concurrently, by default with as
+ * many operations in flight as there are connections in the client's
+ * connection pool, so that every pooled connection is kept busy.</p>
+ *
+ * <p>Each operation yields a {@link Result}. An operation that fails
+ * doesn't stop the other operations; its error is reported in its
+ * result instead.</p>
+ *
+ * <p>Operations run on a thread pool shared by all instances, whose
+ * threads are stopped after being idle for a minute, so that executing
+ * many small batches doesn't start new threads for each of them.</p>
+ *
+ * <pre>{@code
+ * List<MantaBulk.Result> results = client.bulk()
+ *         .putMetadata("/user/stor/a", metadata)
+ *         .putSnapLink("/user/stor/b", "/user/stor/a")
+ *         .delete("/user/stor/c")
+ *         .execute();
+ * }</pre>
+ *
+ * <p>Instances aren't thread-safe and can be executed more than once.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class MantaBulk {
+    /**
+     * Counter used to give each bulk thread a unique name.
+     */
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * Executor service running the operations of all instances.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new MantaThreadFactory("manta-bulk-", THREAD_COUNTER, false));
+
+    /**
+     * Reference to the {@link MantaClient} running the operations.
+     */
+    private final MantaClient client;
+
+    /**
+     * Queued operations in the order they were added.
+     */
+    private final List<Operation> operations = new ArrayList<>();
+
+    /**
+     * Executor service running the operations.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Maximum number of operations running at the same time.
+     */
+    private int parallelism;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param client Manta client running the operations
+     * @param config configuration of the client, used to size the parallelism
+     */
+    MantaBulk(final MantaClient client, final ConfigContext config) {
+        this.client = client;
+        this.executor = executor(config);
+
+        if (config.getMaximumConnections() == null) {
+            this.parallelism = DefaultsConfigContext.DEFAULT_MAX_CONNS;
+        } else {
+            this.parallelism = config.getMaximumConnections();
+        }
+    }
+
+    /**
+     * Sets the maximum number of operations running at the same time.
+     * Values above the size of the client's connection pool only make
+     * operations wait for a connection.
+     *
+     * @param maxInFlight number of operations, 1 or greater
+     * @return reference to this instance
+     */
+    public MantaBulk setParallelism(final int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Parallelism must be 1 or greater");
+        }
+
+        this.parallelism = maxInFlight;
+        return this;
+    }
+
+    /**
+     * @return maximum number of operations running at the same time
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return number of queued operations
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * Queues a HEAD request.
+     *
+     * @param path fully qualified path of the object or directory
+     * @return reference to this instance
+     */
+    public MantaBulk head(final String path) {
+        return add(new Operation(OperationType.HEAD, path, null, null));
+    }
+
+    /**
+     * Queues the removal of an object or an empty directory.
+     *
+     * @param path fully qualified path of the object or directory
+     * @return reference to this instance
+     */
+    public MantaBulk delete(final String path) {
+        return add(new Operation(OperationType.DELETE, path, null, null));
+    }
+
+    /**
+     * Queues the creation of a directory.
+     *
+     * @param path fully qualified path of the directory
+     * @return reference to this instance
+     */
+    public MantaBulk putDirectory(final String path) {
+        return add(new Operation(OperationType.PUT_DIRECTORY, path, null, null));
+    }
+
+    /**
+     * Queues the replacement of the metadata of an object.
+     *
+     * @param path fully qualified path of the object
+     * @param metadata new metadata of the object
+     * @return reference to this instance
+     */
+    public MantaBulk putMetadata(final String path, final MantaMetadata metadata) {
+        Objects.requireNonNull(metadata, "Metadata must be present");
+        return add(new Operation(OperationType.PUT_METADATA, path, null, metadata));
+    }
+
+    /**
+     * Queues the creation of a snaplink.
+     *
+     * @param linkPath fully qualified path of the new link
+     * @param objectPath fully qualified path of the existing object
+     * @return reference to this instance
+     */
+    public MantaBulk putSnapLink(final String linkPath, final String objectPath) {
+        Objects.requireNonNull(objectPath, "Object path must be present");
+        return add(new Operation(OperationType.PUT_SNAPLINK, linkPath, objectPath, null));
+    }
+
+    /**
+     * Runs all queued operations and waits for them to complete.
+     *
+     * @return results in the order the operations were queued
+     */
+    public List<Result> execute() {
+        final Result[] results = new Result[operations.size()];
+        final List<Operation> queued = new ArrayList<>(operations);
+
+        run(queued, result -> results[result.index] = result);
+
+        final List<Result> ordered = new ArrayList<>(results.length);
+        Collections.addAll(ordered, results);
+        return ordered;
+    }
+
+    /**
+     * Runs all queued operations and passes each result to a consumer as
+     * soon as its operation completes, without keeping the results in
+     * memory. The consumer is always invoked from the calling thread.
+     *
+     * @param consumer consumer accepting the results in the order they complete
+     */
+    public void execute(final Consumer<Result> consumer) {
+        Objects.requireNonNull(consumer, "Consumer must be present");
+        run(new ArrayList<>(operations), consumer);
+    }
+
+    /**
+     * Queues an operation.
+     *
+     * @param operation operation to queue
+     * @return reference to this instance
+     */
+    private MantaBulk add(final Operation operation) {
+        Objects.requireNonNull(operation.path, "Path must be present");
+        operations.add(operation);
+        return this;
+    }
+
+    /**
+     * Selects the executor service running operations.
+     *
+     * @param config library configuration context reference
+     * @return executor service running operations on virtual threads if enabled, otherwise {@link #EXECUTOR}
+     */
+    static ExecutorService executor(final ConfigContext config) {
+        if (MantaThreadFactory.useVirtualThreads(config) && MantaThreadFactory.isVirtualThreadSupported()) {
+            return VirtualExecutorHolder.EXECUTOR;
+        }
+
+        return EXECUTOR;
+    }
+
+    /**
+     * Runs operations with at most {@link #parallelism} in flight. When
+     * running the operations fails, such as when the consumer throws an
+     * exception, the operations in flight are cancelled and no further
+     * operations are run.
+     *
+     * @param queued operations to run
+     * @param consumer consumer accepting the results in the order they complete
+     */
+    private void run(final List<Operation> queued, final Consumer<Result> consumer) {
+        if (queued.isEmpty()) {
+            return;
+        }
+
+        final int maxInFlight = Math.min(parallelism, queued.size());
+        final CompletionService<Result> completionService = new ExecutorCompletionService<>(executor);
+        final Set<Future<Result>> inFlight = new HashSet<>(maxInFlight * 2);
+
+        try {
+            int submitted = 0;
+
+            while (submitted < queued.size() || !inFlight.isEmpty()) {
+                while (submitted < queued.size() && inFlight.size() < maxInFlight) {
+                    final int index = submitted;
+                    inFlight.add(completionService.submit(() -> perform(index, queued.get(index))));
+                    submitted++;
+                }
+
+                final Future<Result> done = completionService.take();
+                inFlight.remove(done);
+                consumer.accept(done.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MantaClientException("Interrupted while running bulk operations", e);
+        } catch (ExecutionException e) {
+            throw new MantaClientException("Unable to run bulk operation", e.getCause());
+        } finally {
+            for (Future<Result> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Performs a single operation.
+     *
+     * @param index position of the operation in the queue
+     * @param operation operation to perform
+     * @return result of the operation
+     */
+    private Result perform(final int index, final Operation operation) {
+        try {
+            MantaObjectResponse response = null;
+
+            switch (operation.type) {
+                case HEAD:
+                    response = client.head(operation.path);
+                    break;
+                case DELETE:
+                    client.delete(operation.path);
+                    break;
+                case PUT_DIRECTORY:
+                    client.putDirectory(operation.path);
+                    break;
+                case PUT_METADATA:
+                    response = client.putMetadata(operation.path, operation.metadata);
+                    break;
+                case PUT_SNAPLINK:
+                    client.putSnapLink(operation.path, operation.source, null);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation: " + operation.type);
+            }
+
+            return new Result(index, operation, response, null);
+        } catch (IOException | RuntimeException e) {
+            return new Result(index, operation, null, e);
+        }
+    }
+
+    /**
+     * Holder of the executor service running operations on virtual threads,
+     * created when it is first used.
+     */
+    private static final class VirtualExecutorHolder {
+        /**
+         * Executor service running the operations of all instances on virtual threads.
+         */
+        private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+                new MantaThreadFactory("manta-bulk-", THREAD_COUNTER, true));
+    }
+
+    /**
+     * Types of operations that can be run in bulk.
+     */
+    public enum OperationType {
+        /**
+         * HEAD request of an object or directory.
+         */
+        HEAD,
+
+        /**
+         * Removal of an object or an empty directory.
+         */
+        DELETE,
+
+        /**
+         * Creation of a directory.
+         */
+        PUT_DIRECTORY,
+
+        /**
+         * Replacement of the metadata of an object.
+         */
+        PUT_METADATA,
+
+        /**
+         * Creation of a snaplink.
+         */
+        PUT_SNAPLINK
+    }
+
+    /**
+     * Single queued operation.
+     */
+    public static final class Operation {
+        /**
+         * Type of the operation.
+         */
+        private final OperationType type;
+
+        /**
+         * Path the operation applies to.
+         */
+        private final String path;
+
+        /**
+         * Path of the linked object of snaplinks, otherwise null.
+         */
+        private final String source;
+
+        /**
+         * Metadata of metadata updates, otherwise null.
+         */
+        private final MantaMetadata metadata;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param type type of the operation
+         * @param path path the operation applies to
+         * @param source path of the linked object of snaplinks
+         * @param metadata metadata of metadata updates
+         */
+        private Operation(final OperationType type, final String path,
+                          final String source, final MantaMetadata metadata) {
+            this.type = type;
+            this.path = path;
+            this.source = source;
+            this.metadata = metadata;
+        }
+
+        /**
+         * @return type of the operation
+         */
+        public OperationType getType() {
+            return type;
+        }
+
+        /**
+         * @return path the operation applies to, such as the path of the new link of snaplinks
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return path of the linked object of snaplinks, otherwise null
+         */
+        public String getSource() {
+            return source;
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + path;
+        }
+    }
+
+    /**
+     * Outcome of a single operation.
+     */
+    public static final class Result {
+        /**
+         * Position of the operation in the queue.
+         */
+        private final int index;
+
+        /**
+         * Operation that produced this result.
+         */
+        private final Operation operation;
+
+        /**
+         * Response of HEAD and metadata operations, otherwise null.
+         */
+        private final MantaObjectResponse response;
+
+        /**
+         * Error of failed operations, otherwise null.
+         */
+        private final Exception error;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param index position of the operation in the queue
+         * @param operation operation that produced this result
+         * @param response response of HEAD and metadata operations
+         * @param error error of failed operations
+         */
+        private Result(final int index, final Operation operation,
+                       final MantaObjectResponse response, final Exception error) {
+            this.index = index;
+            this.operation = operation;
+            this.response = response;
+            this.error = error;
+        }
+
+        /**
+         * @return position of the operation in the order it was queued
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return operation that produced this result
+         */
+        public Operation getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return response of successful HEAD and metadata operations, otherwise null
+         */
+        public MantaObjectResponse getResponse() {
+            return response;
+        }
+
+        /**
+         * @return error of failed operations, otherwise null
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        /**
+         * @return true if the operation succeeded
+         */
+        public boolean isSuccessful() {
+            return error == null;
+        }
+
+        @Override
+        public String toString() {
+            if (error == null) {
+                return operation + " succeeded";
+            }
+
+            return operation + " failed: " + error.getMessage();
+        }
+    }
+}
@@ -6,7 +6,6 @@ package com.joyent.manta.client;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.api.client.http.ByteArrayContent;
 import com.google.api.client.http.EmptyContent;
-import com.google.api.client.http.FileContent;
 import com.google.api.client.http.GenericUrl;
 import com.google.api.client.http.HttpContent;
 import com.google.api.client.http.HttpHeaders;
@@ -14,7 +13,8 @@ import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpRequestFactory;
 import com.google.api.client.http.HttpResponse;
 import com.google.api.client.http.HttpResponseException;
-import com.google.api.client.http.InputStreamContent;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.util.BackOff;
 import com.google.api.client.util.ObjectParser;
 import com.joyent.http.signature.ThreadLocalSigner;
 import com.joyent.http.signature.google.httpclient.RequestHttpSigner;
@@ -23,6 +23,7 @@ import com.joyent.manta.config.DefaultsConfigContext;
 import com.joyent.manta.exception.MantaClientException;
 import com.joyent.manta.exception.MantaClientHttpResponseException;
 import com.joyent.manta.exception.MantaErrorCode;
+import com.joyent.manta.exception.MantaIOException;
 import com.joyent.manta.exception.OnCloseAggregateException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.NoHttpResponseException;
@@ -37,16 +38,17 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.UncheckedIOException;
-import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.security.KeyPair;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.TemporalAmount;
 import java.util.ArrayList;
@@ -54,11 +56,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -93,6 +93,11 @@ public class MantaClient implements AutoCloseable {
      */
     private static final int HTTP_STATUSCODE_202_ACCEPTED = 202;
 
+    /**
+     * The lowest standard http status code representing a server error.
+     */
+    private static final int HTTP_STATUSCODE_500_SERVER_ERROR = 500;
+
     /**
      * The content-type used to represent Manta link resources.
      */
@@ -151,11 +156,25 @@ public class MantaClient implements AutoCloseable {
     private final ConfigContext config;
 
     /**
-     * Collection of all of the {@link AutoCloseable} objects that will need to be
-     * closed when MantaClient is closed.
+     * Registry of all of the {@link AutoCloseable} objects that will need to be
+     * closed when MantaClient is closed, which also reports the leaked ones.
+     */
+    private final MantaLeakTracker leakTracker;
+
+    /**
+     * Cache of HEAD request results or null when caching is disabled.
+     */
+    private final MantaMetadataCache metadataCache;
+
+    /**
+     * Cache of downloaded object content or null when caching is disabled.
      */
-    private final Set<WeakReference<? extends AutoCloseable>> danglingStreams
-            = ConcurrentHashMap.newKeySet();
+    private final MantaObjectCache objectCache;
+
+    /**
+     * Lazily created service shared by all callers for watching jobs for completion.
+     */
+    private volatile MantaJobWatcher jobWatcher;
 
     /**
      * Creates a new instance of a Manta client.
@@ -164,6 +183,18 @@ public class MantaClient implements AutoCloseable {
      * @throws IOException If unable to instantiate the client.
      */
     public MantaClient(final ConfigContext config) throws IOException {
+        this(config, null);
+    }
+
+    /**
+     * Creates a new instance of a Manta client that sends its requests
+     * using the specified transport rather than the configured transport.
+     *
+     * @param config The configuration context that provides all of the configuration values.
+     * @param transport transport used to send requests or null to use the configured transport
+     * @throws IOException If unable to instantiate the client.
+     */
+    MantaClient(final ConfigContext config, final HttpTransport transport) throws IOException {
         final String mantaURL = config.getMantaURL();
         final String account = config.getMantaUser();
         final String keyPath = config.getMantaKeyPath();
@@ -214,9 +245,14 @@ public class MantaClient implements AutoCloseable {
 
         this.httpSigner = new RequestHttpSigner(keyPair, account, fingerprint, signer);
         this.httpRequestFactoryProvider = new HttpRequestFactoryProvider(httpSigner,
-                config);
+                config, HttpRequestFactoryProvider.buildDnsResolver(config), transport);
         this.home = ConfigContext.deriveHomeDirectoryFromUser(account);
-        this.httpHelper = new HttpHelper(mantaURL, httpRequestFactoryProvider.getRequestFactory());
+        this.httpHelper = new HttpHelper(mantaURL,
+                httpRequestFactoryProvider.getRequestFactory(), config,
+                httpRequestFactoryProvider.getRequestHedger());
+        this.objectCache = MantaObjectCache.fromConfig(config);
+        this.metadataCache = MantaMetadataCache.fromConfig(config);
+        this.leakTracker = MantaLeakTracker.fromConfig(config);
     }
 
 
@@ -236,6 +272,7 @@ public class MantaClient implements AutoCloseable {
         final HttpRequest request = httpRequestFactory.buildDeleteRequest(genericUrl);
 
         httpHelper.executeAndCloseRequest(request, "DELETE {} response [{}] {} ", path);
+        invalidateCaches(path);
     }
 
 
@@ -285,6 +322,7 @@ public class MantaClient implements AutoCloseable {
                 final int waitTime = 400;
                 Thread.sleep(waitTime);
                 LOG.warn("First attempt to delete directory failed, retrying");
+                invalidateCaches(path);
                 // Re-attempt to delete the directory
                 this.deleteRecursive(path);
             } catch (InterruptedException ie) {
@@ -307,6 +345,14 @@ public class MantaClient implements AutoCloseable {
      * @throws MantaClientHttpResponseException                If a http status code {@literal > 300} is returned.
      */
     public MantaObjectResponse get(final String path) throws IOException {
+        if (objectCache != null) {
+            final MantaObjectResponse cached = objectCache.get(path, httpHelper);
+
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         final HttpResponse response = httpHelper.httpGet(path);
 
         try {
@@ -334,11 +380,38 @@ public class MantaClient implements AutoCloseable {
     public MantaObjectInputStream getAsInputStream(final String path,
                                                    final MantaHttpHeaders requestHeaders)
             throws IOException {
-        final HttpResponse response = httpHelper.httpGet(path, null, requestHeaders);
-        final MantaHttpHeaders responseHeaders = new MantaHttpHeaders(response.getHeaders());
-        final MantaObjectResponse metadata = new MantaObjectResponse(path, responseHeaders);
+        return getAsInputStream(path, requestHeaders, null);
+    }
 
-        if (metadata.isDirectory()) {
+    /**
+     * Get a Manta object's data as an {@link InputStream} using timeouts
+     * that override the configured timeouts, such as a long read timeout
+     * for a large object. When the object cache is enabled and no request
+     * headers are passed, the object is read from the cache if it hasn't
+     * changed.
+     *
+     * @param path The fully qualified path of the object. i.e. /user/stor/foo/bar/baz
+     * @param requestHeaders optional HTTP headers to include when getting an object
+     * @param timeouts timeouts overriding the configured timeouts or null
+     * @return {@link InputStream} that extends {@link MantaObjectResponse}.
+     * @throws IOException when there is a problem getting the object over the network
+     */
+    public MantaObjectInputStream getAsInputStream(final String path,
+                                                   final MantaHttpHeaders requestHeaders,
+                                                   final MantaTimeouts timeouts)
+            throws IOException {
+        final MantaObjectInputStream in;
+
+        if (objectCache != null && requestHeaders == null) {
+            in = objectCache.getAsInputStream(path, httpHelper, timeouts);
+        } else {
+            final HttpResponse response = httpHelper.httpGet(path, null, requestHeaders, timeouts);
+            final MantaHttpHeaders responseHeaders = new MantaHttpHeaders(response.getHeaders());
+            in = new MantaObjectInputStream(new MantaObjectResponse(path, responseHeaders), response);
+        }
+
+        if (in.isDirectory()) {
+            in.close();
             final String msg = "Directories do not have data, so data streams "
                     + "from directories are not possible.";
             final MantaClientException exception = new MantaClientException(msg);
@@ -347,8 +420,7 @@ public class MantaClient implements AutoCloseable {
             throw exception;
         }
 
-        MantaObjectInputStream in = new MantaObjectInputStream(metadata, response);
-        danglingStreams.add(new WeakReference<AutoCloseable>(in));
+        in.track(leakTracker);
 
         return in;
     }
@@ -414,7 +486,9 @@ public class MantaClient implements AutoCloseable {
         try (InputStream is = getAsInputStream(path)) {
             final Path temp = Files.createTempFile("manta-object", "tmp");
 
-            Files.copy(is, temp, StandardCopyOption.REPLACE_EXISTING);
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                MantaBufferPool.getDefault().copy(is, out);
+            }
 
             return temp;
         }
@@ -564,7 +638,41 @@ public class MantaClient implements AutoCloseable {
      * @throws MantaClientHttpResponseException                If a http status code {@literal > 300} is returned.
      */
     public MantaObjectResponse head(final String path) throws IOException {
-        final HttpResponse response = httpHelper.httpHead(path);
+        return head(path, null);
+    }
+
+
+    /**
+     * Get the metadata associated with a Manta object using timeouts that
+     * override the configured timeouts, such as a short deadline.
+     *
+     * @param path The fully qualified path of the object. i.e. /user/stor/foo/bar/baz
+     * @param timeouts timeouts overriding the configured timeouts or null
+     * @return The {@link MantaObjectResponse}.
+     * @throws IOException                                     If an IO exception has occurred.
+     * @throws MantaClientHttpResponseException                If a http status code {@literal > 300} is returned.
+     */
+    public MantaObjectResponse head(final String path, final MantaTimeouts timeouts) throws IOException {
+        if (metadataCache != null) {
+            return metadataCache.get(path, () -> headUncached(path, timeouts));
+        }
+
+        return headUncached(path, timeouts);
+    }
+
+
+    /**
+     * Get the metadata associated with a Manta object without using the
+     * metadata cache.
+     *
+     * @param path The fully qualified path of the object. i.e. /user/stor/foo/bar/baz
+     * @param timeouts timeouts overriding the configured timeouts or null
+     * @return The {@link MantaObjectResponse}.
+     * @throws IOException If an IO exception has occurred.
+     */
+    private MantaObjectResponse headUncached(final String path, final MantaTimeouts timeouts)
+            throws IOException {
+        final HttpResponse response = httpHelper.httpHead(path, timeouts);
         final MantaHttpHeaders headers = new MantaHttpHeaders(response.getHeaders());
         return new MantaObjectResponse(path, headers);
     }
@@ -580,7 +688,7 @@ public class MantaClient implements AutoCloseable {
     public MantaDirectoryListingIterator streamingIterator(final String path) throws IOException {
         MantaDirectoryListingIterator itr = new MantaDirectoryListingIterator(
                 this.url, path, httpHelper, MAX_RESULTS);
-        danglingStreams.add(new WeakReference<AutoCloseable>(itr));
+        itr.track(leakTracker);
         return itr;
     }
 
@@ -604,9 +712,12 @@ public class MantaClient implements AutoCloseable {
          */
         try {
             if (!itr.hasNext()) {
+                itr.close();
                 return Stream.empty();
             }
         } catch (UncheckedIOException e) {
+            itr.close();
+
             if (e.getCause() instanceof MantaClientHttpResponseException) {
                 MantaClientHttpResponseException cause = (MantaClientHttpResponseException)e.getCause();
                 @SuppressWarnings("unchecked")
@@ -615,11 +726,14 @@ public class MantaClient implements AutoCloseable {
             } else {
                 throw e;
             }
+        } catch (RuntimeException e) {
+            itr.close();
+            throw e;
         }
 
         Stream<Map<String, Object>> backingStream =
                 StreamSupport.stream(Spliterators.spliteratorUnknownSize(
-                        itr, Spliterator.ORDERED | Spliterator.NONNULL), false);
+                        itr, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(itr::close);
 
         Stream<MantaObject> stream = backingStream.map(item -> {
             String name = Objects.toString(item.get("name"));
@@ -630,37 +744,45 @@ public class MantaClient implements AutoCloseable {
                     StringUtils.removeEnd(path, SEPARATOR),
                     SEPARATOR,
                     StringUtils.removeStart(name, SEPARATOR));
-            MantaHttpHeaders headers = new MantaHttpHeaders();
-            headers.setLastModified(mtime);
+            final String contentType;
 
             if (type.equals("directory")) {
-                headers.setContentType(MantaObjectResponse.DIRECTORY_RESPONSE_CONTENT_TYPE);
+                contentType = MantaObjectResponse.DIRECTORY_RESPONSE_CONTENT_TYPE;
             } else {
-                headers.setContentType(ContentType.APPLICATION_OCTET_STREAM.toString());
+                contentType = ContentType.APPLICATION_OCTET_STREAM.toString();
             }
 
+            String etag = null;
             if (item.containsKey("etag")) {
-                headers.setETag(Objects.toString(item.get("etag")));
+                etag = Objects.toString(item.get("etag"));
             }
 
+            String size = null;
             if (item.containsKey("size")) {
-                long size = Long.parseLong(Objects.toString(item.get("size")));
-                headers.setContentLength(size);
+                size = String.valueOf(Long.parseLong(Objects.toString(item.get("size"))));
             }
 
+            String durability = null;
             if (item.containsKey("durability")) {
                 String durabilityString = Objects.toString(item.get("durability"));
                 if (durabilityString != null) {
-                    int durability = Integer.parseInt(durabilityString);
-                    headers.setDurabilityLevel(durability);
+                    durability = String.valueOf(Integer.parseInt(durabilityString));
                 }
             }
 
+            /* Listings can contain a very large number of entries, so we
+             * build the headers directly rather than through the reflection
+             * based setters. */
+            final MantaHttpHeaders headers = MantaHttpHeaders.compact(
+                    "Last-Modified", mtime,
+                    "Content-Type", contentType,
+                    "ETag", etag,
+                    "Content-Length", size,
+                    MantaHttpHeaders.HTTP_DURABILITY_LEVEL, durability);
+
             return new MantaObjectResponse(objPath, headers);
         });
 
-        danglingStreams.add(new WeakReference<AutoCloseable>(stream));
-
         return stream;
     }
 
@@ -700,7 +822,7 @@ public class MantaClient implements AutoCloseable {
      */
     public boolean existsAndIsAccessible(final String path) {
         try {
-            httpHelper.httpHead(path);
+            head(path);
         } catch (IOException e) {
             return false;
         }
@@ -733,10 +855,12 @@ public class MantaClient implements AutoCloseable {
         if (source == null) {
             content = new EmptyContent();
         } else {
-            content = new InputStreamContent(contentType, source);
+            content = new PooledStreamContent(contentType, source);
         }
 
-        return httpHelper.httpPut(path, headers, content, null);
+        final MantaObjectResponse response = httpHelper.httpPut(path, headers, content, null);
+        invalidateCaches(path);
+        return response;
     }
 
     /**
@@ -762,10 +886,12 @@ public class MantaClient implements AutoCloseable {
         if (source == null) {
             content = new EmptyContent();
         } else {
-            content = new InputStreamContent(contentType, source);
+            content = new PooledStreamContent(contentType, source);
         }
 
-        return httpHelper.httpPut(path, null, content, metadata);
+        final MantaObjectResponse response = httpHelper.httpPut(path, null, content, metadata);
+        invalidateCaches(path);
+        return response;
     }
 
 
@@ -795,13 +921,15 @@ public class MantaClient implements AutoCloseable {
         if (source == null) {
             content = new EmptyContent();
         } else {
-            final InputStreamContent inputStreamContent =
-                    new InputStreamContent(contentType, source);
+            final PooledStreamContent inputStreamContent =
+                    new PooledStreamContent(contentType, source);
             inputStreamContent.setRetrySupported(source.markSupported());
             content = inputStreamContent;
         }
 
-        return httpHelper.httpPut(path, headers, content, metadata);
+        final MantaObjectResponse response = httpHelper.httpPut(path, headers, content, metadata);
+        invalidateCaches(path);
+        return response;
     }
 
 
@@ -915,10 +1043,10 @@ public class MantaClient implements AutoCloseable {
                 path,
                 ContentType.APPLICATION_OCTET_STREAM.toString());
 
-        MantaObjectOutputStream stream = new MantaObjectOutputStream(path,
-                this.httpHelper, headers, metadata, contentType);
+        MantaObjectOutputStream stream = new MantaObjectOutputStream(path, this.httpHelper, headers, metadata,
+                contentType, MantaObjectOutputStream.executor(config), () -> invalidateCaches(path));
 
-        danglingStreams.add(new WeakReference<AutoCloseable>(stream));
+        stream.track(leakTracker);
 
         return stream;
     }
@@ -952,7 +1080,9 @@ public class MantaClient implements AutoCloseable {
             content = new ByteArrayContent(contentType, string.getBytes());
         }
 
-        return httpHelper.httpPut(path, headers, content, metadata);
+        final MantaObjectResponse response = httpHelper.httpPut(path, headers, content, metadata);
+        invalidateCaches(path);
+        return response;
     }
 
     /**
@@ -1055,10 +1185,12 @@ public class MantaClient implements AutoCloseable {
         if (file.length() == 0L) {
             content = new EmptyContent();
         } else {
-            content = new FileContent(contentType, file);
+            content = new PooledStreamContent(contentType, file);
         }
 
-        return httpHelper.httpPut(path, headers, content, metadata);
+        final MantaObjectResponse response = httpHelper.httpPut(path, headers, content, metadata);
+        invalidateCaches(path);
+        return response;
     }
 
 
@@ -1140,7 +1272,9 @@ public class MantaClient implements AutoCloseable {
             content = new ByteArrayContent(contentType, bytes);
         }
 
-        return httpHelper.httpPut(path, headers, content, metadata);
+        final MantaObjectResponse response = httpHelper.httpPut(path, headers, content, metadata);
+        invalidateCaches(path);
+        return response;
     }
 
     /**
@@ -1204,7 +1338,9 @@ public class MantaClient implements AutoCloseable {
         headers.setContentEncoding("chunked");
         HttpContent content = new EmptyContent();
         final GenericUrl genericUrl = new GenericUrl(this.url + formatPath(path));
-        return httpHelper.httpPut(genericUrl, headers, content, metadata);
+        final MantaObjectResponse response = httpHelper.httpPut(genericUrl, headers, content, metadata);
+        invalidateCaches(path);
+        return response;
     }
 
     /**
@@ -1247,6 +1383,7 @@ public class MantaClient implements AutoCloseable {
 
         HttpResponse res = httpHelper.executeAndCloseRequest(request,
                 "PUT    {} response [{}] {} ", path);
+        invalidateCaches(path);
 
         // When LastModified is set, the directory already exists
         return res.getHeaders().getLastModified() == null;
@@ -1333,6 +1470,7 @@ public class MantaClient implements AutoCloseable {
         request.getHeaders().setLocation(formatPath(objectPath));
         httpHelper.executeAndCloseRequest(request, "PUT    {} -> {} response [{}] {} ",
                 objectPath, linkPath);
+        invalidateCaches(linkPath);
     }
 
     /**
@@ -1366,8 +1504,8 @@ public class MantaClient implements AutoCloseable {
             String destDirPath = destDir.getPath();
             String sourceDirPath = entry.getPath();
 
-            try {
-                listObjects(source).forEach(mantaObject -> {
+            try (Stream<MantaObject> contents = listObjects(source)) {
+                contents.forEach(mantaObject -> {
                     try {
                         String sourcePath = mantaObject.getPath();
                         String relPath = sourcePath.substring(sourceDirPath.length());
@@ -1394,6 +1532,22 @@ public class MantaClient implements AutoCloseable {
     }
 
 
+    /**
+     * Removes a path that was modified through this client from the caches.
+     *
+     * @param path The fully qualified path of the object. i.e. /user/stor/foo/bar/baz
+     */
+    private void invalidateCaches(final String path) {
+        if (metadataCache != null) {
+            metadataCache.invalidate(path);
+        }
+
+        if (objectCache != null) {
+            objectCache.invalidate(path);
+        }
+    }
+
+
     /**
       * Package private method that returns the configuration context used to
       * instantiate the MantaClient instance.
@@ -1441,31 +1595,41 @@ public class MantaClient implements AutoCloseable {
             return UUID.fromString(id);
         };
 
-        /* This endpoint has a propensity for failing to respond, so we retry on
-         * failure. */
+        /* This endpoint has a propensity for failing to respond, so we retry
+         * when no response was received. POST requests aren't retried by the
+         * retry policy, so we back off using it here. */
 
-        final int retries;
+        final int retries = retries();
+        final BackOff backOff = httpRequestFactoryProvider.getRetryPolicy().newBackOff();
 
-        if (config.getRetries() == null) {
-            retries = DefaultsConfigContext.DEFAULT_HTTP_RETRIES;
-        } else {
-            retries = config.getRetries();
-        }
-
-        IOException lastException = new IOException("Never thrown. Report me as a bug.");
-
-        // if retries are set to zero, we always execute at least once
-        for (int count = 0; count < retries || count == 0; count++) {
+        // if retries are set to zero, we always execute once
+        for (int count = 0;; count++) {
             try {
                 return httpHelper.executeAndCloseRequest(request,
                         jobIdFunction, "POST   {} response [{}] {} ", path);
-            } catch (NoHttpResponseException e) {
-                lastException = e;
+            } catch (MantaIOException e) {
+                // Failures are wrapped with the context of the request
+                if (!(e.getCause() instanceof NoHttpResponseException)
+                        || count >= retries || !MantaRetryHandler.awaitRetry(getRetryPolicy(), backOff)) {
+                    throw e;
+                }
+
                 LOG.warn("Error posting createJob. Retrying.", e);
             }
         }
+    }
+
+
+    /**
+     * @return number of retries after the first attempt of a failed operation,
+     *         which is also the number of retries made by the HTTP client
+     */
+    private int retries() {
+        if (config.getRetries() == null) {
+            return DefaultsConfigContext.DEFAULT_HTTP_RETRIES;
+        }
 
-        throw lastException;
+        return config.getRetries();
     }
 
 
@@ -1511,6 +1675,115 @@ public class MantaClient implements AutoCloseable {
     }
 
 
+    /**
+     * Submits inputs to an already created job in batches. Each batch of up
+     * to batchSize inputs is sent as a separate sequential HTTP request and
+     * a batch that fails due to a network or server error is retried
+     * individually, so that a single failure doesn't abort the entire feed.
+     *
+     * <p>Note: if the server accepted a batch, but the response was lost, the
+     * retried batch will add its inputs to the job a second time.</p>
+     *
+     * @param jobId UUID of the Manta job
+     * @param inputs iterator of paths to Manta objects to be added as inputs
+     * @param batchSize maximum number of inputs to send per HTTP request
+     * @throws IOException thrown when we are unable to add a batch of inputs over the network
+     */
+    public void addJobInputs(final UUID jobId,
+                             final Iterator<String> inputs,
+                             final int batchSize) throws IOException {
+        Objects.requireNonNull(jobId, "Manta job id must be present");
+        Objects.requireNonNull(inputs, "Inputs must be present");
+
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be 1 or greater");
+        }
+
+        final List<String> batch = new ArrayList<>(Math.min(batchSize, MAX_RESULTS));
+
+        while (inputs.hasNext()) {
+            final String next = inputs.next();
+
+            if (next == null) {
+                continue;
+            }
+
+            batch.add(next);
+
+            if (batch.size() >= batchSize) {
+                processJobInputsBatch(jobId, batch);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            processJobInputsBatch(jobId, batch);
+        }
+    }
+
+
+    /**
+     * Submits inputs to an already created job in batches. Each batch of up
+     * to batchSize inputs is sent as a separate sequential HTTP request and
+     * a batch that fails due to a network or server error is retried
+     * individually. The stream is closed after all inputs are sent.
+     *
+     * @param jobId UUID of the Manta job
+     * @param inputs stream of paths to Manta objects to be added as inputs
+     * @param batchSize maximum number of inputs to send per HTTP request
+     * @throws IOException thrown when we are unable to add a batch of inputs over the network
+     */
+    public void addJobInputs(final UUID jobId,
+                             final Stream<String> inputs,
+                             final int batchSize) throws IOException {
+        Objects.requireNonNull(inputs, "Inputs must be present");
+
+        try {
+            addJobInputs(jobId, inputs.iterator(), batchSize);
+        } finally {
+            inputs.close();
+        }
+    }
+
+
+    /**
+     * Sends a single batch of job inputs, retrying the batch when it fails
+     * due to a network error or a server-side (5xx) error.
+     *
+     * @param jobId UUID of the Manta job
+     * @param batch inputs to send
+     * @throws IOException thrown when we are unable to add inputs over the network
+     */
+    private void processJobInputsBatch(final UUID jobId,
+                                       final List<String> batch) throws IOException {
+        final String contentType = "text/plain; charset=utf-8";
+        final HttpContent content = new StringIteratorHttpContent(batch, contentType);
+        final int retries = retries();
+        final BackOff backOff = httpRequestFactoryProvider.getRetryPolicy().newBackOff();
+
+        // if retries are set to zero, we always execute once
+        for (int count = 0;; count++) {
+            try {
+                processJobInputs(jobId, content);
+                return;
+            } catch (MantaClientHttpResponseException e) {
+                if (e.getStatusCode() < HTTP_STATUSCODE_500_SERVER_ERROR || count >= retries
+                        || !MantaRetryHandler.awaitRetry(getRetryPolicy(), backOff)) {
+                    throw e;
+                }
+
+                LOG.warn("Error adding batch of {} job inputs. Retrying.", batch.size(), e);
+            } catch (IOException e) {
+                if (count >= retries || !MantaRetryHandler.awaitRetry(getRetryPolicy(), backOff)) {
+                    throw e;
+                }
+
+                LOG.warn("Error adding batch of {} job inputs. Retrying.", batch.size(), e);
+            }
+        }
+    }
+
+
     /**
      * Utility method for processing the addition of job inputs over HTTP.
      *
@@ -1754,11 +2027,11 @@ public class MantaClient implements AutoCloseable {
         final MantaDirectoryListingIterator itr = new MantaDirectoryListingIterator(this.url,
                 path, httpHelper, MAX_RESULTS);
 
-        danglingStreams.add(new WeakReference<AutoCloseable>(itr));
+        itr.track(leakTracker);
 
         Stream<Map<String, Object>> backingStream =
                 StreamSupport.stream(Spliterators.spliteratorUnknownSize(
-                        itr, Spliterator.ORDERED | Spliterator.NONNULL), false);
+                        itr, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(itr::close);
 
         return backingStream.map(item -> {
             final String id = Objects.toString(item.get("name"));
@@ -1982,23 +2255,57 @@ public class MantaClient implements AutoCloseable {
     public Stream<MantaJobError> getJobErrors(final UUID jobId) throws IOException {
         Objects.requireNonNull(jobId, "Job id must be present");
 
+        return jobErrorsAsStream(jobId, null);
+    }
+
+
+    /**
+     * <p>Returns a stream of failure details that follows a running job like
+     * <code>tail -f</code>. Once the currently available errors have been
+     * read, only the bytes after them are requested after the poll interval.
+     * The stream ends after the job is done and all of its errors have been
+     * read, or when it is closed, which also ends a wait from another thread.</p>
+     *
+     * <p><strong>Make sure to close this stream when you are done with
+     * otherwise the HTTP socket will remain open.</strong></p>
+     *
+     * @param jobId UUID of the Manta job
+     * @param pollInterval time to wait before checking for new errors
+     * @return a stream of job error objects
+     * @throws IOException thrown when we can't get a list of errors over the network
+     */
+    public Stream<MantaJobError> followJobErrors(final UUID jobId,
+                                                 final Duration pollInterval) throws IOException {
+        Objects.requireNonNull(jobId, "Job id must be present");
+        Objects.requireNonNull(pollInterval, "Poll interval must be present");
+
+        return jobErrorsAsStream(jobId, pollInterval);
+    }
+
+
+    /**
+     * Creates a stream of job errors that are incrementally parsed from
+     * the HTTP response.
+     *
+     * @param jobId UUID of the Manta job
+     * @param pollInterval time to wait before checking for new errors or null to not follow
+     * @return a stream of job error objects
+     * @throws IOException thrown when we can't get a list of errors over the network
+     */
+    private Stream<MantaJobError> jobErrorsAsStream(final UUID jobId,
+                                                    final Duration pollInterval)
+            throws IOException {
         final String path = String.format("%s/jobs/%s/live/err", home, jobId);
 
-        final HttpResponse response = httpHelper.httpGet(path);
-        final ObjectMapper mapper = MantaObjectParser.MAPPER;
+        final MantaJobErrorIterator itr = new MantaJobErrorIterator(this,
+                httpHelper, jobId, path, pollInterval);
+        itr.track(leakTracker);
 
-        try {
-            return responseAsStream(response)
-                    .map(err -> {
-                        try {
-                            return mapper.readValue(err, MantaJobError.class);
-                        } catch (IOException e) {
-                            throw new UncheckedIOException(e);
-                        }
-                    });
-        } catch (UncheckedIOException e) {
-            throw e.getCause();
-        }
+        Stream<MantaJobError> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                itr, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(itr::close);
+
+        return stream;
     }
 
     /**
@@ -2011,6 +2318,38 @@ public class MantaClient implements AutoCloseable {
         return new MantaJobBuilder(this);
     }
 
+    /**
+     * @return fluent interface for running many small operations concurrently
+     */
+    public MantaBulk bulk() {
+        return new MantaBulk(this, config);
+    }
+
+
+    /**
+     * Returns the job watching service shared by this client. The service
+     * uses a single background thread to wait for any number of jobs to
+     * complete and it is shut down when this client is closed.
+     *
+     * @return shared job watcher instance
+     */
+    public MantaJobWatcher jobWatcher() {
+        MantaJobWatcher watcher = this.jobWatcher;
+
+        if (watcher == null) {
+            synchronized (this) {
+                watcher = this.jobWatcher;
+
+                if (watcher == null) {
+                    watcher = new MantaJobWatcher(this);
+                    this.jobWatcher = watcher;
+                }
+            }
+        }
+
+        return watcher;
+    }
+
 
     /**
      * Parses a HTTP response's content as a Java 8 stream of strings.
@@ -2022,7 +2361,8 @@ public class MantaClient implements AutoCloseable {
     protected Stream<String> responseAsStream(final HttpResponse response)
             throws IOException {
         // This resource is closed using the onClose() lambda below
-        final Reader reader = new InputStreamReader(response.getContent());
+        final Reader reader = new InputStreamReader(response.getContent(),
+                StandardCharsets.UTF_8);
         final BufferedReader br = new BufferedReader(reader);
 
         try {
@@ -2035,14 +2375,47 @@ public class MantaClient implements AutoCloseable {
                 }
             });
 
-            danglingStreams.add(new WeakReference<AutoCloseable>(stream));
-            return stream;
+            return leakTracker.track(stream, "Response stream of " + response.getRequest().getUrl(),
+                    response::disconnect);
         } catch (UncheckedIOException e) {
             throw e.getCause();
         }
     }
 
 
+    /**
+     * Returns the cache of downloaded object content, which provides cache
+     * metrics and can invalidate cached objects.
+     *
+     * @return object cache or null when caching is disabled
+     */
+    public MantaObjectCache getObjectCache() {
+        return objectCache;
+    }
+
+
+    /**
+     * Returns the cache of HEAD request results, which provides cache
+     * metrics and can invalidate paths modified by other clients.
+     *
+     * @return metadata cache or null when caching is disabled
+     */
+    public MantaMetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+
+    /**
+     * Returns the policy used to retry failed requests. When using the
+     * default {@link ExponentialBackoffRetryPolicy}, it provides retry metrics.
+     *
+     * @return retry policy instance
+     */
+    public RetryPolicy getRetryPolicy() {
+        return httpRequestFactoryProvider.getRetryPolicy();
+    }
+
+
     /**
      * Accessor for the HttpRequestFactoryProvider - used primarily for testing.
      *
@@ -2062,15 +2435,11 @@ public class MantaClient implements AutoCloseable {
          * where resources haven't been closed properly. In particular, this
          * is useful for the streamingIterator() method that returns an
          * iterator that must be closed after consumption. */
-        for (WeakReference<? extends AutoCloseable> wr : danglingStreams) {
-            try {
-                AutoCloseable closeable = wr.get();
+        leakTracker.closeAll(exceptions);
 
-                if (closeable == null) {
-                    continue;
-                }
-
-                closeable.close();
+        if (this.jobWatcher != null) {
+            try {
+                this.jobWatcher.close();
             } catch (Exception e) {
                 exceptions.add(e);
             }
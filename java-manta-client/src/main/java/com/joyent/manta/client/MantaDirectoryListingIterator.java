@@ -23,6 +23,7 @@ import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static com.joyent.manta.client.MantaObjectResponse.DIRECTORY_RESPONSE_CONTENT_TYPE;
 import static com.joyent.manta.client.MantaUtils.formatPath;
@@ -98,6 +99,17 @@ public class MantaDirectoryListingIterator implements Iterator<Map<String, Objec
      */
     private volatile HttpResponse currentResponse;
 
+    /**
+     * Lock serializing the reads of pages. A lock is used rather than a
+     * monitor so that virtual threads aren't pinned while reading.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Registration with the leak tracker of the client or null when not tracked.
+     */
+    private volatile MantaLeakTracker.Registration registration;
+
     /**
      * Create a new instance of a directory list iterator.
      *
@@ -133,50 +145,81 @@ public class MantaDirectoryListingIterator implements Iterator<Map<String, Objec
      *
      * @throws IOException thrown when we can't successfully open an HTTP connection
      */
-    private synchronized void selectReader() throws IOException {
-        if (lastMarker == null) {
-            String query = String.format("?limit=%d", pagingSize);
-            GenericUrl genericUrl = new GenericUrl(url + formatPath(path)
+    private void selectReader() throws IOException {
+        lock.lock();
+
+        try {
+            if (lastMarker == null) {
+                String query = String.format("?limit=%d", pagingSize);
+                GenericUrl genericUrl = new GenericUrl(url + formatPath(path)
+                        + query);
+                currentResponse = httpHelper.httpGet(genericUrl, null);
+                trackResponse();
+                HttpHeaders headers = currentResponse.getHeaders();
+
+                if (!headers.getContentType().contentEquals(DIRECTORY_RESPONSE_CONTENT_TYPE)) {
+                    String msg = String.format("Expected directory path, but was file path: %s",
+                            path);
+                    throw new MantaObjectException(msg);
+                }
+
+                Reader streamReader = new InputStreamReader(currentResponse.getContent(),
+                        "UTF-8");
+                br = new BufferedReader(streamReader);
+            } else {
+                String query = String.format("?limit=%d&marker=%s",
+                        pagingSize, URLEncoder.encode(lastMarker, "UTF-8"));
+                GenericUrl genericUrl = new GenericUrl(url + formatPath(path)
                     + query);
-            currentResponse = httpHelper.httpGet(genericUrl, null);
-            HttpHeaders headers = currentResponse.getHeaders();
 
-            if (!headers.getContentType().contentEquals(DIRECTORY_RESPONSE_CONTENT_TYPE)) {
-                String msg = String.format("Expected directory path, but was file path: %s",
-                        path);
-                throw new MantaObjectException(msg);
-            }
+                try {
+                    br.close();
+                    currentResponse.disconnect();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
 
-            Reader streamReader = new InputStreamReader(currentResponse.getContent(),
-                    "UTF-8");
-            br = new BufferedReader(streamReader);
-        } else {
-            String query = String.format("?limit=%d&marker=%s",
-                    pagingSize, URLEncoder.encode(lastMarker, "UTF-8"));
-            GenericUrl genericUrl = new GenericUrl(url + formatPath(path)
-                + query);
+                currentResponse = httpHelper.httpGet(genericUrl, null);
+                trackResponse();
+                Reader streamReader = new InputStreamReader(currentResponse.getContent(),
+                        "UTF-8");
+                br = new BufferedReader(streamReader);
 
-            try {
-                br.close();
-                currentResponse.disconnect();
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
+                // We read one line to clear it because it is our marker
+                br.readLine();
             }
 
-            currentResponse = httpHelper.httpGet(genericUrl, null);
-            Reader streamReader = new InputStreamReader(currentResponse.getContent(),
-                    "UTF-8");
-            br = new BufferedReader(streamReader);
+            nextLine.set(br.readLine());
+            lines.incrementAndGet();
 
-            // We read one line to clear it because it is our marker
-            br.readLine();
+            // We are done if the first read is a null
+            finished.set(nextLine.get() == null);
+        } finally {
+            lock.unlock();
         }
+    }
+
+    /**
+     * Registers this iterator with the leak tracker of a client, so that its
+     * connection is returned to the pool if the iterator is garbage collected
+     * without being closed.
+     *
+     * @param tracker leak tracker of the client
+     */
+    void track(final MantaLeakTracker tracker) {
+        registration = tracker.register(this, "Listing of " + path, null);
+    }
 
-        nextLine.set(br.readLine());
-        lines.incrementAndGet();
+    /**
+     * Makes the current response the resource that is closed if this
+     * iterator leaks.
+     */
+    private void trackResponse() {
+        final MantaLeakTracker.Registration current = registration;
 
-        // We are done if the first read is a null
-        finished.set(nextLine.get() == null);
+        if (current != null) {
+            current.setResource(currentResponse::disconnect);
+        }
     }
 
     @Override
@@ -194,12 +237,14 @@ public class MantaDirectoryListingIterator implements Iterator<Map<String, Objec
     }
 
     @Override
-    public synchronized Map<String, Object> next() {
-        if (finished.get()) {
-            throw new NoSuchElementException();
-        }
+    public Map<String, Object> next() {
+        lock.lock();
 
         try {
+            if (finished.get()) {
+                throw new NoSuchElementException();
+            }
+
             String line = nextLine.getAndSet(br.readLine());
             lines.incrementAndGet();
 
@@ -225,6 +270,8 @@ public class MantaDirectoryListingIterator implements Iterator<Map<String, Objec
 
         } catch (IOException e) {
             throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -240,6 +287,12 @@ public class MantaDirectoryListingIterator implements Iterator<Map<String, Objec
             }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
+        } finally {
+            final MantaLeakTracker.Registration current = registration;
+
+            if (current != null) {
+                current.release();
+            }
         }
     }
 
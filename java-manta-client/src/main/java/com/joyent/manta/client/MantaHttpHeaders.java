@@ -4,7 +4,6 @@ import com.google.api.client.http.HttpHeaders;
 import com.google.api.client.util.FieldInfo;
 import com.google.api.client.util.Types;
 import org.apache.http.Header;
-import org.apache.http.HeaderElement;
 import org.apache.http.message.BasicHeader;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +18,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Object encapsulating the HTTP headers to be sent to the Manta API.
@@ -51,9 +51,23 @@ public class MantaHttpHeaders implements Serializable {
     public static final String COMPUTED_MD5 = "computed-md5";
 
     /**
-     * HttpHeaders delegate which is wrapped by this class.
+     * HTTP header containing the number of entries in a directory listing.
      */
-    private final transient HttpHeaders wrappedHeaders = new HttpHeaders();
+    public static final String RESULT_SET_SIZE = "result-set-size";
+
+    /**
+     * HttpHeaders delegate which is wrapped by this class. When this instance
+     * was created from a HTTP response, it is only created from the compact
+     * headers when it is first needed.
+     */
+    private transient volatile HttpHeaders wrappedHeaders;
+
+    /**
+     * Compact read-only copy of the headers, used to read commonly accessed
+     * headers without creating a {@link HttpHeaders} instance. It is null
+     * once the headers have been materialized as {@link HttpHeaders}.
+     */
+    private transient volatile CompactHttpHeaders compact;
 
     /**
      * Creates an empty instance.
@@ -69,7 +83,7 @@ public class MantaHttpHeaders implements Serializable {
      */
     public MantaHttpHeaders(final Map<? extends String, ?> headers) {
         Objects.requireNonNull(headers, "Headers should be present");
-        wrappedHeaders.putAll(headers);
+        headers().putAll(headers);
     }
 
     /**
@@ -79,7 +93,16 @@ public class MantaHttpHeaders implements Serializable {
      * @param mantaObject Manta object to read headers from
      */
     public MantaHttpHeaders(final MantaObject mantaObject) {
-        wrappedHeaders.putAll(mantaObject.getHttpHeaders().wrappedHeaders);
+        final MantaHttpHeaders source = mantaObject.getHttpHeaders();
+        final CompactHttpHeaders sourceCompact = source.compact;
+
+        /* Compact headers are immutable, so they can be shared until either
+         * instance is modified. */
+        if (sourceCompact != null) {
+            this.compact = sourceCompact;
+        } else {
+            headers().putAll(source.headers());
+        }
     }
 
 
@@ -91,41 +114,85 @@ public class MantaHttpHeaders implements Serializable {
      */
     MantaHttpHeaders(final HttpHeaders headers) {
         if (headers != null) {
-            wrappedHeaders.fromHttpHeaders(headers);
+            this.compact = CompactHttpHeaders.fromGoogle(headers);
         }
     }
 
 
     /**
      * Creates an instance with headers prepopulated from Apache HTTP client.
+     * Each header value is kept verbatim, so a value containing commas is a
+     * single value. Before 2.6.0, values were split into header elements
+     * and only their parameter values were kept.
      *
      * @param headers headers to prepopulate
      */
     MantaHttpHeaders(final Header[] headers) {
-        for (Header header : headers) {
-            if (header == null) {
-                continue;
-            }
+        this.compact = CompactHttpHeaders.fromApache(headers);
+    }
 
-            if (header.getValue() == null) {
-                wrappedHeaders.put(header.getName(), null);
-            }
 
-            switch (header.getName().toLowerCase()) {
-                case "content-length":
-                    wrappedHeaders.setContentLength(Long.parseLong(header.getValue()));
-                    break;
-                case "age":
-                    wrappedHeaders.setAge(Long.parseLong(header.getValue()));
-                    break;
-                default:
-                    List<String> values = new ArrayList<>();
-                    for (HeaderElement e : header.getElements()) {
-                        values.add(e.getValue());
+    /**
+     * Creates an instance with a compact read-only copy of the specified
+     * headers. The headers are only converted to {@link HttpHeaders} if
+     * they are modified or accessed as an uncommon header.
+     *
+     * @param compact compact headers to wrap
+     */
+    private MantaHttpHeaders(final CompactHttpHeaders compact) {
+        this.compact = compact;
+    }
+
+
+    /**
+     * Creates an instance from alternating header names and values without
+     * using reflection. Headers with null values are skipped.
+     *
+     * @param namesAndValues alternating header names and values
+     * @return new instance
+     */
+    static MantaHttpHeaders compact(final String... namesAndValues) {
+        return new MantaHttpHeaders(CompactHttpHeaders.of(namesAndValues));
+    }
+
+
+    /**
+     * Returns the {@link HttpHeaders} delegate, converting it from the
+     * compact headers if it hasn't been created yet.
+     *
+     * @return headers delegate
+     */
+    private HttpHeaders headers() {
+        HttpHeaders headers = wrappedHeaders;
+
+        if (headers == null) {
+            synchronized (this) {
+                headers = wrappedHeaders;
+
+                if (headers == null) {
+                    final CompactHttpHeaders source = compact;
+
+                    if (source == null) {
+                        headers = new HttpHeaders();
+                    } else {
+                        headers = source.toGoogle();
                     }
-                    wrappedHeaders.set(header.getName(), values);
+
+                    wrappedHeaders = headers;
+                    compact = null;
+                }
             }
         }
+
+        return headers;
+    }
+
+
+    /**
+     * @return true if the headers haven't been converted to {@link HttpHeaders}
+     */
+    boolean isCompact() {
+        return compact != null;
     }
 
 
@@ -135,14 +202,20 @@ public class MantaHttpHeaders implements Serializable {
      * @return an array of {@link org.apache.http.Header} instances
      */
     Header[] asApacheHttpHeaders() {
+        final CompactHttpHeaders compactHeaders = compact;
+
+        if (compactHeaders != null) {
+            return compactHeaders.toApache();
+        }
+
         final ArrayList<Header> headers = new ArrayList<>();
 
-        for (Map.Entry<String, ?> entry : wrappedHeaders.entrySet()) {
+        for (Map.Entry<String, ?> entry : headers().entrySet()) {
             final String name = entry.getKey();
             final Object value = entry.getValue();
 
             final String displayName;
-            FieldInfo fieldInfo = wrappedHeaders.getClassInfo().getFieldInfo(name);
+            FieldInfo fieldInfo = headers().getClassInfo().getFieldInfo(name);
             if (fieldInfo != null) {
                 displayName = fieldInfo.getName();
             } else {
@@ -179,7 +252,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return an instance of {@link com.google.api.client.http.HttpHeaders}
      */
     HttpHeaders asGoogleClientHttpHeaders() {
-        return wrappedHeaders;
+        return headers();
     }
 
 
@@ -190,8 +263,14 @@ public class MantaHttpHeaders implements Serializable {
      * @return custom metadata as a {@link java.util.Map}
      */
     public Map<String, ?> metadata() {
+        final CompactHttpHeaders compactHeaders = compact;
+
+        if (compactHeaders != null) {
+            return compactHeaders.withPrefix("m-");
+        }
+
         final Map<String, Object> metadata = new HashMap<>();
-        for (Map.Entry<String, Object> entry : wrappedHeaders.entrySet()) {
+        for (Map.Entry<String, Object> entry : headers().entrySet()) {
             if (entry.getKey().startsWith("m-")) {
                 metadata.put(entry.getKey(), entry.getValue());
             }
@@ -208,8 +287,21 @@ public class MantaHttpHeaders implements Serializable {
      * @return custom metadata as a {@link java.util.Map}
      */
     public Map<String, String> metadataAsStrings() {
+        final CompactHttpHeaders compactHeaders = compact;
+
+        if (compactHeaders != null) {
+            final Map<String, List<String>> values = compactHeaders.withPrefix("m-");
+            final Map<String, String> metadata = new HashMap<>(values.size() * 2);
+
+            for (Map.Entry<String, List<String>> entry : values.entrySet()) {
+                metadata.put(entry.getKey(), MantaUtils.asString(entry.getValue()));
+            }
+
+            return metadata;
+        }
+
         final Map<String, String> metadata = new HashMap<>();
-        for (Map.Entry<String, Object> entry : wrappedHeaders.entrySet()) {
+        for (Map.Entry<String, Object> entry : headers().entrySet()) {
             if (entry.getKey().startsWith("m-")) {
                 metadata.put(entry.getKey(), MantaUtils.asString(entry.getValue()));
             }
@@ -237,7 +329,13 @@ public class MantaHttpHeaders implements Serializable {
      * @return the request id header value
      */
     public String getRequestId() {
-        Object requestId = wrappedHeaders.get(REQUEST_ID);
+        final CompactHttpHeaders compactHeaders = compact;
+
+        if (compactHeaders != null) {
+            return compactHeaders.first(REQUEST_ID);
+        }
+
+        Object requestId = headers().get(REQUEST_ID);
         if (requestId == null) {
             return null;
         }
@@ -351,7 +449,13 @@ public class MantaHttpHeaders implements Serializable {
      * @return long value of header value, or null if it can't be found or parsed
      */
     public Long getResultSetSize() {
-        final String size = wrappedHeaders.getFirstHeaderStringValue("result-set-size");
+        final CompactHttpHeaders compactHeaders = compact;
+
+        if (compactHeaders != null) {
+            return compactHeaders.resultSetSize();
+        }
+
+        final String size = headers().getFirstHeaderStringValue(RESULT_SET_SIZE);
 
         if (size == null) {
             return null;
@@ -373,7 +477,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Accept"} header value as a {@code java.lang.String} value
      */
     public String getAccept() {
-        return wrappedHeaders.getAccept();
+        return headers().getAccept();
     }
 
 
@@ -389,7 +493,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setAccept(final String accept) {
-        wrappedHeaders.setAccept(accept);
+        headers().setAccept(accept);
         return this;
     }
 
@@ -400,7 +504,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Accept-Encoding"} header value as a {@code java.lang.String} value
      */
     public String getAcceptEncoding() {
-        return wrappedHeaders.getAcceptEncoding();
+        return headers().getAcceptEncoding();
     }
 
 
@@ -415,7 +519,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setAcceptEncoding(final String acceptEncoding) {
-        wrappedHeaders.setAcceptEncoding(acceptEncoding);
+        headers().setAcceptEncoding(acceptEncoding);
         return this;
     }
 
@@ -426,7 +530,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Authorization"} header value as a {@code java.lang.String} value
      */
     public String getAuthorization() {
-        return wrappedHeaders.getAuthorization();
+        return headers().getAuthorization();
     }
 
 
@@ -436,7 +540,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Authorization"} headers as a {@code java.util.List} of {@code java.lang.String} values.
      */
     public List<String> getAuthorizationAsList() {
-        return wrappedHeaders.getAuthorizationAsList();
+        return headers().getAuthorizationAsList();
     }
 
 
@@ -452,7 +556,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setAuthorization(final String authorization) {
-        wrappedHeaders.setAuthorization(authorization);
+        headers().setAuthorization(authorization);
         return this;
     }
 
@@ -470,7 +574,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setAuthorization(final List<String> authorization) {
-        wrappedHeaders.setAuthorization(authorization);
+        headers().setAuthorization(authorization);
         return this;
     }
 
@@ -481,7 +585,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Cache-Control"} header value as a {@code java.lang.String} value
      */
     public String getCacheControl() {
-        return wrappedHeaders.getCacheControl();
+        return headers().getCacheControl();
     }
 
 
@@ -497,7 +601,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setCacheControl(final String cacheControl) {
-        wrappedHeaders.setCacheControl(cacheControl);
+        headers().setCacheControl(cacheControl);
         return this;
     }
 
@@ -508,7 +612,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Content-Encoding"} header value as a {@code java.lang.String} value
      */
     public String getContentEncoding() {
-        return wrappedHeaders.getContentEncoding();
+        return firstValue("Content-Encoding", HttpHeaders::getContentEncoding);
     }
 
 
@@ -524,7 +628,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setContentEncoding(final String contentEncoding) {
-        wrappedHeaders.setContentEncoding(contentEncoding);
+        headers().setContentEncoding(contentEncoding);
         return this;
     }
 
@@ -535,7 +639,13 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Content-Length"} header value as a {@code java.lang.Long} value
      */
     public Long getContentLength() {
-        return wrappedHeaders.getContentLength();
+        final CompactHttpHeaders compactHeaders = compact;
+
+        if (compactHeaders != null) {
+            return compactHeaders.contentLength();
+        }
+
+        return headers().getContentLength();
     }
 
 
@@ -551,7 +661,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setContentLength(final Long contentLength) {
-        wrappedHeaders.setContentLength(contentLength);
+        headers().setContentLength(contentLength);
         return this;
     }
 
@@ -562,7 +672,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Content-MD5"} header value as a {@code java.lang.String} value
      */
     public String getContentMD5() {
-        return wrappedHeaders.getContentMD5();
+        return headers().getContentMD5();
     }
 
 
@@ -578,7 +688,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setContentMD5(final String contentMD5) {
-        wrappedHeaders.setContentMD5(contentMD5);
+        headers().setContentMD5(contentMD5);
         return this;
     }
 
@@ -589,7 +699,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Content-Range"} header value as a {@code java.lang.String} value
      */
     public String getContentRange() {
-        return wrappedHeaders.getContentRange();
+        return headers().getContentRange();
     }
 
 
@@ -605,7 +715,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setContentRange(final String contentRange) {
-        wrappedHeaders.setContentRange(contentRange);
+        headers().setContentRange(contentRange);
         return this;
     }
 
@@ -616,7 +726,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Content-Type"} header value as a {@code java.lang.String} value
      */
     public String getContentType() {
-        return wrappedHeaders.getContentType();
+        return firstValue("Content-Type", HttpHeaders::getContentType);
     }
 
 
@@ -632,7 +742,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setContentType(final String contentType) {
-        wrappedHeaders.setContentType(contentType);
+        headers().setContentType(contentType);
         return this;
     }
 
@@ -647,7 +757,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Cookie"} header value as a {@code java.lang.String} value
      */
     public String getCookie() {
-        return wrappedHeaders.getCookie();
+        return headers().getCookie();
     }
 
 
@@ -663,7 +773,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setCookie(final String cookie) {
-        wrappedHeaders.setCookie(cookie);
+        headers().setCookie(cookie);
         return this;
     }
 
@@ -674,7 +784,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Date"} header value as a {@code java.lang.String} value
      */
     public String getDate() {
-        return wrappedHeaders.getDate();
+        return firstValue("Date", HttpHeaders::getDate);
     }
 
 
@@ -690,7 +800,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setDate(final String date) {
-        wrappedHeaders.setDate(date);
+        headers().setDate(date);
         return this;
     }
 
@@ -701,7 +811,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "ETag"} header value as a {@code java.lang.String} value
      */
     public String getETag() {
-        return wrappedHeaders.getETag();
+        return firstValue("ETag", HttpHeaders::getETag);
     }
 
 
@@ -717,7 +827,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setETag(final String etag) {
-        wrappedHeaders.setETag(etag);
+        headers().setETag(etag);
         return this;
     }
 
@@ -728,7 +838,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Expires"} header value as a {@code java.lang.String} value
      */
     public String getExpires() {
-        return wrappedHeaders.getExpires();
+        return headers().getExpires();
     }
 
 
@@ -744,7 +854,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setExpires(final String expires) {
-        wrappedHeaders.setExpires(expires);
+        headers().setExpires(expires);
         return this;
     }
 
@@ -755,7 +865,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "If-Modified-Since"} header value as a {@code java.lang.String} value
      */
     public String getIfModifiedSince() {
-        return wrappedHeaders.getIfModifiedSince();
+        return headers().getIfModifiedSince();
     }
 
 
@@ -771,7 +881,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setIfModifiedSince(final String ifModifiedSince) {
-        wrappedHeaders.setIfModifiedSince(ifModifiedSince);
+        headers().setIfModifiedSince(ifModifiedSince);
         return this;
     }
 
@@ -782,7 +892,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "If-Match"} header value as a {@code java.lang.String} value
      */
     public String getIfMatch() {
-        return wrappedHeaders.getIfMatch();
+        return headers().getIfMatch();
     }
 
 
@@ -798,7 +908,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setIfMatch(final String ifMatch) {
-        wrappedHeaders.setIfMatch(ifMatch);
+        headers().setIfMatch(ifMatch);
         return this;
     }
 
@@ -809,7 +919,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "If-None-Match"} header value as a {@code java.lang.String} value
      */
     public String getIfNoneMatch() {
-        return wrappedHeaders.getIfNoneMatch();
+        return headers().getIfNoneMatch();
     }
 
 
@@ -825,7 +935,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setIfNoneMatch(final String ifNoneMatch) {
-        wrappedHeaders.setIfNoneMatch(ifNoneMatch);
+        headers().setIfNoneMatch(ifNoneMatch);
         return this;
     }
 
@@ -836,7 +946,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "If-Unmodified-Since"} header value as a {@code java.lang.String} value
      */
     public String getIfUnmodifiedSince() {
-        return wrappedHeaders.getIfUnmodifiedSince();
+        return headers().getIfUnmodifiedSince();
     }
 
 
@@ -852,7 +962,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setIfUnmodifiedSince(final String ifUnmodifiedSince) {
-        wrappedHeaders.setIfUnmodifiedSince(ifUnmodifiedSince);
+        headers().setIfUnmodifiedSince(ifUnmodifiedSince);
         return this;
     }
 
@@ -863,7 +973,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "If-Range"} header value as a {@code java.lang.String} value
      */
     public String getIfRange() {
-        return wrappedHeaders.getIfRange();
+        return headers().getIfRange();
     }
 
 
@@ -880,7 +990,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setIfRange(final String ifRange) {
-        wrappedHeaders.setIfRange(ifRange);
+        headers().setIfRange(ifRange);
         return this;
     }
 
@@ -891,7 +1001,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Last-Modified"} header value as a {@code java.lang.String} value
      */
     public String getLastModified() {
-        return wrappedHeaders.getLastModified();
+        return firstValue("Last-Modified", HttpHeaders::getLastModified);
     }
 
 
@@ -907,7 +1017,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setLastModified(final String lastModified) {
-        wrappedHeaders.setLastModified(lastModified);
+        headers().setLastModified(lastModified);
         return this;
     }
 
@@ -918,7 +1028,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Location"} header value as a {@code java.lang.String} value
      */
     public String getLocation() {
-        return wrappedHeaders.getLocation();
+        return firstValue("Location", HttpHeaders::getLocation);
     }
 
 
@@ -934,7 +1044,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setLocation(final String location) {
-        wrappedHeaders.setLocation(location);
+        headers().setLocation(location);
         return this;
     }
 
@@ -945,7 +1055,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "MIME-Version"} header value as a {@code java.lang.String} value
      */
     public String getMimeVersion() {
-        return wrappedHeaders.getMimeVersion();
+        return headers().getMimeVersion();
     }
 
 
@@ -961,7 +1071,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setMimeVersion(final String mimeVersion) {
-        wrappedHeaders.setMimeVersion(mimeVersion);
+        headers().setMimeVersion(mimeVersion);
         return this;
     }
 
@@ -972,7 +1082,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Range"} header value as a {@code java.lang.String} value
      */
     public String getRange() {
-        return wrappedHeaders.getRange();
+        return headers().getRange();
     }
 
 
@@ -988,7 +1098,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setRange(final String range) {
-        wrappedHeaders.setRange(range);
+        headers().setRange(range);
         return this;
     }
 
@@ -999,7 +1109,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Retry-After"} header value as a {@code java.lang.String} value
      */
     public String getRetryAfter() {
-        return wrappedHeaders.getRetryAfter();
+        return firstValue("Retry-After", HttpHeaders::getRetryAfter);
     }
 
 
@@ -1015,7 +1125,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setRetryAfter(final String retryAfter) {
-        wrappedHeaders.setRetryAfter(retryAfter);
+        headers().setRetryAfter(retryAfter);
         return this;
     }
 
@@ -1026,7 +1136,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "User-Agent"} header value as a {@code java.lang.String} value
      */
     public String getUserAgent() {
-        return wrappedHeaders.getUserAgent();
+        return headers().getUserAgent();
     }
 
 
@@ -1042,7 +1152,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setUserAgent(final String userAgent) {
-        wrappedHeaders.setUserAgent(userAgent);
+        headers().setUserAgent(userAgent);
         return this;
     }
 
@@ -1053,7 +1163,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "WWW-Authenticate"} header value as a {@code java.lang.String} value
      */
     public String getAuthenticate() {
-        return wrappedHeaders.getAuthenticate();
+        return headers().getAuthenticate();
     }
 
 
@@ -1063,7 +1173,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "WWW-Authenticate"} headers as a {@code java.util.List} of {@code java.lang.String} values
      */
     public List<String> getAuthenticateAsList() {
-        return wrappedHeaders.getAuthenticateAsList();
+        return headers().getAuthenticateAsList();
     }
 
 
@@ -1079,7 +1189,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setAuthenticate(final String authenticate) {
-        wrappedHeaders.setAuthenticate(authenticate);
+        headers().setAuthenticate(authenticate);
         return this;
     }
 
@@ -1090,7 +1200,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code "Age"} header value as a {@code java.lang.Long} value
      */
     public Long getAge() {
-        return wrappedHeaders.getAge();
+        return headers().getAge();
     }
 
 
@@ -1106,7 +1216,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setAge(final Long age) {
-        wrappedHeaders.setAge(age);
+        headers().setAge(age);
         return this;
     }
 
@@ -1125,7 +1235,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders setBasicAuthentication(final String username, final String password) {
-        wrappedHeaders.setBasicAuthentication(username, password);
+        headers().setBasicAuthentication(username, password);
         return this;
     }
 
@@ -1137,7 +1247,13 @@ public class MantaHttpHeaders implements Serializable {
      * @return first header string value or {@code null} if not found
      */
     public String getFirstHeaderStringValue(final String name) {
-        return wrappedHeaders.getFirstHeaderStringValue(name);
+        final CompactHttpHeaders compactHeaders = compact;
+
+        if (compactHeaders != null) {
+            return compactHeaders.first(name);
+        }
+
+        return headers().getFirstHeaderStringValue(name);
     }
 
 
@@ -1148,7 +1264,32 @@ public class MantaHttpHeaders implements Serializable {
      * @return header string values or empty if not found
      */
     public List<String> getHeaderStringValues(final String name) {
-        return wrappedHeaders.getHeaderStringValues(name);
+        final CompactHttpHeaders compactHeaders = compact;
+
+        if (compactHeaders != null) {
+            return compactHeaders.all(name);
+        }
+
+        return headers().getHeaderStringValues(name);
+    }
+
+
+    /**
+     * Returns the first value of a header, reading it from the compact
+     * headers when they are available.
+     *
+     * @param name case-insensitive header name
+     * @param getter getter used to read the header from {@link HttpHeaders}
+     * @return first header value or null if not present
+     */
+    private String firstValue(final String name, final Function<HttpHeaders, String> getter) {
+        final CompactHttpHeaders compactHeaders = compact;
+
+        if (compactHeaders != null) {
+            return compactHeaders.first(name);
+        }
+
+        return getter.apply(headers());
     }
 
 
@@ -1157,7 +1298,7 @@ public class MantaHttpHeaders implements Serializable {
      * {@link java.util.AbstractMap#get}
      */
     public Object get(final Object name) {
-        return wrappedHeaders.get(name);
+        return headers().get(name);
     }
 
 
@@ -1168,7 +1309,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return the value serialized to a {@code java.lang.String}
      */
     public String getAsString(final Object name) {
-        return MantaUtils.asString(wrappedHeaders.get(name));
+        return MantaUtils.asString(headers().get(name));
     }
 
 
@@ -1177,7 +1318,7 @@ public class MantaHttpHeaders implements Serializable {
      * {@link java.util.AbstractMap#put}
      */
     public Object put(final String fieldName, final Object value) {
-        return wrappedHeaders.put(fieldName, value);
+        return headers().put(fieldName, value);
     }
 
 
@@ -1186,7 +1327,7 @@ public class MantaHttpHeaders implements Serializable {
      * {@link java.util.AbstractMap#putAll}
      */
     public void putAll(final Map<? extends String, ?> map) {
-        wrappedHeaders.putAll(map);
+        headers().putAll(map);
     }
 
 
@@ -1195,7 +1336,7 @@ public class MantaHttpHeaders implements Serializable {
      * {@link java.util.AbstractMap#remove}
      */
     public Object remove(final Object name) {
-        return wrappedHeaders.remove(name);
+        return headers().remove(name);
     }
 
 
@@ -1204,7 +1345,7 @@ public class MantaHttpHeaders implements Serializable {
      * {@link java.util.AbstractMap#entrySet}
      */
     public Set<Map.Entry<String, Object>> entrySet() {
-        return wrappedHeaders.entrySet();
+        return headers().entrySet();
     }
 
 
@@ -1214,7 +1355,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return {@code java.util.Map} of unknown key-value mappings.
      */
     public Map<String, Object> getUnknownKeys() {
-        return wrappedHeaders.getUnknownKeys();
+        return headers().getUnknownKeys();
     }
 
 
@@ -1224,7 +1365,7 @@ public class MantaHttpHeaders implements Serializable {
      * @param unknownFields {@code java.util.Map} of unknown key-value mappings
      */
     public void setUnknownKeys(final Map<String, Object> unknownFields) {
-        wrappedHeaders.setUnknownKeys(unknownFields);
+        headers().setUnknownKeys(unknownFields);
     }
 
 
@@ -1233,7 +1374,7 @@ public class MantaHttpHeaders implements Serializable {
      * {@link java.util.Map#entrySet}
      */
     public int size() {
-        return wrappedHeaders.size();
+        return headers().size();
     }
 
 
@@ -1242,7 +1383,7 @@ public class MantaHttpHeaders implements Serializable {
      * {@link java.util.Map#isEmpty}
      */
     public boolean isEmpty() {
-        return wrappedHeaders.isEmpty();
+        return headers().isEmpty();
     }
 
 
@@ -1251,7 +1392,7 @@ public class MantaHttpHeaders implements Serializable {
      * {@link java.util.Map#containsValue}
      */
     public boolean containsValue(final Object value) {
-        return wrappedHeaders.containsValue(value);
+        return headers().containsValue(value);
     }
 
 
@@ -1260,7 +1401,7 @@ public class MantaHttpHeaders implements Serializable {
      * {@link java.util.Map#containsKey}
      */
     public boolean containsKey(final Object key) {
-        return wrappedHeaders.containsKey(key);
+        return headers().containsKey(key);
     }
 
 
@@ -1269,7 +1410,7 @@ public class MantaHttpHeaders implements Serializable {
      * {@link java.util.Map#clear}
      */
     public void clear() {
-        wrappedHeaders.clear();
+        headers().clear();
     }
 
 
@@ -1278,7 +1419,7 @@ public class MantaHttpHeaders implements Serializable {
      * {@link java.util.Map#keySet}
      */
     public Set<String> keySet() {
-        return wrappedHeaders.keySet();
+        return headers().keySet();
     }
 
 
@@ -1287,7 +1428,7 @@ public class MantaHttpHeaders implements Serializable {
      * {@link java.util.Map#values}
      */
     public Collection<Object> values() {
-        return wrappedHeaders.values();
+        return headers().values();
     }
 
 
@@ -1306,7 +1447,7 @@ public class MantaHttpHeaders implements Serializable {
      * @return this instance
      */
     public MantaHttpHeaders set(final String fieldName, final Object value) {
-        wrappedHeaders.set(fieldName, value);
+        headers().set(fieldName, value);
         return this;
     }
 
@@ -1320,21 +1461,81 @@ public class MantaHttpHeaders implements Serializable {
         }
         MantaHttpHeaders headers = (MantaHttpHeaders) o;
         return Objects.equals(
-                wrappedHeaders,
-                headers.wrappedHeaders
+                valuesByName(),
+                headers.valuesByName()
         );
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(wrappedHeaders);
+        return Objects.hash(valuesByName());
     }
 
     @Override
     public String toString() {
+        final CompactHttpHeaders compactHeaders = compact;
+
+        if (compactHeaders != null) {
+            return "MantaHttpHeaders{"
+                    + "compact="
+                    + compactHeaders
+                    + '}';
+        }
+
         return "MantaHttpHeaders{"
                 + "wrappedHeaders="
-                + wrappedHeaders
+                + headers()
                 + '}';
     }
+
+    /**
+     * Returns the string values of the headers keyed by lowercase name,
+     * which compares compact and materialized headers alike without
+     * converting the compact headers to {@link HttpHeaders}.
+     *
+     * @return map of header names to their values
+     */
+    private Map<String, List<String>> valuesByName() {
+        final CompactHttpHeaders compactHeaders = compact;
+
+        if (compactHeaders != null) {
+            return compactHeaders.asMap();
+        }
+
+        return valuesByName(headers());
+    }
+
+    /**
+     * Returns the string values of the specified headers keyed by lowercase name.
+     *
+     * @param headers headers to read
+     * @return map of header names to their values
+     */
+    private static Map<String, List<String>> valuesByName(final HttpHeaders headers) {
+        final Map<String, List<String>> values = new HashMap<>();
+
+        for (Map.Entry<String, Object> entry : headers.entrySet()) {
+            final Object value = entry.getValue();
+
+            if (value == null) {
+                continue;
+            }
+
+            final List<String> named = values.computeIfAbsent(
+                    entry.getKey().toLowerCase(), k -> new ArrayList<>(1));
+
+            if (value instanceof Iterable<?> || value.getClass().isArray()) {
+                for (Object multiple : Types.iterableOf(value)) {
+                    if (multiple != null) {
+                        named.add(MantaUtils.asString(multiple));
+                    }
+                }
+            } else {
+                named.add(MantaUtils.asString(value));
+            }
+        }
+
+        values.values().removeIf(List::isEmpty);
+        return values;
+    }
 }
@@ -13,7 +13,10 @@ import java.io.IOException;
  *
  * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
  * @since 2.4.0
+ * @deprecated retries immediately without backoff, requests are now retried
+ *             according to the configured {@link RetryPolicy}
  */
+@Deprecated
 public class MantaIOExceptionHandler implements HttpIOExceptionHandler {
     /**
      * Creates a new instance.
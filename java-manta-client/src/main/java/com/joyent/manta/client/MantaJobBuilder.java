@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -441,6 +442,29 @@ public class MantaJobBuilder {
         }
 
 
+        /**
+         * Wait for the job to finish without blocking the calling thread. The
+         * job is checked by the client's shared {@link MantaJobWatcher}, which
+         * polls with an exponentially increasing interval.
+         *
+         * @return future that completes with a fluent interface for finished jobs
+         */
+        public CompletableFuture<Done> waitUntilDoneAsync() {
+            return parent.client.jobWatcher().watch(id);
+        }
+
+
+        /**
+         * Wait for the job to finish without blocking the calling thread.
+         *
+         * @param timeout maximum time to wait for the job to complete
+         * @return future that completes with a fluent interface for finished jobs
+         */
+        public CompletableFuture<Done> waitUntilDoneAsync(final Duration timeout) {
+            return parent.client.jobWatcher().watch(id, timeout);
+        }
+
+
         /**
          * Go to the done phase of this job without checking to see if the job
          * is done. Use this at your own risk.
@@ -0,0 +1,443 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.http.HttpResponse;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import com.joyent.manta.exception.MantaJobException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>Iterator that incrementally parses the stream of {@link MantaJobError}
+ * records that Manta returns for a job. Records are parsed directly from
+ * the bytes of the HTTP response by a single JSON parser, rather than
+ * reading each line into a string and binding it separately.</p>
+ *
+ * <p>When created with a poll interval, the iterator follows the job's
+ * errors like <code>tail -f</code>: after reaching the end of the
+ * currently available errors, it waits and requests them again until the
+ * job is done. Each later request asks only for the bytes after the last
+ * record read using a <code>Range</code> header, so following a large
+ * error feed doesn't download and parse it again on every poll. When the
+ * range is ignored, the bytes already read are skipped without being
+ * parsed. Closing the iterator from another thread ends a wait for new
+ * errors.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+class MantaJobErrorIterator implements Iterator<MantaJobError>, AutoCloseable {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MantaJobErrorIterator.class);
+
+    /**
+     * State of a Manta job that is finished.
+     */
+    private static final String DONE_STATE = "done";
+
+    /**
+     * HTTP status code of a response to a range request.
+     */
+    private static final int HTTP_PARTIAL_CONTENT = 206;
+
+    /**
+     * HTTP status code returned when a range starts after the end of the content.
+     */
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    /**
+     * Reference to the {@link MantaClient} used to check the job's state.
+     */
+    private final MantaClient client;
+
+    /**
+     * Reference to the HTTP helper used to make requests.
+     */
+    private final HttpHelper httpHelper;
+
+    /**
+     * UUID of the Manta job.
+     */
+    private final UUID jobId;
+
+    /**
+     * Path to the job's live error resource.
+     */
+    private final String path;
+
+    /**
+     * Time to wait between requests in follow mode or null when not following.
+     */
+    private final Duration pollInterval;
+
+    /**
+     * Jackson data binding mapper instance.
+     */
+    private final ObjectMapper mapper = MantaObjectParser.MAPPER;
+
+    /**
+     * Lock guarding the iteration state. A lock is used rather than a
+     * monitor so that virtual threads aren't pinned while waiting for errors.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Condition signalled when the iterator is closed, which ends a wait
+     * between requests.
+     */
+    private final Condition closing = lock.newCondition();
+
+    /**
+     * Current HTTP response being read.
+     */
+    private HttpResponse response;
+
+    /**
+     * Parser reading the current HTTP response.
+     */
+    private JsonParser parser;
+
+    /**
+     * Next record to return or null if it hasn't been read yet.
+     */
+    private MantaJobError next;
+
+    /**
+     * Number of bytes of the error feed up to the end of the last record read.
+     */
+    private long offset = 0L;
+
+    /**
+     * Byte offset in the error feed of the start of the current response.
+     */
+    private long responseStart = 0L;
+
+    /**
+     * Flag indicating that later requests may ask for a range of the feed,
+     * which is cleared when Manta compresses the feed, because offsets are
+     * counted in uncompressed bytes.
+     */
+    private boolean rangeRequests = true;
+
+    /**
+     * Flag indicating that the current request is the last one that will be made.
+     */
+    private boolean finalRequest;
+
+    /**
+     * Flag indicating that there are no more records.
+     */
+    private boolean finished = false;
+
+    /**
+     * Registration with the leak tracker of the client or null when not tracked.
+     */
+    private volatile MantaLeakTracker.Registration registration;
+
+    /**
+     * Creates a new instance and makes the initial request.
+     *
+     * @param client Manta client used to check the job's state
+     * @param httpHelper HTTP helper used to make requests
+     * @param jobId UUID of the Manta job
+     * @param path path to the job's live error resource
+     * @param pollInterval time to wait between requests in follow mode or null to not follow
+     * @throws IOException thrown when we can't get the errors over the network
+     */
+    MantaJobErrorIterator(final MantaClient client,
+                          final HttpHelper httpHelper,
+                          final UUID jobId,
+                          final String path,
+                          final Duration pollInterval) throws IOException {
+        this.client = client;
+        this.httpHelper = httpHelper;
+        this.jobId = jobId;
+        this.path = path;
+        this.pollInterval = pollInterval;
+        this.finalRequest = pollInterval == null;
+
+        request();
+    }
+
+    /**
+     * Registers this iterator with the leak tracker of a client, so that its
+     * connection is returned to the pool if the iterator is garbage collected
+     * without being closed.
+     *
+     * @param tracker leak tracker of the client
+     */
+    void track(final MantaLeakTracker tracker) {
+        lock.lock();
+
+        try {
+            registration = tracker.register(this, "Errors of job " + jobId, null);
+            trackResponse();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes the current response the resource that is closed if this
+     * iterator leaks.
+     */
+    private void trackResponse() {
+        final MantaLeakTracker.Registration current = registration;
+        final HttpResponse connection = response;
+
+        if (current != null && connection != null) {
+            current.setResource(connection::disconnect);
+        }
+    }
+
+    /**
+     * Requests the job's errors after the last record that has been read.
+     *
+     * @throws IOException thrown when we can't get the errors over the network
+     */
+    private void request() throws IOException {
+        final MantaHttpHeaders headers = new MantaHttpHeaders();
+        // Offsets are counted in bytes of the feed, so we ask for it uncompressed
+        headers.setAcceptEncoding("identity");
+
+        if (offset > 0 && rangeRequests) {
+            headers.setRange(String.format("bytes=%d-", offset));
+        }
+
+        try {
+            response = httpHelper.httpGet(path, null, headers);
+        } catch (MantaClientHttpResponseException e) {
+            if (e.getStatusCode() == HTTP_RANGE_NOT_SATISFIABLE) {
+                // No errors were added since the previous request
+                return;
+            }
+
+            throw e;
+        }
+
+        trackResponse();
+
+        if (response.getContentEncoding() != null) {
+            rangeRequests = false;
+        }
+
+        final InputStream in = response.getContent();
+
+        if (offset > 0 && response.getStatusCode() != HTTP_PARTIAL_CONTENT) {
+            final long skipped = skip(in, offset);
+
+            if (skipped < offset) {
+                LOG.warn("Job [{}] returned fewer errors than previously read", jobId);
+                offset = skipped;
+            }
+        }
+
+        responseStart = offset;
+        parser = mapper.getFactory().createParser(in);
+    }
+
+    /**
+     * Skips bytes that have already been read without parsing them.
+     *
+     * @param in stream to skip bytes of
+     * @param count number of bytes to skip
+     * @return number of bytes skipped, which is less than count at the end of the stream
+     * @throws IOException thrown when we can't read the errors over the network
+     */
+    private static long skip(final InputStream in, final long count) throws IOException {
+        long skipped = 0L;
+
+        while (skipped < count) {
+            final long n = in.skip(count - skipped);
+
+            if (n > 0) {
+                skipped += n;
+            } else if (in.read() != -1) {
+                // skip() may return 0 before the end of the stream
+                skipped++;
+            } else {
+                break;
+            }
+        }
+
+        return skipped;
+    }
+
+    /**
+     * Advances the parser to the start of the next record.
+     *
+     * @return true if the parser is positioned at a record, false at the end of input
+     * @throws IOException thrown when we can't read the errors over the network
+     */
+    private boolean nextObject() throws IOException {
+        if (parser == null) {
+            return false;
+        }
+
+        JsonToken token = parser.nextToken();
+
+        while (token != null && token != JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        }
+
+        return token != null;
+    }
+
+    /**
+     * Reads the next record, making further requests in follow mode.
+     *
+     * @return next record or null if there are no more records
+     * @throws IOException thrown when we can't get the errors over the network
+     */
+    private MantaJobError readNext() throws IOException {
+        while (true) {
+            if (nextObject()) {
+                final MantaJobError error = mapper.readValue(parser, MantaJobError.class);
+                offset = responseStart + parser.getCurrentLocation().getByteOffset();
+                return error;
+            }
+
+            closeResponse();
+
+            if (finalRequest || !awaitPoll()) {
+                return null;
+            }
+
+            /* Once the job is done, we make one last request to get any
+             * errors emitted since the previous request. */
+            finalRequest = DONE_STATE.equals(client.getJob(jobId).getState());
+            request();
+        }
+    }
+
+    /**
+     * Waits for the poll interval unless the iterator is closed. The lock
+     * is released while waiting.
+     *
+     * @return true if the wait completed, false if the iterator was closed
+     */
+    private boolean awaitPoll() {
+        long remaining = pollInterval.toNanos();
+
+        try {
+            while (remaining > 0 && !finished) {
+                remaining = closing.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MantaJobException(jobId, "Interrupted while following job errors", e);
+        }
+
+        return !finished;
+    }
+
+    @Override
+    public boolean hasNext() {
+        lock.lock();
+
+        try {
+            if (next != null) {
+                return true;
+            }
+
+            if (finished) {
+                return false;
+            }
+
+            try {
+                next = readNext();
+            } catch (IOException e) {
+                finished = true;
+                closeResponse();
+                throw new UncheckedIOException(e);
+            }
+
+            if (next == null) {
+                finished = true;
+                return false;
+            }
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public MantaJobError next() {
+        lock.lock();
+
+        try {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final MantaJobError error = next;
+            next = null;
+            return error;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the parser and disconnects the current HTTP response.
+     */
+    private void closeResponse() {
+        if (parser != null) {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                LOG.warn("Problem closing JSON parser", e);
+            }
+
+            parser = null;
+        }
+
+        if (response != null) {
+            try {
+                response.disconnect();
+            } catch (IOException e) {
+                LOG.warn("Problem disconnecting response resource", e);
+            }
+
+            response = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+
+        try {
+            finished = true;
+            closeResponse();
+            closing.signalAll();
+        } finally {
+            lock.unlock();
+
+            final MantaLeakTracker.Registration current = registration;
+
+            if (current != null) {
+                current.release();
+            }
+        }
+    }
+}
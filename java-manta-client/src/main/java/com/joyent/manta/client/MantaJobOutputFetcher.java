@@ -0,0 +1,323 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.joyent.manta.exception.MantaClientException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Class that downloads the outputs of a Manta job concurrently. Up to
+ * a configurable window of outputs are fetched at the same time, while
+ * results are delivered either as a {@link Stream} or to a callback.
+ * Results can optionally be delivered in the same order that Manta lists
+ * the outputs.</p>
+ *
+ * <p>This is much faster than {@link MantaClient#getJobOutputsAsStrings(UUID)}
+ * for jobs with many small outputs, such as reduce phases that emit
+ * thousands of objects. Be careful, like that method, each output is read
+ * entirely into memory.</p>
+ *
+ * <p>Instances own a pool of threads, so they must be closed when no
+ * longer needed.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class MantaJobOutputFetcher implements AutoCloseable {
+    /**
+     * Default number of outputs to fetch concurrently.
+     */
+    public static final int DEFAULT_WINDOW = 8;
+
+    /**
+     * Counter used to give each fetcher thread a unique name.
+     */
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * Reference to the {@link MantaClient} used to fetch outputs.
+     */
+    private final MantaClient client;
+
+    /**
+     * Maximum number of outputs to fetch concurrently.
+     */
+    private final int window;
+
+    /**
+     * Flag indicating if results are delivered in the order listed by Manta.
+     */
+    private final boolean ordered;
+
+    /**
+     * Thread pool used to fetch outputs.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Creates a new instance that fetches outputs with the default window
+     * and delivers them in order.
+     *
+     * @param client Manta client used to fetch outputs
+     */
+    public MantaJobOutputFetcher(final MantaClient client) {
+        this(client, DEFAULT_WINDOW, true);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param client Manta client used to fetch outputs
+     * @param window maximum number of outputs to fetch concurrently
+     * @param ordered true to deliver results in the order listed by Manta,
+     *                false to deliver results as soon as they are available
+     */
+    public MantaJobOutputFetcher(final MantaClient client,
+                                 final int window,
+                                 final boolean ordered) {
+        Objects.requireNonNull(client, "Manta client must be present");
+
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be 1 or greater");
+        }
+
+        this.client = client;
+        this.window = window;
+        this.ordered = ordered;
+
+        final ThreadFactory threadFactory = MantaThreadFactory.fromConfig(client.getContext(),
+                "manta-job-output-", THREAD_COUNTER);
+
+        this.executor = Executors.newFixedThreadPool(window, threadFactory);
+    }
+
+    /**
+     * <p>Returns a stream of strings containing all of the output returned
+     * from the Manta API for a job. Outputs are fetched concurrently ahead
+     * of the consumer of the stream.</p>
+     *
+     * <p><strong>Make sure to close this stream when you are done with
+     * otherwise the HTTP socket will remain open.</strong></p>
+     *
+     * @param jobId UUID of the Manta job
+     * @return stream of each job output as a string
+     * @throws IOException thrown when we can't get a list of outputs over the network
+     */
+    public Stream<String> getOutputsAsStrings(final UUID jobId) throws IOException {
+        Objects.requireNonNull(jobId, "Job id must be present");
+
+        final Stream<String> paths = client.getJobOutputs(jobId);
+        final PrefetchingIterator itr = new PrefetchingIterator(paths.iterator());
+
+        final Stream<OutputResult> results = StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(itr, Spliterator.NONNULL), false);
+
+        return results.map(OutputResult::getContent).onClose(() -> {
+            itr.cancelAll();
+            paths.close();
+        });
+    }
+
+    /**
+     * Fetches all of the outputs of a job concurrently and passes each one
+     * to the specified consumer along with its path. This method returns
+     * once all outputs have been consumed. The consumer is always invoked
+     * from the calling thread.
+     *
+     * @param jobId UUID of the Manta job
+     * @param consumer consumer accepting the path and the content of each output
+     * @throws IOException thrown when we can't get an output over the network
+     */
+    public void forEachOutput(final UUID jobId,
+                              final BiConsumer<String, String> consumer) throws IOException {
+        Objects.requireNonNull(jobId, "Job id must be present");
+        Objects.requireNonNull(consumer, "Consumer must be present");
+
+        try (Stream<String> paths = client.getJobOutputs(jobId)) {
+            final PrefetchingIterator itr = new PrefetchingIterator(paths.iterator());
+
+            try {
+                while (itr.hasNext()) {
+                    final OutputResult result = itr.next();
+                    consumer.accept(result.path, result.content);
+                }
+            } catch (UncheckedIOException e) {
+                itr.cancelAll();
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                itr.cancelAll();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Stops all fetching threads.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Path and content of a single job output.
+     */
+    private static final class OutputResult {
+        /**
+         * Path to the output object.
+         */
+        private final String path;
+
+        /**
+         * Content of the output object.
+         */
+        private final String content;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param path path to the output object
+         * @param content content of the output object
+         */
+        private OutputResult(final String path, final String content) {
+            this.path = path;
+            this.content = content;
+        }
+
+        /**
+         * @return content of the output object
+         */
+        private String getContent() {
+            return content;
+        }
+    }
+
+    /**
+     * Iterator that keeps up to a window of outputs being fetched ahead of
+     * the consumer.
+     */
+    private final class PrefetchingIterator implements Iterator<OutputResult> {
+        /**
+         * Iterator of the paths to all outputs.
+         */
+        private final Iterator<String> paths;
+
+        /**
+         * Fetches in flight, in the order they were submitted.
+         */
+        private final Deque<Future<OutputResult>> inFlight = new ArrayDeque<>();
+
+        /**
+         * Completion service used to deliver results as they finish when not ordered.
+         */
+        private final CompletionService<OutputResult> completionService;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param paths iterator of the paths to all outputs
+         */
+        private PrefetchingIterator(final Iterator<String> paths) {
+            this.paths = paths;
+            this.completionService = new ExecutorCompletionService<>(executor);
+        }
+
+        /**
+         * Submits fetches until the window is full or there are no more paths.
+         */
+        private void fill() {
+            while (inFlight.size() < window && paths.hasNext()) {
+                final String path = paths.next();
+
+                if (path == null) {
+                    continue;
+                }
+
+                final Callable<OutputResult> fetch = () ->
+                        new OutputResult(path, client.getAsString(path));
+
+                /* Only unordered results go through the completion service,
+                 * otherwise its queue would retain every completed result. */
+                if (ordered) {
+                    inFlight.add(executor.submit(fetch));
+                } else {
+                    inFlight.add(completionService.submit(fetch));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return !inFlight.isEmpty();
+        }
+
+        @Override
+        public OutputResult next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            try {
+                final Future<OutputResult> future;
+
+                if (ordered) {
+                    future = inFlight.remove();
+                } else {
+                    future = completionService.take();
+                    inFlight.remove(future);
+                }
+
+                final OutputResult result = future.get();
+                fill();
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelAll();
+                throw new MantaClientException("Interrupted while fetching job outputs", e);
+            } catch (ExecutionException e) {
+                cancelAll();
+
+                if (e.getCause() instanceof IOException) {
+                    throw new UncheckedIOException((IOException)e.getCause());
+                }
+
+                throw new MantaClientException("Unable to fetch job output", e.getCause());
+            }
+        }
+
+        /**
+         * Cancels all fetches in flight.
+         */
+        private void cancelAll() {
+            for (Future<OutputResult> future : inFlight) {
+                future.cancel(true);
+            }
+
+            inFlight.clear();
+        }
+    }
+}
@@ -0,0 +1,542 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import com.joyent.manta.exception.MantaJobException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>Service that watches any number of Manta jobs for completion using a
+ * single background thread. Rather than holding a sleeping thread per job
+ * like {@link MantaJobBuilder.Run#waitUntilDone()}, callers get a
+ * {@link CompletableFuture} that completes when the job is done.</p>
+ *
+ * <p>Each job is polled with an interval that starts small and grows
+ * exponentially up to a maximum, so short jobs finish quickly and long jobs
+ * don't flood the Manta API. When multiple jobs are due to be checked at
+ * the same time, we make a single request for the IDs of all running jobs
+ * and only check the state of the jobs that are no longer running
+ * individually.</p>
+ *
+ * <p>Listing the running jobs returns every running job of the account,
+ * including jobs that aren't watched, so its cost grows with the number of
+ * jobs running on the account. When the last listing returned more than
+ * {@value #MAX_RUNNING_JOBS_PER_DUE_JOB} running jobs for each job that is
+ * due, the jobs are checked individually instead and the listing is only
+ * repeated once the maximum interval has passed.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class MantaJobWatcher implements AutoCloseable {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MantaJobWatcher.class);
+
+    /**
+     * Default wait time before the first check of a job's state.
+     */
+    public static final Duration DEFAULT_INITIAL_INTERVAL = Duration.of(500L, ChronoUnit.MILLIS);
+
+    /**
+     * Default maximum wait time between checks of a job's state.
+     */
+    public static final Duration DEFAULT_MAX_INTERVAL = Duration.of(30L, ChronoUnit.SECONDS);
+
+    /**
+     * Default maximum time to wait for a job to complete.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.of(1L, ChronoUnit.HOURS);
+
+    /**
+     * Factor that the interval between checks grows by after each check.
+     */
+    private static final int INTERVAL_MULTIPLIER = 2;
+
+    /**
+     * Maximum number of running jobs listed for each job due to be checked,
+     * for which we list the running jobs rather than checking the due jobs
+     * individually. A listing entry is roughly a sixteenth of the size of a
+     * job's status.
+     */
+    static final int MAX_RUNNING_JOBS_PER_DUE_JOB = 16;
+
+    /**
+     * Maximum timeout or interval in nanoseconds (about 146 years). Longer
+     * durations are shortened to it, so that times can be compared without
+     * overflowing.
+     */
+    private static final long MAX_TIMEOUT_NANOS = Long.MAX_VALUE / 2;
+
+    /**
+     * State of a Manta job that is running.
+     */
+    private static final String RUNNING_STATE = "running";
+
+    /**
+     * State of a Manta job that is finished.
+     */
+    private static final String DONE_STATE = "done";
+
+    /**
+     * HTTP status code returned when a job doesn't exist.
+     */
+    private static final int HTTP_NOT_FOUND = 404;
+
+    /**
+     * Counter used to give each watcher thread a unique name.
+     */
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * Reference to the {@link MantaClient} used to check job states.
+     */
+    private final MantaClient client;
+
+    /**
+     * Job builder used to create {@link MantaJobBuilder.Done} instances.
+     */
+    private final MantaJobBuilder jobBuilder;
+
+    /**
+     * Wait time before the first check of a job's state.
+     */
+    private final Duration initialInterval;
+
+    /**
+     * Maximum wait time between checks of a job's state.
+     */
+    private final Duration maxInterval;
+
+    /**
+     * Executor that runs all of the state checks.
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * All of the jobs currently being watched.
+     */
+    private final Map<UUID, Watch> watches = new ConcurrentHashMap<>();
+
+    /**
+     * Next scheduled check or null if nothing is scheduled.
+     */
+    private ScheduledFuture<?> nextCheck;
+
+    /**
+     * Time in nanoseconds that the next check is scheduled to run at.
+     */
+    private long nextCheckAt;
+
+    /**
+     * Number of running jobs returned by the last listing or -1 when the
+     * running jobs haven't been listed. Only used by the watcher thread.
+     */
+    private int lastRunningCount = -1;
+
+    /**
+     * Time in nanoseconds of the last listing of running jobs. Only used by
+     * the watcher thread.
+     */
+    private long lastListedAt;
+
+    /**
+     * Flag indicating that the watcher has been closed.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new instance using the default polling intervals.
+     *
+     * @param client Manta client used to check job states
+     */
+    public MantaJobWatcher(final MantaClient client) {
+        this(client, DEFAULT_INITIAL_INTERVAL, DEFAULT_MAX_INTERVAL);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param client Manta client used to check job states
+     * @param initialInterval wait time before the first check of a job's state
+     * @param maxInterval maximum wait time between checks of a job's state
+     */
+    public MantaJobWatcher(final MantaClient client,
+                           final Duration initialInterval,
+                           final Duration maxInterval) {
+        Objects.requireNonNull(client, "Manta client must be present");
+        Objects.requireNonNull(initialInterval, "Initial interval must be present");
+        Objects.requireNonNull(maxInterval, "Maximum interval must be present");
+
+        if (initialInterval.isNegative() || initialInterval.isZero()) {
+            throw new IllegalArgumentException("Initial interval must be greater than zero");
+        }
+
+        if (maxInterval.compareTo(initialInterval) < 0) {
+            throw new IllegalArgumentException("Maximum interval must not be less than "
+                    + "the initial interval");
+        }
+
+        this.client = client;
+        this.jobBuilder = client.jobBuilder();
+        this.initialInterval = initialInterval;
+        this.maxInterval = maxInterval;
+
+        final ThreadFactory threadFactory = MantaThreadFactory.fromConfig(client.getContext(),
+                "manta-job-watcher-", THREAD_COUNTER);
+
+        final ScheduledThreadPoolExecutor scheduler =
+                new ScheduledThreadPoolExecutor(1, threadFactory);
+        scheduler.setRemoveOnCancelPolicy(true);
+        this.executor = scheduler;
+    }
+
+    /**
+     * Watches the specified job until it is done or the default timeout is
+     * reached.
+     *
+     * @param jobId UUID of the Manta job
+     * @return future that completes when the job is done
+     */
+    public CompletableFuture<MantaJobBuilder.Done> watch(final UUID jobId) {
+        return watch(jobId, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Watches the specified job until it is done or the specified timeout is
+     * reached. If the timeout is reached the future completes exceptionally
+     * with a {@link MantaJobException}. Timeouts longer than about 146 years,
+     * such as {@link ChronoUnit#FOREVER}, wait until the job is done. Cancelling the returned future stops
+     * watching the job. Watching a job that is already being watched returns
+     * the existing future.
+     *
+     * @param jobId UUID of the Manta job
+     * @param timeout maximum time to wait for the job to complete
+     * @return future that completes when the job is done
+     */
+    public CompletableFuture<MantaJobBuilder.Done> watch(final UUID jobId,
+                                                         final Duration timeout) {
+        Objects.requireNonNull(jobId, "Manta job id must be present");
+        Objects.requireNonNull(timeout, "Timeout must be present");
+
+        if (closed) {
+            throw new IllegalStateException("Job watcher has been closed");
+        }
+
+        final long now = System.nanoTime();
+        final Watch watch = watches.computeIfAbsent(jobId, id ->
+                new Watch(id, now + saturatedNanos(timeout), saturatedNanos(initialInterval), now));
+
+        schedule(watch.nextCheckAt);
+
+        return watch.future;
+    }
+
+    /**
+     * Converts a duration to nanoseconds, shortening durations that are too
+     * long to compare times without overflowing.
+     *
+     * @param duration timeout or interval
+     * @return duration in nanoseconds
+     */
+    static long saturatedNanos(final Duration duration) {
+        if (duration.isNegative()) {
+            return 0L;
+        }
+
+        if (duration.getSeconds() >= TimeUnit.NANOSECONDS.toSeconds(MAX_TIMEOUT_NANOS)) {
+            return MAX_TIMEOUT_NANOS;
+        }
+
+        return Math.min(duration.toNanos(), MAX_TIMEOUT_NANOS);
+    }
+
+    /**
+     * @return the number of jobs currently being watched
+     */
+    public int getWatchedCount() {
+        return watches.size();
+    }
+
+    /**
+     * Schedules a check to run at the specified time unless a check has
+     * already been scheduled to run before that time.
+     *
+     * @param at time in nanoseconds to run the check at
+     */
+    private synchronized void schedule(final long at) {
+        if (closed) {
+            return;
+        }
+
+        if (nextCheck != null && !nextCheck.isDone() && nextCheckAt <= at) {
+            return;
+        }
+
+        if (nextCheck != null) {
+            nextCheck.cancel(false);
+        }
+
+        final long delay = Math.max(0L, at - System.nanoTime());
+        nextCheckAt = at;
+        nextCheck = executor.schedule(this::checkDueJobs, delay, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Checks the state of every job whose check is due and schedules the
+     * next check.
+     */
+    private void checkDueJobs() {
+        synchronized (this) {
+            nextCheck = null;
+        }
+
+        try {
+            final long now = System.nanoTime();
+            final List<Watch> due = new ArrayList<>();
+
+            for (Watch watch : watches.values()) {
+                if (watch.future.isDone()) {
+                    watches.remove(watch.jobId);
+                } else if (watch.deadline - now <= 0) {
+                    watches.remove(watch.jobId);
+                    watch.future.completeExceptionally(new MantaJobException(watch.jobId,
+                            "Job didn't complete in the expected amount of time"));
+                } else if (watch.nextCheckAt - now <= 0) {
+                    due.add(watch);
+                }
+            }
+
+            final Set<UUID> running = findRunningJobs(due, now);
+
+            for (Watch watch : due) {
+                if (closed) {
+                    return;
+                }
+
+                if (running.contains(watch.jobId)) {
+                    watch.backOff(System.nanoTime());
+                } else {
+                    checkJob(watch);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Unexpected error checking job states", e);
+        } finally {
+            scheduleNext();
+        }
+    }
+
+    /**
+     * Schedules the next check for the earliest job due to be checked.
+     */
+    private void scheduleNext() {
+        long earliest = Long.MAX_VALUE;
+        boolean found = false;
+
+        for (Watch watch : watches.values()) {
+            final long at;
+
+            if (watch.deadline - watch.nextCheckAt < 0) {
+                at = watch.deadline;
+            } else {
+                at = watch.nextCheckAt;
+            }
+
+            if (!found || at - earliest < 0) {
+                earliest = at;
+                found = true;
+            }
+        }
+
+        if (found) {
+            schedule(earliest);
+        }
+    }
+
+    /**
+     * Finds the IDs of all running jobs with a single request when more than
+     * one job is due for a check. This allows us to skip checking each job
+     * that is still running individually. The listing is skipped when the
+     * last listing had too many running jobs for the number of jobs due,
+     * until the maximum interval has passed since it was made.
+     *
+     * @param due jobs due for a check
+     * @param now current time in nanoseconds
+     * @return set of running job IDs or an empty set when no batch check was done
+     */
+    private Set<UUID> findRunningJobs(final List<Watch> due, final long now) {
+        if (!shouldListRunningJobs(due.size(), lastRunningCount,
+                now - lastListedAt, saturatedNanos(maxInterval))) {
+            return Collections.emptySet();
+        }
+
+        try (Stream<UUID> ids = client.getJobIdsByState(RUNNING_STATE)) {
+            final Set<UUID> running = ids.filter(Objects::nonNull).collect(Collectors.toSet());
+            lastRunningCount = running.size();
+            lastListedAt = now;
+
+            return running;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Unable to list running jobs - checking jobs individually", e);
+            return Collections.emptySet();
+        }
+    }
+
+    /**
+     * Determines if listing the running jobs is cheaper than checking the
+     * jobs due individually.
+     *
+     * @param dueCount number of jobs due for a check
+     * @param lastRunningCount number of jobs returned by the last listing or -1 if none was made
+     * @param sinceListed nanoseconds since the last listing
+     * @param maxIntervalNanos maximum wait time in nanoseconds between checks
+     * @return true if the running jobs should be listed
+     */
+    static boolean shouldListRunningJobs(final int dueCount,
+                                         final int lastRunningCount,
+                                         final long sinceListed,
+                                         final long maxIntervalNanos) {
+        if (dueCount < 2) {
+            return false;
+        }
+
+        final long maxRunning = (long)dueCount * MAX_RUNNING_JOBS_PER_DUE_JOB;
+
+        return lastRunningCount <= maxRunning || sinceListed >= maxIntervalNanos;
+    }
+
+    /**
+     * Checks the state of a single job, completing its future if it is done.
+     *
+     * @param watch job to check
+     */
+    private void checkJob(final Watch watch) {
+        try {
+            final MantaJob job = client.getJob(watch.jobId);
+
+            if (DONE_STATE.equals(job.getState())) {
+                watches.remove(watch.jobId);
+                watch.future.complete(new MantaJobBuilder.Done(watch.jobId, jobBuilder));
+                return;
+            }
+        } catch (MantaClientHttpResponseException e) {
+            if (e.getStatusCode() == HTTP_NOT_FOUND) {
+                watches.remove(watch.jobId);
+                watch.future.completeExceptionally(e);
+                return;
+            }
+
+            LOG.warn("Unable to check the state of job [{}]", watch.jobId, e);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Unable to check the state of job [{}]", watch.jobId, e);
+        }
+
+        watch.backOff(System.nanoTime());
+    }
+
+    /**
+     * Stops watching all jobs. All futures that haven't yet completed are
+     * cancelled.
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        synchronized (this) {
+            if (nextCheck != null) {
+                nextCheck.cancel(false);
+            }
+        }
+
+        executor.shutdownNow();
+
+        for (Watch watch : watches.values()) {
+            watch.future.cancel(false);
+        }
+
+        watches.clear();
+    }
+
+    /**
+     * State associated with a single watched job.
+     */
+    private final class Watch {
+        /**
+         * UUID of the Manta job.
+         */
+        private final UUID jobId;
+
+        /**
+         * Time in nanoseconds after which we stop waiting for the job.
+         */
+        private final long deadline;
+
+        /**
+         * Future completed when the job is done.
+         */
+        private final CompletableFuture<MantaJobBuilder.Done> future = new CompletableFuture<>();
+
+        /**
+         * Current wait time in nanoseconds between checks.
+         */
+        private volatile long interval;
+
+        /**
+         * Time in nanoseconds of the next check.
+         */
+        private volatile long nextCheckAt;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param jobId UUID of the Manta job
+         * @param deadline time in nanoseconds after which we stop waiting for the job
+         * @param interval wait time in nanoseconds before the first check
+         * @param now current time in nanoseconds
+         */
+        private Watch(final UUID jobId, final long deadline,
+                      final long interval, final long now) {
+            this.jobId = jobId;
+            this.deadline = deadline;
+            this.interval = interval;
+            this.nextCheckAt = now + interval;
+        }
+
+        /**
+         * Increases the wait time between checks and sets the time of the
+         * next check.
+         *
+         * @param now current time in nanoseconds
+         */
+        private void backOff(final long now) {
+            interval = Math.min(interval * INTERVAL_MULTIPLIER, saturatedNanos(maxInterval));
+            nextCheckAt = now + interval;
+        }
+    }
+}
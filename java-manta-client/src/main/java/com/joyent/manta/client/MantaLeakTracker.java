@@ -0,0 +1,281 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.joyent.manta.config.ConfigContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.BaseStream;
+
+/**
+ * Registry of the streams, iterators and responses handed out by a
+ * {@link MantaClient} that hold a connection until they are closed.
+ *
+ * <p>Each registration weakly references the object handed out and strongly
+ * references the resource holding its connection, such as the HTTP response.
+ * Closing the object releases its registration. When an object is garbage
+ * collected without having been closed, its registration is queued by the
+ * garbage collector, and the next registration reports it as a leak and
+ * closes its resource so that the connection is returned to the pool.
+ * Registrations of closed or leaked objects are therefore removed rather than
+ * accumulating for the life of the client.</p>
+ *
+ * <p>Recording where each object was opened makes leaks easy to find but
+ * costs a stack trace per registration, so it is only done when the
+ * <code>manta.track_leaks</code> setting is enabled.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class MantaLeakTracker {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MantaLeakTracker.class);
+
+    /**
+     * Queue to which the garbage collector adds the registrations of
+     * collected objects.
+     */
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    /**
+     * Registrations of the objects that haven't been closed or collected.
+     */
+    private final Set<Registration> registrations = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Flag indicating that the stack trace of each registration is recorded.
+     */
+    private final boolean recordAllocations;
+
+    /**
+     * Number of objects collected without having been closed.
+     */
+    private final AtomicLong leaked = new AtomicLong();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param recordAllocations true to record where each object was opened
+     */
+    MantaLeakTracker(final boolean recordAllocations) {
+        this.recordAllocations = recordAllocations;
+    }
+
+    /**
+     * Creates a new instance recording allocations when the
+     * <code>manta.track_leaks</code> setting is enabled.
+     *
+     * @param config configuration context
+     * @return new instance
+     */
+    static MantaLeakTracker fromConfig(final ConfigContext config) {
+        return new MantaLeakTracker(config != null && Boolean.TRUE.equals(config.trackLeaks()));
+    }
+
+    /**
+     * Registers an object that must be closed, after handling the objects
+     * that were collected since the last registration.
+     *
+     * @param owner object handed out to the caller
+     * @param description description of the object used when reporting a leak
+     * @param resource resource closed if the owner leaks or null if it has none yet,
+     *                 which must not reference the owner
+     * @return registration to release when the owner is closed
+     */
+    Registration register(final AutoCloseable owner, final String description,
+                          final AutoCloseable resource) {
+        purge();
+
+        final Registration registration = new Registration(owner, description, resource);
+        registrations.add(registration);
+
+        return registration;
+    }
+
+    /**
+     * Registers a stream that is released when it is closed.
+     *
+     * @param stream stream handed out to the caller
+     * @param description description of the stream used when reporting a leak
+     * @param resource resource closed if the stream leaks, which must not reference the stream
+     * @param <S> type of stream
+     * @return the stream with the release of its registration added to its close handlers
+     */
+    <S extends BaseStream<?, S>> S track(final S stream, final String description,
+                                         final AutoCloseable resource) {
+        return stream.onClose(register(stream, description, resource)::release);
+    }
+
+    /**
+     * Reports and closes the resources of the objects that were collected
+     * without having been closed.
+     */
+    void purge() {
+        Reference<?> reference;
+
+        while ((reference = queue.poll()) != null) {
+            ((Registration)reference).leaked();
+        }
+    }
+
+    /**
+     * Closes all of the registered objects that are still reachable and the
+     * resources of the ones that aren't.
+     *
+     * @param exceptions list to which the exceptions thrown when closing are added
+     */
+    void closeAll(final List<Exception> exceptions) {
+        purge();
+
+        for (Registration registration : registrations) {
+            try {
+                final AutoCloseable owner = registration.get();
+
+                if (owner == null) {
+                    registration.closeResource();
+                } else {
+                    owner.close();
+                }
+            } catch (Exception e) {
+                exceptions.add(e);
+            } finally {
+                registration.release();
+            }
+        }
+    }
+
+    /**
+     * @return number of registered objects that haven't been closed or collected
+     */
+    int size() {
+        purge();
+        return registrations.size();
+    }
+
+    /**
+     * @return number of objects that were collected without having been closed
+     */
+    long getLeaked() {
+        return leaked.get();
+    }
+
+    @Override
+    public String toString() {
+        return "MantaLeakTracker{"
+                + "registered=" + registrations.size()
+                + ", leaked=" + leaked.get()
+                + ", recordAllocations=" + recordAllocations
+                + '}';
+    }
+
+    /**
+     * Registration of an object handed out to the caller, which references
+     * the object weakly and the resource holding its connection strongly.
+     */
+    final class Registration extends WeakReference<AutoCloseable> {
+        /**
+         * Description of the object used when reporting a leak.
+         */
+        private final String description;
+
+        /**
+         * Stack trace of the registration or null when not recorded.
+         */
+        private final Throwable allocation;
+
+        /**
+         * Resource closed if the object leaks or null if it has none.
+         */
+        private volatile AutoCloseable resource;
+
+        /**
+         * Creates a new registration queued when the owner is collected.
+         *
+         * @param owner object handed out to the caller
+         * @param description description of the object used when reporting a leak
+         * @param resource resource closed if the owner leaks or null
+         */
+        private Registration(final AutoCloseable owner, final String description,
+                             final AutoCloseable resource) {
+            super(owner, queue);
+            this.description = description;
+            this.resource = resource;
+
+            if (recordAllocations) {
+                this.allocation = new Throwable("Opened here");
+            } else {
+                this.allocation = null;
+            }
+        }
+
+        /**
+         * Replaces the resource closed if the object leaks, such as when an
+         * iterator moves on to the response of its next page.
+         *
+         * @param newResource resource closed if the owner leaks, which must not reference the owner
+         */
+        void setResource(final AutoCloseable newResource) {
+            this.resource = newResource;
+        }
+
+        /**
+         * Removes this registration once the object has been closed.
+         */
+        void release() {
+            if (registrations.remove(this)) {
+                clear();
+                resource = null;
+            }
+        }
+
+        /**
+         * Reports that the object was collected without having been closed
+         * and closes its resource.
+         */
+        private void leaked() {
+            if (!registrations.remove(this)) {
+                return;
+            }
+
+            leaked.incrementAndGet();
+
+            if (allocation != null) {
+                LOG.warn("{} was garbage collected without being closed", description, allocation);
+            } else {
+                LOG.warn("{} was garbage collected without being closed. Enable "
+                        + "manta.track_leaks to record where it was opened.", description);
+            }
+
+            try {
+                closeResource();
+            } catch (Exception e) {
+                LOG.warn("Problem closing the resource of {}", description, e);
+            }
+        }
+
+        /**
+         * Closes the resource of the object if it has one.
+         *
+         * @throws Exception thrown when the resource can't be closed
+         */
+        private void closeResource() throws Exception {
+            final AutoCloseable current = resource;
+            resource = null;
+
+            if (current != null) {
+                current.close();
+            }
+        }
+    }
+}
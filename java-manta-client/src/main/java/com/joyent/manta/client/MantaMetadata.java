@@ -4,14 +4,10 @@
 package com.joyent.manta.client;
 
 import org.apache.commons.collections4.Predicate;
-import org.apache.commons.collections4.map.CaseInsensitiveMap;
-import org.apache.commons.collections4.map.PredicatedMap;
 
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.Serializable;
-import java.io.UnsupportedEncodingException;
 import java.util.Collection;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiConsumer;
@@ -43,10 +39,36 @@ public class MantaMetadata implements Map<String, String>, Cloneable, Serializab
      */
     private static final char ASCIICODE_32_SPACE = ' ';
 
+    /**
+     * The highest character value that can be encoded as ISO-8859-1.
+     */
+    private static final char MAX_ISO_8859_1_CHAR = '\u00ff';
+
+    /**
+     * Lookup table indexed by ISO-8859-1 character value that is true for
+     * control characters and the characters in {@link #ILLEGAL_KEY_CHARS}.
+     */
+    private static final boolean[] ILLEGAL_KEY_CHAR_TABLE = new boolean[MAX_ISO_8859_1_CHAR + 1];
+
+    static {
+        for (char c = 0; c < ASCIICODE_32_SPACE; c++) {
+            ILLEGAL_KEY_CHAR_TABLE[c] = true;
+        }
+
+        for (char c : ILLEGAL_KEY_CHARS) {
+            ILLEGAL_KEY_CHAR_TABLE[c] = true;
+        }
+    }
+
+    /**
+     * Predicate used to validate keys.
+     */
+    private static final Predicate<String> KEY_PREDICATE = new HttpHeaderNameKeyPredicate();
+
     /**
      * The backing map data structure.
      */
-    private final PredicatedMap<String, String> innerMap;
+    private final CompactCaseInsensitiveMap innerMap = new CompactCaseInsensitiveMap();
 
 
     /**
@@ -54,8 +76,7 @@ public class MantaMetadata implements Map<String, String>, Cloneable, Serializab
      * @param m the backing map
      */
     public MantaMetadata(final Map<? extends String, ? extends String> m) {
-        this();
-        innerMap.putAll(m);
+        putAll(m);
     }
 
 
@@ -63,9 +84,6 @@ public class MantaMetadata implements Map<String, String>, Cloneable, Serializab
      * Create a new instance backed with a new empty map.
      */
     public MantaMetadata() {
-        final Map<String, String> map = new CaseInsensitiveMap<>();
-        final Predicate<String> keyPredicate = new HttpHeaderNameKeyPredicate();
-        this.innerMap = PredicatedMap.predicatedMap(map, keyPredicate, null);
     }
 
 
@@ -84,78 +102,35 @@ public class MantaMetadata implements Map<String, String>, Cloneable, Serializab
     protected static class HttpHeaderNameKeyPredicate implements Predicate<String> {
 
         /**
-         * {@inheritDoc}
+         * Validates a key in a single pass over its characters without
+         * allocating. Keys must start with "m-" and only contain
+         * ISO-8859-1 characters that aren't control characters or
+         * {@link #ILLEGAL_KEY_CHARS}.
+         *
+         * @param object key to validate
+         * @return true if the key is valid, otherwise false
          */
         @Override
         public boolean evaluate(final String object) {
-            return object != null
-                    && !object.isEmpty()
-                    && !hasIllegalChars(object)
-                    && isIso88591(object)
-                    && validPrefix(object);
-        }
-
-        /**
-         * Test a string for iso8859-1 character encoding.
-         *
-         * @param input string value to be tested
-         * @return true if the string is entirely iso8859-1, false otherwise.
-         */
-        private boolean isIso88591(final String input) {
-            try {
-                final byte[] bytes = input.getBytes("ISO-8859-1");
-                final String result = new String(bytes, "ISO-8859-1");
-                return result.equals(input);
-            } catch (UnsupportedEncodingException e) {
-                throw new RuntimeException("JVM doesn't support \"ISO-8859-1\" encoding", e);
+            if (object == null || object.length() < 2) {
+                return false;
             }
-        }
-
-        /**
-         * Test a string starts with a valid prefix.
-         *
-         * @param input string value to be tested
-         * @return true if the string starts with a valid prefix, false otherwise.
-         */
-        private boolean validPrefix(final String input) {
-            return input.toLowerCase(Locale.ENGLISH).startsWith("m-");
-        }
 
-        /**
-         * Test a string for illegal characters.
-         *
-         * @param input string value to be tested
-         * @return true if the string contains illegal characters, false otherwise.
-         */
-        private boolean hasIllegalChars(final String input) {
-            final char[] chars = input.toCharArray();
+            final char first = object.charAt(0);
+            if ((first != 'm' && first != 'M') || object.charAt(1) != '-') {
+                return false;
+            }
 
-            for (final char c : chars) {
-                if (isControlCharacter(c)) {
-                    return true;
-                }
+            for (int i = 2; i < object.length(); i++) {
+                final char c = object.charAt(i);
 
-                for (char illegalKeyChar : ILLEGAL_KEY_CHARS) {
-                    if (c == illegalKeyChar) {
-                        return true;
-                    }
+                if (c > MAX_ISO_8859_1_CHAR || ILLEGAL_KEY_CHAR_TABLE[c]) {
+                    return false;
                 }
             }
 
-            return false;
-        }
-
-        /**
-         * Test if a character is considered a control characters.
-         *
-         * @param c character value to be tested
-         * @return true if the character is a control character, false otherwise.
-         */
-        private boolean isControlCharacter(final char c) {
-            final int intVal = (int)c;
-            return intVal < ASCIICODE_32_SPACE;
+            return true;
         }
-
     }
 
 
@@ -175,7 +150,7 @@ public class MantaMetadata implements Map<String, String>, Cloneable, Serializab
     public String merge(final String key,
                         final String value,
                         final BiFunction<? super String, ? super String, ? extends String> remappingFunction) {
-        return innerMap.merge(key, value, remappingFunction);
+        return Map.super.merge(key, value, remappingFunction);
     }
 
 
@@ -185,7 +160,7 @@ public class MantaMetadata implements Map<String, String>, Cloneable, Serializab
     @Override
     public String compute(final String key,
                           final BiFunction<? super String, ? super String, ? extends String> remappingFunction) {
-        return innerMap.compute(key, remappingFunction);
+        return Map.super.compute(key, remappingFunction);
     }
 
 
@@ -199,7 +174,7 @@ public class MantaMetadata implements Map<String, String>, Cloneable, Serializab
                                            ? super String,
                                            ? extends String
                                            > remappingFunction) {
-        return innerMap.computeIfPresent(key, remappingFunction);
+        return Map.super.computeIfPresent(key, remappingFunction);
     }
 
 
@@ -208,7 +183,7 @@ public class MantaMetadata implements Map<String, String>, Cloneable, Serializab
      */
     @Override
     public String computeIfAbsent(final String key, final Function<? super String, ? extends String> mappingFunction) {
-        return innerMap.computeIfAbsent(key, mappingFunction);
+        return Map.super.computeIfAbsent(key, mappingFunction);
     }
 
 
@@ -244,7 +219,7 @@ public class MantaMetadata implements Map<String, String>, Cloneable, Serializab
      */
     @Override
     public String putIfAbsent(final String key, final String value) {
-        return innerMap.putIfAbsent(key, value);
+        return Map.super.putIfAbsent(key, value);
     }
 
 
@@ -388,6 +363,11 @@ public class MantaMetadata implements Map<String, String>, Cloneable, Serializab
      */
     @Override
     public String put(final String key, final String value) {
+        if (!KEY_PREDICATE.evaluate(key)) {
+            String msg = String.format("Invalid metadata key: %s", key);
+            throw new IllegalArgumentException(msg);
+        }
+
         return innerMap.put(key, value);
     }
 
@@ -397,7 +377,9 @@ public class MantaMetadata implements Map<String, String>, Cloneable, Serializab
      */
     @Override
     public void putAll(final Map<? extends String, ? extends String> mapToCopy) {
-        innerMap.putAll(mapToCopy);
+        for (Entry<? extends String, ? extends String> entry : mapToCopy.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
     }
 
 
@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.HttpStatusCodes;
+import com.joyent.manta.config.ConfigContext;
+import com.joyent.manta.config.DefaultsConfigContext;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Bounded in-memory cache of the results of HEAD requests, used to avoid
+ * repeating requests for the same path within a short time, such as the
+ * requests made while walking a directory tree. Objects that don't exist
+ * are cached as well, so that repeated existence checks don't reach
+ * Manta.</p>
+ *
+ * <p>Cached results are removed when the path or one of its direct children
+ * is modified through the same client, because the parent directory's
+ * <code>result-set-size</code> header changes. Modifications made by other
+ * clients are only seen once the cached result expires.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class MantaMetadataCache {
+    /**
+     * Initial capacity of the map of cached results.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Load factor of the map of cached results.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Strategy used to request the metadata of a path.
+     */
+    @FunctionalInterface
+    interface MetadataLoader {
+        /**
+         * @return metadata of the path
+         * @throws IOException thrown when the metadata can't be retrieved
+         */
+        MantaObjectResponse load() throws IOException;
+    }
+
+    /**
+     * Nanoseconds that a result stays in the cache.
+     */
+    private final long ttlNanos;
+
+    /**
+     * Source of the current time in nanoseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Cached results keyed by path in least recently used order, guarded by
+     * this instance.
+     */
+    private final LinkedHashMap<String, CachedResult> results;
+
+    /**
+     * Number of invalidations, guarded by this instance. A result is only
+     * cached if no invalidation happened while it was requested, since it
+     * could be older than the modification.
+     */
+    private long invalidations;
+
+    /**
+     * Number of lookups answered from the cache.
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * Number of lookups that made a request.
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxEntries maximum number of cached results
+     * @param ttlMillis milliseconds that a result stays in the cache
+     */
+    public MantaMetadataCache(final int maxEntries, final long ttlMillis) {
+        this(maxEntries, ttlMillis, System::nanoTime);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxEntries maximum number of cached results
+     * @param ttlMillis milliseconds that a result stays in the cache
+     * @param clock source of the current time in nanoseconds
+     */
+    MantaMetadataCache(final int maxEntries, final long ttlMillis, final LongSupplier clock) {
+        if (maxEntries < 1 || ttlMillis < 1) {
+            throw new IllegalArgumentException("Maximum entries and TTL must be greater than zero");
+        }
+
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+        this.results = new LinkedHashMap<String, CachedResult>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            private static final long serialVersionUID = -3017316095433312815L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedResult> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Creates the cache configured by the passed configuration.
+     *
+     * @param config library configuration context reference
+     * @return configured cache or null when caching is disabled
+     */
+    static MantaMetadataCache fromConfig(final ConfigContext config) {
+        final Integer ttl = config.getMetadataCacheTTL();
+
+        if (ttl == null || ttl <= 0) {
+            return null;
+        }
+
+        int maxEntries = DefaultsConfigContext.DEFAULT_METADATA_CACHE_SIZE;
+
+        if (config.getMetadataCacheSize() != null) {
+            maxEntries = config.getMetadataCacheSize();
+        }
+
+        return new MantaMetadataCache(maxEntries, ttl);
+    }
+
+    /**
+     * Gets the metadata of a path from the cache, or requests it and caches
+     * the result if it isn't cached.
+     *
+     * @param path The fully qualified path of the object. i.e. /user/stor/foo/bar/baz
+     * @param loader strategy used to request the metadata
+     * @return metadata of the path
+     * @throws IOException thrown when the metadata can't be retrieved, or a
+     *         {@link MantaClientHttpResponseException} with a 404 status
+     *         code if the path is cached as not found
+     */
+    MantaObjectResponse get(final String path, final MetadataLoader loader) throws IOException {
+        final long generation;
+
+        synchronized (this) {
+            final CachedResult cached = results.get(path);
+
+            if (cached != null && clock.getAsLong() - cached.cachedAt < ttlNanos) {
+                hitCount.incrementAndGet();
+                return cached.toResponse();
+            }
+
+            generation = invalidations;
+        }
+
+        missCount.incrementAndGet();
+
+        try {
+            final MantaObjectResponse response = loader.load();
+            final MantaObjectResponse copy = new MantaObjectResponse(path, new MantaHttpHeaders(response));
+            store(path, new CachedResult(clock.getAsLong(), copy, null), generation);
+            return response;
+        } catch (MantaClientHttpResponseException e) {
+            if (e.getStatusCode() == HttpStatusCodes.STATUS_CODE_NOT_FOUND) {
+                final HttpResponseException cause = (HttpResponseException)e.getCause();
+                store(path, new CachedResult(clock.getAsLong(), null, cause), generation);
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Removes the results of a path and of its parent directory from the
+     * cache. This is called after the path is modified through the client.
+     *
+     * @param path The fully qualified path of the object. i.e. /user/stor/foo/bar/baz
+     */
+    public synchronized void invalidate(final String path) {
+        invalidations++;
+
+        String normalized = path;
+
+        while (normalized.length() > 1 && normalized.endsWith(MantaClient.SEPARATOR)) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+
+        results.remove(path);
+        results.remove(normalized);
+
+        final int lastSeparator = normalized.lastIndexOf(MantaClient.SEPARATOR);
+
+        if (lastSeparator > 0) {
+            final String parent = normalized.substring(0, lastSeparator);
+            results.remove(parent);
+            results.remove(parent + MantaClient.SEPARATOR);
+        }
+    }
+
+    /**
+     * Removes all results from the cache.
+     */
+    public synchronized void clear() {
+        invalidations++;
+        results.clear();
+    }
+
+    /**
+     * @return number of lookups answered from the cache
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return number of lookups that made a request
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Caches a result unless the cache was invalidated while it was
+     * requested.
+     *
+     * @param path path of the result
+     * @param result result to cache
+     * @param generation number of invalidations when the request started
+     */
+    private synchronized void store(final String path, final CachedResult result, final long generation) {
+        if (generation == invalidations) {
+            results.put(path, result);
+        }
+    }
+
+    /**
+     * Result of a HEAD request.
+     */
+    private static final class CachedResult {
+        /**
+         * Time in nanoseconds when the result was cached.
+         */
+        private final long cachedAt;
+
+        /**
+         * Metadata of the path or null if it wasn't found.
+         */
+        private final MantaObjectResponse response;
+
+        /**
+         * Exception thrown by the HTTP client when the path wasn't found or null.
+         */
+        private final HttpResponseException notFound;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param cachedAt time in nanoseconds when the result was cached
+         * @param response metadata of the path or null if it wasn't found
+         * @param notFound exception thrown when the path wasn't found or null
+         */
+        private CachedResult(final long cachedAt, final MantaObjectResponse response,
+                             final HttpResponseException notFound) {
+            this.cachedAt = cachedAt;
+            this.response = response;
+            this.notFound = notFound;
+        }
+
+        /**
+         * @return new metadata instance of the path, which can be modified
+         * @throws MantaClientHttpResponseException thrown when the path wasn't found
+         */
+        private MantaObjectResponse toResponse() throws MantaClientHttpResponseException {
+            if (notFound != null) {
+                final MantaClientHttpResponseException e = new MantaClientHttpResponseException(notFound);
+                e.setContextValue("cachedResult", true);
+                throw e;
+            }
+
+            return new MantaObjectResponse(response.getPath(), new MantaHttpHeaders(response));
+        }
+    }
+}
@@ -0,0 +1,1040 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpStatusCodes;
+import com.joyent.manta.config.ConfigContext;
+import com.joyent.manta.config.DefaultsConfigContext;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Cache of the content of downloaded objects stored in a local directory.
+ * Cached objects are kept along with their headers and are revalidated on
+ * every read with a conditional GET request using their <code>ETag</code>
+ * and <code>Last-Modified</code> headers. When Manta responds with 304 Not
+ * Modified, the content is read from the cache instead of being downloaded
+ * again.</p>
+ *
+ * <p>Cached content is read through a read-only memory mapping of its file,
+ * shared by all readers of the object, so that repeated reads are served
+ * from the page cache without copying the content into the heap. When a
+ * max age is set, objects that were downloaded or revalidated within the
+ * max age are read without making any request at all, which is suited for
+ * objects that are read many times but rarely change.</p>
+ *
+ * <p>Objects are written to the cache while they are read, and are only
+ * added once they have been read completely. Directories, objects without
+ * an <code>ETag</code> or <code>Last-Modified</code> header and objects
+ * larger than the cache or than the 2 GiB that a single mapping can hold
+ * aren't cached. The least recently used objects are evicted when the
+ * cache is full, and objects that haven't been used within the TTL are
+ * evicted when they are looked up or when the cache is evicting.</p>
+ *
+ * <p>A mapping is only released once it has been garbage collected, so
+ * the file of an evicted or replaced object keeps using disk space until
+ * its last reader is collected, even though it no longer counts towards
+ * the size of the cache. On platforms that can't delete mapped files, such
+ * as Windows, the file is removed when the cache is next loaded.</p>
+ *
+ * <p>Cached objects are loaded from the directory when the cache is
+ * created, so the directory shouldn't be shared by clients running at the
+ * same time.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class MantaObjectCache {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MantaObjectCache.class);
+
+    /**
+     * Suffix of the files containing the path and headers of an object.
+     */
+    private static final String META_SUFFIX = ".meta";
+
+    /**
+     * Suffix of the files containing the content of an object.
+     */
+    private static final String DATA_SUFFIX = ".data";
+
+    /**
+     * Suffix of files that are being written.
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Version of the format of the metadata files.
+     */
+    private static final int META_FORMAT_VERSION = 1;
+
+    /**
+     * Largest content that can be mapped into a single buffer.
+     */
+    static final long MAX_OBJECT_BYTES = Integer.MAX_VALUE;
+
+    /**
+     * Directory containing the cached objects.
+     */
+    private final Path directory;
+
+    /**
+     * Maximum number of bytes of cached content.
+     */
+    private final long maxBytes;
+
+    /**
+     * Maximum number of bytes of content of a single object.
+     */
+    private final long maxObjectBytes;
+
+    /**
+     * Milliseconds that an unused object stays in the cache or 0 for no limit.
+     */
+    private final long ttlMillis;
+
+    /**
+     * Milliseconds after being revalidated that an object is read without a request.
+     */
+    private final long maxAgeMillis;
+
+    /**
+     * Source of the current time in milliseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Cached objects keyed by path.
+     */
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Number of reads served from the cache.
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * Number of reads that downloaded the object.
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Number of bytes of cached content, guarded by this instance.
+     */
+    private long size;
+
+    /**
+     * Creates a new instance, loading the objects already cached in the
+     * directory.
+     *
+     * @param directory directory containing the cached objects, created if it doesn't exist
+     * @param maxBytes maximum number of bytes of cached content
+     * @param ttlMillis milliseconds that an unused object stays in the cache or 0 for no limit
+     * @throws IOException thrown when the directory can't be read or created
+     */
+    public MantaObjectCache(final Path directory, final long maxBytes, final long ttlMillis)
+            throws IOException {
+        this(directory, maxBytes, ttlMillis, 0);
+    }
+
+    /**
+     * Creates a new instance, loading the objects already cached in the
+     * directory.
+     *
+     * @param directory directory containing the cached objects, created if it doesn't exist
+     * @param maxBytes maximum number of bytes of cached content
+     * @param ttlMillis milliseconds that an unused object stays in the cache or 0 for no limit
+     * @param maxAgeMillis milliseconds after being revalidated that an object is read without a request,
+     *                     or 0 to revalidate on every read
+     * @throws IOException thrown when the directory can't be read or created
+     */
+    public MantaObjectCache(final Path directory, final long maxBytes, final long ttlMillis,
+                            final long maxAgeMillis) throws IOException {
+        this(directory, maxBytes, ttlMillis, maxAgeMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a new instance, loading the objects already cached in the
+     * directory.
+     *
+     * @param directory directory containing the cached objects, created if it doesn't exist
+     * @param maxBytes maximum number of bytes of cached content
+     * @param ttlMillis milliseconds that an unused object stays in the cache or 0 for no limit
+     * @param maxAgeMillis milliseconds after being revalidated that an object is read without a request,
+     *                     or 0 to revalidate on every read
+     * @param clock source of the current time in milliseconds
+     * @throws IOException thrown when the directory can't be read or created
+     */
+    MantaObjectCache(final Path directory, final long maxBytes, final long ttlMillis,
+                     final long maxAgeMillis, final LongSupplier clock) throws IOException {
+        if (maxBytes < 0 || ttlMillis < 0 || maxAgeMillis < 0) {
+            throw new IllegalArgumentException("Maximum size, TTL and max age must be zero or greater");
+        }
+
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxObjectBytes = Math.min(maxBytes, MAX_OBJECT_BYTES);
+        this.ttlMillis = ttlMillis;
+        this.maxAgeMillis = maxAgeMillis;
+        this.clock = clock;
+
+        Files.createDirectories(directory);
+        load();
+    }
+
+    /**
+     * Creates the cache configured by the passed configuration.
+     *
+     * @param config library configuration context reference
+     * @return configured cache or null when caching is disabled
+     * @throws IOException thrown when the cache directory can't be read or created
+     */
+    static MantaObjectCache fromConfig(final ConfigContext config) throws IOException {
+        if (config.getObjectCacheDirectory() == null) {
+            return null;
+        }
+
+        long maxSize = DefaultsConfigContext.DEFAULT_OBJECT_CACHE_MAX_SIZE;
+        long ttl = DefaultsConfigContext.DEFAULT_OBJECT_CACHE_TTL;
+        long maxAge = DefaultsConfigContext.DEFAULT_OBJECT_CACHE_MAX_AGE;
+
+        if (config.getObjectCacheMaxSize() != null) {
+            maxSize = config.getObjectCacheMaxSize();
+        }
+
+        if (config.getObjectCacheTTL() != null) {
+            ttl = config.getObjectCacheTTL();
+        }
+
+        if (config.getObjectCacheMaxAge() != null) {
+            maxAge = config.getObjectCacheMaxAge();
+        }
+
+        return new MantaObjectCache(Paths.get(config.getObjectCacheDirectory()), maxSize, ttl, maxAge);
+    }
+
+    /**
+     * Gets the content of an object, reading it from the cache if it hasn't
+     * changed and downloading it otherwise.
+     *
+     * @param path The fully qualified path of the object. i.e. /user/stor/foo/bar/baz
+     * @param httpHelper helper used to make requests
+     * @param timeouts timeouts overriding the configured timeouts or null
+     * @return stream of the content of the object
+     * @throws IOException when there is a problem getting the object over the network
+     */
+    MantaObjectInputStream getAsInputStream(final String path,
+                                            final HttpHelper httpHelper,
+                                            final MantaTimeouts timeouts) throws IOException {
+        final Entry entry = lookup(path);
+        HttpResponse response;
+
+        if (entry != null && isFresh(entry, clock.getAsLong())) {
+            final InputStream cached = open(entry);
+
+            if (cached != null) {
+                return new MantaObjectInputStream(entry.toResponse(), cached, null);
+            }
+        }
+
+        if (entry == null) {
+            response = httpHelper.httpGet(path, null, null, timeouts);
+        } else {
+            response = httpHelper.httpConditionalGet(path, entry.etag, entry.lastModified, timeouts);
+
+            if (response.getStatusCode() == HttpStatusCodes.STATUS_CODE_NOT_MODIFIED) {
+                response.disconnect();
+                entry.validated = clock.getAsLong();
+                final InputStream cached = open(entry);
+
+                if (cached != null) {
+                    return new MantaObjectInputStream(entry.toResponse(), cached, null);
+                }
+
+                response = httpHelper.httpGet(path, null, null, timeouts);
+            } else {
+                invalidate(entry);
+            }
+        }
+
+        missCount.incrementAndGet();
+
+        final MantaObjectResponse metadata = new MantaObjectResponse(path,
+                new MantaHttpHeaders(response.getHeaders()));
+        final InputStream content = CompressionCodec.decodedContent(response);
+
+        return new MantaObjectInputStream(metadata, cacheWhileReading(metadata, content), response);
+    }
+
+    /**
+     * Gets the metadata of a cached object if it hasn't changed, without
+     * downloading its content.
+     *
+     * @param path The fully qualified path of the object. i.e. /user/stor/foo/bar/baz
+     * @param httpHelper helper used to make requests
+     * @return metadata of the object or null if the object isn't cached
+     * @throws IOException when there is a problem getting the object over the network
+     */
+    MantaObjectResponse get(final String path, final HttpHelper httpHelper) throws IOException {
+        final Entry entry = lookup(path);
+
+        if (entry == null) {
+            return null;
+        }
+
+        final long now = clock.getAsLong();
+
+        if (isFresh(entry, now)) {
+            entry.lastUsed = now;
+            hitCount.incrementAndGet();
+            return entry.toResponse();
+        }
+
+        final HttpResponse response = httpHelper.httpConditionalGet(path, entry.etag,
+                entry.lastModified, null);
+
+        try {
+            if (response.getStatusCode() == HttpStatusCodes.STATUS_CODE_NOT_MODIFIED) {
+                entry.lastUsed = clock.getAsLong();
+                entry.validated = entry.lastUsed;
+                hitCount.incrementAndGet();
+                return entry.toResponse();
+            }
+
+            invalidate(entry);
+            missCount.incrementAndGet();
+            return new MantaObjectResponse(path, new MantaHttpHeaders(response.getHeaders()));
+        } finally {
+            response.disconnect();
+        }
+    }
+
+    /**
+     * Removes an object from the cache.
+     *
+     * @param path The fully qualified path of the object. i.e. /user/stor/foo/bar/baz
+     */
+    public void invalidate(final String path) {
+        final Entry entry = entries.get(path);
+
+        if (entry != null) {
+            invalidate(entry);
+        }
+    }
+
+    /**
+     * @return number of bytes of cached content
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * @return number of reads served from the cache
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return number of reads that downloaded the object
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Finds a cached object, evicting it if it has expired.
+     *
+     * @param path path of the object
+     * @return cached object or null if it isn't cached
+     */
+    private Entry lookup(final String path) {
+        final Entry entry = entries.get(path);
+
+        if (entry != null && isExpired(entry, clock.getAsLong())) {
+            invalidate(entry);
+            return null;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Opens the cached content of an object, mapping its file into memory
+     * when it is opened for the first time.
+     *
+     * @param entry cached object
+     * @return stream of the content or null if the content is missing
+     */
+    private InputStream open(final Entry entry) {
+        try {
+            ByteBuffer content = entry.mapped;
+
+            if (content == null) {
+                content = map(entry);
+                entry.mapped = content;
+            }
+
+            final InputStream in = new MappedInputStream(content.duplicate());
+            entry.lastUsed = clock.getAsLong();
+            hitCount.incrementAndGet();
+            return in;
+        } catch (IOException e) {
+            LOG.debug("Unable to read cached content of [{}]", entry.path, e);
+            invalidate(entry);
+            return null;
+        }
+    }
+
+    /**
+     * Wraps the content of a downloaded object so that it is added to the
+     * cache once it has been read completely.
+     *
+     * @param metadata metadata of the object
+     * @param content decoded content of the object
+     * @return stream to read the content from
+     */
+    private InputStream cacheWhileReading(final MantaObjectResponse metadata, final InputStream content) {
+        final MantaHttpHeaders headers = metadata.getHttpHeaders();
+        final Long contentLength = headers.getContentLength();
+
+        if (metadata.isDirectory() || maxBytes == 0
+                || (headers.getETag() == null && headers.getLastModified() == null)
+                || (contentLength != null && contentLength > maxObjectBytes)) {
+            return content;
+        }
+
+        final Header[] apacheHeaders = headers.asApacheHttpHeaders();
+        final String[] namesAndValues = new String[apacheHeaders.length * 2];
+
+        for (int i = 0; i < apacheHeaders.length; i++) {
+            namesAndValues[i * 2] = apacheHeaders[i].getName();
+            namesAndValues[i * 2 + 1] = apacheHeaders[i].getValue();
+        }
+
+        final Path temp;
+        final OutputStream out;
+
+        try {
+            temp = Files.createTempFile(directory, hash(metadata.getPath()) + "-", TEMP_SUFFIX);
+            out = new BufferedOutputStream(Files.newOutputStream(temp));
+        } catch (IOException e) {
+            LOG.warn("Unable to cache [{}]", metadata.getPath(), e);
+            return content;
+        }
+
+        return new CachingInputStream(content, metadata.getPath(), namesAndValues, temp, out);
+    }
+
+    /**
+     * Adds a completely read object to the cache, replacing the previously
+     * cached version.
+     *
+     * @param path path of the object
+     * @param namesAndValues alternating header names and values of the object
+     * @param temp file containing the content of the object
+     * @param contentSize number of bytes of content
+     * @throws IOException thrown when the object can't be added
+     */
+    private synchronized void commit(final String path, final String[] namesAndValues,
+                                     final Path temp, final long contentSize) throws IOException {
+        final String tempName = temp.getFileName().toString();
+        final Path dataFile = directory.resolve(
+                tempName.substring(0, tempName.length() - TEMP_SUFFIX.length()) + DATA_SUFFIX);
+        Files.move(temp, dataFile, StandardCopyOption.ATOMIC_MOVE);
+
+        final Entry entry = new Entry(path, dataFile, contentSize, namesAndValues, clock.getAsLong());
+        entry.validated = entry.lastUsed;
+
+        try {
+            writeMeta(entry);
+        } catch (IOException e) {
+            Files.deleteIfExists(dataFile);
+            throw e;
+        }
+
+        final Entry previous = entries.put(path, entry);
+        size += contentSize;
+
+        if (previous != null) {
+            previous.mapped = null;
+            size -= previous.size;
+            deleteQuietly(previous.dataFile);
+        }
+
+        evict(entry.lastUsed);
+    }
+
+    /**
+     * Removes an object from the cache if it is still cached.
+     *
+     * @param entry cached object
+     */
+    private synchronized void invalidate(final Entry entry) {
+        if (entries.remove(entry.path, entry)) {
+            // Readers keep their own view of the mapping
+            entry.mapped = null;
+            size -= entry.size;
+            deleteQuietly(entry.dataFile);
+            deleteQuietly(metaFile(entry.path));
+        }
+    }
+
+    /**
+     * Evicts expired objects and then the least recently used objects until
+     * the cache fits its maximum size.
+     *
+     * @param now current time in milliseconds
+     */
+    private synchronized void evict(final long now) {
+        for (Entry entry : entries.values()) {
+            if (isExpired(entry, now)) {
+                invalidate(entry);
+            }
+        }
+
+        if (size <= maxBytes) {
+            return;
+        }
+
+        // The last use times are copied because they change while sorting
+        final List<Map.Entry<Entry, Long>> byLastUse = entries.values().stream()
+                .map(e -> new AbstractMap.SimpleImmutableEntry<>(e, e.lastUsed))
+                .sorted(Map.Entry.comparingByValue())
+                .collect(Collectors.toList());
+
+        for (Map.Entry<Entry, Long> candidate : byLastUse) {
+            if (size <= maxBytes) {
+                break;
+            }
+
+            invalidate(candidate.getKey());
+        }
+    }
+
+    /**
+     * Maps the content file of an object into memory.
+     *
+     * @param entry cached object
+     * @return read-only buffer of the content
+     * @throws IOException thrown when the file can't be mapped or doesn't have the cached size
+     */
+    private static ByteBuffer map(final Entry entry) throws IOException {
+        try (FileChannel channel = FileChannel.open(entry.dataFile, StandardOpenOption.READ)) {
+            final long length = channel.size();
+
+            if (length != entry.size || length > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Cached content of [%s] has %d bytes instead of %d",
+                        entry.path, length, entry.size));
+            }
+
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+    }
+
+    /**
+     * @param entry cached object
+     * @param now current time in milliseconds
+     * @return true if the object was downloaded or revalidated within the max age
+     */
+    private boolean isFresh(final Entry entry, final long now) {
+        return maxAgeMillis > 0 && now - entry.validated <= maxAgeMillis;
+    }
+
+    /**
+     * @param entry cached object
+     * @param now current time in milliseconds
+     * @return true if the object hasn't been used within the TTL
+     */
+    private boolean isExpired(final Entry entry, final long now) {
+        return ttlMillis > 0 && now - entry.lastUsed > ttlMillis;
+    }
+
+    /**
+     * Loads the objects cached in the directory and removes files that
+     * don't belong to a cached object.
+     *
+     * @throws IOException thrown when the directory can't be read
+     */
+    private synchronized void load() throws IOException {
+        final Set<Path> referenced = new HashSet<>();
+
+        try (DirectoryStream<Path> metaFiles = Files.newDirectoryStream(directory, "*" + META_SUFFIX)) {
+            for (Path metaFile : metaFiles) {
+                final Entry entry = readMeta(metaFile);
+
+                if (entry == null) {
+                    deleteQuietly(metaFile);
+                    continue;
+                }
+
+                entries.put(entry.path, entry);
+                size += entry.size;
+                referenced.add(entry.dataFile);
+            }
+        }
+
+        final String glob = String.format("*{%s,%s}", DATA_SUFFIX, TEMP_SUFFIX);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : files) {
+                if (!referenced.contains(file)) {
+                    deleteQuietly(file);
+                }
+            }
+        }
+
+        evict(clock.getAsLong());
+    }
+
+    /**
+     * Writes the metadata file of a cached object.
+     *
+     * @param entry cached object
+     * @throws IOException thrown when the file can't be written
+     */
+    private void writeMeta(final Entry entry) throws IOException {
+        final Path temp = Files.createTempFile(directory, hash(entry.path) + "-", TEMP_SUFFIX);
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(META_FORMAT_VERSION);
+            out.writeUTF(entry.path);
+            out.writeUTF(entry.dataFile.getFileName().toString());
+            out.writeInt(entry.namesAndValues.length);
+
+            for (String value : entry.namesAndValues) {
+                out.writeUTF(value);
+            }
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+
+        Files.move(temp, metaFile(entry.path), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the metadata file of a cached object.
+     *
+     * @param metaFile metadata file
+     * @return cached object or null if the file or its content are invalid
+     */
+    private Entry readMeta(final Path metaFile) {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(metaFile)))) {
+            if (in.readInt() != META_FORMAT_VERSION) {
+                return null;
+            }
+
+            final String path = in.readUTF();
+            final Path dataFile = directory.resolve(in.readUTF());
+            final String[] namesAndValues = new String[in.readInt()];
+
+            for (int i = 0; i < namesAndValues.length; i++) {
+                namesAndValues[i] = in.readUTF();
+            }
+
+            if (!metaFile.equals(metaFile(path)) || !Files.isRegularFile(dataFile)) {
+                return null;
+            }
+
+            return new Entry(path, dataFile, Files.size(dataFile), namesAndValues,
+                    Files.getLastModifiedTime(metaFile).toMillis());
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("Ignoring invalid object cache file [{}]", metaFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * @param path path of an object
+     * @return metadata file of the object
+     */
+    private Path metaFile(final String path) {
+        return directory.resolve(hash(path) + META_SUFFIX);
+    }
+
+    /**
+     * @param path path of an object
+     * @return name of the files of the object without suffix
+     */
+    private static String hash(final String path) {
+        return DigestUtils.sha256Hex(path);
+    }
+
+    /**
+     * Deletes a file, logging failures.
+     *
+     * @param file file to delete
+     */
+    private static void deleteQuietly(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.debug("Unable to delete object cache file [{}]", file, e);
+        }
+    }
+
+    /**
+     * Object stored in the cache.
+     */
+    private static final class Entry {
+        /**
+         * Path of the object.
+         */
+        private final String path;
+
+        /**
+         * File containing the content of the object.
+         */
+        private final Path dataFile;
+
+        /**
+         * Number of bytes of content.
+         */
+        private final long size;
+
+        /**
+         * Alternating header names and values of the object.
+         */
+        private final String[] namesAndValues;
+
+        /**
+         * Entity tag of the object or null.
+         */
+        private final String etag;
+
+        /**
+         * Last modified date of the object or null.
+         */
+        private final String lastModified;
+
+        /**
+         * Time in milliseconds when the object was last read or revalidated.
+         */
+        private volatile long lastUsed;
+
+        /**
+         * Time in milliseconds when the object was last downloaded or
+         * revalidated, or 0 if it was loaded from the directory and hasn't
+         * been revalidated since.
+         */
+        private volatile long validated;
+
+        /**
+         * Memory mapping of the content shared by all readers or null if the
+         * content hasn't been read yet.
+         */
+        private volatile ByteBuffer mapped;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param path path of the object
+         * @param dataFile file containing the content of the object
+         * @param size number of bytes of content
+         * @param namesAndValues alternating header names and values of the object
+         * @param lastUsed time in milliseconds when the object was last used
+         */
+        private Entry(final String path, final Path dataFile, final long size,
+                      final String[] namesAndValues, final long lastUsed) {
+            this.path = path;
+            this.dataFile = dataFile;
+            this.size = size;
+            this.namesAndValues = namesAndValues;
+            this.lastUsed = lastUsed;
+
+            final MantaHttpHeaders headers = MantaHttpHeaders.compact(namesAndValues);
+            this.etag = headers.getETag();
+            this.lastModified = headers.getLastModified();
+        }
+
+        /**
+         * @return new metadata instance of the object
+         */
+        private MantaObjectResponse toResponse() {
+            return new MantaObjectResponse(path, MantaHttpHeaders.compact(namesAndValues));
+        }
+    }
+
+    /**
+     * Stream reading the memory mapped content of a cached object.
+     */
+    private static final class MappedInputStream extends InputStream {
+        /**
+         * View of the content holding the position of this stream.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param buffer view of the content, read from its position to its limit
+         */
+        private MappedInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            return Byte.toUnsignedInt(buffer.get());
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            final int read = Math.min(len, buffer.remaining());
+            buffer.get(b, off, read);
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) {
+            final int skipped = (int)Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(final int readlimit) {
+            buffer.mark();
+        }
+
+        @Override
+        public synchronized void reset() {
+            buffer.reset();
+        }
+    }
+
+    /**
+     * Stream that copies the content it reads to a temporary file, and adds
+     * the object to the cache when the end of the content is reached. The
+     * copy is abandoned if the stream is closed early, skipped or if the
+     * content doesn't fit in the cache.
+     */
+    private final class CachingInputStream extends FilterInputStream {
+        /**
+         * Path of the object.
+         */
+        private final String path;
+
+        /**
+         * Alternating header names and values of the object.
+         */
+        private final String[] namesAndValues;
+
+        /**
+         * Temporary file receiving the content.
+         */
+        private final Path temp;
+
+        /**
+         * Stream writing to the temporary file or null once the copy is done.
+         */
+        private OutputStream out;
+
+        /**
+         * Number of bytes copied.
+         */
+        private long copied;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param content decoded content of the object
+         * @param path path of the object
+         * @param namesAndValues alternating header names and values of the object
+         * @param temp temporary file receiving the content
+         * @param out stream writing to the temporary file
+         */
+        private CachingInputStream(final InputStream content, final String path,
+                                   final String[] namesAndValues, final Path temp,
+                                   final OutputStream out) {
+            super(content);
+            this.path = path;
+            this.namesAndValues = namesAndValues;
+            this.temp = temp;
+            this.out = out;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+
+            if (b == -1) {
+                complete();
+            } else if (out != null && fits(1)) {
+                try {
+                    out.write(b);
+                } catch (IOException e) {
+                    abandon(e);
+                }
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int read = super.read(b, off, len);
+
+            if (read == -1) {
+                complete();
+            } else if (out != null && fits(read)) {
+                try {
+                    out.write(b, off, read);
+                } catch (IOException e) {
+                    abandon(e);
+                }
+            }
+
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            abandon(null);
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public synchronized void mark(final int readlimit) {
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                abandon(null);
+            } finally {
+                super.close();
+            }
+        }
+
+        /**
+         * Counts bytes about to be copied, abandoning the copy if they don't
+         * fit in the cache.
+         *
+         * @param length number of bytes about to be copied
+         * @return true if the bytes fit
+         */
+        private boolean fits(final int length) {
+            copied += length;
+
+            // The decoded content may be larger than its Content-Length
+            if (copied > maxObjectBytes) {
+                abandon(null);
+                return false;
+            }
+
+            return true;
+        }
+
+        /**
+         * Adds the copied content to the cache.
+         */
+        private void complete() {
+            if (out == null) {
+                return;
+            }
+
+            try {
+                out.close();
+                out = null;
+                commit(path, namesAndValues, temp, copied);
+            } catch (IOException e) {
+                abandon(e);
+            }
+        }
+
+        /**
+         * Stops copying and deletes the temporary file.
+         *
+         * @param cause exception that caused the copy to be abandoned or null
+         */
+        private void abandon(final IOException cause) {
+            if (cause != null) {
+                LOG.warn("Unable to cache [{}]", path, cause);
+            }
+
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    LOG.debug("Unable to close object cache file [{}]", temp, e);
+                }
+
+                out = null;
+            }
+
+            deleteQuietly(temp);
+        }
+    }
+}
@@ -9,7 +9,9 @@ import java.util.Date;
 /**
  * {@link InputStream} implementation that wraps the input stream provided
  * from {@link MantaClient} and implements {@link MantaObject} so that you
- * can obtain metadata information.
+ * can obtain metadata information. Objects stored with a supported
+ * <code>Content-Encoding</code> (see {@link CompressionCodec}) are
+ * transparently decompressed.
  *
  * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
  */
@@ -31,6 +33,11 @@ public class MantaObjectInputStream extends InputStream implements MantaObject {
      */
     private final transient HttpResponse httpResponse;
 
+    /**
+     * Registration with the leak tracker of the client or null when not tracked.
+     */
+    private transient volatile MantaLeakTracker.Registration registration;
+
     /**
      * Create a new instance from the results of a GET HTTP call to the
      * Manta API.
@@ -41,9 +48,45 @@ public class MantaObjectInputStream extends InputStream implements MantaObject {
      */
     MantaObjectInputStream(final MantaObjectResponse response,
                            final HttpResponse httpResponse) throws IOException {
+        this(response, CompressionCodec.decodedContent(httpResponse), httpResponse);
+    }
+
+    /**
+     * Create a new instance that reads the content of an object from the
+     * passed stream, such as a stream of cached content.
+     *
+     * @param response Metadata object built from request
+     * @param backingStream stream of the decoded content of the object
+     * @param httpResponse Response object disconnected when closed or null
+     */
+    MantaObjectInputStream(final MantaObjectResponse response,
+                           final InputStream backingStream,
+                           final HttpResponse httpResponse) {
         this.response = response;
         this.httpResponse = httpResponse;
-        this.backingStream = httpResponse.getContent();
+        this.backingStream = backingStream;
+    }
+
+    /**
+     * Registers this stream with the leak tracker of a client, so that its
+     * connection is returned to the pool if the stream is garbage collected
+     * without being closed.
+     *
+     * @param tracker leak tracker of the client
+     */
+    void track(final MantaLeakTracker tracker) {
+        final InputStream stream = backingStream;
+        final HttpResponse connection = httpResponse;
+
+        registration = tracker.register(this, "Object stream of " + getPath(), () -> {
+            try {
+                stream.close();
+            } finally {
+                if (connection != null) {
+                    connection.disconnect();
+                }
+            }
+        });
     }
 
     @Override
@@ -86,6 +129,19 @@ public class MantaObjectInputStream extends InputStream implements MantaObject {
         return response.getHttpHeaders();
     }
 
+    /**
+     * Determines if the content read from this stream is decoded from the
+     * <code>Content-Encoding</code> of the object. The length, ranges and
+     * checksum reported by Manta refer to the encoded content, so they
+     * don't match the content read.
+     *
+     * @return true if the object is stored with an encoding other than identity
+     */
+    boolean isDecoded() {
+        final String encoding = getHttpHeaders().getContentEncoding();
+        return encoding != null && !encoding.trim().equalsIgnoreCase("identity");
+    }
+
     @Override
     public Object getHeader(final String fieldName) {
         return response.getHeader(fieldName);
@@ -143,8 +199,19 @@ public class MantaObjectInputStream extends InputStream implements MantaObject {
 
     @Override
     public void close() throws IOException {
-        backingStream.close();
-        httpResponse.disconnect();
+        try {
+            backingStream.close();
+
+            if (httpResponse != null) {
+                httpResponse.disconnect();
+            }
+        } finally {
+            final MantaLeakTracker.Registration current = registration;
+
+            if (current != null) {
+                current.release();
+            }
+        }
     }
 
     @Override
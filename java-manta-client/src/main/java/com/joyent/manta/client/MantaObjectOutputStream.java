@@ -4,6 +4,7 @@
 package com.joyent.manta.client;
 
 import com.google.api.client.http.HttpContent;
+import com.joyent.manta.config.ConfigContext;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,7 +18,10 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * {@link OutputStream} that wraps the PUT operations using an {@link java.io.InputStream}
@@ -69,6 +73,18 @@ public class MantaObjectOutputStream extends OutputStream {
      */
     public static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(THREAD_FACTORY);
 
+    /**
+     * Holder of the executor service running uploads on virtual threads,
+     * created when it is first used.
+     */
+    private static final class VirtualExecutorHolder {
+        /**
+         * Executor service used for scheduling Manta OutputStream virtual threads.
+         */
+        private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+                new MantaThreadFactory("manta-stream-", new AtomicInteger(), true));
+    }
+
     /**
      * Inner class that provides visibility into the {@link HttpContent} object being
      * put to the server. This allows us to proxy all of the {@link OutputStream} API
@@ -96,18 +112,25 @@ public class MantaObjectOutputStream extends OutputStream {
         }
 
         @Override
-        public synchronized void writeTo(final OutputStream out) throws IOException {
-            writer = out;
-
-            /* Loop while the parent OutputStream is still open. This allows us to write
-             * to the stream from the parent class while keeping the stream open with
-             * another thread. */
-            while (!isClosed) {
-                try {
-                    this.wait(CLOSED_CHECK_INTERVAL);
-                } catch (InterruptedException e) {
-                    return; // exit loop and assume closed if interrupted
+        public void writeTo(final OutputStream out) throws IOException {
+            closedLock.lock();
+
+            try {
+                writer = out;
+
+                /* Loop while the parent OutputStream is still open. This allows us to write
+                 * to the stream from the parent class while keeping the stream open with
+                 * another thread. A lock is used rather than a monitor so that virtual
+                 * threads aren't pinned while waiting. */
+                while (!isClosed) {
+                    try {
+                        closedCondition.await(CLOSED_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        return; // exit loop and assume closed if interrupted
+                    }
                 }
+            } finally {
+                closedLock.unlock();
             }
         }
     }
@@ -118,7 +141,9 @@ public class MantaObjectOutputStream extends OutputStream {
     private Callable<MantaObjectResponse> upload = new Callable<MantaObjectResponse>() {
         @Override
         public MantaObjectResponse call() throws Exception {
-            return httpHelper.httpPut(path, headers, httpContent, metadata);
+            final MantaObjectResponse response = httpHelper.httpPut(path, headers, httpContent, metadata);
+            onUploaded.run();
+            return response;
         }
     };
 
@@ -147,6 +172,11 @@ public class MantaObjectOutputStream extends OutputStream {
      */
     private final String contentType;
 
+    /**
+     * Callback run once the upload has succeeded.
+     */
+    private final Runnable onUploaded;
+
     /**
      * Http content object that is proxied by this stream.
      */
@@ -172,6 +202,26 @@ public class MantaObjectOutputStream extends OutputStream {
      */
     private volatile boolean isClosed = false;
 
+    /**
+     * Lock guarding {@link #isClosed} while the upload thread waits for it to be set.
+     */
+    private final ReentrantLock closedLock = new ReentrantLock();
+
+    /**
+     * Condition signalled when {@link #isClosed} is set.
+     */
+    private final Condition closedCondition = closedLock.newCondition();
+
+    /**
+     * Lock serializing calls to {@link #close()}.
+     */
+    private final ReentrantLock closeLock = new ReentrantLock();
+
+    /**
+     * Registration with the leak tracker of the client or null when not tracked.
+     */
+    private volatile MantaLeakTracker.Registration registration;
+
     /**
      * Creates a new instance of an {@link OutputStream} that wraps PUT
      * requests to Manta.
@@ -181,18 +231,23 @@ public class MantaObjectOutputStream extends OutputStream {
      * @param headers optional HTTP headers to include when copying the object
      * @param metadata optional user-supplied metadata for object
      * @param contentType HTTP Content-Type header value
+     * @param executor executor service running the upload
+     * @param onUploaded callback run once the upload has succeeded
      */
     MantaObjectOutputStream(final String path, final HttpHelper httpHelper,
                             final MantaHttpHeaders headers,
                             final MantaMetadata metadata,
-                            final String contentType) {
+                            final String contentType,
+                            final ExecutorService executor,
+                            final Runnable onUploaded) {
         this.path = path;
+        this.onUploaded = onUploaded;
         this.httpHelper = httpHelper;
         this.headers = headers;
         this.metadata = metadata;
         this.contentType = contentType;
         this.httpContent = new EmbeddedHttpContent();
-        this.completed = EXECUTOR.submit(upload);
+        this.completed = executor.submit(upload);
 
         /**
          * We have to wait here until the upload to Manta starts and a Writer
@@ -241,36 +296,80 @@ public class MantaObjectOutputStream extends OutputStream {
     protected static Boolean isInnerStreamClosed(final OutputStream stream) {
         try {
             Field f = FieldUtils.getField(stream.getClass(), "closed", true);
+
+            if (f == null) {
+                return null;
+            }
+
             Object result = f.get(stream);
             return  (boolean)result;
-        } catch (IllegalArgumentException | IllegalAccessException | ClassCastException e) {
+        } catch (RuntimeException | IllegalAccessException e) {
             /* If we don't have an inner field called closed, it is inaccessible or
              * the field isn't a boolean, return null because we are now dealing with
-             * undefined behavior. */
+             * undefined behavior. This includes streams wrapped by a compression
+             * codec, whose fields may not be accessible via reflection. */
             return null;
         }
     }
 
-    @Override
-    public synchronized void close() throws IOException {
-        Boolean innerIsClosed = isInnerStreamClosed(this.httpContent.writer);
-        if (innerIsClosed != null && !innerIsClosed) {
-            this.httpContent.writer.flush();
+    /**
+     * Selects the executor service running uploads.
+     *
+     * @param config library configuration context reference
+     * @return executor service running uploads on virtual threads if enabled, otherwise {@link #EXECUTOR}
+     */
+    static ExecutorService executor(final ConfigContext config) {
+        if (MantaThreadFactory.useVirtualThreads(config) && MantaThreadFactory.isVirtualThreadSupported()) {
+            return VirtualExecutorHolder.EXECUTOR;
         }
 
-        this.isClosed = true;
+        return EXECUTOR;
+    }
 
-        synchronized (this.httpContent) {
-            this.httpContent.notify();
-        }
+    /**
+     * Registers this stream with the leak tracker of a client, so that it is
+     * closed when the client is closed. The upload thread references this
+     * stream until it is closed, so it can't be garbage collected before.
+     *
+     * @param tracker leak tracker of the client
+     */
+    void track(final MantaLeakTracker tracker) {
+        registration = tracker.register(this, "Output stream of " + path, null);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeLock.lock();
 
         try {
+            Boolean innerIsClosed = isInnerStreamClosed(this.httpContent.writer);
+            if (innerIsClosed != null && !innerIsClosed) {
+                this.httpContent.writer.flush();
+            }
+
+            closedLock.lock();
+
+            try {
+                this.isClosed = true;
+                closedCondition.signalAll();
+            } finally {
+                closedLock.unlock();
+            }
+
             this.objectResponse = this.completed.get();
             this.objectResponse.setContentLength(bytesWritten);
         } catch (InterruptedException e) {
             // continue execution if interrupted
         } catch (ExecutionException e) {
             throw new IOException(e);
+        } finally {
+            closeLock.unlock();
+
+            final MantaLeakTracker.Registration current = registration;
+
+            if (current != null) {
+                current.release();
+            }
         }
     }
 
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+/**
+ * <p>Publisher of a sequence of items that are only produced as requested
+ * by its subscribers, following the
+ * <a href="http://www.reactive-streams.org/">Reactive Streams</a>
+ * contract. The interfaces have the same methods as those of
+ * <code>java.util.concurrent.Flow</code>, which isn't available on Java 8,
+ * so that they can be adapted to <code>Flow</code> or to other Reactive
+ * Streams implementations by delegating each method.</p>
+ *
+ * @param <T> type of the published items
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+@FunctionalInterface
+public interface MantaPublisher<T> {
+    /**
+     * Adds a subscriber, which receives a new {@link Subscription} through
+     * {@link Subscriber#onSubscribe(Subscription)} and then the items it
+     * requests.
+     *
+     * @param subscriber subscriber receiving the items
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+
+    /**
+     * Receiver of the items of a {@link MantaPublisher}. The methods of a
+     * subscriber are never called concurrently.
+     *
+     * @param <T> type of the received items
+     */
+    interface Subscriber<T> {
+        /**
+         * Called before any other method with the subscription used to
+         * request items.
+         *
+         * @param subscription subscription of this subscriber
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Called with each requested item.
+         *
+         * @param item next item
+         */
+        void onNext(T item);
+
+        /**
+         * Called when the items can't be produced. No other method is called
+         * afterwards.
+         *
+         * @param throwable cause of the failure
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Called once all items were received. No other method is called
+         * afterwards.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Link between a publisher and a subscriber, used to request items or
+     * to stop receiving them.
+     */
+    interface Subscription {
+        /**
+         * Adds to the number of items that the subscriber is ready to
+         * receive.
+         *
+         * @param n number of additional items, greater than zero
+         */
+        void request(long n);
+
+        /**
+         * Stops sending items and releases the resources used to produce
+         * them.
+         */
+        void cancel();
+    }
+}
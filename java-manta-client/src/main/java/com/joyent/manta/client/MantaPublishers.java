@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Class that exposes directory listings, job inputs and outputs, and
+ * object contents as {@link MantaPublisher} instances, for use in reactive
+ * pipelines. The network requests and reads are performed by an executor
+ * only when subscribers request items, so subscribers running on event
+ * loop threads never block, and each subscriber's demand bounds how much
+ * is read ahead, without any intermediate queue.</p>
+ *
+ * <p>Each subscription makes its own requests, so a publisher can be
+ * subscribed to more than once. Cancelling a subscription closes the
+ * underlying HTTP response.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class MantaPublishers implements AutoCloseable {
+    /**
+     * Default number of bytes in each buffer of object content.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Counter used to give each publisher thread a unique name.
+     */
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * Reference to the {@link MantaClient} making the requests.
+     */
+    private final MantaClient client;
+
+    /**
+     * Executor performing the blocking requests and reads.
+     */
+    private final Executor executor;
+
+    /**
+     * Executor created by this instance and shut down when it is closed or null.
+     */
+    private final ExecutorService ownedExecutor;
+
+    /**
+     * Creates a new instance performing the requests on its own threads,
+     * which are created as needed and shut down when this instance is
+     * closed.
+     *
+     * @param client Manta client making the requests
+     */
+    public MantaPublishers(final MantaClient client) {
+        Objects.requireNonNull(client, "Manta client must be present");
+
+        this.client = client;
+        this.ownedExecutor = Executors.newCachedThreadPool(MantaThreadFactory.fromConfig(
+                client.getContext(), "manta-publisher-", THREAD_COUNTER));
+        this.executor = ownedExecutor;
+    }
+
+    /**
+     * Creates a new instance performing the requests on the specified
+     * executor, which must not be an event loop.
+     *
+     * @param client Manta client making the requests
+     * @param executor executor performing the blocking requests and reads
+     */
+    public MantaPublishers(final MantaClient client, final Executor executor) {
+        Objects.requireNonNull(client, "Manta client must be present");
+        Objects.requireNonNull(executor, "Executor must be present");
+
+        this.client = client;
+        this.executor = executor;
+        this.ownedExecutor = null;
+    }
+
+    /**
+     * Publishes the objects of a directory, as returned by
+     * {@link MantaClient#listObjects(String)}. Pages of the listing are
+     * only requested as the subscriber requests objects.
+     *
+     * @param path fully qualified path of the directory
+     * @return publisher of the objects of the directory
+     */
+    public MantaPublisher<MantaObject> listObjects(final String path) {
+        Objects.requireNonNull(path, "Path must be present");
+        return MantaBlockingPublisher.fromStream(executor, () -> client.listObjects(path));
+    }
+
+    /**
+     * Publishes the inputs of a job, as returned by
+     * {@link MantaClient#getJobInputs(UUID)}.
+     *
+     * @param jobId UUID of the Manta job
+     * @return publisher of the paths of the job's inputs
+     */
+    public MantaPublisher<String> getJobInputs(final UUID jobId) {
+        Objects.requireNonNull(jobId, "Job id must be present");
+        return MantaBlockingPublisher.fromStream(executor, () -> client.getJobInputs(jobId));
+    }
+
+    /**
+     * Publishes the outputs of a job, as returned by
+     * {@link MantaClient#getJobOutputs(UUID)}.
+     *
+     * @param jobId UUID of the Manta job
+     * @return publisher of the paths of the job's outputs
+     */
+    public MantaPublisher<String> getJobOutputs(final UUID jobId) {
+        Objects.requireNonNull(jobId, "Job id must be present");
+        return MantaBlockingPublisher.fromStream(executor, () -> client.getJobOutputs(jobId));
+    }
+
+    /**
+     * Publishes the content of an object in buffers of
+     * {@link #DEFAULT_CHUNK_SIZE} bytes or less.
+     *
+     * @param path fully qualified path of the object
+     * @return publisher of the content of the object
+     */
+    public MantaPublisher<ByteBuffer> getAsByteBuffers(final String path) {
+        return getAsByteBuffers(path, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Publishes the content of an object, as read from
+     * {@link MantaClient#getAsInputStream(String)}. Each buffer is newly
+     * allocated, so subscribers may keep it, and holds up to the specified
+     * number of bytes. The content is only read from the network as the
+     * subscriber requests buffers.
+     *
+     * @param path fully qualified path of the object
+     * @param chunkSize maximum number of bytes in each buffer
+     * @return publisher of the content of the object
+     */
+    public MantaPublisher<ByteBuffer> getAsByteBuffers(final String path, final int chunkSize) {
+        Objects.requireNonNull(path, "Path must be present");
+
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be greater than zero");
+        }
+
+        return new MantaBlockingPublisher<>(executor, () -> {
+            final InputStream in = client.getAsInputStream(path);
+
+            return new MantaBlockingPublisher.Source<ByteBuffer>() {
+                @Override
+                public ByteBuffer next() throws IOException {
+                    final byte[] chunk = new byte[chunkSize];
+                    int filled = 0;
+
+                    while (filled < chunkSize) {
+                        final int read = in.read(chunk, filled, chunkSize - filled);
+
+                        if (read == -1) {
+                            break;
+                        }
+
+                        filled += read;
+                    }
+
+                    if (filled == 0) {
+                        return null;
+                    }
+
+                    return ByteBuffer.wrap(chunk, 0, filled);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    in.close();
+                }
+            };
+        });
+    }
+
+    /**
+     * Shuts down the threads created by this instance. Executors passed
+     * to the constructor aren't shut down.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,522 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.util.BackOff;
+import com.joyent.manta.exception.MantaChecksumFailedException;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>Class that uploads and downloads large objects in a way that survives
+ * failures, so that transfers over unreliable networks eventually
+ * complete. Transfers are retried using the client's {@link RetryPolicy},
+ * and the backoff starts over whenever a retry makes progress, so a
+ * transfer only gives up after repeatedly failing without progress.</p>
+ *
+ * <p>Downloads are written to a <code>.part</code> file next to the
+ * destination, with a <code>.journal</code> file recording the
+ * <code>ETag</code> of the object and how many bytes were safely written.
+ * After a failure, or when a download interrupted by a crash is started
+ * again, the download continues from that offset with a
+ * <code>Range</code> request conditional on the <code>ETag</code>. If the
+ * object was modified in the meantime, the download starts over. A
+ * download interrupted after its whole content was written is completed
+ * after checking the object with a HEAD request, because a range starting
+ * at the end of the object can't be requested. The checksum of the whole
+ * file is verified before it replaces the destination.</p>
+ *
+ * <p>Objects stored with a <code>Content-Encoding</code> are decoded while
+ * they are downloaded, but their offsets and checksum refer to the encoded
+ * content. Their downloads therefore start over after a failure and their
+ * checksum isn't verified.</p>
+ *
+ * <p>Manta stores an object only once its whole content was received and
+ * has no way to append to an object, so uploads can't continue from an
+ * offset. Instead, uploads send the MD5 checksum of the file, recorded in
+ * a journal so that it isn't recomputed when an upload is started again,
+ * and after a failure the object is checked before the file is sent
+ * again, because the upload may have completed even though its response
+ * was lost.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class MantaResumableTransfers {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MantaResumableTransfers.class);
+
+    /**
+     * Suffix of files being downloaded.
+     */
+    static final String PART_SUFFIX = ".part";
+
+    /**
+     * Suffix of journal files.
+     */
+    static final String JOURNAL_SUFFIX = ".journal";
+
+    /**
+     * HTTP status code returned when the object no longer matches the ETag of the journal.
+     */
+    private static final int STATUS_CODE_PRECONDITION_FAILED = 412;
+
+    /**
+     * Number of bytes downloaded between checkpoints.
+     */
+    private static final long CHECKPOINT_INTERVAL = 8L * 1024 * 1024;
+
+    /**
+     * Reference to the {@link MantaClient} used to transfer objects.
+     */
+    private final MantaClient client;
+
+    /**
+     * Directory containing the journals of uploads.
+     */
+    private final Path journalDirectory;
+
+    /**
+     * Creates a new instance that keeps the journals of uploads in the
+     * <code>manta-transfers</code> directory of the system's temporary
+     * directory.
+     *
+     * @param client Manta client used to transfer objects
+     */
+    public MantaResumableTransfers(final MantaClient client) {
+        this(client, Paths.get(System.getProperty("java.io.tmpdir"), "manta-transfers"));
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param client Manta client used to transfer objects
+     * @param journalDirectory directory containing the journals of uploads, created if needed
+     */
+    public MantaResumableTransfers(final MantaClient client, final Path journalDirectory) {
+        this.client = Objects.requireNonNull(client, "Manta client must be present");
+        this.journalDirectory = Objects.requireNonNull(journalDirectory,
+                "Journal directory must be present");
+    }
+
+    /**
+     * Downloads an object to a file, continuing a previous download of the
+     * same object to the same file if one was interrupted.
+     *
+     * @param path fully qualified path of the object
+     * @param destination file to write, replaced once the download is complete and verified
+     * @return response of the last request made for the object
+     * @throws IOException thrown when the download keeps failing without progress
+     */
+    public MantaObjectResponse download(final String path, final Path destination) throws IOException {
+        Objects.requireNonNull(path, "Path must be present");
+        Objects.requireNonNull(destination, "Destination must be present");
+
+        final Path part = destination.resolveSibling(destination.getFileName() + PART_SUFFIX);
+        final Path journalFile = destination.resolveSibling(destination.getFileName() + JOURNAL_SUFFIX);
+
+        MantaTransferJournal journal = MantaTransferJournal.read(journalFile);
+
+        if (journal == null || !journal.getPath().equals(path) || journal.getEtag() == null
+                || !Files.isRegularFile(part) || Files.size(part) < journal.getOffset()) {
+            journal = new MantaTransferJournal(path);
+        } else {
+            LOG.debug("Resuming download of {} at byte {}", path, journal.getOffset());
+        }
+
+        final MessageDigest digest = DigestUtils.getMd5Digest();
+        final BackOff backOff = client.getRetryPolicy().newBackOff();
+        MantaObjectResponse response = null;
+
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Bytes after the checkpoint may not have been written completely
+            channel.truncate(journal.getOffset());
+            updateDigest(digest, channel, journal.getOffset());
+
+            if (journal.getLength() >= 0 && journal.getOffset() >= journal.getLength()) {
+                // A range starting at the end of the object can't be requested
+                response = headIfUnmodified(journal);
+
+                if (response == null) {
+                    LOG.info("{} was modified since it was downloaded, starting over", path);
+                    journal = new MantaTransferJournal(path);
+                    channel.truncate(0);
+                    digest.reset();
+                }
+            }
+
+            while (response == null) {
+                final long offsetBefore = journal.getOffset();
+
+                try {
+                    response = downloadFrom(journal, journalFile, channel, digest);
+                } catch (MantaClientHttpResponseException e) {
+                    if (e.getStatusCode() == STATUS_CODE_PRECONDITION_FAILED) {
+                        LOG.info("{} was modified while downloading it, starting over", path);
+                        journal = new MantaTransferJournal(path);
+                        channel.truncate(0);
+                        digest.reset();
+                        continue;
+                    }
+
+                    if (!client.getRetryPolicy().isRetryableStatusCode(e.getStatusCode())) {
+                        throw e;
+                    }
+
+                    checkpoint(journal, journalFile, channel);
+                    awaitRetry(client.getRetryPolicy(), backOff, journal.getOffset() > offsetBefore, e);
+                } catch (IOException e) {
+                    checkpoint(journal, journalFile, channel);
+                    awaitRetry(client.getRetryPolicy(), backOff, journal.getOffset() > offsetBefore, e);
+                }
+            }
+        }
+
+        final String actual = Base64.encodeBase64String(digest.digest());
+
+        if (journal.getMd5() != null && !journal.getMd5().equals(actual)) {
+            Files.deleteIfExists(part);
+            Files.deleteIfExists(journalFile);
+            throw new MantaChecksumFailedException(String.format(
+                    "Checksum of %s was %s, but Manta reported %s", path, actual, journal.getMd5()));
+        }
+
+        Files.move(part, destination, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(journalFile);
+
+        return response;
+    }
+
+    /**
+     * Uploads a file, skipping the upload if a previous upload of the same
+     * file completed without its response being received.
+     *
+     * @param source file to upload
+     * @param path fully qualified path of the object
+     * @return response of the upload or of the HEAD request verifying a completed upload
+     * @throws IOException thrown when the upload keeps failing
+     */
+    public MantaObjectResponse upload(final Path source, final String path) throws IOException {
+        Objects.requireNonNull(source, "Source must be present");
+        Objects.requireNonNull(path, "Path must be present");
+
+        Files.createDirectories(journalDirectory);
+
+        final Path journalFile = journalDirectory.resolve(
+                DigestUtils.sha256Hex(source.toAbsolutePath() + "\n" + path) + JOURNAL_SUFFIX);
+        final BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        final long mtime = attributes.lastModifiedTime().toMillis();
+
+        MantaTransferJournal journal = MantaTransferJournal.read(journalFile);
+        final boolean resumed = journal != null && journal.getPath().equals(path)
+                && journal.getLength() == attributes.size() && journal.getMtime() == mtime
+                && journal.getMd5() != null;
+
+        if (!resumed) {
+            final String md5;
+
+            try (InputStream in = Files.newInputStream(source)) {
+                md5 = Base64.encodeBase64String(DigestUtils.md5(in));
+            }
+
+            journal = new MantaTransferJournal(path).setLength(attributes.size())
+                    .setMtime(mtime).setMd5(md5);
+            journal.write(journalFile);
+        }
+
+        final byte[] md5 = Base64.decodeBase64(journal.getMd5());
+
+        if (resumed) {
+            final MantaObjectResponse existing = findUploaded(path, md5);
+
+            if (existing != null) {
+                Files.deleteIfExists(journalFile);
+                return existing;
+            }
+        }
+
+        final BackOff backOff = client.getRetryPolicy().newBackOff();
+
+        while (true) {
+            try {
+                final MantaHttpHeaders headers = new MantaHttpHeaders();
+                headers.setContentMD5(journal.getMd5());
+
+                final MantaObjectResponse response = client.put(path, source.toFile(), headers);
+                final byte[] stored = response.getMd5Bytes();
+
+                if (stored != null && !Arrays.equals(stored, md5)) {
+                    throw new MantaChecksumFailedException(String.format(
+                            "Checksum of %s was %s, but Manta reported %s", path,
+                            journal.getMd5(), Base64.encodeBase64String(stored)));
+                }
+
+                Files.deleteIfExists(journalFile);
+                return response;
+            } catch (MantaClientHttpResponseException e) {
+                if (!client.getRetryPolicy().isRetryableStatusCode(e.getStatusCode())) {
+                    throw e;
+                }
+
+                awaitRetry(client.getRetryPolicy(), backOff, false, e);
+            } catch (MantaChecksumFailedException e) {
+                throw e;
+            } catch (IOException e) {
+                final MantaObjectResponse existing = findUploaded(path, md5);
+
+                if (existing != null) {
+                    Files.deleteIfExists(journalFile);
+                    return existing;
+                }
+
+                awaitRetry(client.getRetryPolicy(), backOff, false, e);
+            }
+        }
+    }
+
+    /**
+     * Downloads the remainder of an object, starting at the offset of the
+     * journal.
+     *
+     * @param journal checkpoint of the download, updated as content is written
+     * @param journalFile file containing the journal
+     * @param channel channel writing the downloaded content
+     * @param digest digest of the content written so far
+     * @return response of the request
+     * @throws IOException thrown when the download fails
+     */
+    private MantaObjectResponse downloadFrom(final MantaTransferJournal journal, final Path journalFile,
+                                             final FileChannel channel, final MessageDigest digest)
+            throws IOException {
+        MantaHttpHeaders headers = null;
+
+        if (journal.getOffset() > 0 && journal.getEtag() == null) {
+            // The content was decoded, so its offset can't be requested
+            restart(journal, channel, digest);
+        }
+
+        if (journal.getOffset() > 0) {
+            headers = new MantaHttpHeaders();
+            headers.setRange(String.format("bytes=%d-", journal.getOffset()));
+            headers.setIfMatch(journal.getEtag());
+        }
+
+        try (MantaObjectInputStream in = client.getAsInputStream(journal.getPath(), headers)) {
+            if (journal.getOffset() > 0 && in.getHttpHeaders().getContentRange() == null) {
+                // The range was ignored and the whole content is sent
+                restart(journal, channel, digest);
+            }
+
+            if (journal.getOffset() == 0 && in.isDecoded()) {
+                LOG.debug("{} is stored with Content-Encoding {}, so its download can't be resumed "
+                        + "or verified", journal.getPath(), in.getHttpHeaders().getContentEncoding());
+                journal.setEtag(null).setMd5(null);
+            } else if (journal.getOffset() == 0) {
+                journal.setEtag(in.getEtag());
+                journal.setLength(contentLength(in));
+
+                final byte[] md5 = in.getMd5Bytes();
+
+                if (md5 != null) {
+                    journal.setMd5(Base64.encodeBase64String(md5));
+                }
+
+                journal.write(journalFile);
+            }
+
+            final byte[] array = MantaBufferPool.getDefault().acquire();
+
+            try {
+                final ByteBuffer buffer = ByteBuffer.wrap(array);
+                long sinceCheckpoint = 0;
+                int read;
+
+                channel.position(journal.getOffset());
+
+                while ((read = in.read(buffer.array())) != -1) {
+                    buffer.limit(read);
+                    digest.update(buffer.array(), 0, read);
+
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+
+                    buffer.clear();
+                    journal.setOffset(journal.getOffset() + read);
+                    sinceCheckpoint += read;
+
+                    if (sinceCheckpoint >= CHECKPOINT_INTERVAL) {
+                        checkpoint(journal, journalFile, channel);
+                        sinceCheckpoint = 0;
+                    }
+                }
+            } finally {
+                MantaBufferPool.getDefault().release(array);
+            }
+
+            return new MantaObjectResponse(journal.getPath(), in.getHttpHeaders(), in.getMetadata());
+        }
+    }
+
+    /**
+     * Gets the metadata of an object whose whole content was downloaded
+     * before the download could complete.
+     *
+     * @param journal checkpoint of the download
+     * @return response of the HEAD request or null if the object was modified
+     * @throws IOException thrown when the object can't be found
+     */
+    private MantaObjectResponse headIfUnmodified(final MantaTransferJournal journal) throws IOException {
+        final MantaObjectResponse head = client.head(journal.getPath());
+
+        if (journal.getEtag().equals(head.getEtag())) {
+            return head;
+        }
+
+        return null;
+    }
+
+    /**
+     * Discards the content downloaded so far.
+     *
+     * @param journal checkpoint of the download
+     * @param channel channel writing the downloaded content
+     * @param digest digest of the content written so far
+     * @throws IOException thrown when the content can't be discarded
+     */
+    private static void restart(final MantaTransferJournal journal, final FileChannel channel,
+                                final MessageDigest digest) throws IOException {
+        journal.setOffset(0);
+        channel.truncate(0);
+        digest.reset();
+    }
+
+    /**
+     * Makes the content written so far durable and records its offset.
+     *
+     * @param journal checkpoint of the download
+     * @param journalFile file containing the journal
+     * @param channel channel writing the downloaded content
+     * @throws IOException thrown when the content or the journal can't be written
+     */
+    private static void checkpoint(final MantaTransferJournal journal, final Path journalFile,
+                                   final FileChannel channel) throws IOException {
+        if (journal.getEtag() == null) {
+            return;
+        }
+
+        channel.force(false);
+        journal.write(journalFile);
+    }
+
+    /**
+     * Checks if an object with the specified checksum was stored.
+     *
+     * @param path fully qualified path of the object
+     * @param md5 MD5 checksum of the uploaded file
+     * @return response of the HEAD request or null if the object isn't the uploaded file
+     */
+    private MantaObjectResponse findUploaded(final String path, final byte[] md5) {
+        try {
+            final MantaObjectResponse head = client.head(path);
+
+            if (Arrays.equals(head.getMd5Bytes(), md5)) {
+                LOG.debug("Upload of {} already completed", path);
+                return head;
+            }
+        } catch (IOException e) {
+            LOG.debug("Unable to verify upload of {}: {}", path, e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Waits before a retry, or rethrows the failure when no more retries
+     * should be made.
+     *
+     * @param retryPolicy policy whose retry budget the retry spends
+     * @param backOff backoff calculating the delays between retries
+     * @param progressed true if the failed attempt transferred content, which resets the backoff
+     * @param failure failure of the attempt
+     * @throws IOException the failure when no more retries should be made
+     */
+    private static void awaitRetry(final RetryPolicy retryPolicy, final BackOff backOff,
+                                   final boolean progressed, final IOException failure) throws IOException {
+        if (progressed) {
+            backOff.reset();
+        }
+
+        if (!MantaRetryHandler.awaitRetry(retryPolicy, backOff)) {
+            throw failure;
+        }
+
+        LOG.debug("Retrying transfer after failure: {}", failure.getMessage());
+    }
+
+    /**
+     * @param in stream of the response
+     * @return size of the whole object or -1 if not known
+     */
+    private static long contentLength(final MantaObjectInputStream in) {
+        if (in.getContentLength() == null) {
+            return -1;
+        }
+
+        return in.getContentLength();
+    }
+
+    /**
+     * Computes the digest of the content already downloaded.
+     *
+     * @param digest digest to update
+     * @param channel channel of the downloaded content
+     * @param length number of bytes to read
+     * @throws IOException thrown when the content can't be read
+     */
+    private static void updateDigest(final MessageDigest digest, final FileChannel channel,
+                                     final long length) throws IOException {
+        channel.position(0);
+
+        final InputStream in = Channels.newInputStream(channel);
+        final byte[] buffer = MantaBufferPool.getDefault().acquire();
+        long remaining = length;
+
+        try {
+            while (remaining > 0) {
+                final int read = in.read(buffer, 0, (int)Math.min(buffer.length, remaining));
+
+                if (read == -1) {
+                    break;
+                }
+
+                digest.update(buffer, 0, read);
+                remaining -= read;
+            }
+        } finally {
+            MantaBufferPool.getDefault().release(buffer);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.HttpIOExceptionHandler;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpUnsuccessfulResponseHandler;
+import com.google.api.client.util.BackOff;
+import com.google.api.client.util.Sleeper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Handler that retries failed requests according to a {@link RetryPolicy}.
+ * It handles both I/O errors and unsuccessful responses, and honors the
+ * Retry-After header sent by Manta. An instance is created for each
+ * request, because it holds the request's backoff state.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+class MantaRetryHandler implements HttpIOExceptionHandler, HttpUnsuccessfulResponseHandler {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MantaRetryHandler.class);
+
+    /**
+     * Policy deciding which requests are retried and for how long to wait.
+     */
+    private final RetryPolicy retryPolicy;
+
+    /**
+     * Sleeper used to wait between retries.
+     */
+    private final Sleeper sleeper;
+
+    /**
+     * Deadline shared by all of the attempts of the request.
+     */
+    private final RequestDeadline deadline;
+
+    /**
+     * Tracker releasing the endpoint permit of each failed attempt or null
+     * when the endpoint guard is disabled.
+     */
+    private final EndpointGuard.Tracker tracker;
+
+    /**
+     * Backoff state of the request, created on the first retry.
+     */
+    private BackOff backOff;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param retryPolicy policy deciding which requests are retried and for how long to wait
+     */
+    MantaRetryHandler(final RetryPolicy retryPolicy) {
+        this(retryPolicy, new RequestDeadline(0L));
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param retryPolicy policy deciding which requests are retried and for how long to wait
+     * @param deadline deadline shared by all of the attempts of the request
+     */
+    MantaRetryHandler(final RetryPolicy retryPolicy, final RequestDeadline deadline) {
+        this(retryPolicy, Sleeper.DEFAULT, deadline, null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param retryPolicy policy deciding which requests are retried and for how long to wait
+     * @param deadline deadline shared by all of the attempts of the request
+     * @param tracker tracker of the request's endpoint permits or null
+     */
+    MantaRetryHandler(final RetryPolicy retryPolicy,
+                      final RequestDeadline deadline,
+                      final EndpointGuard.Tracker tracker) {
+        this(retryPolicy, Sleeper.DEFAULT, deadline, tracker);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param retryPolicy policy deciding which requests are retried and for how long to wait
+     * @param sleeper sleeper used to wait between retries
+     * @param deadline deadline shared by all of the attempts of the request
+     * @param tracker tracker of the request's endpoint permits or null
+     */
+    MantaRetryHandler(final RetryPolicy retryPolicy,
+                      final Sleeper sleeper,
+                      final RequestDeadline deadline,
+                      final EndpointGuard.Tracker tracker) {
+        this.retryPolicy = retryPolicy;
+        this.sleeper = sleeper;
+        this.deadline = deadline;
+        this.tracker = tracker;
+    }
+
+    /**
+     * @return deadline shared by all of the attempts of the request
+     */
+    RequestDeadline getDeadline() {
+        return deadline;
+    }
+
+    @Override
+    public boolean handleIOException(final HttpRequest request,
+                                     final boolean supportsRetry) throws IOException {
+        if (tracker != null) {
+            tracker.afterIOException();
+        }
+
+        if (!supportsRetry || !retryPolicy.isRetryableMethod(request.getRequestMethod())) {
+            return false;
+        }
+
+        final long delay = nextBackOffMillis();
+
+        if (delay == BackOff.STOP || !fitsDeadline(delay) || !retryPolicy.tryAcquireRetry()) {
+            return false;
+        }
+
+        LOG.debug("Retrying {} {} after I/O error in {}ms",
+                request.getRequestMethod(), request.getUrl(), delay);
+
+        return sleep(delay);
+    }
+
+    @Override
+    public boolean handleResponse(final HttpRequest request,
+                                  final HttpResponse response,
+                                  final boolean supportsRetry) throws IOException {
+        // The response interceptor only sees the last attempt's response
+        if (tracker != null) {
+            tracker.afterResponse(response);
+        }
+
+        if (!supportsRetry
+                || !retryPolicy.isRetryableStatusCode(response.getStatusCode())
+                || !retryPolicy.isRetryableMethod(request.getRequestMethod())) {
+            return false;
+        }
+
+        long delay = nextBackOffMillis();
+
+        if (delay == BackOff.STOP) {
+            return false;
+        }
+
+        final MantaHttpHeaders headers = new MantaHttpHeaders(response.getHeaders());
+        final Long retryAfter = parseRetryAfterMillis(headers.getRetryAfter(), Instant.now());
+
+        if (retryAfter != null) {
+            delay = Math.max(delay, Math.min(retryAfter, retryPolicy.getMaxDelayMillis()));
+        }
+
+        if (!fitsDeadline(delay) || !retryPolicy.tryAcquireRetry()) {
+            return false;
+        }
+
+        LOG.debug("Retrying {} {} after [{}] response in {}ms",
+                request.getRequestMethod(), request.getUrl(),
+                response.getStatusCode(), delay);
+
+        return sleep(delay);
+    }
+
+    /**
+     * @return delay before the next retry or {@link BackOff#STOP}
+     * @throws IOException thrown by the backoff implementation
+     */
+    private long nextBackOffMillis() throws IOException {
+        if (backOff == null) {
+            backOff = retryPolicy.newBackOff();
+        }
+
+        return backOff.nextBackOffMillis();
+    }
+
+    /**
+     * Determines if a retry after a delay would start before the deadline.
+     *
+     * @param delay milliseconds to wait before the retry
+     * @return true if the retry would start before the deadline
+     */
+    private boolean fitsDeadline(final long delay) {
+        if (delay < deadline.remainingMillis()) {
+            return true;
+        }
+
+        LOG.debug("Not retrying, because the deadline would pass in {}ms", delay);
+        return false;
+    }
+
+    /**
+     * Waits before a retry.
+     *
+     * @param delay milliseconds to wait
+     * @return true if the wait completed, false if interrupted
+     */
+    private boolean sleep(final long delay) {
+        return sleep(sleeper, delay);
+    }
+
+    /**
+     * Waits for the delay returned by the specified backoff. This is used
+     * by operations that retry outside of the HTTP client.
+     *
+     * @param retryPolicy policy that may refuse the retry
+     * @param backOff backoff calculating the delay
+     * @return true if a retry should be made, false if the backoff or the policy
+     *         stopped it or the thread was interrupted
+     * @throws IOException thrown by the backoff implementation
+     */
+    static boolean awaitRetry(final RetryPolicy retryPolicy, final BackOff backOff) throws IOException {
+        final long delay = backOff.nextBackOffMillis();
+
+        if (delay == BackOff.STOP || !retryPolicy.tryAcquireRetry()) {
+            return false;
+        }
+
+        return sleep(Sleeper.DEFAULT, delay);
+    }
+
+    /**
+     * Waits before a retry.
+     *
+     * @param sleeper sleeper used to wait
+     * @param delay milliseconds to wait
+     * @return true if the wait completed, false if interrupted
+     */
+    private static boolean sleep(final Sleeper sleeper, final long delay) {
+        try {
+            sleeper.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Parses the value of a Retry-After header, which is either a number of
+     * seconds or a HTTP date.
+     *
+     * @param value header value
+     * @param now current time, used to convert a date to a delay
+     * @return delay in milliseconds or null if the value is missing or invalid
+     */
+    static Long parseRetryAfterMillis(final String value, final Instant now) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+
+        final String trimmed = value.trim();
+
+        try {
+            final long seconds = Long.parseLong(trimmed);
+
+            if (seconds < 0) {
+                return null;
+            }
+
+            return Duration.ofSeconds(seconds).toMillis();
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, so it should be a date
+        }
+
+        try {
+            final Instant date = ZonedDateTime.parse(trimmed,
+                    DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+
+            return Math.max(0L, Duration.between(now, date).toMillis());
+        } catch (DateTimeParseException e) {
+            LOG.debug("Unable to parse Retry-After header: {}", trimmed);
+            return null;
+        }
+    }
+}
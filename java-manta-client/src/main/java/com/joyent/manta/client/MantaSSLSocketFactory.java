@@ -5,24 +5,44 @@ package com.joyent.manta.client;
 
 import com.joyent.manta.config.ConfigContext;
 import com.joyent.manta.exception.MantaException;
+import org.apache.http.HttpHost;
 import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.protocol.HttpContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.SSLSocket;
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.LinkedHashSet;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.joyent.manta.client.MantaUtils.fromCsv;
 
 /**
- * Custom {@link SSLSocketFactory} implementation that consumes Manta
- * configuration and enforces the selection of protocols and ciphers.
+ * <p>Custom {@link SSLSocketFactory} implementation that consumes Manta
+ * configuration and enforces the selection of protocols and ciphers.</p>
+ *
+ * <p>The configured protocols and cipher suites are matched against the
+ * ones enabled by default once, when the factory is created, rather than
+ * on every socket. The TLS session cache of the default {@link SSLContext}
+ * is sized using the configured values so that new connections to a load
+ * balancer can resume an existing session instead of performing a full
+ * handshake. Because the default context is shared by the whole JVM, the
+ * session cache settings apply to every user of it.</p>
+ *
+ * <p>The number of full and resumed handshakes and the time spent on them
+ * are counted. For direct connections, the time includes opening the TCP
+ * connection.</p>
  *
  * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
  */
@@ -33,33 +53,47 @@ public class MantaSSLSocketFactory extends SSLSocketFactory {
     private static final Logger LOG = LoggerFactory.getLogger(MantaSSLSocketFactory.class);
 
     /**
-     * Set of supported TLS protocols.
+     * Number of full handshakes performed.
+     */
+    private final AtomicLong fullHandshakeCount = new AtomicLong();
+
+    /**
+     * Number of handshakes that resumed a cached session.
      */
-    private final Set<String> supportedProtocols;
+    private final AtomicLong resumedHandshakeCount = new AtomicLong();
 
     /**
-     * Set of supported TLS cipher suites.
+     * Total milliseconds spent on full handshakes.
      */
-    private final Set<String> supportedCipherSuites;
+    private final AtomicLong fullHandshakeMillis = new AtomicLong();
+
+    /**
+     * Total milliseconds spent on handshakes that resumed a cached session.
+     */
+    private final AtomicLong resumedHandshakeMillis = new AtomicLong();
 
     /**
      * Creates a new instance using the Manta configuration parameters.
      * @param config configuration context containing SSL config params
      */
     public MantaSSLSocketFactory(final ConfigContext config) {
-        super(buildContext(), getSystemSocketFactory().getHostnameVerifier());
+        this(buildContext(), config);
+    }
 
-        if (config.getHttpsProtocols() != null) {
-            this.supportedProtocols = new LinkedHashSet<>(fromCsv(config.getHttpsProtocols()));
-        } else {
-            this.supportedProtocols = Collections.emptySet();
-        }
+    /**
+     * Creates a new instance using the Manta configuration parameters.
+     * @param context SSL context creating the sockets
+     * @param config configuration context containing SSL config params
+     */
+    MantaSSLSocketFactory(final SSLContext context, final ConfigContext config) {
+        super(context,
+                supported("protocols", config.getHttpsProtocols(),
+                        context.getDefaultSSLParameters().getProtocols()),
+                supported("cipher suites", config.getHttpsCipherSuites(),
+                        context.getDefaultSSLParameters().getCipherSuites()),
+                getSystemSocketFactory().getHostnameVerifier());
 
-        if (config.getHttpsCipherSuites() != null) {
-            this.supportedCipherSuites = new LinkedHashSet<>(fromCsv(config.getHttpsCipherSuites()));
-        } else {
-            this.supportedCipherSuites = Collections.emptySet();
-        }
+        configureSessionCache(context.getClientSessionContext(), config);
     }
 
     /**
@@ -73,43 +107,159 @@ public class MantaSSLSocketFactory extends SSLSocketFactory {
         }
     }
 
-    @Override
-    protected void prepareSocket(final SSLSocket socket) throws IOException {
-        final Set<String> enabledProtocols = new LinkedHashSet<>(
-                Arrays.asList(socket.getEnabledProtocols()));
-        final Set<String> enabledCipherSuites = new LinkedHashSet<>(
-                Arrays.asList(socket.getEnabledCipherSuites()));
-
+    /**
+     * Finds the configured values that are enabled by default, keeping the
+     * configured order.
+     *
+     * @param name name of the values used in log messages
+     * @param configured comma separated configured values or null
+     * @param enabled values enabled by default
+     * @return configured values that are enabled or null to use the defaults
+     */
+    private static String[] supported(final String name, final String configured,
+                                      final String[] enabled) {
         if (LOG.isDebugEnabled()) {
-            LOG.debug("Enabled TLS protocols: {}", MantaUtils.asString(enabledProtocols));
-            LOG.debug("Enabled cipher suites: {}", MantaUtils.asString(enabledCipherSuites));
+            LOG.debug("Enabled TLS {}: {}", name, MantaUtils.asString(enabled));
         }
 
-        supportedCipherSuites.retainAll(enabledCipherSuites);
-
-        if (!supportedCipherSuites.isEmpty()) {
-            try {
-                String[] supportedCiphers = new String[supportedCipherSuites.size()];
-                supportedCipherSuites.toArray(supportedCiphers);
-                socket.setEnabledCipherSuites(supportedCiphers);
-            } catch (IllegalArgumentException e) {
-                String msg = String.format("Unsupported encryption provider. Supported providers: %s",
-                        MantaUtils.asString(socket.getEnabledCipherSuites()));
-                throw new MantaException(msg, e);
-            }
+        if (configured == null) {
+            return null;
         }
 
-        supportedProtocols.retainAll(enabledProtocols);
+        final Set<String> enabledSet = new HashSet<>(Arrays.asList(enabled));
+        final List<String> supported = new ArrayList<>();
 
-        if (!supportedProtocols.isEmpty()) {
-            String[] supportedProtos = new String[supportedProtocols.size()];
-            supportedProtocols.toArray(supportedProtos);
-            socket.setEnabledProtocols(supportedProtos);
+        for (String value : fromCsv(configured)) {
+            if (enabledSet.contains(value) && !supported.contains(value)) {
+                supported.add(value);
+            }
+        }
+
+        if (supported.isEmpty()) {
+            LOG.warn("None of the configured TLS {} [{}] are supported, using defaults",
+                    name, configured);
+            return null;
         }
 
         if (LOG.isDebugEnabled()) {
-            LOG.debug("Supported TLS protocols: {}", MantaUtils.asString(supportedProtocols));
-            LOG.debug("Supported cipher suites: {}", MantaUtils.asString(supportedCipherSuites));
+            LOG.debug("Supported TLS {}: {}", name, MantaUtils.asString(supported));
+        }
+
+        return supported.toArray(new String[supported.size()]);
+    }
+
+    /**
+     * Applies the configured session cache settings.
+     *
+     * @param sessionContext client session context of the SSL context
+     * @param config configuration context containing SSL config params
+     */
+    private static void configureSessionCache(final SSLSessionContext sessionContext,
+                                              final ConfigContext config) {
+        if (sessionContext == null) {
+            return;
         }
+
+        if (config.getTlsSessionCacheSize() != null) {
+            sessionContext.setSessionCacheSize(config.getTlsSessionCacheSize());
+        }
+
+        if (config.getTlsSessionTimeout() != null) {
+            sessionContext.setSessionTimeout(config.getTlsSessionTimeout());
+        }
+    }
+
+    @Override
+    public Socket connectSocket(final int connectTimeout,
+                                final Socket socket,
+                                final HttpHost host,
+                                final InetSocketAddress remoteAddress,
+                                final InetSocketAddress localAddress,
+                                final HttpContext context) throws IOException {
+        /* Plain sockets are layered by createLayeredSocket(), which records
+         * the handshake itself. */
+        if (socket != null && !(socket instanceof SSLSocket)) {
+            return super.connectSocket(connectTimeout, socket, host, remoteAddress,
+                    localAddress, context);
+        }
+
+        final long startMillis = System.currentTimeMillis();
+        final long start = System.nanoTime();
+        final Socket connected = super.connectSocket(connectTimeout, socket, host,
+                remoteAddress, localAddress, context);
+        recordHandshake(connected, startMillis, start);
+
+        return connected;
+    }
+
+    @Override
+    public Socket createLayeredSocket(final Socket socket,
+                                      final String target,
+                                      final int port,
+                                      final HttpContext context) throws IOException {
+        final long startMillis = System.currentTimeMillis();
+        final long start = System.nanoTime();
+        final Socket layered = super.createLayeredSocket(socket, target, port, context);
+        recordHandshake(layered, startMillis, start);
+
+        return layered;
+    }
+
+    /**
+     * Counts a completed handshake. A handshake resumed a cached session
+     * when the session was created before the handshake started.
+     *
+     * @param socket socket that completed the handshake
+     * @param startMillis wall clock time in milliseconds when the handshake started
+     * @param start value of {@link System#nanoTime()} when the handshake started
+     */
+    private void recordHandshake(final Socket socket, final long startMillis, final long start) {
+        if (!(socket instanceof SSLSocket)) {
+            return;
+        }
+
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        final boolean resumed = ((SSLSocket)socket).getSession().getCreationTime() < startMillis;
+
+        if (resumed) {
+            resumedHandshakeCount.incrementAndGet();
+            resumedHandshakeMillis.addAndGet(elapsed);
+        } else {
+            fullHandshakeCount.incrementAndGet();
+            fullHandshakeMillis.addAndGet(elapsed);
+        }
+
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("TLS handshake with [{}] took {}ms, resumed: {}",
+                    socket.getRemoteSocketAddress(), elapsed, resumed);
+        }
+    }
+
+    /**
+     * @return number of full handshakes performed
+     */
+    public long getFullHandshakeCount() {
+        return fullHandshakeCount.get();
+    }
+
+    /**
+     * @return number of handshakes that resumed a cached session
+     */
+    public long getResumedHandshakeCount() {
+        return resumedHandshakeCount.get();
+    }
+
+    /**
+     * @return total milliseconds spent on full handshakes
+     */
+    public long getFullHandshakeMillis() {
+        return fullHandshakeMillis.get();
+    }
+
+    /**
+     * @return total milliseconds spent on handshakes that resumed a cached session
+     */
+    public long getResumedHandshakeMillis() {
+        return resumedHandshakeMillis.get();
     }
 }
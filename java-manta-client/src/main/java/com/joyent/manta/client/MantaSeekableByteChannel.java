@@ -15,6 +15,7 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.NonWritableChannelException;
 import java.nio.channels.SeekableByteChannel;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A read-only {@link SeekableByteChannel} implementation that utilizes
@@ -22,6 +23,10 @@ import java.util.concurrent.atomic.AtomicReference;
  * Manta. Connection opening to the remote server happens lazily upon the
  * first read() or size() method invoked.
  *
+ * Note: byte positions refer to the object as it is stored on Manta, so
+ * objects uploaded with client-side content compression (see
+ * {@link CompressionCodec}) can't be meaningfully seeked.
+ *
  * @author Elijah Zupancic
  */
 @ThreadSafe
@@ -59,6 +64,12 @@ public class MantaSeekableByteChannel extends InputStream
      */
     private final AtomicReference<HttpResponse> responseRef;
 
+    /**
+     * Lock serializing reads, so that threads sharing the channel don't
+     * interleave reads of the response or lose updates of the position.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
     /**
      * Creates a new instance of a read-only seekable byte channel.
      *
@@ -113,20 +124,28 @@ public class MantaSeekableByteChannel extends InputStream
             throw new ClosedChannelException();
         }
 
-        final HttpResponse response = connectOrGetResponse();
-        final long size = size();
+        lock.lock();
 
-        if (position >= size) {
-            return EOF;
-        }
+        try {
+            final HttpResponse response = connectOrGetResponse();
+            final long size = size();
 
-        final InputStream is = response.getContent();
-        final byte[] buff = dst.array();
-        final int bytesRead = is.read(buff);
+            if (position >= size) {
+                return EOF;
+            }
 
-        position += bytesRead;
+            final InputStream is = response.getContent();
+            final byte[] buff = dst.array();
+            final int bytesRead = is.read(buff);
 
-        return bytesRead;
+            if (bytesRead > -1) {
+                position += bytesRead;
+            }
+
+            return bytesRead;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -147,10 +166,21 @@ public class MantaSeekableByteChannel extends InputStream
             throw new ClosedChannelException();
         }
 
-        final HttpResponse response = connectOrGetResponse();
-        final InputStream is = response.getContent();
-        position++;
-        return is.read();
+        lock.lock();
+
+        try {
+            final HttpResponse response = connectOrGetResponse();
+            final InputStream is = response.getContent();
+            final int read = is.read();
+
+            if (read != EOF) {
+                position++;
+            }
+
+            return read;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
@@ -159,16 +189,7 @@ public class MantaSeekableByteChannel extends InputStream
             throw new ClosedChannelException();
         }
 
-        final HttpResponse response = connectOrGetResponse();
-        final InputStream is = response.getContent();
-
-        final int totalRead = is.read(buffer);
-
-        if (totalRead > -1) {
-            position += totalRead;
-        }
-
-        return totalRead;
+        return read(buffer, 0, buffer.length);
     }
 
     @Override
@@ -178,16 +199,22 @@ public class MantaSeekableByteChannel extends InputStream
             throw new ClosedChannelException();
         }
 
-        final HttpResponse response = connectOrGetResponse();
-        final InputStream is = response.getContent();
+        lock.lock();
 
-        final int totalRead = is.read(buffer, offset, length);
+        try {
+            final HttpResponse response = connectOrGetResponse();
+            final InputStream is = response.getContent();
 
-        if (totalRead > -1) {
-            position += totalRead;
-        }
+            final int totalRead = is.read(buffer, offset, length);
+
+            if (totalRead > -1) {
+                position += totalRead;
+            }
 
-        return totalRead;
+            return totalRead;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
@@ -196,14 +223,20 @@ public class MantaSeekableByteChannel extends InputStream
             return 0;
         }
 
-        final HttpResponse response = connectOrGetResponse();
-        final InputStream is = response.getContent();
+        lock.lock();
+
+        try {
+            final HttpResponse response = connectOrGetResponse();
+            final InputStream is = response.getContent();
 
-        final long totalSkipped = is.skip(noOfBytesToSkip);
+            final long totalSkipped = is.skip(noOfBytesToSkip);
 
-        position += totalSkipped;
+            position += totalSkipped;
 
-        return totalSkipped;
+            return totalSkipped;
+        } finally {
+            lock.unlock();
+        }
     }
 
 
@@ -309,7 +342,13 @@ public class MantaSeekableByteChannel extends InputStream
 
         headers.setRange(String.format("bytes=%d-", position));
 
-        responseRef.compareAndSet(null, request.execute());
+        final HttpResponse executed = EndpointGuard.execute(request);
+
+        // Another thread connected first, so its response is used instead
+        if (!responseRef.compareAndSet(null, executed)) {
+            executed.disconnect();
+        }
+
         final HttpResponse response = responseRef.get();
         final String contentType = response.getHeaders().getContentType();
 
@@ -0,0 +1,786 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.HttpStatusCodes;
+import com.joyent.manta.exception.MantaChecksumFailedException;
+import com.joyent.manta.exception.MantaClientException;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * <p>Class that synchronizes a local directory tree with a Manta directory
+ * tree in either direction, transferring only the files that differ.
+ * Directories are compared one at a time using the local file attributes
+ * and the size and <code>ETag</code> of each object from the directory
+ * listing, while files are compared and transferred concurrently.</p>
+ *
+ * <p>A file is considered unchanged when it is recorded in the optional
+ * manifest with the same local size, local modification time and remote
+ * <code>ETag</code>, in which case it is skipped without being read. Files
+ * that aren't recorded, but have the same size on both sides, are compared
+ * by their MD5 checksum before being transferred. Uploads send the
+ * checksum of the file, so Manta rejects corrupted uploads, and downloads
+ * are written to a temporary file that only replaces the local file once
+ * its checksum is verified. The checksum of objects stored with a
+ * <code>Content-Encoding</code> refers to the encoded content, so their
+ * downloads aren't verified. Every verified file is added to the manifest
+ * immediately, so an interrupted synchronization can be resumed by running
+ * it again with the same manifest.</p>
+ *
+ * <p>Files are never deleted from the destination. A file that fails to
+ * synchronize is reported in the {@link Result} without stopping the
+ * synchronization of the other files.</p>
+ *
+ * <p>Instances own a pool of threads, so they must be closed when no
+ * longer needed.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class MantaSync implements AutoCloseable {
+    /**
+     * Default number of files to transfer concurrently.
+     */
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MantaSync.class);
+
+    /**
+     * Counter used to give each sync thread a unique name.
+     */
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * Number of files queued for each transfer thread.
+     */
+    private static final int QUEUED_PER_THREAD = 2;
+
+    /**
+     * Path separator of Manta and of the paths relative to the synchronized directories.
+     */
+    private static final String SEPARATOR = "/";
+
+    /**
+     * Reference to the {@link MantaClient} used to transfer files.
+     */
+    private final MantaClient client;
+
+    /**
+     * Maximum number of files to transfer concurrently.
+     */
+    private final int concurrency;
+
+    /**
+     * Thread pool used to transfer files.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Creates a new instance that transfers files with the default concurrency.
+     *
+     * @param client Manta client used to transfer files
+     */
+    public MantaSync(final MantaClient client) {
+        this(client, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param client Manta client used to transfer files
+     * @param concurrency maximum number of files to transfer concurrently
+     */
+    public MantaSync(final MantaClient client, final int concurrency) {
+        Objects.requireNonNull(client, "Manta client must be present");
+
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be 1 or greater");
+        }
+
+        this.client = client;
+        this.concurrency = concurrency;
+
+        final ThreadFactory threadFactory = MantaThreadFactory.fromConfig(client.getContext(),
+                "manta-sync-", THREAD_COUNTER);
+
+        this.executor = Executors.newFixedThreadPool(concurrency, threadFactory);
+    }
+
+    /**
+     * Uploads the files of a local directory tree that are missing or
+     * different in a Manta directory, creating the remote directories as
+     * needed.
+     *
+     * @param localDirectory local directory to upload
+     * @param remoteDirectory fully qualified path of the Manta directory
+     * @return summary of the synchronization
+     * @throws IOException thrown when the local directory can't be read
+     */
+    public Result upload(final Path localDirectory, final String remoteDirectory) throws IOException {
+        return upload(localDirectory, remoteDirectory, null);
+    }
+
+    /**
+     * Uploads the files of a local directory tree that are missing or
+     * different in a Manta directory, creating the remote directories as
+     * needed.
+     *
+     * @param localDirectory local directory to upload
+     * @param remoteDirectory fully qualified path of the Manta directory
+     * @param manifestFile file recording the synchronized files or null to compare every file
+     * @return summary of the synchronization
+     * @throws IOException thrown when the local directory or the manifest can't be read
+     */
+    public Result upload(final Path localDirectory, final String remoteDirectory,
+                         final Path manifestFile) throws IOException {
+        Objects.requireNonNull(localDirectory, "Local directory must be present");
+        Objects.requireNonNull(remoteDirectory, "Remote directory must be present");
+
+        if (!Files.isDirectory(localDirectory)) {
+            throw new NotDirectoryException(localDirectory.toString());
+        }
+
+        try (Run run = new Run(manifestFile)) {
+            uploadDirectory(run, localDirectory, stripTrailingSeparator(remoteDirectory), "");
+            return run.await();
+        }
+    }
+
+    /**
+     * Downloads the objects of a Manta directory tree that are missing or
+     * different in a local directory, creating the local directories as
+     * needed.
+     *
+     * @param remoteDirectory fully qualified path of the Manta directory
+     * @param localDirectory local directory to download to
+     * @return summary of the synchronization
+     * @throws IOException thrown when the remote directory can't be listed
+     */
+    public Result download(final String remoteDirectory, final Path localDirectory) throws IOException {
+        return download(remoteDirectory, localDirectory, null);
+    }
+
+    /**
+     * Downloads the objects of a Manta directory tree that are missing or
+     * different in a local directory, creating the local directories as
+     * needed.
+     *
+     * @param remoteDirectory fully qualified path of the Manta directory
+     * @param localDirectory local directory to download to
+     * @param manifestFile file recording the synchronized files or null to compare every file
+     * @return summary of the synchronization
+     * @throws IOException thrown when the remote directory can't be listed or the manifest can't be read
+     */
+    public Result download(final String remoteDirectory, final Path localDirectory,
+                           final Path manifestFile) throws IOException {
+        Objects.requireNonNull(remoteDirectory, "Remote directory must be present");
+        Objects.requireNonNull(localDirectory, "Local directory must be present");
+
+        final String remote = stripTrailingSeparator(remoteDirectory);
+
+        if (!client.head(remote).isDirectory()) {
+            throw new MantaClientException(String.format("%s is not a directory", remote));
+        }
+
+        try (Run run = new Run(manifestFile)) {
+            downloadDirectory(run, remote, localDirectory, "");
+            return run.await();
+        }
+    }
+
+    /**
+     * Stops all transfer threads.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Compares a local directory with a remote directory and queues the
+     * upload of the differing files, then does the same for each
+     * subdirectory.
+     *
+     * @param run state of the synchronization
+     * @param localDirectory local directory
+     * @param remoteDirectory path of the remote directory
+     * @param relativeDirectory path of the directory relative to the synchronized directories
+     */
+    private void uploadDirectory(final Run run, final Path localDirectory,
+                                 final String remoteDirectory, final String relativeDirectory) {
+        final List<Path> subdirectories = new ArrayList<>();
+
+        try {
+            final Map<String, MantaObject> remoteObjects = listRemote(remoteDirectory);
+
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(localDirectory)) {
+                for (Path child : children) {
+                    final String name = child.getFileName().toString();
+                    final BasicFileAttributes attributes = Files.readAttributes(child,
+                            BasicFileAttributes.class);
+
+                    if (attributes.isDirectory()) {
+                        subdirectories.add(child);
+                    } else if (attributes.isRegularFile()) {
+                        final String relativePath = relativeDirectory + name;
+                        final String remotePath = remoteDirectory + SEPARATOR + name;
+                        final MantaObject remoteObject = remoteObjects.get(name);
+
+                        run.submit(relativePath, () ->
+                                uploadFile(run, child, attributes, remotePath, relativePath, remoteObject));
+                    }
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            run.failed(relativeDirectory, e);
+            return;
+        }
+
+        Collections.sort(subdirectories);
+
+        for (Path subdirectory : subdirectories) {
+            final String name = subdirectory.getFileName().toString();
+            uploadDirectory(run, subdirectory, remoteDirectory + SEPARATOR + name,
+                    relativeDirectory + name + SEPARATOR);
+        }
+    }
+
+    /**
+     * Uploads a file unless the remote object is identical.
+     *
+     * @param run state of the synchronization
+     * @param file local file
+     * @param attributes attributes of the local file
+     * @param remotePath path of the remote object
+     * @param relativePath path of the file relative to the synchronized directories
+     * @param remoteObject remote object from the directory listing or null if it doesn't exist
+     * @throws IOException thrown when the file can't be read or uploaded
+     */
+    private void uploadFile(final Run run, final Path file, final BasicFileAttributes attributes,
+                            final String remotePath, final String relativePath,
+                            final MantaObject remoteObject) throws IOException {
+        final long size = attributes.size();
+        final long mtime = attributes.lastModifiedTime().toMillis();
+        final boolean remoteIsObject = remoteObject != null && !remoteObject.isDirectory();
+
+        if (remoteIsObject && run.isUnchanged(relativePath, size, mtime, remoteObject.getEtag())) {
+            run.skipped();
+            return;
+        }
+
+        final byte[] md5;
+
+        try (InputStream in = Files.newInputStream(file)) {
+            md5 = DigestUtils.md5(in);
+        }
+
+        if (remoteIsObject && remoteObject.getContentLength() != null
+                && remoteObject.getContentLength() == size
+                && Arrays.equals(md5, client.head(remotePath).getMd5Bytes())) {
+            run.record(relativePath, size, mtime, remoteObject.getEtag());
+            run.skipped();
+            return;
+        }
+
+        final MantaHttpHeaders headers = new MantaHttpHeaders();
+        headers.setContentMD5(Base64.encodeBase64String(md5));
+
+        final MantaObjectResponse response = client.put(remotePath, file.toFile(), headers);
+        verifyChecksum(remotePath, md5, response.getMd5Bytes());
+
+        run.record(relativePath, size, mtime, response.getEtag());
+        run.transferred(size);
+    }
+
+    /**
+     * Compares the objects of a remote directory with a local directory and
+     * queues the download of the differing objects, then does the same for
+     * each subdirectory.
+     *
+     * @param run state of the synchronization
+     * @param remoteDirectory path of the remote directory
+     * @param localDirectory local directory
+     * @param relativeDirectory path of the directory relative to the synchronized directories
+     */
+    private void downloadDirectory(final Run run, final String remoteDirectory,
+                                   final Path localDirectory, final String relativeDirectory) {
+        final List<String> subdirectories = new ArrayList<>();
+
+        try (Stream<MantaObject> listing = client.listObjects(remoteDirectory)) {
+            Files.createDirectories(localDirectory);
+            final Iterator<MantaObject> objects = listing.iterator();
+
+            while (objects.hasNext()) {
+                final MantaObject object = objects.next();
+                final String name = MantaUtils.lastItemInPath(object.getPath());
+                final String relativePath = relativeDirectory + name;
+
+                // Names that would resolve outside of the local directory
+                if (name.isEmpty() || name.equals(".") || name.equals("..")) {
+                    run.failed(relativePath, new MantaClientException(
+                            String.format("Invalid object name: %s", object.getPath())));
+                } else if (object.isDirectory()) {
+                    subdirectories.add(name);
+                } else {
+                    final Path file = localDirectory.resolve(name);
+                    run.submit(relativePath, () -> downloadFile(run, object, file, relativePath));
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            run.failed(relativeDirectory, e);
+            return;
+        }
+
+        for (String name : subdirectories) {
+            downloadDirectory(run, remoteDirectory + SEPARATOR + name, localDirectory.resolve(name),
+                    relativeDirectory + name + SEPARATOR);
+        }
+    }
+
+    /**
+     * Downloads an object unless the local file is identical.
+     *
+     * @param run state of the synchronization
+     * @param object remote object from the directory listing
+     * @param file local file
+     * @param relativePath path of the file relative to the synchronized directories
+     * @throws IOException thrown when the object can't be downloaded or the file can't be written
+     */
+    private void downloadFile(final Run run, final MantaObject object, final Path file,
+                              final String relativePath) throws IOException {
+        if (Files.isRegularFile(file)) {
+            final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            final long size = attributes.size();
+            final long mtime = attributes.lastModifiedTime().toMillis();
+
+            if (run.isUnchanged(relativePath, size, mtime, object.getEtag())) {
+                run.skipped();
+                return;
+            }
+
+            if (object.getContentLength() != null && object.getContentLength() == size) {
+                final byte[] md5;
+
+                try (InputStream in = Files.newInputStream(file)) {
+                    md5 = DigestUtils.md5(in);
+                }
+
+                if (Arrays.equals(md5, client.head(object.getPath()).getMd5Bytes())) {
+                    run.record(relativePath, size, mtime, object.getEtag());
+                    run.skipped();
+                    return;
+                }
+            }
+        }
+
+        final Path temp = Files.createTempFile(file.getParent(), "." + file.getFileName() + "-", ".part");
+
+        try {
+            final MessageDigest digest = DigestUtils.getMd5Digest();
+            final byte[] expected;
+            final String etag;
+            final long size;
+
+            try (MantaObjectInputStream in = client.getAsInputStream(object.getPath());
+                 InputStream digesting = new DigestInputStream(in, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                etag = in.getEtag();
+
+                // Manta reports the checksum of the encoded content
+                if (in.isDecoded()) {
+                    expected = null;
+                } else {
+                    expected = in.getMd5Bytes();
+                }
+
+                size = MantaBufferPool.getDefault().copy(digesting, out);
+            }
+
+            verifyChecksum(object.getPath(), digest.digest(), expected);
+
+            final Date lastModified = object.getLastModifiedTime();
+
+            if (lastModified != null) {
+                Files.setLastModifiedTime(temp, FileTime.fromMillis(lastModified.getTime()));
+            }
+
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+
+            final long mtime = Files.getLastModifiedTime(file).toMillis();
+            run.record(relativePath, size, mtime, etag);
+            run.transferred(size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Lists a remote directory, creating it if it doesn't exist.
+     *
+     * @param remoteDirectory path of the remote directory
+     * @return objects of the directory keyed by their name
+     * @throws IOException thrown when the directory can't be listed or created
+     */
+    private Map<String, MantaObject> listRemote(final String remoteDirectory) throws IOException {
+        final Map<String, MantaObject> objects = new HashMap<>();
+
+        try (Stream<MantaObject> listing = client.listObjects(remoteDirectory)) {
+            listing.forEach(object -> objects.put(MantaUtils.lastItemInPath(object.getPath()), object));
+        } catch (MantaClientHttpResponseException e) {
+            if (e.getStatusCode() != HttpStatusCodes.STATUS_CODE_NOT_FOUND) {
+                throw e;
+            }
+
+            client.putDirectory(remoteDirectory);
+        }
+
+        return objects;
+    }
+
+    /**
+     * Verifies the checksum of transferred content against the checksum
+     * reported by Manta, if any.
+     *
+     * @param path path of the remote object
+     * @param actual MD5 checksum of the transferred content
+     * @param expected MD5 checksum reported by Manta or null
+     * @throws MantaChecksumFailedException thrown when the checksums differ
+     */
+    private static void verifyChecksum(final String path, final byte[] actual, final byte[] expected)
+            throws MantaChecksumFailedException {
+        if (expected != null && !Arrays.equals(actual, expected)) {
+            throw new MantaChecksumFailedException(String.format(
+                    "Checksum of %s was %s, but Manta reported %s", path,
+                    Base64.encodeBase64String(actual), Base64.encodeBase64String(expected)));
+        }
+    }
+
+    /**
+     * @param path path of a remote directory
+     * @return path without trailing separators
+     */
+    private static String stripTrailingSeparator(final String path) {
+        String stripped = path;
+
+        while (stripped.length() > 1 && stripped.endsWith(SEPARATOR)) {
+            stripped = stripped.substring(0, stripped.length() - 1);
+        }
+
+        return stripped;
+    }
+
+    /**
+     * Task transferring a single file.
+     */
+    @FunctionalInterface
+    private interface Transfer {
+        /**
+         * Transfers the file.
+         *
+         * @throws IOException thrown when the file can't be transferred
+         */
+        void run() throws IOException;
+    }
+
+    /**
+     * State of a single synchronization.
+     */
+    private final class Run implements AutoCloseable {
+        /**
+         * Record of synchronized files or null when every file is compared.
+         */
+        private final MantaSyncManifest manifest;
+
+        /**
+         * Permits limiting the number of queued and running transfers.
+         */
+        private final Semaphore permits;
+
+        /**
+         * Total number of permits.
+         */
+        private final int maxPermits;
+
+        /**
+         * Number of transferred files.
+         */
+        private final AtomicLong transferredCount = new AtomicLong();
+
+        /**
+         * Number of transferred bytes.
+         */
+        private final AtomicLong transferredBytes = new AtomicLong();
+
+        /**
+         * Number of unchanged files.
+         */
+        private final AtomicLong skippedCount = new AtomicLong();
+
+        /**
+         * Errors keyed by the relative path of the file or directory that failed.
+         */
+        private final Map<String, Exception> failures = new ConcurrentHashMap<>();
+
+        /**
+         * Creates a new instance.
+         *
+         * @param manifestFile file recording the synchronized files or null
+         * @throws IOException thrown when the manifest can't be read
+         */
+        private Run(final Path manifestFile) throws IOException {
+            if (manifestFile == null) {
+                this.manifest = null;
+            } else {
+                this.manifest = new MantaSyncManifest(manifestFile);
+            }
+
+            this.maxPermits = concurrency * QUEUED_PER_THREAD;
+            this.permits = new Semaphore(maxPermits);
+        }
+
+        /**
+         * Queues a transfer, waiting while too many transfers are queued.
+         *
+         * @param relativePath path of the file relative to the synchronized directories
+         * @param transfer transfer of the file
+         */
+        private void submit(final String relativePath, final Transfer transfer) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MantaClientException("Interrupted while synchronizing", e);
+            }
+
+            try {
+                executor.execute(() -> {
+                    try {
+                        transfer.run();
+                    } catch (IOException | RuntimeException e) {
+                        failed(relativePath, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        /**
+         * Waits for all queued transfers to complete.
+         *
+         * @return summary of the synchronization
+         */
+        private Result await() {
+            try {
+                permits.acquire(maxPermits);
+                permits.release(maxPermits);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MantaClientException("Interrupted while synchronizing", e);
+            }
+
+            return new Result(transferredCount.get(), transferredBytes.get(),
+                    skippedCount.get(), failures);
+        }
+
+        /**
+         * @param relativePath path relative to the synchronized directories
+         * @param size size of the local file
+         * @param mtime modification time of the local file in milliseconds
+         * @param etag ETag of the remote object
+         * @return true if the manifest records the file as unchanged
+         */
+        private boolean isUnchanged(final String relativePath, final long size,
+                                    final long mtime, final String etag) {
+            return manifest != null && etag != null
+                    && manifest.isUnchanged(relativePath, size, mtime, etag);
+        }
+
+        /**
+         * Records an identical file in the manifest.
+         *
+         * @param relativePath path relative to the synchronized directories
+         * @param size size of the local file
+         * @param mtime modification time of the local file in milliseconds
+         * @param etag ETag of the remote object
+         * @throws IOException thrown when the manifest can't be written
+         */
+        private void record(final String relativePath, final long size,
+                            final long mtime, final String etag) throws IOException {
+            if (manifest != null && etag != null) {
+                manifest.record(relativePath, size, mtime, etag);
+            }
+        }
+
+        /**
+         * Counts a transferred file.
+         *
+         * @param size number of bytes transferred
+         */
+        private void transferred(final long size) {
+            transferredCount.incrementAndGet();
+            transferredBytes.addAndGet(size);
+        }
+
+        /**
+         * Counts an unchanged file.
+         */
+        private void skipped() {
+            skippedCount.incrementAndGet();
+        }
+
+        /**
+         * Records a file or directory that failed to synchronize.
+         *
+         * @param relativePath path relative to the synchronized directories
+         * @param e error that caused the failure
+         */
+        private void failed(final String relativePath, final Exception e) {
+            LOG.warn("Unable to synchronize [{}]: {}", relativePath, e.getMessage());
+            LOG.debug("Synchronization failure", e);
+            failures.put(relativePath, e);
+        }
+
+        /**
+         * Waits for the queued transfers and compacts the manifest.
+         *
+         * @throws IOException thrown when the manifest can't be written
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                await();
+            } finally {
+                if (manifest != null) {
+                    manifest.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Summary of a synchronization.
+     */
+    public static final class Result {
+        /**
+         * Number of transferred files.
+         */
+        private final long transferred;
+
+        /**
+         * Number of transferred bytes.
+         */
+        private final long transferredBytes;
+
+        /**
+         * Number of unchanged files.
+         */
+        private final long skipped;
+
+        /**
+         * Errors keyed by the relative path of the file or directory that failed.
+         */
+        private final Map<String, Exception> failures;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param transferred number of transferred files
+         * @param transferredBytes number of transferred bytes
+         * @param skipped number of unchanged files
+         * @param failures errors keyed by the relative path of the file or directory that failed
+         */
+        private Result(final long transferred, final long transferredBytes, final long skipped,
+                       final Map<String, Exception> failures) {
+            this.transferred = transferred;
+            this.transferredBytes = transferredBytes;
+            this.skipped = skipped;
+            this.failures = Collections.unmodifiableMap(new HashMap<>(failures));
+        }
+
+        /**
+         * @return number of files that were transferred
+         */
+        public long getTransferred() {
+            return transferred;
+        }
+
+        /**
+         * @return number of bytes that were transferred
+         */
+        public long getTransferredBytes() {
+            return transferredBytes;
+        }
+
+        /**
+         * @return number of files that were already identical
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * @return errors keyed by the path, relative to the synchronized
+         *         directories, of each file or directory that failed
+         */
+        public Map<String, Exception> getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return true if every file was synchronized
+         */
+        public boolean isSuccessful() {
+            return failures.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("transferred=%d (%d bytes), skipped=%d, failed=%d",
+                    transferred, transferredBytes, skipped, failures.size());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>Record of the files synchronized by {@link MantaSync}, kept in a local
+ * file. For every file, the size and modification time of the local copy
+ * and the <code>ETag</code> of the remote copy are recorded once both
+ * copies are known to be identical, so that later runs can skip unchanged
+ * files without reading or downloading them.</p>
+ *
+ * <p>Entries are appended to the file as soon as they are recorded, so an
+ * interrupted synchronization resumes where it stopped. The file is
+ * rewritten without duplicate entries when the manifest is closed. Lines
+ * that can't be parsed, such as a line cut short by a crash, are
+ * ignored.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class MantaSyncManifest implements Closeable {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MantaSyncManifest.class);
+
+    /**
+     * Separator of the fields of an entry.
+     */
+    private static final String FIELD_SEPARATOR = "\t";
+
+    /**
+     * Number of fields of an entry.
+     */
+    private static final int FIELD_COUNT = 4;
+
+    /**
+     * Index of the modification time field.
+     */
+    private static final int MTIME_FIELD = 2;
+
+    /**
+     * Index of the ETag field.
+     */
+    private static final int ETAG_FIELD = 3;
+
+    /**
+     * Suffix of the file written while compacting the manifest.
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * File containing the manifest.
+     */
+    private final Path file;
+
+    /**
+     * Entries keyed by the path relative to the synchronized directories.
+     */
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Writer appending entries to the file, guarded by this instance.
+     */
+    private BufferedWriter journal;
+
+    /**
+     * Creates a new instance, loading the entries already recorded in the file.
+     *
+     * @param file file containing the manifest, created if it doesn't exist
+     * @throws IOException thrown when the file can't be read or created
+     */
+    MantaSyncManifest(final Path file) throws IOException {
+        this.file = Objects.requireNonNull(file, "Manifest file must be present");
+
+        if (Files.exists(file)) {
+            load();
+        }
+
+        this.journal = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Checks if a file is unchanged since it was last recorded.
+     *
+     * @param relativePath path relative to the synchronized directories
+     * @param size size of the local file
+     * @param mtime modification time of the local file in milliseconds
+     * @param etag ETag of the remote object
+     * @return true if both copies are the same as when they were recorded
+     */
+    boolean isUnchanged(final String relativePath, final long size, final long mtime, final String etag) {
+        final Entry entry = entries.get(relativePath);
+
+        return entry != null && entry.size == size && entry.mtime == mtime
+                && entry.etag.equals(etag);
+    }
+
+    /**
+     * Records that the local and remote copies of a file are identical.
+     *
+     * @param relativePath path relative to the synchronized directories
+     * @param size size of the local file
+     * @param mtime modification time of the local file in milliseconds
+     * @param etag ETag of the remote object
+     * @throws IOException thrown when the entry can't be written
+     */
+    synchronized void record(final String relativePath, final long size, final long mtime,
+                             final String etag) throws IOException {
+        if (journal == null) {
+            throw new IllegalStateException("Manifest is closed");
+        }
+
+        final Entry entry = new Entry(size, mtime, etag);
+        entries.put(relativePath, entry);
+        journal.write(format(relativePath, entry));
+        journal.newLine();
+        journal.flush();
+    }
+
+    /**
+     * @return number of recorded files
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Rewrites the file with a single entry per recorded file.
+     *
+     * @throws IOException thrown when the file can't be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (journal == null) {
+            return;
+        }
+
+        journal.close();
+        journal = null;
+
+        final Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writer.write(format(entry.getKey(), entry.getValue()));
+                writer.newLine();
+            }
+        }
+
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the entries recorded in the file. Later entries of a file
+     * replace earlier ones.
+     *
+     * @throws IOException thrown when the file can't be read
+     */
+    private void load() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.split(FIELD_SEPARATOR);
+
+                if (fields.length != FIELD_COUNT) {
+                    LOG.debug("Ignoring invalid manifest entry: {}", line);
+                    continue;
+                }
+
+                try {
+                    entries.put(URLDecoder.decode(fields[0], "UTF-8"), new Entry(
+                            Long.parseLong(fields[1]), Long.parseLong(fields[MTIME_FIELD]),
+                            fields[ETAG_FIELD]));
+                } catch (IllegalArgumentException e) {
+                    LOG.debug("Ignoring invalid manifest entry: {}", line);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param relativePath path relative to the synchronized directories
+     * @param entry recorded entry
+     * @return single line representation of the entry
+     * @throws UnsupportedEncodingException never thrown for UTF-8
+     */
+    private static String format(final String relativePath, final Entry entry)
+            throws UnsupportedEncodingException {
+        return URLEncoder.encode(relativePath, "UTF-8") + FIELD_SEPARATOR
+                + entry.size + FIELD_SEPARATOR + entry.mtime + FIELD_SEPARATOR + entry.etag;
+    }
+
+    /**
+     * State of a file when it was last synchronized.
+     */
+    private static final class Entry {
+        /**
+         * Size of the local file.
+         */
+        private final long size;
+
+        /**
+         * Modification time of the local file in milliseconds.
+         */
+        private final long mtime;
+
+        /**
+         * ETag of the remote object.
+         */
+        private final String etag;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param size size of the local file
+         * @param mtime modification time of the local file in milliseconds
+         * @param etag ETag of the remote object
+         */
+        private Entry(final long size, final long mtime, final String etag) {
+            this.size = size;
+            this.mtime = mtime;
+            this.etag = etag;
+        }
+    }
+}
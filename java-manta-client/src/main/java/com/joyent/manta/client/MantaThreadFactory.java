@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.joyent.manta.config.ConfigContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Factory of the threads started by the client, creating sensibly named
+ * daemon threads. When virtual threads are requested, with the
+ * <code>manta.virtual_threads</code> setting, and the JVM supports them,
+ * the threads are virtual threads so that blocking requests don't each
+ * hold a platform thread.</p>
+ *
+ * <p>Virtual threads are created through reflection, so that the library
+ * still runs on JVMs without them. On those JVMs, platform threads are
+ * created instead. Support for virtual threads is experimental: the HTTP
+ * client and its dependencies may still pin a virtual thread to its
+ * carrier thread while blocked, in which case it holds a platform thread
+ * like before.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public final class MantaThreadFactory implements ThreadFactory {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MantaThreadFactory.class);
+
+    /**
+     * <code>Thread.ofVirtual()</code> or null when virtual threads aren't supported.
+     */
+    private static final Method OF_VIRTUAL;
+
+    /**
+     * <code>Thread.Builder.name(String)</code> or null when virtual threads aren't supported.
+     */
+    private static final Method BUILDER_NAME;
+
+    /**
+     * <code>Thread.Builder.unstarted(Runnable)</code> or null when virtual threads aren't supported.
+     */
+    private static final Method BUILDER_UNSTARTED;
+
+    /**
+     * Flag indicating that the fallback to platform threads was logged.
+     */
+    private static final AtomicBoolean FALLBACK_LOGGED = new AtomicBoolean();
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method unstarted = null;
+
+        try {
+            final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class);
+            unstarted = builder.getMethod("unstarted", Runnable.class);
+
+            // Preview releases throw when preview features are disabled
+            ofVirtual.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+            name = null;
+            unstarted = null;
+        }
+
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_UNSTARTED = unstarted;
+    }
+
+    /**
+     * Prefix of the thread names, followed by the counter.
+     */
+    private final String prefix;
+
+    /**
+     * Counter used to give each thread a unique name.
+     */
+    private final AtomicInteger counter;
+
+    /**
+     * Flag indicating that virtual threads are created.
+     */
+    private final boolean virtual;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param prefix prefix of the thread names, followed by the counter
+     * @param counter counter used to give each thread a unique name, possibly shared between factories
+     * @param virtual true to create virtual threads when the JVM supports them
+     */
+    public MantaThreadFactory(final String prefix, final AtomicInteger counter, final boolean virtual) {
+        this.prefix = Objects.requireNonNull(prefix, "Prefix must be present");
+        this.counter = Objects.requireNonNull(counter, "Counter must be present");
+        this.virtual = virtual && isVirtualThreadSupported();
+
+        if (virtual && !this.virtual && FALLBACK_LOGGED.compareAndSet(false, true)) {
+            LOG.info("Virtual threads aren't supported by this JVM, using platform threads");
+        }
+    }
+
+    /**
+     * Creates a new instance creating virtual threads if enabled by the
+     * configuration.
+     *
+     * @param config library configuration context reference
+     * @param prefix prefix of the thread names, followed by the counter
+     * @param counter counter used to give each thread a unique name, possibly shared between factories
+     * @return new instance
+     */
+    static MantaThreadFactory fromConfig(final ConfigContext config, final String prefix,
+                                         final AtomicInteger counter) {
+        return new MantaThreadFactory(prefix, counter, useVirtualThreads(config));
+    }
+
+    /**
+     * @param config library configuration context reference or null
+     * @return true if the configuration requests virtual threads
+     */
+    static boolean useVirtualThreads(final ConfigContext config) {
+        return config != null && Boolean.TRUE.equals(config.useVirtualThreads());
+    }
+
+    /**
+     * @return true if the JVM supports virtual threads
+     */
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * @return true if this factory creates virtual threads
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+        final String name = prefix + counter.incrementAndGet();
+
+        if (virtual) {
+            try {
+                final Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name);
+                return (Thread)BUILDER_UNSTARTED.invoke(builder, runnable);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Unable to create virtual thread", e);
+            }
+        }
+
+        final Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
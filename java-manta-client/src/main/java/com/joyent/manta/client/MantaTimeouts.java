@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.HttpRequest;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * <p>Timeouts of a single operation that override the configured timeouts.
+ * Values that aren't set keep their configured value. For example, a HEAD
+ * request can use a short deadline while a large download uses a long read
+ * timeout:</p>
+ *
+ * <pre>{@code
+ * client.head(path, new MantaTimeouts().setConnectTimeout(1000).setDeadline(3000));
+ * client.getAsInputStream(path, null, new MantaTimeouts().setReadTimeout(120000));
+ * }</pre>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class MantaTimeouts {
+    /**
+     * Milliseconds to wait for a connection to be opened or null.
+     */
+    private Integer connectTimeout;
+
+    /**
+     * Milliseconds to wait for data from an open connection or null.
+     */
+    private Integer readTimeout;
+
+    /**
+     * Milliseconds that the operation may take across all of its retries
+     * until a response is received, 0 for no limit or null.
+     */
+    private Integer deadline;
+
+    /**
+     * @return milliseconds to wait for a connection to be opened or null to use the configured value
+     */
+    public Integer getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Sets the time to wait for a connection to be opened.
+     *
+     * @param connectTimeout milliseconds or null to use the configured value
+     * @return the current instance of {@link MantaTimeouts}
+     */
+    public MantaTimeouts setConnectTimeout(final Integer connectTimeout) {
+        this.connectTimeout = requireNotNegative(connectTimeout, "Connect timeout");
+        return this;
+    }
+
+    /**
+     * @return milliseconds to wait for data from an open connection or null to use the configured value
+     */
+    public Integer getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Sets the time to wait for data from an open connection.
+     *
+     * @param readTimeout milliseconds or null to use the configured value
+     * @return the current instance of {@link MantaTimeouts}
+     */
+    public MantaTimeouts setReadTimeout(final Integer readTimeout) {
+        this.readTimeout = requireNotNegative(readTimeout, "Read timeout");
+        return this;
+    }
+
+    /**
+     * @return milliseconds that the operation may take across all of its
+     *         retries, 0 for no limit or null to use the configured value
+     */
+    public Integer getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Sets the time that the operation may take across all of its retries
+     * until a response is received.
+     *
+     * @param deadline milliseconds, 0 for no limit or null to use the configured value
+     * @return the current instance of {@link MantaTimeouts}
+     */
+    public MantaTimeouts setDeadline(final Integer deadline) {
+        this.deadline = requireNotNegative(deadline, "Deadline");
+        return this;
+    }
+
+    /**
+     * Applies the timeouts to a request built by the client.
+     *
+     * @param request request to apply the timeouts to
+     */
+    void applyTo(final HttpRequest request) {
+        if (connectTimeout != null) {
+            request.setConnectTimeout(connectTimeout);
+        }
+
+        if (readTimeout != null) {
+            request.setReadTimeout(readTimeout);
+        }
+
+        final RequestDeadline requestDeadline = RequestDeadline.of(request);
+
+        if (deadline != null && requestDeadline != null) {
+            requestDeadline.setDurationMillis(deadline);
+        }
+    }
+
+    /**
+     * @param value value to check
+     * @param name name of the value used in the error message
+     * @return the value
+     */
+    private static Integer requireNotNegative(final Integer value, final String name) {
+        if (value != null && value < 0) {
+            throw new IllegalArgumentException(name + " must be zero or greater");
+        }
+
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("connectTimeout", connectTimeout)
+                .append("readTimeout", readTimeout)
+                .append("deadline", deadline)
+                .toString();
+    }
+}
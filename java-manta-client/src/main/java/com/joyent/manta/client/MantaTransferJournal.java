@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * <p>Checkpoint of a resumable transfer made by {@link MantaResumableTransfers},
+ * stored in a small properties file. It identifies the remote object and
+ * its version and records how far the transfer got, so that a transfer
+ * interrupted by a failure or a crash can continue instead of starting
+ * over.</p>
+ *
+ * <p>The file is replaced atomically on every write, so it always holds
+ * either the previous or the new checkpoint. Files that can't be parsed
+ * are treated as missing.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class MantaTransferJournal {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MantaTransferJournal.class);
+
+    /**
+     * Suffix of the file written before replacing the journal.
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Fully qualified path of the remote object.
+     */
+    private final String path;
+
+    /**
+     * ETag of the remote object or null if not known yet.
+     */
+    private String etag;
+
+    /**
+     * Base64 encoded MD5 checksum of the whole content or null if not known.
+     */
+    private String md5;
+
+    /**
+     * Size of the whole content or -1 if not known.
+     */
+    private long length = -1;
+
+    /**
+     * Number of bytes transferred and safely stored at the destination.
+     */
+    private long offset;
+
+    /**
+     * Modification time in milliseconds of the local file or -1 if not applicable.
+     */
+    private long mtime = -1;
+
+    /**
+     * Creates a new instance of a transfer that hasn't started.
+     *
+     * @param path fully qualified path of the remote object
+     */
+    MantaTransferJournal(final String path) {
+        this.path = Objects.requireNonNull(path, "Path must be present");
+    }
+
+    /**
+     * Reads a journal.
+     *
+     * @param file file containing the journal
+     * @return journal or null if the file doesn't exist or can't be parsed
+     * @throws IOException thrown when the file can't be read
+     */
+    static MantaTransferJournal read(final Path file) throws IOException {
+        final Properties properties = new Properties();
+
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        final String path = properties.getProperty("path");
+
+        if (path == null) {
+            LOG.debug("Ignoring transfer journal without a path: {}", file);
+            return null;
+        }
+
+        try {
+            final MantaTransferJournal journal = new MantaTransferJournal(path);
+            journal.etag = properties.getProperty("etag");
+            journal.md5 = properties.getProperty("md5");
+            journal.length = Long.parseLong(properties.getProperty("length", "-1"));
+            journal.offset = Long.parseLong(properties.getProperty("offset", "0"));
+            journal.mtime = Long.parseLong(properties.getProperty("mtime", "-1"));
+            return journal;
+        } catch (NumberFormatException e) {
+            LOG.debug("Ignoring invalid transfer journal: {}", file);
+            return null;
+        }
+    }
+
+    /**
+     * Atomically replaces the content of a journal file with this checkpoint.
+     *
+     * @param file file containing the journal
+     * @throws IOException thrown when the file can't be written
+     */
+    void write(final Path file) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty("path", path);
+        properties.setProperty("length", String.valueOf(length));
+        properties.setProperty("offset", String.valueOf(offset));
+        properties.setProperty("mtime", String.valueOf(mtime));
+
+        if (etag != null) {
+            properties.setProperty("etag", etag);
+        }
+
+        if (md5 != null) {
+            properties.setProperty("md5", md5);
+        }
+
+        final Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, "Manta transfer checkpoint");
+        }
+
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return fully qualified path of the remote object
+     */
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * @return ETag of the remote object or null if not known yet
+     */
+    String getEtag() {
+        return etag;
+    }
+
+    /**
+     * @param etag ETag of the remote object
+     * @return this instance
+     */
+    MantaTransferJournal setEtag(final String etag) {
+        this.etag = etag;
+        return this;
+    }
+
+    /**
+     * @return Base64 encoded MD5 checksum of the whole content or null if not known
+     */
+    String getMd5() {
+        return md5;
+    }
+
+    /**
+     * @param md5 Base64 encoded MD5 checksum of the whole content
+     * @return this instance
+     */
+    MantaTransferJournal setMd5(final String md5) {
+        this.md5 = md5;
+        return this;
+    }
+
+    /**
+     * @return size of the whole content or -1 if not known
+     */
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * @param length size of the whole content
+     * @return this instance
+     */
+    MantaTransferJournal setLength(final long length) {
+        this.length = length;
+        return this;
+    }
+
+    /**
+     * @return number of bytes transferred and safely stored at the destination
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @param offset number of bytes transferred and safely stored at the destination
+     * @return this instance
+     */
+    MantaTransferJournal setOffset(final long offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * @return modification time in milliseconds of the local file or -1 if not applicable
+     */
+    long getMtime() {
+        return mtime;
+    }
+
+    /**
+     * @param mtime modification time in milliseconds of the local file
+     * @return this instance
+     */
+    MantaTransferJournal setMtime(final long mtime) {
+        this.mtime = mtime;
+        return this;
+    }
+}
@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLConnection;
 import java.net.URLEncoder;
@@ -18,6 +19,7 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -87,10 +89,10 @@ public final class MantaUtils {
      * @throws IOException If an IO exception has occurred
      */
     public static void inputStreamToFile(final InputStream inputStream, final File outputFile) throws IOException {
-        Files.copy(
-                inputStream,
-                outputFile.toPath()
-        );
+        try (OutputStream out = Files.newOutputStream(outputFile.toPath(),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            MantaBufferPool.getDefault().copy(inputStream, out);
+        }
     }
 
 
@@ -150,6 +152,40 @@ public final class MantaUtils {
         return stringValue;
     }
 
+    /**
+     * Parses an arbitrary object for a long. If it can't be found, return null.
+     *
+     * @param value Object to parse for a long
+     * @return if parsing fails, return null
+     */
+    public static Long parseLongOrNull(final Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+
+        String string = toStringEmptyToNull(value);
+        if (string == null) {
+            return null;
+        }
+
+        Long parsed;
+
+        try {
+            parsed = Long.parseLong(string);
+        } catch (Exception e) {
+            Logger logger = LoggerFactory.getLogger(MantaUtils.class);
+            String msg = "Error parsing value as long. Value: %s";
+            logger.warn(String.format(msg, value), e);
+            parsed = null;
+        }
+
+        return parsed;
+    }
+
     /**
      * Parses an arbitrary object for an integer. If it can't be found, return null.
      *
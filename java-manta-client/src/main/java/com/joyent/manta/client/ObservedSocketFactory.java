@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import org.apache.http.conn.scheme.SchemeLayeredSocketFactory;
+import org.apache.http.conn.scheme.SchemeSocketFactory;
+import org.apache.http.params.HttpParams;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Socket factory that reports the outcome of each connection it opens to a
+ * {@link ConnectionObserver}. Use {@link #wrap(SchemeSocketFactory, ConnectionObserver)}
+ * so that layered socket factories stay layered.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+class ObservedSocketFactory implements SchemeSocketFactory {
+    /**
+     * Socket factory opening the connections.
+     */
+    private final SchemeSocketFactory delegate;
+
+    /**
+     * Observer notified of each connection.
+     */
+    private final ConnectionObserver observer;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param delegate socket factory opening the connections
+     * @param observer observer notified of each connection
+     */
+    ObservedSocketFactory(final SchemeSocketFactory delegate,
+                          final ConnectionObserver observer) {
+        this.delegate = delegate;
+        this.observer = observer;
+    }
+
+    /**
+     * Wraps a socket factory so that its connections are observed.
+     *
+     * @param delegate socket factory opening the connections
+     * @param observer observer notified of each connection
+     * @return wrapped socket factory, layered if the delegate is layered
+     */
+    static SchemeSocketFactory wrap(final SchemeSocketFactory delegate,
+                                    final ConnectionObserver observer) {
+        if (delegate instanceof SchemeLayeredSocketFactory) {
+            return new Layered((SchemeLayeredSocketFactory)delegate, observer);
+        }
+
+        return new ObservedSocketFactory(delegate, observer);
+    }
+
+    @Override
+    public Socket createSocket(final HttpParams params) throws IOException {
+        return delegate.createSocket(params);
+    }
+
+    @Override
+    public Socket connectSocket(final Socket socket,
+                                final InetSocketAddress remoteAddress,
+                                final InetSocketAddress localAddress,
+                                final HttpParams params) throws IOException {
+        final long start = System.nanoTime();
+
+        try {
+            final Socket connected = delegate.connectSocket(socket, remoteAddress, localAddress, params);
+            observer.onConnected(remoteAddress.getAddress(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return connected;
+        } catch (IOException e) {
+            observer.onConnectFailed(remoteAddress.getAddress());
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean isSecure(final Socket socket) {
+        return delegate.isSecure(socket);
+    }
+
+    /**
+     * Observed socket factory for layered socket factories, such as the
+     * TLS socket factory, which are used to tunnel through proxies.
+     */
+    private static final class Layered extends ObservedSocketFactory
+            implements SchemeLayeredSocketFactory {
+        /**
+         * Layered socket factory opening the connections.
+         */
+        private final SchemeLayeredSocketFactory layeredDelegate;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param delegate layered socket factory opening the connections
+         * @param observer observer notified of each connection
+         */
+        private Layered(final SchemeLayeredSocketFactory delegate,
+                        final ConnectionObserver observer) {
+            super(delegate, observer);
+            this.layeredDelegate = delegate;
+        }
+
+        @Override
+        public Socket createLayeredSocket(final Socket socket,
+                                          final String target,
+                                          final int port,
+                                          final HttpParams params) throws IOException {
+            return layeredDelegate.createLayeredSocket(socket, target, port, params);
+        }
+    }
+}
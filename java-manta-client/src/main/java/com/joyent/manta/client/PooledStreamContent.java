@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.AbstractInputStreamContent;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * HTTP content read from a stream or a file and copied to the request
+ * through a buffer borrowed from the {@link MantaBufferPool}, rather than
+ * the new buffer allocated for each request by the HTTP client's
+ * <code>InputStreamContent</code> and <code>FileContent</code>.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+class PooledStreamContent extends AbstractInputStreamContent {
+    /**
+     * Stream to read the content from or null when reading from a file.
+     */
+    private final InputStream inputStream;
+
+    /**
+     * File to read the content from or null when reading from a stream.
+     */
+    private final File file;
+
+    /**
+     * Flag indicating that the content can be written more than once.
+     */
+    private boolean retrySupported;
+
+    /**
+     * Creates content read from a stream, which can only be written once
+     * unless retries are enabled with {@link #setRetrySupported(boolean)}.
+     *
+     * @param type content (mime) type
+     * @param inputStream stream to read the content from
+     */
+    PooledStreamContent(final String type, final InputStream inputStream) {
+        super(type);
+        this.inputStream = Objects.requireNonNull(inputStream, "Input stream must be present");
+        this.file = null;
+    }
+
+    /**
+     * Creates content read from a file, which is opened again each time
+     * the content is written.
+     *
+     * @param type content (mime) type
+     * @param file file to read the content from
+     */
+    PooledStreamContent(final String type, final File file) {
+        super(type);
+        this.file = Objects.requireNonNull(file, "File must be present");
+        this.inputStream = null;
+        this.retrySupported = true;
+    }
+
+    /**
+     * Sets whether the content can be written more than once, which is
+     * only the case for streams that support marks.
+     *
+     * @param supported true when the content can be written more than once
+     * @return reference to this instance
+     */
+    PooledStreamContent setRetrySupported(final boolean supported) {
+        this.retrySupported = supported;
+        return this;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        if (file != null) {
+            return new FileInputStream(file);
+        }
+
+        return inputStream;
+    }
+
+    @Override
+    public long getLength() {
+        if (file != null) {
+            return file.length();
+        }
+
+        return -1L;
+    }
+
+    @Override
+    public boolean retrySupported() {
+        return retrySupported;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+        final InputStream in = getInputStream();
+
+        try {
+            MantaBufferPool.getDefault().copy(in, out);
+        } finally {
+            if (file != null || getCloseInputStream()) {
+                in.close();
+            }
+        }
+
+        out.flush();
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpUnsuccessfulResponseHandler;
+import com.joyent.manta.exception.MantaTimeoutException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Deadline shared by all of the attempts of a single request. The
+ * deadline starts with the first attempt. No attempt is started after the
+ * deadline has passed and each attempt's connect timeout is shortened to
+ * the time remaining.</p>
+ *
+ * <p>The read timeout isn't shortened, because the HTTP client applies it
+ * to the connection for as long as the response body is read, and a body
+ * may take much longer to read than the deadline allows. An attempt that
+ * is waiting for its response headers can therefore outlive the deadline
+ * by up to one read timeout. A deadline covers the time until the response
+ * headers are received, not the time taken to read the response body.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class RequestDeadline {
+    /**
+     * Value of {@link #startNanos} before the first attempt.
+     */
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    /**
+     * Source of the current time in nanoseconds.
+     */
+    private final LongSupplier nanoClock;
+
+    /**
+     * Milliseconds that the request may take or 0 for no limit. Volatile,
+     * because a hedged duplicate reads it from another thread.
+     */
+    private volatile long durationMillis;
+
+    /**
+     * Value of the clock when the first attempt was made.
+     */
+    private volatile long startNanos = NOT_STARTED;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param durationMillis milliseconds that the request may take or 0 for no limit
+     */
+    RequestDeadline(final long durationMillis) {
+        this(durationMillis, System::nanoTime);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param durationMillis milliseconds that the request may take or 0 for no limit
+     * @param nanoClock source of the current time in nanoseconds
+     */
+    RequestDeadline(final long durationMillis, final LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        setDurationMillis(durationMillis);
+    }
+
+    /**
+     * Finds the deadline of a request built by the client.
+     *
+     * @param request request built by the client
+     * @return deadline of the request or null if it has none
+     */
+    static RequestDeadline of(final HttpRequest request) {
+        final HttpUnsuccessfulResponseHandler handler = request.getUnsuccessfulResponseHandler();
+
+        if (handler instanceof MantaRetryHandler) {
+            return ((MantaRetryHandler)handler).getDeadline();
+        }
+
+        return null;
+    }
+
+    /**
+     * Makes the deadline of a duplicate request end with the deadline of
+     * the original request, so that hedging can't extend a request past
+     * its deadline.
+     *
+     * @param original request being duplicated
+     * @param duplicate duplicate of the request that hasn't been sent
+     */
+    static void share(final HttpRequest original, final HttpRequest duplicate) {
+        final RequestDeadline from = of(original);
+        final RequestDeadline to = of(duplicate);
+
+        if (from == null || to == null) {
+            return;
+        }
+
+        to.durationMillis = from.durationMillis;
+        to.startNanos = from.startNanos;
+    }
+
+    /**
+     * Changes the time that the request may take.
+     *
+     * @param durationMillis milliseconds that the request may take or 0 for no limit
+     */
+    void setDurationMillis(final long durationMillis) {
+        if (durationMillis < 0) {
+            throw new IllegalArgumentException("Deadline must be zero or greater");
+        }
+
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Starts the deadline on the first attempt and shortens the connect
+     * timeout of the attempt to the time remaining.
+     *
+     * @param request request about to be sent
+     * @throws MantaTimeoutException thrown when the deadline has passed
+     */
+    void beforeAttempt(final HttpRequest request) throws MantaTimeoutException {
+        if (durationMillis == 0) {
+            return;
+        }
+
+        if (startNanos == NOT_STARTED) {
+            startNanos = nanoClock.getAsLong();
+        }
+
+        final long remaining = remainingMillis();
+
+        if (remaining <= 0) {
+            String msg = String.format("Deadline of %dms exceeded for %s %s",
+                    durationMillis, request.getRequestMethod(), request.getUrl());
+            throw new MantaTimeoutException(msg);
+        }
+
+        request.setConnectTimeout(shorten(request.getConnectTimeout(), remaining));
+    }
+
+    /**
+     * @return milliseconds remaining until the deadline or {@link Long#MAX_VALUE}
+     *         when there is no deadline or it hasn't started
+     */
+    long remainingMillis() {
+        final long duration = durationMillis;
+        final long start = startNanos;
+
+        if (duration == 0 || start == NOT_STARTED) {
+            return Long.MAX_VALUE;
+        }
+
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(nanoClock.getAsLong() - start);
+        return duration - elapsed;
+    }
+
+    /**
+     * Shortens a timeout to the time remaining.
+     *
+     * @param timeout timeout in milliseconds, where 0 means no timeout
+     * @param remaining milliseconds remaining until the deadline
+     * @return shortened timeout
+     */
+    private static int shorten(final int timeout, final long remaining) {
+        if (timeout > 0 && timeout <= remaining) {
+            return timeout;
+        }
+
+        return (int)Math.min(Integer.MAX_VALUE, remaining);
+    }
+}
@@ -0,0 +1,441 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.joyent.manta.config.DefaultsConfigContext;
+import com.joyent.manta.exception.MantaIOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Sends a duplicate of an idempotent request when the first attempt
+ * hasn't received its response headers within a percentile of recent
+ * latency. The duplicate prefers a different load balancer address than
+ * the first attempt and shares its deadline, and whichever attempt
+ * responds first wins. The
+ * response of the losing attempt is disconnected as soon as it arrives,
+ * because a blocking request can't be aborted while it is being sent.</p>
+ *
+ * <p>Hedging only starts once enough latency samples have been recorded,
+ * so the first requests made by a client are never duplicated.</p>
+ *
+ * <p>Attempts run on a pool of threads bounded by the size of the
+ * connection pool, because the losing attempt of a hedged request keeps a
+ * thread and a connection until its response arrives. When every thread
+ * is busy, requests run on the calling thread and aren't hedged.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+class RequestHedger implements AutoCloseable {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(RequestHedger.class);
+
+    /**
+     * Number of recent latency samples kept.
+     */
+    static final int WINDOW_SIZE = 512;
+
+    /**
+     * Number of samples needed before requests are hedged.
+     */
+    static final int MIN_SAMPLES = 32;
+
+    /**
+     * Number of samples recorded between recalculations of the percentile.
+     */
+    private static final int RECALCULATE_INTERVAL = 32;
+
+    /**
+     * Number of percentiles in the whole.
+     */
+    private static final double PERCENT = 100.0;
+
+    /**
+     * Seconds that an idle attempt thread is kept.
+     */
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+    /**
+     * Counter used to name attempt threads.
+     */
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * Percentile of recent latency after which requests are hedged.
+     */
+    private final int percentile;
+
+    /**
+     * Executor running the attempts of hedged requests.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Ring buffer of recent latencies in milliseconds.
+     */
+    private final long[] samples = new long[WINDOW_SIZE];
+
+    /**
+     * Number of samples in the ring buffer.
+     */
+    private int sampleCount;
+
+    /**
+     * Position of the next sample in the ring buffer.
+     */
+    private int nextSample;
+
+    /**
+     * Number of samples recorded since the percentile was calculated.
+     */
+    private int sinceRecalculated;
+
+    /**
+     * Milliseconds after which requests are hedged or -1 until enough
+     * samples have been recorded.
+     */
+    private volatile long hedgeDelayMillis = -1L;
+
+    /**
+     * Number of duplicate requests sent.
+     */
+    private final AtomicLong hedgeCount = new AtomicLong();
+
+    /**
+     * Number of duplicate requests that responded first.
+     */
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param percentile percentile of recent latency after which requests are hedged
+     */
+    RequestHedger(final int percentile) {
+        this(percentile, DefaultsConfigContext.DEFAULT_MAX_CONNS, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param percentile percentile of recent latency after which requests are hedged
+     * @param maxAttempts maximum number of attempts running on the hedger's threads
+     * @param virtualThreads true to send duplicate requests from virtual threads
+     */
+    RequestHedger(final int percentile, final int maxAttempts, final boolean virtualThreads) {
+        if (percentile < 1 || percentile >= PERCENT) {
+            throw new IllegalArgumentException("Percentile must be between 1 and 99");
+        }
+
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Maximum number of attempts must be greater than 0");
+        }
+
+        this.percentile = percentile;
+
+        final ThreadFactory threadFactory = new MantaThreadFactory("manta-hedged-request-",
+                THREAD_COUNTER, virtualThreads);
+
+        this.executor = new ThreadPoolExecutor(0, maxAttempts, THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory);
+    }
+
+    /**
+     * Supplier of the duplicate of a request.
+     */
+    @FunctionalInterface
+    interface DuplicateRequest {
+        /**
+         * @return new request identical to the original request
+         * @throws IOException thrown when the request can't be built
+         */
+        HttpRequest build() throws IOException;
+    }
+
+    /**
+     * Executes an idempotent request, hedging it if it is slow to respond.
+     *
+     * @param request request to execute
+     * @param duplicate supplier of a duplicate of the request
+     * @return response of the first attempt to respond
+     * @throws IOException thrown when no attempt succeeded
+     */
+    HttpResponse execute(final HttpRequest request,
+                         final DuplicateRequest duplicate) throws IOException {
+        final long delay = hedgeDelayMillis;
+
+        if (delay < 0) {
+            return executeAndRecord(request);
+        }
+
+        final ShufflingDnsResolver.Selection selection = new ShufflingDnsResolver.Selection(null);
+        final CompletableFuture<HttpResponse> primary;
+
+        try {
+            primary = submit(request, selection);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("All attempt threads are busy, sending {} {} without hedging",
+                    request.getRequestMethod(), request.getUrl());
+            return executeAndRecord(request);
+        }
+
+        try {
+            return primary.get(delay, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOG.debug("No response after {}ms, hedging {} {}", delay,
+                    request.getRequestMethod(), request.getUrl());
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            primary.thenAccept(RequestHedger::disconnectQuietly);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a response");
+        }
+
+        final CompletableFuture<HttpResponse> hedge;
+
+        try {
+            final HttpRequest copy = duplicate.build();
+            RequestDeadline.share(request, copy);
+            hedge = submit(copy, new ShufflingDnsResolver.Selection(selection.getChosen()));
+            hedgeCount.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            LOG.debug("All attempt threads are busy, not hedging {} {}",
+                    request.getRequestMethod(), request.getUrl());
+            return await(primary);
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("Unable to build hedged request", e);
+            return await(primary);
+        }
+
+        final CompletableFuture<HttpResponse> winner = new CompletableFuture<>();
+        final AtomicInteger failures = new AtomicInteger();
+
+        primary.whenComplete((response, error) -> complete(winner, failures, response, error));
+        hedge.whenComplete((response, error) -> complete(winner, failures, response, error));
+
+        final HttpResponse response = await(winner);
+
+        if (hedge.isDone() && !hedge.isCompletedExceptionally() && hedge.getNow(null) == response) {
+            hedgeWinCount.incrementAndGet();
+        }
+
+        return response;
+    }
+
+    /**
+     * Completes the result of a hedged request with the outcome of one of
+     * its attempts. A response wins if no other attempt has responded.
+     * An error only wins if it is an error response from Manta or if the
+     * other attempt failed as well.
+     *
+     * @param winner result of the hedged request
+     * @param failures number of attempts that failed
+     * @param response response of the attempt or null
+     * @param error error of the attempt or null
+     */
+    private static void complete(final CompletableFuture<HttpResponse> winner,
+                                 final AtomicInteger failures,
+                                 final HttpResponse response,
+                                 final Throwable error) {
+        if (error == null) {
+            if (!winner.complete(response)) {
+                disconnectQuietly(response);
+            }
+
+            return;
+        }
+
+        final Throwable cause = unwrapCompletion(error);
+
+        if (cause instanceof HttpResponseException || failures.incrementAndGet() == 2) {
+            winner.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Waits for the result of a request.
+     *
+     * @param future result of the request
+     * @return response of the request
+     * @throws IOException thrown when the request failed or the wait was interrupted
+     */
+    private static HttpResponse await(final CompletableFuture<HttpResponse> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            future.thenAccept(RequestHedger::disconnectQuietly);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a response");
+        }
+    }
+
+    /**
+     * Runs an attempt of a request on the executor.
+     *
+     * @param request request to execute
+     * @param selection load balancer address selection of the attempt
+     * @return result of the attempt
+     */
+    private CompletableFuture<HttpResponse> submit(final HttpRequest request,
+                                                   final ShufflingDnsResolver.Selection selection) {
+        return CompletableFuture.supplyAsync(() -> {
+            ShufflingDnsResolver.select(selection);
+
+            try {
+                return executeAndRecord(request);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } finally {
+                ShufflingDnsResolver.clearSelection();
+            }
+        }, executor);
+    }
+
+    /**
+     * Executes an attempt of a request on the current thread and records
+     * its latency.
+     *
+     * @param request request to execute
+     * @return response of the attempt
+     * @throws IOException thrown when the attempt failed
+     */
+    private HttpResponse executeAndRecord(final HttpRequest request) throws IOException {
+        final long start = System.nanoTime();
+        final HttpResponse response = EndpointGuard.execute(request);
+        recordLatency(start);
+        return response;
+    }
+
+    /**
+     * Records the latency of a request that received a response.
+     *
+     * @param startNanos value of {@link System#nanoTime()} when the request was sent
+     */
+    private synchronized void recordLatency(final long startNanos) {
+        samples[nextSample] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        nextSample = (nextSample + 1) % WINDOW_SIZE;
+
+        if (sampleCount < WINDOW_SIZE) {
+            sampleCount++;
+        }
+
+        if (++sinceRecalculated < RECALCULATE_INTERVAL || sampleCount < MIN_SAMPLES) {
+            return;
+        }
+
+        sinceRecalculated = 0;
+
+        final long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+
+        final int index = (int)Math.ceil(percentile / PERCENT * sampleCount) - 1;
+        hedgeDelayMillis = sorted[Math.max(0, index)];
+    }
+
+    /**
+     * Unwraps the exception thrown by an attempt.
+     *
+     * @param error exception thrown by the attempt
+     * @return exception to rethrow to the caller
+     */
+    private static IOException unwrap(final Throwable error) {
+        final Throwable cause = unwrapCompletion(error);
+
+        if (cause instanceof IOException) {
+            return (IOException)cause;
+        }
+
+        if (cause instanceof UncheckedIOException) {
+            throw (UncheckedIOException)cause;
+        }
+
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException)cause;
+        }
+
+        if (cause instanceof Error) {
+            throw (Error)cause;
+        }
+
+        return new MantaIOException(cause);
+    }
+
+    /**
+     * @param error exception that may be wrapped in a {@link CompletionException}
+     * @return the wrapped exception
+     */
+    private static Throwable unwrapCompletion(final Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+
+        return error;
+    }
+
+    /**
+     * Disconnects the response of an attempt that lost.
+     *
+     * @param response response to disconnect
+     */
+    private static void disconnectQuietly(final HttpResponse response) {
+        try {
+            response.disconnect();
+        } catch (IOException e) {
+            LOG.debug("Problem disconnecting response of hedged request", e);
+        }
+    }
+
+    /**
+     * @return milliseconds after which requests are hedged or -1 until enough
+     *         samples have been recorded
+     */
+    long getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+
+    /**
+     * @return number of duplicate requests sent
+     */
+    long getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    /**
+     * @return number of duplicate requests that responded first
+     */
+    long getHedgeWinCount() {
+        return hedgeWinCount.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
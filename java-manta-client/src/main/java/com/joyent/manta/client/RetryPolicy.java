@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.util.BackOff;
+
+/**
+ * <p>Policy that decides which failed requests are retried and how long to
+ * wait before each retry. A single instance is shared by all of the
+ * requests made by a {@link MantaClient}, so implementations must be
+ * thread-safe.</p>
+ *
+ * <p>Implementations are configured by class name using
+ * {@link com.joyent.manta.config.ConfigContext#getRetryPolicy()} and must
+ * have a public constructor accepting a
+ * {@link com.joyent.manta.config.ConfigContext}. The total number of
+ * retries for a request is still limited by
+ * {@link com.joyent.manta.config.ConfigContext#getRetries()}.</p>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public interface RetryPolicy {
+    /**
+     * Determines if requests with the specified HTTP method can be safely
+     * retried after they may have reached the server.
+     *
+     * @param method HTTP method in upper case
+     * @return true if the method is idempotent and may be retried
+     */
+    boolean isRetryableMethod(String method);
+
+    /**
+     * Determines if a response with the specified HTTP status code
+     * indicates a transient failure that is worth retrying.
+     *
+     * @param statusCode HTTP status code of the response
+     * @return true if the request may be retried
+     */
+    boolean isRetryableStatusCode(int statusCode);
+
+    /**
+     * Creates the backoff used to calculate the delays between the retries
+     * of a single request. The backoff returns {@link BackOff#STOP} when no
+     * more retries should be made.
+     *
+     * @return new backoff instance for a single request
+     */
+    BackOff newBackOff();
+
+    /**
+     * @return maximum delay in milliseconds before a retry, which also caps
+     *         the delay requested by the server with a Retry-After header
+     */
+    long getMaxDelayMillis();
+
+    /**
+     * Asks the policy for permission to make a retry, after its delay has
+     * been calculated and it fits within the request's deadline. Policies
+     * that limit the total number of retries spend their budget here, so
+     * retries that are never made aren't counted.
+     *
+     * @return true if the retry may be made
+     */
+    default boolean tryAcquireRetry() {
+        return true;
+    }
+
+    /**
+     * Notifies the policy that a request succeeded.
+     */
+    void onSuccess();
+}
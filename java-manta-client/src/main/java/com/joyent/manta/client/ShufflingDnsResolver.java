@@ -16,14 +16,73 @@ import java.util.concurrent.ThreadLocalRandom;
  * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
  */
 public class ShufflingDnsResolver implements DnsResolver {
+    /**
+     * Address selection of the request being made by the current thread.
+     */
+    private static final ThreadLocal<Selection> SELECTION = new ThreadLocal<>();
+
     @Override
     public InetAddress[] resolve(final String host) throws UnknownHostException {
         final InetAddress[] addresses = InetAddress.getAllByName(host);
         shuffle(addresses);
+        applySelection(addresses);
+
+        return addresses;
+    }
+
+    /**
+     * Applies the address selection of the current thread to resolved
+     * addresses and records the address that will be connected to first.
+     *
+     * @param addresses resolved addresses in order of preference
+     */
+    static void applySelection(final InetAddress[] addresses) {
+        final Selection selection = SELECTION.get();
+
+        if (selection != null) {
+            avoid(addresses, selection.avoided);
+            selection.chosen = addresses[0].getHostAddress();
+        }
 
         MDC.put("mantaLoadBalancerAddress", addresses[0].getHostAddress());
+    }
 
-        return addresses;
+    /**
+     * Associates an address selection with the requests made by the current
+     * thread until {@link #clearSelection()} is called.
+     *
+     * @param selection selection to associate
+     */
+    static void select(final Selection selection) {
+        SELECTION.set(selection);
+    }
+
+    /**
+     * Removes the address selection of the current thread.
+     */
+    static void clearSelection() {
+        SELECTION.remove();
+    }
+
+    /**
+     * Moves the first address that isn't the avoided address to the front.
+     *
+     * @param addresses shuffled addresses
+     * @param avoided address to avoid or null
+     */
+    private static void avoid(final InetAddress[] addresses, final String avoided) {
+        if (avoided == null || !addresses[0].getHostAddress().equals(avoided)) {
+            return;
+        }
+
+        for (int i = 1; i < addresses.length; i++) {
+            if (!addresses[i].getHostAddress().equals(avoided)) {
+                InetAddress a = addresses[0];
+                addresses[0] = addresses[i];
+                addresses[i] = a;
+                return;
+            }
+        }
     }
 
     /**
@@ -47,4 +106,37 @@ public class ShufflingDnsResolver implements DnsResolver {
             addresses[i] = a;
         }
     }
+
+    /**
+     * Load balancer address choice for the connections opened by a request.
+     * Only requests that open a new connection resolve the host name, so a
+     * request reusing a pooled connection leaves it untouched.
+     */
+    static final class Selection {
+        /**
+         * Address to avoid or null.
+         */
+        private final String avoided;
+
+        /**
+         * Address chosen when a connection was last opened or null.
+         */
+        private volatile String chosen;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param avoided address to avoid or null
+         */
+        Selection(final String avoided) {
+            this.avoided = avoided;
+        }
+
+        /**
+         * @return address chosen when a connection was last opened or null
+         */
+        String getChosen() {
+            return chosen;
+        }
+    }
 }
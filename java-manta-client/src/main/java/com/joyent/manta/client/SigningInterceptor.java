@@ -30,24 +30,11 @@ public class SigningInterceptor implements HttpExecuteInterceptor {
     private static final Logger LOG = LoggerFactory.getLogger(SigningInterceptor.class);
 
     /**
-     * The time in which the last request was signed.
+     * The last signature or null if no request was signed yet. The signature
+     * is replaced as a whole, so that threads sharing this interceptor
+     * never combine the date of one signature with the value of another.
      */
-    private long lastSigned = Long.MIN_VALUE;
-
-    /**
-     * The date of the HTTP header that was last signed.
-     */
-    private String lastDate;
-
-    /**
-     * The last HTTP signature value.
-     */
-    private String lastSignature;
-
-    /**
-     * Reference to configuration object.
-     */
-    private final ConfigContext config;
+    private volatile CachedSignature lastSignature;
 
     /**
      * Reference to HTTP signing utility.
@@ -71,7 +58,6 @@ public class SigningInterceptor implements HttpExecuteInterceptor {
      * @param httpSigner HTTP signature generation object
      */
     public SigningInterceptor(final ConfigContext config, final RequestHttpSigner httpSigner) {
-        this.config = config;
         this.httpSigner = httpSigner;
         this.authEnabled = config.noAuth() == null || !config.noAuth();
 
@@ -86,18 +72,9 @@ public class SigningInterceptor implements HttpExecuteInterceptor {
 
     @Override
     public void intercept(final HttpRequest request) throws IOException {
-        // Set timeouts
-        final int httpTimeout;
-
-        if (config.getTimeout() == null) {
-            httpTimeout = DefaultsConfigContext.DEFAULT_HTTP_TIMEOUT;
-        } else {
-            httpTimeout = config.getTimeout();
-        }
-
-        request.setReadTimeout(httpTimeout);
-        request.setConnectTimeout(httpTimeout);
-
+        /* Timeouts are set when the request is created by
+         * HttpRequestFactoryProvider, so that they can be overridden
+         * for each operation. */
         final String requestId = UUID.randomUUID().toString();
         // Add the header as part of the request so it is known round-trip
         request.getHeaders().set(REQUEST_ID, requestId);
@@ -108,15 +85,53 @@ public class SigningInterceptor implements HttpExecuteInterceptor {
             return;
         }
 
+        final CachedSignature cached = lastSignature;
+        final long now = System.currentTimeMillis();
+
         // Sign request
-        if (cacheTTL <= 0 || lastSigned - System.currentTimeMillis() > cacheTTL) {
+        if (cacheTTL <= 0 || cached == null || now - cached.signed > cacheTTL) {
             httpSigner.signRequest(request);
-            lastSigned = System.currentTimeMillis();
-            lastDate = request.getHeaders().getDate();
-            lastSignature = request.getHeaders().getAuthorization();
+
+            if (cacheTTL > 0) {
+                lastSignature = new CachedSignature(now, request.getHeaders().getDate(),
+                        request.getHeaders().getAuthorization());
+            }
         } else {
-            request.getHeaders().setAuthorization(lastSignature);
-            request.getHeaders().setDate(lastDate);
+            request.getHeaders().setAuthorization(cached.authorization);
+            request.getHeaders().setDate(cached.date);
+        }
+    }
+
+    /**
+     * Immutable signature reused for requests signed within the cache TTL.
+     */
+    private static final class CachedSignature {
+        /**
+         * The time in which the request was signed.
+         */
+        private final long signed;
+
+        /**
+         * The date of the HTTP header that was signed.
+         */
+        private final String date;
+
+        /**
+         * The HTTP signature value.
+         */
+        private final String authorization;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param signed the time in which the request was signed
+         * @param date the date of the HTTP header that was signed
+         * @param authorization the HTTP signature value
+         */
+        private CachedSignature(final long signed, final String date, final String authorization) {
+            this.signed = signed;
+            this.date = date;
+            this.authorization = authorization;
         }
     }
 }
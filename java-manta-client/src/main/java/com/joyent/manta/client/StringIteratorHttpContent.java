@@ -7,6 +7,12 @@ import com.google.api.client.http.HttpContent;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Objects;
 import java.util.stream.Stream;
@@ -14,16 +20,29 @@ import java.util.stream.Stream;
 /**
  * Implementation of {@link HttpContent} that allows for the real-time streaming
  * of data from an iterator or a Java 8 stream to an {@link OutputStream} that
- * is connected to HTTP content.
+ * is connected to HTTP content. Lines are encoded as UTF-8 directly into a
+ * buffer borrowed from the {@link MantaBufferPool}, so that we don't allocate
+ * intermediate strings and byte arrays for each line.
  *
  * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
  */
 public class StringIteratorHttpContent implements HttpContent {
+    /**
+     * We use Unix new lines intentionally for the Manta service.
+     */
+    private static final char UNIX_NEW_LINE = '\n';
+
     /**
      * Iterator containing lines to stream into content.
      */
     private final Iterator<String> iterator;
 
+    /**
+     * Collection containing lines to stream into content. Unlike iterators and
+     * streams, a collection can be written more than once, so it supports retries.
+     */
+    private final Collection<String> collection;
+
     /**
      * Java 8 stream containing lines to stream into content.
      */
@@ -50,6 +69,7 @@ public class StringIteratorHttpContent implements HttpContent {
                                      final String contentType) {
         this.iterator = iterator;
         this.stream = null;
+        this.collection = null;
         this.contentType = contentType;
     }
 
@@ -65,6 +85,24 @@ public class StringIteratorHttpContent implements HttpContent {
                                      final String contentType) {
         this.stream = stream;
         this.iterator = null;
+        this.collection = null;
+        this.contentType = contentType;
+    }
+
+
+    /**
+     * Create a new instance based on a {@link Collection} of strings. Content
+     * created from a collection can be written multiple times, so requests
+     * using it can be retried.
+     *
+     * @param collection collection of strings for each line
+     * @param contentType content (mime) type associated with content
+     */
+    public StringIteratorHttpContent(final Collection<String> collection,
+                                     final String contentType) {
+        this.collection = collection;
+        this.iterator = null;
+        this.stream = null;
         this.contentType = contentType;
     }
 
@@ -83,7 +121,7 @@ public class StringIteratorHttpContent implements HttpContent {
 
     @Override
     public boolean retrySupported() {
-        return false;
+        return collection != null;
     }
 
 
@@ -94,6 +132,8 @@ public class StringIteratorHttpContent implements HttpContent {
                 writeIterator(out);
             } else if (stream != null) {
                 writeStream(out);
+            } else if (collection != null) {
+                writeLines(collection.iterator(), out);
             }
         } finally {
             out.close();
@@ -114,22 +154,32 @@ public class StringIteratorHttpContent implements HttpContent {
      */
     protected void writeIterator(final OutputStream out) throws IOException {
         Objects.requireNonNull(iterator, "Iterator must be present");
+        writeLines(iterator, out);
+    }
 
-        // Start length at zero because it is set to -1 by default
-        length = 0L;
 
-        while (iterator.hasNext()) {
-            String next = iterator.next();
-            if (next == null) {
-                continue;
+    /**
+     * Write all of the strings provided by an iterator as new line delimited
+     * UTF-8 text to the passed {@link OutputStream}.
+     *
+     * @param lines iterator of lines to write
+     * @param out output to write to
+     * @throws IOException thrown when we can't write
+     */
+    private void writeLines(final Iterator<String> lines,
+                            final OutputStream out) throws IOException {
+        try (LineEncoder encoder = new LineEncoder(out)) {
+            while (lines.hasNext()) {
+                String next = lines.next();
+                if (next == null) {
+                    continue;
+                }
+
+                encoder.writeLine(next);
             }
 
-            // We use Unix new lines intentionally for the Manta service
-            final String unixNewLine = "\n";
-            final String formatted = String.format("%s%s", next, unixNewLine);
-            byte[] bytes = formatted.getBytes("UTF-8");
-            length += bytes.length;
-            out.write(bytes);
+            encoder.flush();
+            length = encoder.count;
         }
     }
 
@@ -144,26 +194,125 @@ public class StringIteratorHttpContent implements HttpContent {
     protected void writeStream(final OutputStream out) throws IOException {
         Objects.requireNonNull(stream, "Stream must be present");
 
-        // Start length at zero because it is set to -1 by default
-        length = 0L;
-
-        /* This horribly contorted exception handling is because Java 8
-         * streams do not support checked exception handling. */
-        try {
-            stream.forEach(item -> {
-                if (item != null) {
-                    try {
-                        String formatted = String.format("%s\n", item);
-                        byte[] bytes = formatted.getBytes("UTF-8");
-                        length += bytes.length;
-                        out.write(bytes);
-                    } catch (IOException e) {
-                        throw new StreamIOException(e);
+        try (LineEncoder encoder = new LineEncoder(out)) {
+            /* This horribly contorted exception handling is because Java 8
+             * streams do not support checked exception handling. */
+            try {
+                stream.forEach(item -> {
+                    if (item != null) {
+                        try {
+                            encoder.writeLine(item);
+                        } catch (IOException e) {
+                            throw new StreamIOException(e);
+                        }
                     }
-                }
-            });
-        } catch (StreamIOException e) {
-            throw e.getIOCause();
+                });
+            } catch (StreamIOException e) {
+                throw e.getIOCause();
+            }
+
+            encoder.flush();
+            length = encoder.count;
+        }
+    }
+
+
+    /**
+     * Encoder writing lines as UTF-8 to an {@link OutputStream} through a
+     * buffer borrowed from the {@link MantaBufferPool}. Unlike an
+     * {@link java.io.OutputStreamWriter}, it doesn't allocate its own
+     * buffer, and it counts the bytes written.
+     */
+    private static final class LineEncoder implements AutoCloseable {
+        /**
+         * Stream to write to.
+         */
+        private final OutputStream out;
+
+        /**
+         * Encoder replacing invalid characters like {@link java.io.OutputStreamWriter} does.
+         */
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        /**
+         * Pooled array backing the buffer.
+         */
+        private final byte[] array = MantaBufferPool.getDefault().acquire();
+
+        /**
+         * Buffer receiving the encoded bytes.
+         */
+        private final ByteBuffer buffer = ByteBuffer.wrap(array);
+
+        /**
+         * Total bytes written to the stream.
+         */
+        private long count = 0L;
+
+        /**
+         * Creates a new instance writing to the passed stream.
+         *
+         * @param out stream to write to
+         */
+        LineEncoder(final OutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Encodes a line followed by a Unix new line.
+         *
+         * @param line line to encode
+         * @throws IOException thrown when we can't write
+         */
+        void writeLine(final String line) throws IOException {
+            final CharBuffer chars = CharBuffer.wrap(line);
+            encoder.reset();
+
+            while (encoder.encode(chars, buffer, true).isOverflow()) {
+                drain();
+            }
+
+            while (encoder.flush(buffer).isOverflow()) {
+                drain();
+            }
+
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+
+            buffer.put((byte)UNIX_NEW_LINE);
+        }
+
+        /**
+         * Writes the buffered bytes and flushes the stream.
+         *
+         * @throws IOException thrown when we can't write
+         */
+        void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+
+        /**
+         * Writes the buffered bytes to the stream.
+         *
+         * @throws IOException thrown when we can't write
+         */
+        private void drain() throws IOException {
+            out.write(array, 0, buffer.position());
+            count += buffer.position();
+            buffer.clear();
+        }
+
+        /**
+         * Returns the buffer to the pool. Buffered bytes that weren't
+         * flushed are discarded.
+         */
+        @Override
+        public void close() {
+            MantaBufferPool.getDefault().release(array);
         }
     }
 
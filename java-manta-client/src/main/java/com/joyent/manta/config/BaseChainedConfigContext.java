@@ -88,6 +88,116 @@ public abstract class BaseChainedConfigContext implements ConfigContext {
      */
     private Integer signatureCacheTTL;
 
+    /**
+     * Name of the codec used to compress uploaded object content or "none".
+     */
+    private String contentCompression;
+
+    /**
+     * Fully qualified class name of the {@link com.joyent.manta.client.RetryPolicy} implementation.
+     */
+    private String retryPolicy;
+
+    /**
+     * Base delay in milliseconds before the first retry of a failed request.
+     */
+    private Integer retryBaseDelay;
+
+    /**
+     * Maximum delay in milliseconds before retrying a failed request.
+     */
+    private Integer retryMaxDelay;
+
+    /**
+     * Maximum number of retry tokens shared by all requests.
+     */
+    private Integer retryBudget;
+
+    /**
+     * True when requests are guarded by an adaptive concurrency limiter and circuit breaker.
+     */
+    private Boolean adaptiveConcurrency;
+
+    /**
+     * Percentile of recent response latency after which a GET or HEAD request is hedged, or 0 when hedging is disabled.
+     */
+    private Integer hedgePercentile;
+
+    /**
+     * Milliseconds that resolved load balancer addresses are cached, or 0 to resolve them on every connection.
+     */
+    private Integer dnsCacheTTL;
+
+    /**
+     * Milliseconds to wait for a connection to be opened, or null to use the general timeout.
+     */
+    private Integer connectTimeout;
+
+    /**
+     * Milliseconds to wait for data from an open connection, or null to use the general timeout.
+     */
+    private Integer readTimeout;
+
+    /**
+     * Milliseconds to wait for a connection from the pool, or 0 to wait indefinitely.
+     */
+    private Integer connectionRequestTimeout;
+
+    /**
+     * Milliseconds that a request may take across all of its retries until a response is received, or 0 for no limit.
+     */
+    private Integer requestDeadline;
+
+    /**
+     * Maximum number of TLS sessions cached for resumption, or null to use the JVM default.
+     */
+    private Integer tlsSessionCacheSize;
+
+    /**
+     * Seconds that cached TLS sessions can be resumed, or null to use the JVM default.
+     */
+    private Integer tlsSessionTimeout;
+
+    /**
+     * Directory used to cache downloaded objects, or null to disable caching.
+     */
+    private String objectCacheDirectory;
+
+    /**
+     * Maximum number of bytes stored in the object cache.
+     */
+    private Long objectCacheMaxSize;
+
+    /**
+     * Milliseconds that an unused object stays in the object cache.
+     */
+    private Integer objectCacheTTL;
+
+    /**
+     * Milliseconds after being revalidated that a cached object is read without a request.
+     */
+    private Integer objectCacheMaxAge;
+
+    /**
+     * Flag indicating that the internal threads of the client are virtual threads.
+     */
+    private Boolean virtualThreads;
+
+    /**
+     * Flag indicating that where streams are opened is recorded to report leaked streams.
+     */
+    private Boolean trackLeaks;
+
+    /**
+     * Milliseconds that the results of HEAD requests are cached, or 0 to disable caching.
+     */
+    private Integer metadataCacheTTL;
+
+    /**
+     * Maximum number of HEAD request results that are cached.
+     */
+    private Integer metadataCacheSize;
+
     /** Singleton instance of default configuration for easy reference. */
     public static final ConfigContext DEFAULT_CONFIG =
             new DefaultsConfigContext();
@@ -189,6 +299,116 @@ public abstract class BaseChainedConfigContext implements ConfigContext {
         return signatureCacheTTL;
     }
 
+    @Override
+    public String getContentCompression() {
+        return contentCompression;
+    }
+
+    @Override
+    public String getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    @Override
+    public Integer getRetryBaseDelay() {
+        return retryBaseDelay;
+    }
+
+    @Override
+    public Integer getRetryMaxDelay() {
+        return retryMaxDelay;
+    }
+
+    @Override
+    public Integer getRetryBudget() {
+        return retryBudget;
+    }
+
+    @Override
+    public Boolean useAdaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    @Override
+    public Integer getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    @Override
+    public Integer getDnsCacheTTL() {
+        return dnsCacheTTL;
+    }
+
+    @Override
+    public Integer getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    @Override
+    public Integer getReadTimeout() {
+        return readTimeout;
+    }
+
+    @Override
+    public Integer getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    @Override
+    public Integer getRequestDeadline() {
+        return requestDeadline;
+    }
+
+    @Override
+    public Integer getTlsSessionCacheSize() {
+        return tlsSessionCacheSize;
+    }
+
+    @Override
+    public Integer getTlsSessionTimeout() {
+        return tlsSessionTimeout;
+    }
+
+    @Override
+    public String getObjectCacheDirectory() {
+        return objectCacheDirectory;
+    }
+
+    @Override
+    public Long getObjectCacheMaxSize() {
+        return objectCacheMaxSize;
+    }
+
+    @Override
+    public Integer getObjectCacheTTL() {
+        return objectCacheTTL;
+    }
+
+    @Override
+    public Integer getObjectCacheMaxAge() {
+        return objectCacheMaxAge;
+    }
+
+    @Override
+    public Boolean useVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @Override
+    public Boolean trackLeaks() {
+        return trackLeaks;
+    }
+
+    @Override
+    public Integer getMetadataCacheTTL() {
+        return metadataCacheTTL;
+    }
+
+    @Override
+    public Integer getMetadataCacheSize() {
+        return metadataCacheSize;
+    }
+
     /**
      * Overwrites the configuration values with the values of the passed context
      * if those values are not null and aren't empty.
@@ -264,6 +484,104 @@ public abstract class BaseChainedConfigContext implements ConfigContext {
         if (context.getSignatureCacheTTL() != null) {
             this.signatureCacheTTL = context.getSignatureCacheTTL();
         }
+
+        if (isPresent(context.getContentCompression())) {
+            this.contentCompression = context.getContentCompression();
+        }
+
+        if (isPresent(context.getRetryPolicy())) {
+            this.retryPolicy = context.getRetryPolicy();
+        }
+
+        if (context.getRetryBaseDelay() != null) {
+            this.retryBaseDelay = context.getRetryBaseDelay();
+        }
+
+        if (context.getRetryMaxDelay() != null) {
+            this.retryMaxDelay = context.getRetryMaxDelay();
+        }
+
+        if (context.getRetryBudget() != null) {
+            this.retryBudget = context.getRetryBudget();
+        }
+
+        if (context.useAdaptiveConcurrency() != null) {
+            this.adaptiveConcurrency = context.useAdaptiveConcurrency();
+        }
+
+        if (context.getHedgePercentile() != null) {
+            this.hedgePercentile = context.getHedgePercentile();
+        }
+
+        if (context.getDnsCacheTTL() != null) {
+            this.dnsCacheTTL = context.getDnsCacheTTL();
+        }
+
+        if (context.getConnectTimeout() != null) {
+            this.connectTimeout = context.getConnectTimeout();
+        }
+
+        if (context.getReadTimeout() != null) {
+            this.readTimeout = context.getReadTimeout();
+        }
+
+        if (context.getConnectionRequestTimeout() != null) {
+            this.connectionRequestTimeout = context.getConnectionRequestTimeout();
+        }
+
+        if (context.getRequestDeadline() != null) {
+            this.requestDeadline = context.getRequestDeadline();
+        }
+
+        if (context.getTlsSessionCacheSize() != null) {
+            this.tlsSessionCacheSize = context.getTlsSessionCacheSize();
+        }
+
+        if (context.getTlsSessionTimeout() != null) {
+            this.tlsSessionTimeout = context.getTlsSessionTimeout();
+        }
+
+        overwriteResourceSettings(context);
+    }
+
+    /**
+     * Overwrites the cache, thread and leak tracking settings with the values
+     * of the passed context if those values are not null and aren't empty.
+     *
+     * @param context context to overwrite configuration with
+     */
+    private void overwriteResourceSettings(final ConfigContext context) {
+        if (isPresent(context.getObjectCacheDirectory())) {
+            this.objectCacheDirectory = context.getObjectCacheDirectory();
+        }
+
+        if (context.getObjectCacheMaxSize() != null) {
+            this.objectCacheMaxSize = context.getObjectCacheMaxSize();
+        }
+
+        if (context.getObjectCacheTTL() != null) {
+            this.objectCacheTTL = context.getObjectCacheTTL();
+        }
+
+        if (context.getObjectCacheMaxAge() != null) {
+            this.objectCacheMaxAge = context.getObjectCacheMaxAge();
+        }
+
+        if (context.useVirtualThreads() != null) {
+            this.virtualThreads = context.useVirtualThreads();
+        }
+
+        if (context.trackLeaks() != null) {
+            this.trackLeaks = context.trackLeaks();
+        }
+
+        if (context.getMetadataCacheTTL() != null) {
+            this.metadataCacheTTL = context.getMetadataCacheTTL();
+        }
+
+        if (context.getMetadataCacheSize() != null) {
+            this.metadataCacheSize = context.getMetadataCacheSize();
+        }
     }
 
     /**
@@ -464,6 +782,369 @@ public abstract class BaseChainedConfigContext implements ConfigContext {
         return this;
     }
 
+    /**
+     * Sets the codec used to transparently compress uploaded object content.
+     * Supported values are "gzip", "deflate" and "none".
+     *
+     * @param contentCompression codec name or "none" to disable compression
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setContentCompression(final String contentCompression) {
+        this.contentCompression = contentCompression;
+
+        return this;
+    }
+
+    /**
+     * Sets the fully qualified class name of the {@link com.joyent.manta.client.RetryPolicy}
+     * implementation used to decide when and how long to wait before retrying
+     * failed requests. The class must have a public constructor accepting a
+     * {@link ConfigContext}.
+     *
+     * @param retryPolicy retry policy class name
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setRetryPolicy(final String retryPolicy) {
+        this.retryPolicy = retryPolicy;
+
+        return this;
+    }
+
+    /**
+     * Sets the base delay in milliseconds before retrying a failed request.
+     * The delay grows exponentially with each retry.
+     *
+     * @param retryBaseDelay base delay in milliseconds
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setRetryBaseDelay(final Integer retryBaseDelay) {
+        if (retryBaseDelay != null && retryBaseDelay < 0) {
+            throw new IllegalArgumentException("Retry base delay must be zero or greater");
+        }
+
+        this.retryBaseDelay = retryBaseDelay;
+
+        return this;
+    }
+
+    /**
+     * Sets the maximum delay in milliseconds before retrying a failed request.
+     * This also caps delays requested by the server with Retry-After.
+     *
+     * @param retryMaxDelay maximum delay in milliseconds
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setRetryMaxDelay(final Integer retryMaxDelay) {
+        if (retryMaxDelay != null && retryMaxDelay < 0) {
+            throw new IllegalArgumentException("Retry max delay must be zero or greater");
+        }
+
+        this.retryMaxDelay = retryMaxDelay;
+
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of retry tokens shared by all requests. Each
+     * retry spends a token and each successful request earns back a tenth
+     * of one. Zero disables the retry budget.
+     *
+     * @param retryBudget maximum number of retry tokens
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setRetryBudget(final Integer retryBudget) {
+        if (retryBudget != null && retryBudget < 0) {
+            throw new IllegalArgumentException("Retry budget must be zero or greater");
+        }
+
+        this.retryBudget = retryBudget;
+
+        return this;
+    }
+
+    /**
+     * Enables a per endpoint adaptive concurrency limiter and circuit breaker
+     * that reject requests immediately when Manta is overloaded or failing.
+     *
+     * @param adaptiveConcurrency true to enable
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setAdaptiveConcurrency(final Boolean adaptiveConcurrency) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+
+        return this;
+    }
+
+    /**
+     * Sets the percentile of recent response latency after which a duplicate
+     * GET or HEAD request is sent to another load balancer. Set to 0 to
+     * disable hedging.
+     *
+     * @param hedgePercentile percentile between 1 and 99 or 0 to disable
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setHedgePercentile(final Integer hedgePercentile) {
+        if (hedgePercentile != null
+                && (hedgePercentile < 0 || hedgePercentile > DefaultsConfigContext.MAX_HEDGE_PERCENTILE)) {
+            throw new IllegalArgumentException("Hedge percentile must be between 0 and 99");
+        }
+
+        this.hedgePercentile = hedgePercentile;
+
+        return this;
+    }
+
+    /**
+     * Sets the time in milliseconds that resolved load balancer addresses
+     * are cached. When greater than 0, addresses are also selected based on
+     * their health. Set to 0 to resolve addresses on every connection.
+     *
+     * @param dnsCacheTTL time in milliseconds or 0 to disable
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setDnsCacheTTL(final Integer dnsCacheTTL) {
+        if (dnsCacheTTL != null && dnsCacheTTL < 0) {
+            throw new IllegalArgumentException("DNS cache TTL must be zero or greater");
+        }
+
+        this.dnsCacheTTL = dnsCacheTTL;
+
+        return this;
+    }
+
+    /**
+     * Sets the time in milliseconds to wait for a connection to be opened.
+     * When null, the general timeout is used.
+     *
+     * @param connectTimeout timeout in milliseconds or null
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setConnectTimeout(final Integer connectTimeout) {
+        if (connectTimeout != null && connectTimeout < 0) {
+            throw new IllegalArgumentException("Connection timeout must be zero or greater");
+        }
+
+        this.connectTimeout = connectTimeout;
+
+        return this;
+    }
+
+    /**
+     * Sets the time in milliseconds to wait for data from an open connection.
+     * When null, the general timeout is used.
+     *
+     * @param readTimeout timeout in milliseconds or null
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setReadTimeout(final Integer readTimeout) {
+        if (readTimeout != null && readTimeout < 0) {
+            throw new IllegalArgumentException("Socket read timeout must be zero or greater");
+        }
+
+        this.readTimeout = readTimeout;
+
+        return this;
+    }
+
+    /**
+     * Sets the time in milliseconds to wait for a connection from the
+     * connection pool. Set to 0 to wait indefinitely.
+     *
+     * @param connectionRequestTimeout timeout in milliseconds or 0 to wait indefinitely
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setConnectionRequestTimeout(final Integer connectionRequestTimeout) {
+        if (connectionRequestTimeout != null && connectionRequestTimeout < 0) {
+            throw new IllegalArgumentException("Connection pool lease timeout must be zero or greater");
+        }
+
+        this.connectionRequestTimeout = connectionRequestTimeout;
+
+        return this;
+    }
+
+    /**
+     * Sets the time in milliseconds that a request may take across all of its
+     * retries until a response is received. Set to 0 for no limit.
+     *
+     * @param requestDeadline deadline in milliseconds or 0 for no limit
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setRequestDeadline(final Integer requestDeadline) {
+        if (requestDeadline != null && requestDeadline < 0) {
+            throw new IllegalArgumentException("Request deadline must be zero or greater");
+        }
+
+        this.requestDeadline = requestDeadline;
+
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of TLS sessions cached for resumption by the
+     * default SSL context. Set to 0 for no limit or null to use the JVM default.
+     *
+     * @param tlsSessionCacheSize number of sessions, 0 for no limit or null
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setTlsSessionCacheSize(final Integer tlsSessionCacheSize) {
+        if (tlsSessionCacheSize != null && tlsSessionCacheSize < 0) {
+            throw new IllegalArgumentException("TLS session cache size must be zero or greater");
+        }
+
+        this.tlsSessionCacheSize = tlsSessionCacheSize;
+
+        return this;
+    }
+
+    /**
+     * Sets the number of seconds that TLS sessions cached by the default SSL
+     * context can be resumed. Set to 0 for no limit or null to use the JVM default.
+     *
+     * @param tlsSessionTimeout timeout in seconds, 0 for no limit or null
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setTlsSessionTimeout(final Integer tlsSessionTimeout) {
+        if (tlsSessionTimeout != null && tlsSessionTimeout < 0) {
+            throw new IllegalArgumentException("TLS session timeout must be zero or greater");
+        }
+
+        this.tlsSessionTimeout = tlsSessionTimeout;
+
+        return this;
+    }
+
+    /**
+     * Sets the directory used to cache the content of downloaded objects.
+     * Cached objects are revalidated with conditional requests. Set to null
+     * to disable caching.
+     *
+     * @param objectCacheDirectory path to the cache directory or null to disable caching
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setObjectCacheDirectory(final String objectCacheDirectory) {
+        this.objectCacheDirectory = objectCacheDirectory;
+
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes stored in the object cache. The least
+     * recently used objects are evicted when the cache is full.
+     *
+     * @param objectCacheMaxSize maximum size in bytes
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setObjectCacheMaxSize(final Long objectCacheMaxSize) {
+        if (objectCacheMaxSize != null && objectCacheMaxSize < 0) {
+            throw new IllegalArgumentException("Object cache maximum size must be zero or greater");
+        }
+
+        this.objectCacheMaxSize = objectCacheMaxSize;
+
+        return this;
+    }
+
+    /**
+     * Sets the time in milliseconds that an object that hasn't been read or
+     * revalidated stays in the object cache.
+     *
+     * @param objectCacheTTL time in milliseconds
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setObjectCacheTTL(final Integer objectCacheTTL) {
+        if (objectCacheTTL != null && objectCacheTTL < 0) {
+            throw new IllegalArgumentException("Object cache TTL must be zero or greater");
+        }
+
+        this.objectCacheTTL = objectCacheTTL;
+
+        return this;
+    }
+
+    /**
+     * Sets the time in milliseconds after an object in the object cache was
+     * downloaded or revalidated during which it is read from the cache
+     * without making a request. Changes made by other clients during this
+     * time aren't seen.
+     *
+     * @param objectCacheMaxAge time in milliseconds or 0 to revalidate on every read
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setObjectCacheMaxAge(final Integer objectCacheMaxAge) {
+        if (objectCacheMaxAge != null && objectCacheMaxAge < 0) {
+            throw new IllegalArgumentException("Object cache max age must be zero or greater");
+        }
+
+        this.objectCacheMaxAge = objectCacheMaxAge;
+
+        return this;
+    }
+
+    /**
+     * Runs the threads started by the client, such as the threads of output
+     * streams, bulk operations and request hedging, as virtual threads when
+     * the JVM supports them. Platform threads are used on older JVMs. This
+     * setting is experimental.
+     *
+     * @param virtualThreads true to enable
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setVirtualThreads(final Boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+
+        return this;
+    }
+
+    /**
+     * Records where each stream, iterator and response handed out by the
+     * client is opened, so that the warnings logged for the ones garbage
+     * collected without being closed include the stack trace that opened them.
+     *
+     * @param trackLeaks true to enable
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setTrackLeaks(final Boolean trackLeaks) {
+        this.trackLeaks = trackLeaks;
+
+        return this;
+    }
+
+    /**
+     * Sets the time in milliseconds that the results of HEAD requests,
+     * including objects that weren't found, are cached. Set to 0 to disable
+     * caching.
+     *
+     * @param metadataCacheTTL time in milliseconds or 0 to disable
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setMetadataCacheTTL(final Integer metadataCacheTTL) {
+        if (metadataCacheTTL != null && metadataCacheTTL < 0) {
+            throw new IllegalArgumentException("Metadata cache TTL must be zero or greater");
+        }
+
+        this.metadataCacheTTL = metadataCacheTTL;
+
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of HEAD request results that are cached. The
+     * least recently used results are evicted when the cache is full.
+     *
+     * @param metadataCacheSize maximum number of results
+     * @return the current instance of {@link BaseChainedConfigContext}
+     */
+    public BaseChainedConfigContext setMetadataCacheSize(final Integer metadataCacheSize) {
+        if (metadataCacheSize != null && metadataCacheSize < 1) {
+            throw new IllegalArgumentException("Metadata cache size must be greater than zero");
+        }
+
+        this.metadataCacheSize = metadataCacheSize;
+
+        return this;
+    }
+
     @Override
     public boolean equals(final Object other) {
         if (this == other) {
@@ -489,7 +1170,29 @@ public abstract class BaseChainedConfigContext implements ConfigContext {
                 && Objects.equals(httpsCiphers, that.httpsCiphers)
                 && Objects.equals(noAuth, that.noAuth)
                 && Objects.equals(disableNativeSignatures, that.disableNativeSignatures)
-                && Objects.equals(signatureCacheTTL, that.signatureCacheTTL);
+                && Objects.equals(signatureCacheTTL, that.signatureCacheTTL)
+                && Objects.equals(contentCompression, that.contentCompression)
+                && Objects.equals(retryPolicy, that.retryPolicy)
+                && Objects.equals(retryBaseDelay, that.retryBaseDelay)
+                && Objects.equals(retryMaxDelay, that.retryMaxDelay)
+                && Objects.equals(retryBudget, that.retryBudget)
+                && Objects.equals(adaptiveConcurrency, that.adaptiveConcurrency)
+                && Objects.equals(hedgePercentile, that.hedgePercentile)
+                && Objects.equals(dnsCacheTTL, that.dnsCacheTTL)
+                && Objects.equals(connectTimeout, that.connectTimeout)
+                && Objects.equals(readTimeout, that.readTimeout)
+                && Objects.equals(connectionRequestTimeout, that.connectionRequestTimeout)
+                && Objects.equals(requestDeadline, that.requestDeadline)
+                && Objects.equals(tlsSessionCacheSize, that.tlsSessionCacheSize)
+                && Objects.equals(tlsSessionTimeout, that.tlsSessionTimeout)
+                && Objects.equals(objectCacheDirectory, that.objectCacheDirectory)
+                && Objects.equals(objectCacheMaxSize, that.objectCacheMaxSize)
+                && Objects.equals(objectCacheTTL, that.objectCacheTTL)
+                && Objects.equals(metadataCacheTTL, that.metadataCacheTTL)
+                && Objects.equals(metadataCacheSize, that.metadataCacheSize)
+                && Objects.equals(objectCacheMaxAge, that.objectCacheMaxAge)
+                && Objects.equals(virtualThreads, that.virtualThreads)
+                && Objects.equals(trackLeaks, that.trackLeaks);
     }
 
     @Override
@@ -497,7 +1200,14 @@ public abstract class BaseChainedConfigContext implements ConfigContext {
         return Objects.hash(mantaURL, account, mantaKeyId, mantaKeyPath,
                 timeout, retries, maxConnections, privateKeyContent, password,
                 httpTransport, httpsProtocols, httpsCiphers, noAuth,
-                disableNativeSignatures, signatureCacheTTL);
+                disableNativeSignatures, signatureCacheTTL, contentCompression,
+                retryPolicy, retryBaseDelay, retryMaxDelay, retryBudget,
+                adaptiveConcurrency, hedgePercentile, dnsCacheTTL,
+                connectTimeout, readTimeout, connectionRequestTimeout,
+                requestDeadline, tlsSessionCacheSize, tlsSessionTimeout,
+                objectCacheDirectory, objectCacheMaxSize, objectCacheTTL,
+                metadataCacheTTL, metadataCacheSize, objectCacheMaxAge,
+                virtualThreads, trackLeaks);
     }
 
     @Override
@@ -92,6 +92,120 @@ public interface ConfigContext {
      */
     Integer getSignatureCacheTTL();
 
+    /**
+     * @return name of the codec used to compress uploaded object content or "none"
+     */
+    String getContentCompression();
+
+    /**
+     * @return fully qualified class name of the {@link com.joyent.manta.client.RetryPolicy} implementation
+     */
+    String getRetryPolicy();
+
+    /**
+     * @return base delay in milliseconds before the first retry of a failed request
+     */
+    Integer getRetryBaseDelay();
+
+    /**
+     * @return maximum delay in milliseconds before retrying a failed request
+     */
+    Integer getRetryMaxDelay();
+
+    /**
+     * @return maximum number of retry tokens shared by all requests, or 0 for no retry budget
+     */
+    Integer getRetryBudget();
+
+    /**
+     * @return true when requests are guarded by an adaptive concurrency limiter and circuit breaker
+     */
+    Boolean useAdaptiveConcurrency();
+
+    /**
+     * @return percentile of recent response latency after which a GET or HEAD
+     *         request is hedged, or 0 when hedging is disabled
+     */
+    Integer getHedgePercentile();
+
+    /**
+     * @return milliseconds that resolved load balancer addresses are cached,
+     *         or 0 to resolve them on every connection
+     */
+    Integer getDnsCacheTTL();
+
+    /**
+     * @return milliseconds to wait for a connection to be opened, or null to use the general timeout
+     */
+    Integer getConnectTimeout();
+
+    /**
+     * @return milliseconds to wait for data from an open connection, or null to use the general timeout
+     */
+    Integer getReadTimeout();
+
+    /**
+     * @return milliseconds to wait for a connection from the pool, or 0 to wait indefinitely
+     */
+    Integer getConnectionRequestTimeout();
+
+    /**
+     * @return milliseconds that a request may take across all of its retries
+     *         until a response is received, or 0 for no limit
+     */
+    Integer getRequestDeadline();
+
+    /**
+     * @return maximum number of TLS sessions cached for resumption, or null to use the JVM default
+     */
+    Integer getTlsSessionCacheSize();
+
+    /**
+     * @return seconds that cached TLS sessions can be resumed, or null to use the JVM default
+     */
+    Integer getTlsSessionTimeout();
+
+    /**
+     * @return directory used to cache downloaded objects, or null to disable caching
+     */
+    String getObjectCacheDirectory();
+
+    /**
+     * @return maximum number of bytes stored in the object cache
+     */
+    Long getObjectCacheMaxSize();
+
+    /**
+     * @return milliseconds that an unused object stays in the object cache
+     */
+    Integer getObjectCacheTTL();
+
+    /**
+     * @return milliseconds after being revalidated that a cached object is read without a request,
+     *         or 0 to revalidate on every read
+     */
+    Integer getObjectCacheMaxAge();
+
+    /**
+     * @return true when the internal threads of the client are virtual threads on JVMs supporting them
+     */
+    Boolean useVirtualThreads();
+
+    /**
+     * @return true when the client records where each stream is opened to report streams that are never closed
+     */
+    Boolean trackLeaks();
+
+    /**
+     * @return milliseconds that the results of HEAD requests are cached, or 0 to disable caching
+     */
+    Integer getMetadataCacheTTL();
+
+    /**
+     * @return maximum number of HEAD request results that are cached
+     */
+    Integer getMetadataCacheSize();
+
     /**
      * Extracts the home directory based on the Manta account name.
      *
@@ -130,6 +244,28 @@ public interface ConfigContext {
         sb.append(", noAuth=").append(context.noAuth());
         sb.append(", disableNativeSignatures=").append(context.disableNativeSignatures());
         sb.append(", signatureCacheTTL=").append(context.getSignatureCacheTTL());
+        sb.append(", contentCompression='").append(context.getContentCompression()).append('\'');
+        sb.append(", retryPolicy='").append(context.getRetryPolicy()).append('\'');
+        sb.append(", retryBaseDelay=").append(context.getRetryBaseDelay());
+        sb.append(", retryMaxDelay=").append(context.getRetryMaxDelay());
+        sb.append(", retryBudget=").append(context.getRetryBudget());
+        sb.append(", adaptiveConcurrency=").append(context.useAdaptiveConcurrency());
+        sb.append(", hedgePercentile=").append(context.getHedgePercentile());
+        sb.append(", dnsCacheTTL=").append(context.getDnsCacheTTL());
+        sb.append(", connectTimeout=").append(context.getConnectTimeout());
+        sb.append(", readTimeout=").append(context.getReadTimeout());
+        sb.append(", connectionRequestTimeout=").append(context.getConnectionRequestTimeout());
+        sb.append(", requestDeadline=").append(context.getRequestDeadline());
+        sb.append(", tlsSessionCacheSize=").append(context.getTlsSessionCacheSize());
+        sb.append(", tlsSessionTimeout=").append(context.getTlsSessionTimeout());
+        sb.append(", objectCacheDirectory='").append(context.getObjectCacheDirectory()).append('\'');
+        sb.append(", objectCacheMaxSize=").append(context.getObjectCacheMaxSize());
+        sb.append(", objectCacheTTL=").append(context.getObjectCacheTTL());
+        sb.append(", objectCacheMaxAge=").append(context.getObjectCacheMaxAge());
+        sb.append(", virtualThreads=").append(context.useVirtualThreads());
+        sb.append(", trackLeaks=").append(context.trackLeaks());
+        sb.append(", metadataCacheTTL=").append(context.getMetadataCacheTTL());
+        sb.append(", metadataCacheSize=").append(context.getMetadataCacheSize());
         sb.append('}');
         return sb.toString();
     }
@@ -61,6 +61,97 @@ public class DefaultsConfigContext implements ConfigContext {
      */
     public static final int DEFAULT_SIGNATURE_CACHE_TTL = 0;
 
+    /**
+     * Default codec used to compress uploaded object content (none).
+     */
+    public static final String DEFAULT_CONTENT_COMPRESSION = "none";
+
+    /**
+     * Default retry policy implementation (exponential backoff with full jitter).
+     */
+    public static final String DEFAULT_RETRY_POLICY = "com.joyent.manta.client.ExponentialBackoffRetryPolicy";
+
+    /**
+     * Default base delay in milliseconds before retrying a failed request.
+     */
+    public static final int DEFAULT_RETRY_BASE_DELAY = 100;
+
+    /**
+     * Default maximum delay in milliseconds before retrying a failed request.
+     */
+    public static final int DEFAULT_RETRY_MAX_DELAY = 10000;
+
+    /**
+     * Default maximum number of retry tokens, which disables the retry budget.
+     */
+    public static final int DEFAULT_RETRY_BUDGET = 0;
+
+    /**
+     * By default, requests aren't guarded by a concurrency limiter and circuit breaker.
+     */
+    public static final boolean DEFAULT_ADAPTIVE_CONCURRENCY = false;
+
+    /**
+     * Default percentile of latency after which reads are hedged (0 disables hedging).
+     */
+    public static final int DEFAULT_HEDGE_PERCENTILE = 0;
+
+    /**
+     * Highest percentile of latency after which reads can be hedged.
+     */
+    public static final int MAX_HEDGE_PERCENTILE = 99;
+
+    /**
+     * Default time in milliseconds to cache resolved addresses (0 disables caching).
+     */
+    public static final int DEFAULT_DNS_CACHE_TTL = 0;
+
+    /**
+     * Default time in milliseconds to wait for a pooled connection (0 waits indefinitely).
+     */
+    public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 0;
+
+    /**
+     * Default time in milliseconds a request may take across retries (0 is unlimited).
+     */
+    public static final int DEFAULT_REQUEST_DEADLINE = 0;
+
+    /**
+     * Default maximum number of bytes stored in the object cache (100 MiB).
+     */
+    public static final long DEFAULT_OBJECT_CACHE_MAX_SIZE = 100L * 1024L * 1024L;
+
+    /**
+     * Default time in milliseconds that an unused object stays in the object cache (1 hour).
+     */
+    public static final int DEFAULT_OBJECT_CACHE_TTL = 3600000;
+
+    /**
+     * Default time in milliseconds that a revalidated cached object is read
+     * without a request (0 revalidates on every read).
+     */
+    public static final int DEFAULT_OBJECT_CACHE_MAX_AGE = 0;
+
+    /**
+     * By default, the internal threads of the client are platform threads.
+     */
+    public static final boolean DEFAULT_VIRTUAL_THREADS = false;
+
+    /**
+     * By default, where streams are opened isn't recorded.
+     */
+    public static final boolean DEFAULT_TRACK_LEAKS = false;
+
+    /**
+     * Default time in milliseconds to cache the results of HEAD requests (0 disables caching).
+     */
+    public static final int DEFAULT_METADATA_CACHE_TTL = 0;
+
+    /**
+     * Default maximum number of HEAD request results that are cached.
+     */
+    public static final int DEFAULT_METADATA_CACHE_SIZE = 10000;
+
     static {
         // Don't even bother setting a default key path if it doesn't exist
         String defaultKeyPath = String.format("%s/.ssh/id_rsa",
@@ -156,6 +247,116 @@ public class DefaultsConfigContext implements ConfigContext {
         return DEFAULT_SIGNATURE_CACHE_TTL;
     }
 
+    @Override
+    public String getContentCompression() {
+        return DEFAULT_CONTENT_COMPRESSION;
+    }
+
+    @Override
+    public String getRetryPolicy() {
+        return DEFAULT_RETRY_POLICY;
+    }
+
+    @Override
+    public Integer getRetryBaseDelay() {
+        return DEFAULT_RETRY_BASE_DELAY;
+    }
+
+    @Override
+    public Integer getRetryMaxDelay() {
+        return DEFAULT_RETRY_MAX_DELAY;
+    }
+
+    @Override
+    public Integer getRetryBudget() {
+        return DEFAULT_RETRY_BUDGET;
+    }
+
+    @Override
+    public Boolean useAdaptiveConcurrency() {
+        return DEFAULT_ADAPTIVE_CONCURRENCY;
+    }
+
+    @Override
+    public Integer getHedgePercentile() {
+        return DEFAULT_HEDGE_PERCENTILE;
+    }
+
+    @Override
+    public Integer getDnsCacheTTL() {
+        return DEFAULT_DNS_CACHE_TTL;
+    }
+
+    @Override
+    public Integer getConnectTimeout() {
+        return null;
+    }
+
+    @Override
+    public Integer getReadTimeout() {
+        return null;
+    }
+
+    @Override
+    public Integer getConnectionRequestTimeout() {
+        return DEFAULT_CONNECTION_REQUEST_TIMEOUT;
+    }
+
+    @Override
+    public Integer getRequestDeadline() {
+        return DEFAULT_REQUEST_DEADLINE;
+    }
+
+    @Override
+    public Integer getTlsSessionCacheSize() {
+        return null;
+    }
+
+    @Override
+    public Integer getTlsSessionTimeout() {
+        return null;
+    }
+
+    @Override
+    public String getObjectCacheDirectory() {
+        return null;
+    }
+
+    @Override
+    public Long getObjectCacheMaxSize() {
+        return DEFAULT_OBJECT_CACHE_MAX_SIZE;
+    }
+
+    @Override
+    public Integer getObjectCacheTTL() {
+        return DEFAULT_OBJECT_CACHE_TTL;
+    }
+
+    @Override
+    public Integer getObjectCacheMaxAge() {
+        return DEFAULT_OBJECT_CACHE_MAX_AGE;
+    }
+
+    @Override
+    public Boolean useVirtualThreads() {
+        return DEFAULT_VIRTUAL_THREADS;
+    }
+
+    @Override
+    public Boolean trackLeaks() {
+        return DEFAULT_TRACK_LEAKS;
+    }
+
+    @Override
+    public Integer getMetadataCacheTTL() {
+        return DEFAULT_METADATA_CACHE_TTL;
+    }
+
+    @Override
+    public Integer getMetadataCacheSize() {
+        return DEFAULT_METADATA_CACHE_SIZE;
+    }
+
     @Override
     public String getMantaHomeDirectory() {
         return ConfigContext.deriveHomeDirectoryFromUser(getMantaUser());
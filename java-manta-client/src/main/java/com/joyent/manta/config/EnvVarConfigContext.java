@@ -87,6 +87,116 @@ public class EnvVarConfigContext implements ConfigContext {
      */
     public static final String MANTA_SIGS_CACHE_TTL_ENV_KEY = "MANTA_SIGS_CACHE_TTL";
 
+    /**
+     * Environment variable for the codec used to compress uploaded object content.
+     */
+    public static final String MANTA_CONTENT_COMPRESSION_ENV_KEY = "MANTA_CONTENT_COMPRESSION";
+
+    /**
+     * Environment variable for the class name of the retry policy implementation.
+     */
+    public static final String MANTA_RETRY_POLICY_ENV_KEY = "MANTA_RETRY_POLICY";
+
+    /**
+     * Environment variable for the base delay in milliseconds before retrying a failed request.
+     */
+    public static final String MANTA_RETRY_BASE_DELAY_ENV_KEY = "MANTA_RETRY_BASE_DELAY";
+
+    /**
+     * Environment variable for the maximum delay in milliseconds before retrying a failed request.
+     */
+    public static final String MANTA_RETRY_MAX_DELAY_ENV_KEY = "MANTA_RETRY_MAX_DELAY";
+
+    /**
+     * Environment variable for the maximum number of retry tokens shared by all requests.
+     */
+    public static final String MANTA_RETRY_BUDGET_ENV_KEY = "MANTA_RETRY_BUDGET";
+
+    /**
+     * Environment variable for enabling the adaptive concurrency limiter and circuit breaker.
+     */
+    public static final String MANTA_ADAPTIVE_CONCURRENCY_ENV_KEY = "MANTA_ADAPTIVE_CONCURRENCY";
+
+    /**
+     * Environment variable for the percentile of recent latency after which reads are hedged.
+     */
+    public static final String MANTA_HEDGE_PERCENTILE_ENV_KEY = "MANTA_HEDGE_PERCENTILE";
+
+    /**
+     * Environment variable for the time in milliseconds to cache resolved load balancer addresses.
+     */
+    public static final String MANTA_DNS_CACHE_TTL_ENV_KEY = "MANTA_DNS_CACHE_TTL";
+
+    /**
+     * Environment variable for the connection timeout in milliseconds.
+     */
+    public static final String MANTA_CONNECT_TIMEOUT_ENV_KEY = "MANTA_CONNECT_TIMEOUT";
+
+    /**
+     * Environment variable for the socket read timeout in milliseconds.
+     */
+    public static final String MANTA_READ_TIMEOUT_ENV_KEY = "MANTA_READ_TIMEOUT";
+
+    /**
+     * Environment variable for the connection pool lease timeout in milliseconds.
+     */
+    public static final String MANTA_CONNECTION_REQUEST_TIMEOUT_ENV_KEY = "MANTA_CONNECTION_REQUEST_TIMEOUT";
+
+    /**
+     * Environment variable for the request deadline in milliseconds.
+     */
+    public static final String MANTA_REQUEST_DEADLINE_ENV_KEY = "MANTA_REQUEST_DEADLINE";
+
+    /**
+     * Environment variable for the number of TLS sessions cached for resumption.
+     */
+    public static final String MANTA_TLS_SESSION_CACHE_SIZE_ENV_KEY = "MANTA_TLS_SESSION_CACHE_SIZE";
+
+    /**
+     * Environment variable for the number of seconds that TLS sessions can be resumed.
+     */
+    public static final String MANTA_TLS_SESSION_TIMEOUT_ENV_KEY = "MANTA_TLS_SESSION_TIMEOUT";
+
+    /**
+     * Environment variable for the directory used to cache downloaded objects.
+     */
+    public static final String MANTA_OBJECT_CACHE_DIR_ENV_KEY = "MANTA_OBJECT_CACHE_DIR";
+
+    /**
+     * Environment variable for the maximum number of bytes stored in the object cache.
+     */
+    public static final String MANTA_OBJECT_CACHE_MAX_SIZE_ENV_KEY = "MANTA_OBJECT_CACHE_MAX_SIZE";
+
+    /**
+     * Environment variable for the time in milliseconds that an unused object stays in the object cache.
+     */
+    public static final String MANTA_OBJECT_CACHE_TTL_ENV_KEY = "MANTA_OBJECT_CACHE_TTL";
+
+    /**
+     * Environment variable for the time in milliseconds that a revalidated cached object is read without a request.
+     */
+    public static final String MANTA_OBJECT_CACHE_MAX_AGE_ENV_KEY = "MANTA_OBJECT_CACHE_MAX_AGE";
+
+    /**
+     * Environment variable for running the internal threads of the client as virtual threads.
+     */
+    public static final String MANTA_VIRTUAL_THREADS_ENV_KEY = "MANTA_VIRTUAL_THREADS";
+
+    /**
+     * Environment variable for recording where streams are opened to report leaked streams.
+     */
+    public static final String MANTA_TRACK_LEAKS_ENV_KEY = "MANTA_TRACK_LEAKS";
+
+    /**
+     * Environment variable for the time in milliseconds that the results of HEAD requests are cached.
+     */
+    public static final String MANTA_METADATA_CACHE_TTL_ENV_KEY = "MANTA_METADATA_CACHE_TTL";
+
+    /**
+     * Environment variable for the maximum number of HEAD request results that are cached.
+     */
+    public static final String MANTA_METADATA_CACHE_SIZE_ENV_KEY = "MANTA_METADATA_CACHE_SIZE";
+
     /**
      * Array of all environment variable names used.
      */
@@ -97,7 +207,19 @@ public class EnvVarConfigContext implements ConfigContext {
             MANTA_PASSWORD_ENV_KEY, MANTA_HTTP_TRANSPORT_ENV_KEY,
             MANTA_HTTPS_PROTOCOLS_ENV_KEY, MANTA_HTTPS_CIPHERS_ENV_KEY,
             MANTA_NO_AUTH_ENV_KEY, MANTA_NO_NATIVE_SIGS_ENV_KEY,
-            MANTA_SIGS_CACHE_TTL_ENV_KEY
+            MANTA_SIGS_CACHE_TTL_ENV_KEY, MANTA_CONTENT_COMPRESSION_ENV_KEY,
+            MANTA_RETRY_POLICY_ENV_KEY, MANTA_RETRY_BASE_DELAY_ENV_KEY,
+            MANTA_RETRY_MAX_DELAY_ENV_KEY, MANTA_RETRY_BUDGET_ENV_KEY,
+            MANTA_ADAPTIVE_CONCURRENCY_ENV_KEY,
+            MANTA_HEDGE_PERCENTILE_ENV_KEY, MANTA_DNS_CACHE_TTL_ENV_KEY,
+            MANTA_CONNECT_TIMEOUT_ENV_KEY, MANTA_READ_TIMEOUT_ENV_KEY,
+            MANTA_CONNECTION_REQUEST_TIMEOUT_ENV_KEY,
+            MANTA_REQUEST_DEADLINE_ENV_KEY, MANTA_TLS_SESSION_CACHE_SIZE_ENV_KEY,
+            MANTA_TLS_SESSION_TIMEOUT_ENV_KEY, MANTA_OBJECT_CACHE_DIR_ENV_KEY,
+            MANTA_OBJECT_CACHE_MAX_SIZE_ENV_KEY, MANTA_OBJECT_CACHE_TTL_ENV_KEY,
+            MANTA_METADATA_CACHE_TTL_ENV_KEY, MANTA_METADATA_CACHE_SIZE_ENV_KEY,
+            MANTA_OBJECT_CACHE_MAX_AGE_ENV_KEY, MANTA_VIRTUAL_THREADS_ENV_KEY,
+            MANTA_TRACK_LEAKS_ENV_KEY
     };
 
     /**
@@ -205,6 +327,135 @@ public class EnvVarConfigContext implements ConfigContext {
         return MantaUtils.parseIntegerOrNull(ttl);
     }
 
+    @Override
+    public String getContentCompression() {
+        return getEnv(MANTA_CONTENT_COMPRESSION_ENV_KEY);
+    }
+
+    @Override
+    public String getRetryPolicy() {
+        return getEnv(MANTA_RETRY_POLICY_ENV_KEY);
+    }
+
+    @Override
+    public Integer getRetryBaseDelay() {
+        String value = getEnv(MANTA_RETRY_BASE_DELAY_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
+    @Override
+    public Integer getRetryMaxDelay() {
+        String value = getEnv(MANTA_RETRY_MAX_DELAY_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
+    @Override
+    public Integer getRetryBudget() {
+        String value = getEnv(MANTA_RETRY_BUDGET_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
+    @Override
+    public Boolean useAdaptiveConcurrency() {
+        String value = getEnv(MANTA_ADAPTIVE_CONCURRENCY_ENV_KEY);
+        return MantaUtils.parseBooleanOrNull(value);
+    }
+
+    @Override
+    public Integer getHedgePercentile() {
+        String value = getEnv(MANTA_HEDGE_PERCENTILE_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
+    @Override
+    public Integer getDnsCacheTTL() {
+        String value = getEnv(MANTA_DNS_CACHE_TTL_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
+    @Override
+    public Integer getConnectTimeout() {
+        String value = getEnv(MANTA_CONNECT_TIMEOUT_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
+    @Override
+    public Integer getReadTimeout() {
+        String value = getEnv(MANTA_READ_TIMEOUT_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
+    @Override
+    public Integer getConnectionRequestTimeout() {
+        String value = getEnv(MANTA_CONNECTION_REQUEST_TIMEOUT_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
+    @Override
+    public Integer getRequestDeadline() {
+        String value = getEnv(MANTA_REQUEST_DEADLINE_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
+    @Override
+    public Integer getTlsSessionCacheSize() {
+        String value = getEnv(MANTA_TLS_SESSION_CACHE_SIZE_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
+    @Override
+    public Integer getTlsSessionTimeout() {
+        String value = getEnv(MANTA_TLS_SESSION_TIMEOUT_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
+    @Override
+    public String getObjectCacheDirectory() {
+        return getEnv(MANTA_OBJECT_CACHE_DIR_ENV_KEY);
+    }
+
+    @Override
+    public Long getObjectCacheMaxSize() {
+        String value = getEnv(MANTA_OBJECT_CACHE_MAX_SIZE_ENV_KEY);
+        return MantaUtils.parseLongOrNull(value);
+    }
+
+    @Override
+    public Integer getObjectCacheTTL() {
+        String value = getEnv(MANTA_OBJECT_CACHE_TTL_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
+    @Override
+    public Integer getObjectCacheMaxAge() {
+        String value = getEnv(MANTA_OBJECT_CACHE_MAX_AGE_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
+    @Override
+    public Boolean useVirtualThreads() {
+        String value = getEnv(MANTA_VIRTUAL_THREADS_ENV_KEY);
+        return MantaUtils.parseBooleanOrNull(value);
+    }
+
+    @Override
+    public Boolean trackLeaks() {
+        String value = getEnv(MANTA_TRACK_LEAKS_ENV_KEY);
+        return MantaUtils.parseBooleanOrNull(value);
+    }
+
+    @Override
+    public Integer getMetadataCacheTTL() {
+        String value = getEnv(MANTA_METADATA_CACHE_TTL_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
+    @Override
+    public Integer getMetadataCacheSize() {
+        String value = getEnv(MANTA_METADATA_CACHE_SIZE_ENV_KEY);
+        return MantaUtils.parseIntegerOrNull(value);
+    }
+
     @Override
     public String toString() {
         return ConfigContext.toString(this);
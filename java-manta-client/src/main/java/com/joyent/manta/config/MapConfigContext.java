@@ -88,6 +88,116 @@ public class MapConfigContext implements ConfigContext {
      */
     public static final String MANTA_SIGS_CACHE_TTL_KEY = "http.signature.cache.ttl";
 
+    /**
+     * Property key for the codec used to compress uploaded object content.
+     */
+    public static final String MANTA_CONTENT_COMPRESSION_KEY = "manta.content_compression";
+
+    /**
+     * Property key for the class name of the retry policy implementation.
+     */
+    public static final String MANTA_RETRY_POLICY_KEY = "manta.retry_policy";
+
+    /**
+     * Property key for the base delay in milliseconds before retrying a failed request.
+     */
+    public static final String MANTA_RETRY_BASE_DELAY_KEY = "manta.retry_base_delay";
+
+    /**
+     * Property key for the maximum delay in milliseconds before retrying a failed request.
+     */
+    public static final String MANTA_RETRY_MAX_DELAY_KEY = "manta.retry_max_delay";
+
+    /**
+     * Property key for the maximum number of retry tokens shared by all requests.
+     */
+    public static final String MANTA_RETRY_BUDGET_KEY = "manta.retry_budget";
+
+    /**
+     * Property key for enabling the adaptive concurrency limiter and circuit breaker.
+     */
+    public static final String MANTA_ADAPTIVE_CONCURRENCY_KEY = "manta.adaptive_concurrency";
+
+    /**
+     * Property key for the percentile of recent latency after which reads are hedged.
+     */
+    public static final String MANTA_HEDGE_PERCENTILE_KEY = "manta.hedge_percentile";
+
+    /**
+     * Property key for the time in milliseconds to cache resolved load balancer addresses.
+     */
+    public static final String MANTA_DNS_CACHE_TTL_KEY = "manta.dns_cache_ttl";
+
+    /**
+     * Property key for the connection timeout in milliseconds.
+     */
+    public static final String MANTA_CONNECT_TIMEOUT_KEY = "manta.connect_timeout";
+
+    /**
+     * Property key for the socket read timeout in milliseconds.
+     */
+    public static final String MANTA_READ_TIMEOUT_KEY = "manta.read_timeout";
+
+    /**
+     * Property key for the connection pool lease timeout in milliseconds.
+     */
+    public static final String MANTA_CONNECTION_REQUEST_TIMEOUT_KEY = "manta.connection_request_timeout";
+
+    /**
+     * Property key for the request deadline in milliseconds.
+     */
+    public static final String MANTA_REQUEST_DEADLINE_KEY = "manta.request_deadline";
+
+    /**
+     * Property key for the number of TLS sessions cached for resumption.
+     */
+    public static final String MANTA_TLS_SESSION_CACHE_SIZE_KEY = "manta.tls_session_cache_size";
+
+    /**
+     * Property key for the number of seconds that TLS sessions can be resumed.
+     */
+    public static final String MANTA_TLS_SESSION_TIMEOUT_KEY = "manta.tls_session_timeout";
+
+    /**
+     * Property key for the directory used to cache downloaded objects.
+     */
+    public static final String MANTA_OBJECT_CACHE_DIR_KEY = "manta.object_cache_dir";
+
+    /**
+     * Property key for the maximum number of bytes stored in the object cache.
+     */
+    public static final String MANTA_OBJECT_CACHE_MAX_SIZE_KEY = "manta.object_cache_max_size";
+
+    /**
+     * Property key for the time in milliseconds that an unused object stays in the object cache.
+     */
+    public static final String MANTA_OBJECT_CACHE_TTL_KEY = "manta.object_cache_ttl";
+
+    /**
+     * Property key for the time in milliseconds that a revalidated cached object is read without a request.
+     */
+    public static final String MANTA_OBJECT_CACHE_MAX_AGE_KEY = "manta.object_cache_max_age";
+
+    /**
+     * Property key for running the internal threads of the client as virtual threads.
+     */
+    public static final String MANTA_VIRTUAL_THREADS_KEY = "manta.virtual_threads";
+
+    /**
+     * Property key for recording where streams are opened to report leaked streams.
+     */
+    public static final String MANTA_TRACK_LEAKS_KEY = "manta.track_leaks";
+
+    /**
+     * Property key for the time in milliseconds that the results of HEAD requests are cached.
+     */
+    public static final String MANTA_METADATA_CACHE_TTL_KEY = "manta.metadata_cache_ttl";
+
+    /**
+     * Property key for the maximum number of HEAD request results that are cached.
+     */
+    public static final String MANTA_METADATA_CACHE_SIZE_KEY = "manta.metadata_cache_size";
+
     // I know manually adding them all sucks, but it is the simplest operation
     // for a shared library. We could do all sorts of complicated reflection
     // or annotation processing, but they are error-prone.
@@ -101,7 +211,18 @@ public class MapConfigContext implements ConfigContext {
             MANTA_PASSWORD_KEY, MANTA_HTTP_TRANSPORT_KEY,
             MANTA_HTTPS_PROTOCOLS_ENV_KEY, MANTA_HTTPS_CIPHERS_KEY,
             MANTA_NO_AUTH_KEY, MANTA_NO_NATIVE_SIGS_KEY,
-            MANTA_SIGS_CACHE_TTL_KEY
+            MANTA_SIGS_CACHE_TTL_KEY, MANTA_CONTENT_COMPRESSION_KEY,
+            MANTA_RETRY_POLICY_KEY, MANTA_RETRY_BASE_DELAY_KEY,
+            MANTA_RETRY_MAX_DELAY_KEY, MANTA_RETRY_BUDGET_KEY,
+            MANTA_ADAPTIVE_CONCURRENCY_KEY,
+            MANTA_HEDGE_PERCENTILE_KEY, MANTA_DNS_CACHE_TTL_KEY,
+            MANTA_CONNECT_TIMEOUT_KEY, MANTA_READ_TIMEOUT_KEY,
+            MANTA_CONNECTION_REQUEST_TIMEOUT_KEY, MANTA_REQUEST_DEADLINE_KEY,
+            MANTA_TLS_SESSION_CACHE_SIZE_KEY, MANTA_TLS_SESSION_TIMEOUT_KEY,
+            MANTA_OBJECT_CACHE_DIR_KEY, MANTA_OBJECT_CACHE_MAX_SIZE_KEY,
+            MANTA_OBJECT_CACHE_TTL_KEY, MANTA_METADATA_CACHE_TTL_KEY,
+            MANTA_METADATA_CACHE_SIZE_KEY, MANTA_OBJECT_CACHE_MAX_AGE_KEY,
+            MANTA_VIRTUAL_THREADS_KEY, MANTA_TRACK_LEAKS_KEY
     };
 
     /**
@@ -244,6 +365,233 @@ public class MapConfigContext implements ConfigContext {
         return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_SIGS_CACHE_TTL_ENV_KEY));
     }
 
+    @Override
+    public String getContentCompression() {
+        return normalizeEmptyAndNullAndDefaultToStringValue(
+                MANTA_CONTENT_COMPRESSION_KEY, MANTA_CONTENT_COMPRESSION_ENV_KEY);
+    }
+
+    @Override
+    public String getRetryPolicy() {
+        return normalizeEmptyAndNullAndDefaultToStringValue(
+                MANTA_RETRY_POLICY_KEY, MANTA_RETRY_POLICY_ENV_KEY);
+    }
+
+    @Override
+    public Integer getRetryBaseDelay() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_RETRY_BASE_DELAY_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_RETRY_BASE_DELAY_ENV_KEY));
+    }
+
+    @Override
+    public Integer getRetryMaxDelay() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_RETRY_MAX_DELAY_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_RETRY_MAX_DELAY_ENV_KEY));
+    }
+
+    @Override
+    public Integer getRetryBudget() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_RETRY_BUDGET_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_RETRY_BUDGET_ENV_KEY));
+    }
+
+    @Override
+    public Boolean useAdaptiveConcurrency() {
+        Boolean mapValue = MantaUtils.parseBooleanOrNull(backingMap.get(MANTA_ADAPTIVE_CONCURRENCY_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseBooleanOrNull(backingMap.get(MANTA_ADAPTIVE_CONCURRENCY_ENV_KEY));
+    }
+
+    @Override
+    public Integer getHedgePercentile() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_HEDGE_PERCENTILE_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_HEDGE_PERCENTILE_ENV_KEY));
+    }
+
+    @Override
+    public Integer getDnsCacheTTL() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_DNS_CACHE_TTL_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_DNS_CACHE_TTL_ENV_KEY));
+    }
+
+    @Override
+    public Integer getConnectTimeout() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_CONNECT_TIMEOUT_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_CONNECT_TIMEOUT_ENV_KEY));
+    }
+
+    @Override
+    public Integer getReadTimeout() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_READ_TIMEOUT_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_READ_TIMEOUT_ENV_KEY));
+    }
+
+    @Override
+    public Integer getConnectionRequestTimeout() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_CONNECTION_REQUEST_TIMEOUT_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_CONNECTION_REQUEST_TIMEOUT_ENV_KEY));
+    }
+
+    @Override
+    public Integer getRequestDeadline() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_REQUEST_DEADLINE_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_REQUEST_DEADLINE_ENV_KEY));
+    }
+
+    @Override
+    public Integer getTlsSessionCacheSize() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_TLS_SESSION_CACHE_SIZE_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_TLS_SESSION_CACHE_SIZE_ENV_KEY));
+    }
+
+    @Override
+    public Integer getTlsSessionTimeout() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_TLS_SESSION_TIMEOUT_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_TLS_SESSION_TIMEOUT_ENV_KEY));
+    }
+
+    @Override
+    public String getObjectCacheDirectory() {
+        return normalizeEmptyAndNullAndDefaultToStringValue(
+                MANTA_OBJECT_CACHE_DIR_KEY, MANTA_OBJECT_CACHE_DIR_ENV_KEY);
+    }
+
+    @Override
+    public Long getObjectCacheMaxSize() {
+        Long mapValue = MantaUtils.parseLongOrNull(backingMap.get(MANTA_OBJECT_CACHE_MAX_SIZE_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseLongOrNull(backingMap.get(MANTA_OBJECT_CACHE_MAX_SIZE_ENV_KEY));
+    }
+
+    @Override
+    public Integer getObjectCacheTTL() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_OBJECT_CACHE_TTL_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_OBJECT_CACHE_TTL_ENV_KEY));
+    }
+
+    @Override
+    public Integer getObjectCacheMaxAge() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_OBJECT_CACHE_MAX_AGE_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_OBJECT_CACHE_MAX_AGE_ENV_KEY));
+    }
+
+    @Override
+    public Boolean useVirtualThreads() {
+        Boolean mapValue = MantaUtils.parseBooleanOrNull(backingMap.get(MANTA_VIRTUAL_THREADS_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseBooleanOrNull(backingMap.get(MANTA_VIRTUAL_THREADS_ENV_KEY));
+    }
+
+    @Override
+    public Boolean trackLeaks() {
+        Boolean mapValue = MantaUtils.parseBooleanOrNull(backingMap.get(MANTA_TRACK_LEAKS_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseBooleanOrNull(backingMap.get(MANTA_TRACK_LEAKS_ENV_KEY));
+    }
+
+    @Override
+    public Integer getMetadataCacheTTL() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_METADATA_CACHE_TTL_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_METADATA_CACHE_TTL_ENV_KEY));
+    }
+
+    @Override
+    public Integer getMetadataCacheSize() {
+        Integer mapValue = MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_METADATA_CACHE_SIZE_KEY));
+
+        if (mapValue != null) {
+            return mapValue;
+        }
+
+        return MantaUtils.parseIntegerOrNull(backingMap.get(MANTA_METADATA_CACHE_SIZE_ENV_KEY));
+    }
+
     /**
      * Allows the caller to perform a put operation on the backing map of the
      * context. This is typically used by other {@link ConfigContext}
@@ -0,0 +1,22 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.exception;
+
+/**
+ * Exception thrown when the checksum of transferred content doesn't match
+ * the checksum reported by Manta.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class MantaChecksumFailedException extends MantaIOException {
+    private static final long serialVersionUID = 6240857386117904318L;
+
+    /**
+     * @param message The error message.
+     */
+    public MantaChecksumFailedException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.exception;
+
+/**
+ * Exception thrown when a request is rejected before being sent to Manta,
+ * because the endpoint's circuit breaker is open or its concurrency limit
+ * has been reached.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class MantaLoadSheddingException extends MantaIOException {
+    private static final long serialVersionUID = 3373519624117906613L;
+
+    /**
+     * @param message The error message.
+     */
+    public MantaLoadSheddingException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.exception;
+
+/**
+ * Exception thrown when a request, including all of its retries, doesn't
+ * receive a response within its deadline.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class MantaTimeoutException extends MantaIOException {
+    private static final long serialVersionUID = -2151370834325458853L;
+
+    /**
+     * @param message The error message.
+     */
+    public MantaTimeoutException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.HttpEncoding;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for verifying the behavior of {@link CompressionCodec}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+public class CompressionCodecTest {
+    private static final String TEST_DATA = "EPISODEII_IS_BEST_EPISODE "
+            + "EPISODEII_IS_BEST_EPISODE EPISODEII_IS_BEST_EPISODE";
+
+    @Test
+    public void canLookupCodecsByContentEncoding() {
+        Assert.assertEquals(CompressionCodec.fromContentEncoding("gzip"), CompressionCodec.GZIP);
+        Assert.assertEquals(CompressionCodec.fromContentEncoding(" Deflate "), CompressionCodec.DEFLATE);
+        Assert.assertNull(CompressionCodec.fromContentEncoding(CompressionCodec.NONE));
+        Assert.assertNull(CompressionCodec.fromContentEncoding("br"));
+        Assert.assertNull(CompressionCodec.fromContentEncoding(null));
+    }
+
+    @Test
+    public void canRoundTripGzip() throws IOException {
+        roundTrip(CompressionCodec.GZIP);
+    }
+
+    @Test
+    public void canRoundTripDeflate() throws IOException {
+        roundTrip(CompressionCodec.DEFLATE);
+    }
+
+    @Test
+    public void httpEncodingDoesntCloseTransportStream() throws IOException {
+        final boolean[] closed = { false };
+        final ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+
+        final HttpEncoding encoding = CompressionCodec.GZIP.asHttpEncoding();
+        Assert.assertEquals(encoding.getName(), "gzip");
+
+        encoding.encode(o -> o.write(TEST_DATA.getBytes(StandardCharsets.UTF_8)), out);
+
+        Assert.assertFalse(closed[0], "Transport stream was closed by the encoder");
+
+        try (InputStream in = CompressionCodec.GZIP.decompress(
+                new ByteArrayInputStream(out.toByteArray()))) {
+            Assert.assertEquals(MantaUtils.inputStreamToString(in, "UTF-8"), TEST_DATA);
+        }
+    }
+
+    private static void roundTrip(final CompressionCodec codec) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (OutputStream compressed = codec.compress(out)) {
+            compressed.write(TEST_DATA.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Assert.assertTrue(out.size() < TEST_DATA.length(),
+                "Compressed data should be smaller than the repetitive input");
+
+        try (InputStream in = codec.decompress(new ByteArrayInputStream(out.toByteArray()))) {
+            Assert.assertEquals(MantaUtils.inputStreamToString(in, "UTF-8"), TEST_DATA);
+        }
+    }
+}
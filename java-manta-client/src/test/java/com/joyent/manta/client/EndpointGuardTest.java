@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.AbstractHttpContent;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for verifying the behavior of {@link AdaptiveConcurrencyLimiter},
+ * {@link CircuitBreaker} and {@link EndpointGuard}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+public class EndpointGuardTest {
+    @Test
+    public void limiterRejectsRequestsAboveLimit() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 2);
+
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire());
+
+        limiter.release();
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertEquals(limiter.getInFlight(), 2);
+    }
+
+    @Test
+    public void limiterDecreasesOnDropAndRecoversOnSuccess() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 10);
+
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(limiter.tryAcquire());
+            limiter.onDropped();
+        }
+
+        final int reduced = limiter.getLimit();
+        Assert.assertTrue(reduced < 10, "Limit wasn't reduced: " + reduced);
+
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < reduced; j++) {
+                Assert.assertTrue(limiter.tryAcquire());
+            }
+            for (int j = 0; j < reduced; j++) {
+                limiter.onSuccess(-1L);
+            }
+        }
+
+        Assert.assertEquals(limiter.getLimit(), 10);
+        Assert.assertEquals(limiter.getInFlight(), 0);
+    }
+
+    @Test
+    public void limiterDecreasesOnHighLatency() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 10);
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(limiter.tryAcquire());
+            limiter.onSuccess(100L);
+        }
+
+        Assert.assertEquals(limiter.getLimit(), 10);
+
+        Assert.assertTrue(limiter.tryAcquire());
+        limiter.onSuccess(5000L);
+
+        Assert.assertEquals(limiter.getLimit(), 9);
+    }
+
+    @Test
+    public void limiterNeverGoesBelowMinimum() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 4);
+
+        for (int i = 0; i < 50; i++) {
+            Assert.assertTrue(limiter.tryAcquire());
+            limiter.onDropped();
+        }
+
+        Assert.assertEquals(limiter.getLimit(), 2);
+    }
+
+    @Test
+    public void breakerOpensAfterConsecutiveFailures() {
+        final AtomicLong clock = new AtomicLong();
+        final CircuitBreaker breaker = new CircuitBreaker("test", 3, 1000L, clock::get);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+
+        breaker.onFailure();
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+        Assert.assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void breakerAllowsSingleProbeWhenHalfOpen() {
+        final AtomicLong clock = new AtomicLong();
+        final CircuitBreaker breaker = new CircuitBreaker("test", 1, 1000L, clock::get);
+
+        breaker.onFailure();
+        clock.set(999L);
+        Assert.assertFalse(breaker.allowRequest());
+
+        clock.set(1000L);
+        Assert.assertTrue(breaker.allowRequest());
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        Assert.assertFalse(breaker.allowRequest());
+
+        breaker.onSuccess();
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+        Assert.assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void breakerReopensWhenProbeFails() {
+        final AtomicLong clock = new AtomicLong();
+        final CircuitBreaker breaker = new CircuitBreaker("test", 1, 1000L, clock::get);
+
+        breaker.onFailure();
+        clock.set(1000L);
+        Assert.assertTrue(breaker.allowRequest());
+
+        breaker.onFailure();
+        Assert.assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+        Assert.assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void breakerReplacesLostProbe() {
+        final AtomicLong clock = new AtomicLong();
+        final CircuitBreaker breaker = new CircuitBreaker("test", 1, 1000L, clock::get);
+
+        breaker.onFailure();
+        clock.set(1000L);
+        Assert.assertTrue(breaker.allowRequest());
+
+        clock.set(1500L);
+        Assert.assertFalse(breaker.allowRequest());
+
+        clock.set(2000L);
+        Assert.assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void failureStatusCodes() {
+        Assert.assertTrue(EndpointGuard.isFailureStatus(429));
+        Assert.assertTrue(EndpointGuard.isFailureStatus(503));
+        Assert.assertFalse(EndpointGuard.isFailureStatus(500));
+        Assert.assertFalse(EndpointGuard.isFailureStatus(404));
+        Assert.assertFalse(EndpointGuard.isFailureStatus(200));
+    }
+
+    /**
+     * Transport answering the first requests with a 503 and all others
+     * with an empty 200.
+     */
+    private static class UnavailableTransport extends MockHttpTransport {
+        private final AtomicInteger requests = new AtomicInteger();
+        private final int unavailable;
+
+        private UnavailableTransport(final int unavailable) {
+            this.unavailable = unavailable;
+        }
+
+        @Override
+        public LowLevelHttpRequest buildRequest(final String method, final String url) {
+            return new MockLowLevelHttpRequest(url) {
+                @Override
+                public LowLevelHttpResponse execute() throws IOException {
+                    final int statusCode = requests.incrementAndGet() <= unavailable ? 503 : 200;
+                    return new MockLowLevelHttpResponse().setStatusCode(statusCode);
+                }
+            };
+        }
+    }
+
+    private static MantaClient guardedClient(final MockHttpTransport transport) throws IOException {
+        return MockMantaClients.create(MockMantaClients.config().setAdaptiveConcurrency(true), transport);
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(final MantaClient client, final GenericUrl url) {
+        return client.getHttpRequestFactoryProvider().getEndpointGuard().endpointFor(url).getLimiter();
+    }
+
+    @Test
+    public void failedContentPreparationReleasesPermit() throws IOException {
+        final UnavailableTransport transport = new UnavailableTransport(0);
+        final MantaClient client = guardedClient(transport);
+        final GenericUrl url = new GenericUrl(MockMantaClients.URL + "/user/stor/object");
+
+        try {
+            final HttpRequestFactory factory = client.getHttpRequestFactoryProvider().getRequestFactory();
+            final AbstractHttpContent content = new AbstractHttpContent("text/plain") {
+                @Override
+                public long getLength() throws IOException {
+                    throw new IOException("length unavailable");
+                }
+
+                @Override
+                public void writeTo(final OutputStream out) throws IOException {
+                    throw new AssertionError("Content shouldn't be written");
+                }
+            };
+
+            // More attempts than the highest limit, so a leaked permit would shed a later one
+            for (int i = 0; i < 100; i++) {
+                try {
+                    EndpointGuard.execute(factory.buildPutRequest(url, content));
+                    Assert.fail("Expected preparing the content to fail");
+                } catch (IOException e) {
+                    Assert.assertEquals(e.getMessage(), "length unavailable");
+                }
+            }
+
+            Assert.assertEquals(limiter(client, url).getInFlight(), 0);
+            Assert.assertEquals(transport.requests.get(), 0);
+        } finally {
+            client.closeQuietly();
+        }
+    }
+
+    @Test
+    public void retriedUnsuccessfulResponsesReleasePermits() throws IOException {
+        final UnavailableTransport transport = new UnavailableTransport(2);
+        final MantaClient client = guardedClient(transport);
+        final GenericUrl url = new GenericUrl(MockMantaClients.URL + "/user/stor/object");
+
+        try {
+            final HttpRequest request = client.getHttpRequestFactoryProvider()
+                    .getRequestFactory().buildGetRequest(url);
+            // Per-call timeouts find the deadline through the retry handler
+            Assert.assertTrue(request.getUnsuccessfulResponseHandler() instanceof MantaRetryHandler);
+            Assert.assertSame(request.getIOExceptionHandler(), request.getUnsuccessfulResponseHandler());
+
+            final HttpResponse response = EndpointGuard.execute(request);
+
+            try {
+                Assert.assertEquals(response.getStatusCode(), 200);
+            } finally {
+                response.disconnect();
+            }
+
+            Assert.assertEquals(transport.requests.get(), 3);
+            Assert.assertEquals(limiter(client, url).getInFlight(), 0);
+        } finally {
+            client.closeQuietly();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.util.BackOff;
+import com.joyent.manta.config.DefaultsConfigContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Tests for verifying the behavior of {@link ExponentialBackoffRetryPolicy}
+ * and {@link MantaRetryHandler}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+public class ExponentialBackoffRetryPolicyTest {
+    @Test
+    public void onlyRetriesIdempotentMethods() {
+        final RetryPolicy policy = new ExponentialBackoffRetryPolicy(10L, 100L);
+
+        Assert.assertTrue(policy.isRetryableMethod("GET"));
+        Assert.assertTrue(policy.isRetryableMethod("HEAD"));
+        Assert.assertTrue(policy.isRetryableMethod("put"));
+        Assert.assertTrue(policy.isRetryableMethod("DELETE"));
+        Assert.assertFalse(policy.isRetryableMethod("POST"));
+        Assert.assertFalse(policy.isRetryableMethod(null));
+    }
+
+    @Test
+    public void onlyRetriesTransientStatusCodes() {
+        final RetryPolicy policy = new ExponentialBackoffRetryPolicy(10L, 100L);
+
+        Assert.assertTrue(policy.isRetryableStatusCode(503));
+        Assert.assertTrue(policy.isRetryableStatusCode(429));
+        Assert.assertFalse(policy.isRetryableStatusCode(404));
+        Assert.assertFalse(policy.isRetryableStatusCode(412));
+    }
+
+    @Test
+    public void delaysAreJitteredAndCapped() throws IOException {
+        final ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(10L, 50L);
+        final BackOff backOff = policy.newBackOff();
+
+        final long[] ceilings = { 10L, 20L, 40L, 50L, 50L };
+
+        for (long ceiling : ceilings) {
+            final long delay = backOff.nextBackOffMillis();
+            Assert.assertTrue(delay >= 0L && delay <= ceiling,
+                    String.format("Delay %d outside of [0, %d]", delay, ceiling));
+        }
+
+        // Calculating a delay doesn't count as a retry
+        Assert.assertEquals(policy.getRetryCount(), 0L);
+    }
+
+    @Test
+    public void largeDelaysDontOverflow() throws IOException {
+        final ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(5000L, 10000L);
+
+        Assert.assertEquals(policy.delayCeiling(0), 5000L);
+        Assert.assertEquals(policy.delayCeiling(1), 10000L);
+        Assert.assertEquals(policy.delayCeiling(31), 10000L);
+        Assert.assertEquals(policy.delayCeiling(Integer.MAX_VALUE), 10000L);
+
+        final ExponentialBackoffRetryPolicy huge = new ExponentialBackoffRetryPolicy(1L << 40, Long.MAX_VALUE);
+        Assert.assertEquals(huge.delayCeiling(10), 1L << 50);
+        Assert.assertEquals(huge.delayCeiling(30), Long.MAX_VALUE);
+
+        final BackOff backOff = huge.newBackOff();
+
+        for (int i = 0; i < 40; i++) {
+            Assert.assertTrue(backOff.nextBackOffMillis() >= 0L);
+        }
+    }
+
+    @Test
+    public void noRetryBudgetUnlessConfigured() {
+        final ExponentialBackoffRetryPolicy policy =
+                new ExponentialBackoffRetryPolicy(new DefaultsConfigContext());
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(policy.tryAcquireRetry());
+        }
+
+        Assert.assertEquals(policy.getRetryCount(), 1000L);
+        Assert.assertEquals(policy.getBudgetExhaustedCount(), 0L);
+    }
+
+    @Test
+    public void retryBudgetLimitsRetries() {
+        final ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(0L, 0L, 10);
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(policy.tryAcquireRetry());
+        }
+
+        Assert.assertFalse(policy.tryAcquireRetry());
+        Assert.assertEquals(policy.getBudgetExhaustedCount(), 1L);
+
+        // Ten successful requests earn back a single retry
+        for (int i = 0; i < 10; i++) {
+            policy.onSuccess();
+        }
+
+        Assert.assertTrue(policy.tryAcquireRetry());
+        Assert.assertFalse(policy.tryAcquireRetry());
+        Assert.assertEquals(policy.getRetryCount(), 11L);
+    }
+
+    @Test
+    public void retryRefusedByDeadlineDoesntSpendBudget() throws Exception {
+        final ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(0L, 0L, 1);
+        final RequestDeadline deadline = new RequestDeadline(1L);
+        final MantaRetryHandler handler = new MantaRetryHandler(policy, deadline);
+        final HttpRequest request = new MockHttpTransport().createRequestFactory()
+                .buildGetRequest(new GenericUrl("http://localhost/user/stor/object"));
+
+        deadline.beforeAttempt(request);
+        Thread.sleep(10L);
+
+        Assert.assertFalse(handler.handleIOException(request, true));
+        Assert.assertEquals(policy.getRetryCount(), 0L);
+        Assert.assertTrue(policy.tryAcquireRetry());
+    }
+
+    @Test
+    public void canParseRetryAfter() {
+        final Instant now = Instant.parse("2016-10-20T10:00:00Z");
+
+        Assert.assertEquals(MantaRetryHandler.parseRetryAfterMillis("120", now), Long.valueOf(120000L));
+        Assert.assertEquals(MantaRetryHandler.parseRetryAfterMillis(
+                "Thu, 20 Oct 2016 10:00:30 GMT", now), Long.valueOf(30000L));
+        Assert.assertEquals(MantaRetryHandler.parseRetryAfterMillis(
+                "Thu, 20 Oct 2016 09:00:00 GMT", now), Long.valueOf(0L));
+        Assert.assertNull(MantaRetryHandler.parseRetryAfterMillis("soon", now));
+        Assert.assertNull(MantaRetryHandler.parseRetryAfterMillis(null, now));
+    }
+}
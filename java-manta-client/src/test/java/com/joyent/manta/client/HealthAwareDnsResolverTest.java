@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for verifying the behavior of {@link HealthAwareDnsResolver}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+public class HealthAwareDnsResolverTest {
+    private static final String HOST = "us-east.manta.joyent.com";
+
+    private final InetAddress[] addresses = new InetAddress[] {
+            address(10, 0, 0, 1), address(10, 0, 0, 2), address(10, 0, 0, 3)
+    };
+
+    private static InetAddress address(final int... octets) {
+        final byte[] bytes = new byte[octets.length];
+
+        for (int i = 0; i < octets.length; i++) {
+            bytes[i] = (byte)octets[i];
+        }
+
+        try {
+            return InetAddress.getByAddress(HOST, bytes);
+        } catch (UnknownHostException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test
+    public void cachesAddressesUntilTtlExpires() throws UnknownHostException {
+        final AtomicLong clock = new AtomicLong();
+        final AtomicInteger lookups = new AtomicInteger();
+        final HealthAwareDnsResolver resolver = new HealthAwareDnsResolver(1000L, 1000L,
+                host -> {
+                    lookups.incrementAndGet();
+                    return addresses.clone();
+                }, clock::get);
+
+        resolver.resolve(HOST);
+        clock.set(999L);
+        resolver.resolve(HOST);
+        Assert.assertEquals(lookups.get(), 1);
+
+        clock.set(1000L);
+        Assert.assertEquals(resolver.resolve(HOST).length, addresses.length);
+        Assert.assertEquals(lookups.get(), 2);
+    }
+
+    @Test
+    public void usesPreviousAddressesWhenLookupFails() throws UnknownHostException {
+        final AtomicLong clock = new AtomicLong();
+        final AtomicInteger lookups = new AtomicInteger();
+        final HealthAwareDnsResolver resolver = new HealthAwareDnsResolver(1000L, 1000L,
+                host -> {
+                    if (lookups.incrementAndGet() > 1) {
+                        throw new UnknownHostException(host);
+                    }
+
+                    return addresses.clone();
+                }, clock::get);
+
+        resolver.resolve(HOST);
+        clock.set(5000L);
+
+        Assert.assertEquals(resolver.resolve(HOST).length, addresses.length);
+        Assert.assertEquals(lookups.get(), 2);
+    }
+
+    @Test(expectedExceptions = UnknownHostException.class)
+    public void failsWhenHostWasNeverResolved() throws UnknownHostException {
+        final HealthAwareDnsResolver resolver = new HealthAwareDnsResolver(1000L, 1000L,
+                host -> {
+                    throw new UnknownHostException(host);
+                }, () -> 0L);
+
+        resolver.resolve(HOST);
+    }
+
+    @Test
+    public void ejectsAddressesAfterConsecutiveFailures() throws UnknownHostException {
+        final AtomicLong clock = new AtomicLong();
+        final HealthAwareDnsResolver resolver = new HealthAwareDnsResolver(60_000L, 1000L,
+                host -> addresses.clone(), clock::get);
+
+        for (int i = 0; i < HealthAwareDnsResolver.EJECTION_THRESHOLD - 1; i++) {
+            resolver.onConnectFailed(addresses[0]);
+        }
+
+        Assert.assertFalse(resolver.isEjected(addresses[0]));
+        resolver.onConnectFailed(addresses[0]);
+        Assert.assertTrue(resolver.isEjected(addresses[0]));
+
+        for (int i = 0; i < 100; i++) {
+            final InetAddress[] resolved = resolver.resolve(HOST);
+            Assert.assertEquals(resolved[resolved.length - 1], addresses[0]);
+        }
+
+        clock.set(1000L);
+        Assert.assertFalse(resolver.isEjected(addresses[0]));
+
+        // Still failing after the ejection expired, so it is ejected again
+        resolver.onConnectFailed(addresses[0]);
+        Assert.assertTrue(resolver.isEjected(addresses[0]));
+
+        resolver.onConnected(addresses[0], 5L);
+        Assert.assertFalse(resolver.isEjected(addresses[0]));
+    }
+
+    @Test
+    public void usesAllAddressesWhenAllAreEjected() throws UnknownHostException {
+        final HealthAwareDnsResolver resolver = new HealthAwareDnsResolver(60_000L, 1000L,
+                host -> addresses.clone(), () -> 0L);
+
+        for (InetAddress address : addresses) {
+            for (int i = 0; i < HealthAwareDnsResolver.EJECTION_THRESHOLD; i++) {
+                resolver.onConnectFailed(address);
+            }
+        }
+
+        Assert.assertEquals(resolver.resolve(HOST).length, addresses.length);
+    }
+
+    @Test
+    public void prefersFasterAddresses() throws UnknownHostException {
+        final HealthAwareDnsResolver resolver = new HealthAwareDnsResolver(60_000L, 1000L,
+                host -> addresses.clone(), () -> 0L);
+
+        resolver.onConnected(addresses[0], 5L);
+        resolver.onConnected(addresses[1], 500L);
+        resolver.onConnected(addresses[2], 500L);
+
+        int fastFirst = 0;
+
+        for (int i = 0; i < 1000; i++) {
+            if (resolver.resolve(HOST)[0].equals(addresses[0])) {
+                fastFirst++;
+            }
+        }
+
+        Assert.assertTrue(fastFirst > 800, "Fast address was first only " + fastFirst + " times");
+    }
+}
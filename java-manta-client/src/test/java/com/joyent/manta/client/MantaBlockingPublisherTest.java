@@ -0,0 +1,206 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for verifying the behavior of {@link MantaBlockingPublisher}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test
+public class MantaBlockingPublisherTest {
+    /**
+     * Executor running tasks on the calling thread, so that the effect of
+     * each request is visible as soon as it returns.
+     */
+    private static final Executor DIRECT = Runnable::run;
+
+    public void onlyRequestedItemsAreRead() {
+        final CountingSource source = new CountingSource(5);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        new MantaBlockingPublisher<>(DIRECT, () -> source).subscribe(subscriber);
+        Assert.assertEquals(source.reads.get(), 0);
+
+        subscriber.subscription.request(2);
+        Assert.assertEquals(subscriber.items, Arrays.asList(1, 2));
+        Assert.assertEquals(source.reads.get(), 2);
+        Assert.assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        Assert.assertEquals(subscriber.items, Arrays.asList(1, 2, 3, 4, 5));
+        Assert.assertTrue(subscriber.completed);
+        Assert.assertNull(subscriber.error);
+        Assert.assertTrue(source.closed.get());
+    }
+
+    public void sourceIsOnlyOpenedOnDemand() {
+        final AtomicInteger opened = new AtomicInteger();
+        final MantaBlockingPublisher<Integer> publisher = new MantaBlockingPublisher<>(DIRECT, () -> {
+            opened.incrementAndGet();
+            return new CountingSource(1);
+        });
+
+        final RecordingSubscriber first = new RecordingSubscriber();
+        final RecordingSubscriber second = new RecordingSubscriber();
+        publisher.subscribe(first);
+        publisher.subscribe(second);
+        Assert.assertEquals(opened.get(), 0);
+
+        first.subscription.request(1);
+        second.subscription.request(1);
+        Assert.assertEquals(opened.get(), 2);
+        Assert.assertEquals(first.items, Collections.singletonList(1));
+        Assert.assertEquals(second.items, Collections.singletonList(1));
+    }
+
+    public void cancelClosesSource() {
+        final CountingSource source = new CountingSource(5);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        new MantaBlockingPublisher<>(DIRECT, () -> source).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(1);
+
+        Assert.assertTrue(source.closed.get());
+        Assert.assertEquals(subscriber.items, Collections.singletonList(1));
+        Assert.assertFalse(subscriber.completed);
+        Assert.assertNull(subscriber.error);
+    }
+
+    public void invalidRequestIsAnError() {
+        final CountingSource source = new CountingSource(5);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        new MantaBlockingPublisher<>(DIRECT, () -> source).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        subscriber.subscription.request(0);
+
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+        Assert.assertTrue(source.closed.get());
+    }
+
+    public void sourceFailureIsAnError() {
+        final IOException failure = new IOException("Unable to read");
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        new MantaBlockingPublisher<Integer>(DIRECT, () -> {
+            throw failure;
+        }).subscribe(subscriber);
+        subscriber.subscription.request(1);
+
+        Assert.assertSame(subscriber.error, failure);
+        Assert.assertTrue(subscriber.items.isEmpty());
+    }
+
+    public void subscriberFailureCancelsSubscription() {
+        final CountingSource source = new CountingSource(5);
+        final RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(final Integer item) {
+                super.onNext(item);
+                throw new IllegalStateException("Unable to receive");
+            }
+        };
+
+        new MantaBlockingPublisher<>(DIRECT, () -> source).subscribe(subscriber);
+        subscriber.subscription.request(3);
+
+        Assert.assertEquals(subscriber.items, Collections.singletonList(1));
+        Assert.assertTrue(source.closed.get());
+    }
+
+    public void rejectedExecutionIsAnError() {
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        new MantaBlockingPublisher<>(task -> {
+            throw new RejectedExecutionException();
+        }, () -> new CountingSource(1)).subscribe(subscriber);
+        subscriber.subscription.request(1);
+
+        Assert.assertTrue(subscriber.error instanceof RejectedExecutionException);
+    }
+
+    public void streamsArePublished() {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        MantaBlockingPublisher.fromStream(DIRECT, () ->
+                Arrays.asList(1, 2, 3).stream().onClose(() -> closed.set(true)))
+                .subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(subscriber.items, Arrays.asList(1, 2, 3));
+        Assert.assertTrue(subscriber.completed);
+        Assert.assertTrue(closed.get());
+    }
+
+    private static class CountingSource implements MantaBlockingPublisher.Source<Integer> {
+        private final int count;
+        private final AtomicInteger reads = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        CountingSource(final int count) {
+            this.count = count;
+        }
+
+        @Override
+        public Integer next() {
+            Assert.assertFalse(closed.get(), "Source was read after being closed");
+
+            if (reads.get() == count) {
+                return null;
+            }
+
+            return reads.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+    }
+
+    private static class RecordingSubscriber implements MantaPublisher.Subscriber<Integer> {
+        private final List<Integer> items = new ArrayList<>();
+        private MantaPublisher.Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(final MantaPublisher.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(final Integer item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+}
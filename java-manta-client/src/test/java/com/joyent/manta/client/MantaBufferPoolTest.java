@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests for verifying the behavior of {@link MantaBufferPool} and of the
+ * content classes using it.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test
+public class MantaBufferPoolTest {
+    public void releasedBuffersAreReused() {
+        final MantaBufferPool pool = new MantaBufferPool(16, 1, 2);
+
+        final byte[] first = pool.acquire();
+        final byte[] second = pool.acquire();
+        Assert.assertEquals(first.length, 16);
+        Assert.assertEquals(pool.getAllocated(), 2);
+        Assert.assertEquals(pool.getOutstanding(), 2);
+
+        pool.release(first);
+        pool.release(second);
+        Assert.assertEquals(pool.getPooled(), 2);
+
+        final byte[] reused = pool.acquire();
+        Assert.assertTrue(reused == first || reused == second);
+        Assert.assertEquals(pool.getAcquired(), 3);
+        Assert.assertEquals(pool.getAllocated(), 2);
+        Assert.assertEquals(pool.getPooled(), 1);
+    }
+
+    public void poolIsBounded() {
+        final MantaBufferPool pool = new MantaBufferPool(16, 1, 1);
+
+        pool.release(pool.acquire());
+        pool.release(new byte[16]);
+        pool.release(new byte[8]);
+        pool.release(null);
+
+        Assert.assertEquals(pool.getPooled(), 1);
+        Assert.assertEquals(pool.getReleased(), 2);
+        Assert.assertEquals(pool.getDiscarded(), 1);
+    }
+
+    public void canCopyThroughPooledBuffer() throws IOException {
+        final MantaBufferPool pool = new MantaBufferPool(7, 2, 1);
+        final byte[] data = new byte[100];
+        new Random().nextBytes(data);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final long copied = pool.copy(new ByteArrayInputStream(data), out);
+
+        Assert.assertEquals(copied, data.length);
+        Assert.assertEquals(out.toByteArray(), data);
+        Assert.assertEquals(pool.getOutstanding(), 0);
+    }
+
+    public void pooledContentWritesStream() throws IOException {
+        final byte[] data = new byte[MantaBufferPool.DEFAULT_BUFFER_SIZE * 2 + 1];
+        new Random().nextBytes(data);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final PooledStreamContent content = new PooledStreamContent("application/octet-stream",
+                new ByteArrayInputStream(data));
+        content.writeTo(out);
+
+        Assert.assertEquals(out.toByteArray(), data);
+        Assert.assertEquals(content.getLength(), -1L);
+        Assert.assertFalse(content.retrySupported());
+    }
+
+    public void lineContentIsEncodedAsUtf8() throws IOException {
+        final char[] filler = new char[MantaBufferPool.DEFAULT_BUFFER_SIZE];
+        Arrays.fill(filler, 'a');
+        final String longLine = new String(filler) + "\u00e9\u4e2d";
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final StringIteratorHttpContent content = new StringIteratorHttpContent(
+                Arrays.asList("first", null, "\ud83d\ude00", longLine, "\ud83d"), "text/plain");
+        content.writeTo(out);
+
+        final byte[] expected = ("first\n\ud83d\ude00\n" + longLine + "\n?\n").getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(out.toByteArray(), expected);
+        Assert.assertEquals(content.getLength(), expected.length);
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for verifying the behavior of {@link MantaBulk}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test(timeOut = 30000L)
+public class MantaBulkTest {
+    private static final String DIRECTORY = "/user/stor/bulk/";
+
+    /**
+     * Transport answering HEAD requests after a delay that shortens with
+     * the number in the path, so that later operations complete first, and
+     * failing the paths starting with "missing". The held path only
+     * responds once it is released.
+     */
+    private static class DelayingTransport extends MockHttpTransport {
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile String held;
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public LowLevelHttpRequest buildRequest(final String method, final String url) {
+            return new MockLowLevelHttpRequest(url) {
+                @Override
+                public LowLevelHttpResponse execute() throws IOException {
+                    requests.incrementAndGet();
+                    final int current = inFlight.incrementAndGet();
+                    maxInFlight.accumulateAndGet(current, Math::max);
+
+                    try {
+                        final String name = url.substring(url.lastIndexOf('/') + 1);
+
+                        if (name.startsWith("missing")) {
+                            return new MockLowLevelHttpResponse().setStatusCode(404);
+                        }
+
+                        if (name.equals(held)) {
+                            released.await(10, TimeUnit.SECONDS);
+                        }
+
+                        Thread.sleep(Math.max(0, 50 - Integer.parseInt(name) * 5));
+
+                        return new MockLowLevelHttpResponse()
+                                .addHeader("Content-Type", "application/octet-stream")
+                                .addHeader("ETag", name);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                }
+            };
+        }
+    }
+
+    private DelayingTransport transport;
+    private MantaClient client;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        transport = new DelayingTransport();
+        client = MockMantaClients.create(transport);
+    }
+
+    @AfterMethod
+    public void cleanup() {
+        client.closeQuietly();
+    }
+
+    private MantaBulk heads(final int count) {
+        final MantaBulk bulk = client.bulk();
+
+        for (int i = 0; i < count; i++) {
+            bulk.head(DIRECTORY + i);
+        }
+
+        return bulk;
+    }
+
+    public void resultsAreInQueuedOrder() {
+        final List<MantaBulk.Result> results = heads(10).setParallelism(10).execute();
+
+        Assert.assertEquals(results.size(), 10);
+
+        for (int i = 0; i < results.size(); i++) {
+            final MantaBulk.Result result = results.get(i);
+            Assert.assertTrue(result.isSuccessful(), result.toString());
+            Assert.assertEquals(result.getIndex(), i);
+            Assert.assertEquals(result.getOperation().getPath(), DIRECTORY + i);
+            Assert.assertEquals(result.getResponse().getEtag(), String.valueOf(i));
+        }
+    }
+
+    public void consumerReceivesResultsInCompletionOrder() {
+        final List<Integer> indexes = new ArrayList<>();
+        transport.held = "0";
+
+        heads(10).setParallelism(10).execute(result -> {
+            indexes.add(result.getIndex());
+
+            if (indexes.size() == 9) {
+                transport.released.countDown();
+            }
+        });
+
+        Assert.assertEquals(indexes.size(), 10);
+        // The first operation only completes after all others were consumed
+        Assert.assertEquals(indexes.get(9), Integer.valueOf(0));
+    }
+
+    public void boundsOperationsInFlight() {
+        final List<MantaBulk.Result> results = heads(20).setParallelism(3).execute();
+
+        Assert.assertEquals(results.size(), 20);
+        Assert.assertEquals(transport.requests.get(), 20);
+        Assert.assertEquals(transport.maxInFlight.get(), 3);
+    }
+
+    public void capturesErrorsOfEachOperation() {
+        final List<MantaBulk.Result> results = client.bulk()
+                .head(DIRECTORY + "0")
+                .head(DIRECTORY + "missing")
+                .head(DIRECTORY + "1")
+                .execute();
+
+        Assert.assertTrue(results.get(0).isSuccessful());
+        Assert.assertFalse(results.get(1).isSuccessful());
+        Assert.assertTrue(results.get(1).getError() instanceof MantaClientHttpResponseException,
+                String.valueOf(results.get(1).getError()));
+        Assert.assertNull(results.get(1).getResponse());
+        Assert.assertTrue(results.get(2).isSuccessful());
+    }
+
+    public void consumerExceptionStopsExecution() {
+        final MantaBulk bulk = heads(10).setParallelism(1);
+
+        try {
+            bulk.execute(result -> {
+                throw new IllegalStateException("Consumer failed on " + result.getIndex());
+            });
+            Assert.fail("Expected the exception of the consumer");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(e.getMessage(), "Consumer failed on 0");
+        }
+
+        Assert.assertEquals(transport.requests.get(), 1);
+
+        // The instance can be executed again
+        Assert.assertEquals(bulk.execute().size(), 10);
+    }
+
+    public void executesWithoutOperations() {
+        Assert.assertTrue(client.bulk().execute().isEmpty());
+        Assert.assertEquals(transport.requests.get(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsInvalidParallelism() {
+        client.bulk().setParallelism(0);
+    }
+}
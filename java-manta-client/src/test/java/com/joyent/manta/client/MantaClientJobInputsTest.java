@@ -0,0 +1,284 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import com.joyent.manta.exception.MantaIOException;
+import org.apache.http.NoHttpResponseException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Tests for verifying the behavior of batched job input submission with
+ * {@link MantaClient#addJobInputs(UUID, java.util.Iterator, int)}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test
+public class MantaClientJobInputsTest {
+    private static final UUID JOB_ID = UUID.fromString("5e7c4f3a-9e4c-4b26-8d3c-3f6c1a0e7b11");
+
+    /**
+     * Transport recording the bodies POSTed as job inputs and answering
+     * with queued status codes, or 204 when none are queued.
+     */
+    private static class JobInputsTransport extends MockHttpTransport {
+        private final Queue<Integer> statusCodes = new ConcurrentLinkedQueue<>();
+        private final List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> urls = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public LowLevelHttpRequest buildRequest(final String method, final String url) {
+            return new MockLowLevelHttpRequest(url) {
+                @Override
+                public LowLevelHttpResponse execute() throws IOException {
+                    urls.add(method + " " + url);
+                    bodies.add(getContentAsString());
+
+                    final Integer status = statusCodes.poll();
+
+                    return new MockLowLevelHttpResponse()
+                            .setStatusCode(status == null ? 204 : status);
+                }
+            };
+        }
+    }
+
+    private static List<String> inputs(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> "/user/stor/input-" + i)
+                .collect(Collectors.toList());
+    }
+
+    private static String lines(final List<String> inputs) {
+        return inputs.stream().map(input -> input + "\n").collect(Collectors.joining());
+    }
+
+    public void splitsInputsAtBatchBoundaries() throws IOException {
+        final JobInputsTransport transport = new JobInputsTransport();
+        final List<String> inputs = inputs(7);
+
+        final MantaClient client = MockMantaClients.create(transport);
+
+        try {
+            client.addJobInputs(JOB_ID, inputs.iterator(), 3);
+        } finally {
+            client.closeQuietly();
+        }
+
+        Assert.assertEquals(transport.bodies, Arrays.asList(
+                lines(inputs.subList(0, 3)),
+                lines(inputs.subList(3, 6)),
+                lines(inputs.subList(6, 7))));
+
+        final String url = "POST " + MockMantaClients.URL + "/user/jobs/" + JOB_ID + "/live/in";
+        Assert.assertEquals(transport.urls, Collections.nCopies(3, url));
+    }
+
+    public void exactMultipleOfBatchSizeSendsNoEmptyBatch() throws IOException {
+        final JobInputsTransport transport = new JobInputsTransport();
+        final List<String> inputs = inputs(4);
+
+        final MantaClient client = MockMantaClients.create(transport);
+
+        try {
+            client.addJobInputs(JOB_ID, inputs.stream(), 2);
+        } finally {
+            client.closeQuietly();
+        }
+
+        Assert.assertEquals(transport.bodies, Arrays.asList(
+                lines(inputs.subList(0, 2)),
+                lines(inputs.subList(2, 4))));
+    }
+
+    public void skipsNullInputs() throws IOException {
+        final JobInputsTransport transport = new JobInputsTransport();
+
+        final MantaClient client = MockMantaClients.create(transport);
+
+        try {
+            client.addJobInputs(JOB_ID, Arrays.asList("/user/stor/a", null, "/user/stor/b").iterator(), 2);
+        } finally {
+            client.closeQuietly();
+        }
+
+        Assert.assertEquals(transport.bodies, Collections.singletonList("/user/stor/a\n/user/stor/b\n"));
+    }
+
+    public void retriesOnlyTheFailedBatch() throws IOException {
+        final JobInputsTransport transport = new JobInputsTransport();
+        final List<String> inputs = inputs(4);
+        // First batch succeeds, the second fails twice and then succeeds
+        transport.statusCodes.addAll(Arrays.asList(204, 503, 500));
+
+        final MantaClient client = MockMantaClients.create(transport);
+
+        try {
+            client.addJobInputs(JOB_ID, inputs.iterator(), 2);
+        } finally {
+            client.closeQuietly();
+        }
+
+        final String second = lines(inputs.subList(2, 4));
+        Assert.assertEquals(transport.bodies, Arrays.asList(
+                lines(inputs.subList(0, 2)), second, second, second));
+    }
+
+    public void stopsAfterConfiguredRetries() throws IOException {
+        final JobInputsTransport transport = new JobInputsTransport();
+        transport.statusCodes.addAll(Collections.nCopies(10, 503));
+
+        final MantaClient client = MockMantaClients.create(MockMantaClients.config().setRetries(2), transport);
+
+        try {
+            client.addJobInputs(JOB_ID, inputs(2).iterator(), 2);
+            Assert.fail("Expected the batch to fail");
+        } catch (MantaClientHttpResponseException e) {
+            Assert.assertEquals(e.getStatusCode(), 503);
+        } finally {
+            client.closeQuietly();
+        }
+
+        // The first attempt and two retries
+        Assert.assertEquals(transport.bodies.size(), 3);
+    }
+
+    public void zeroRetriesMakesOneAttempt() throws IOException {
+        final JobInputsTransport transport = new JobInputsTransport();
+        transport.statusCodes.add(503);
+
+        final MantaClient client = MockMantaClients.create(MockMantaClients.config().setRetries(0), transport);
+
+        try {
+            client.addJobInputs(JOB_ID, inputs(2).iterator(), 2);
+            Assert.fail("Expected the batch to fail");
+        } catch (MantaClientHttpResponseException e) {
+            Assert.assertEquals(e.getStatusCode(), 503);
+        } finally {
+            client.closeQuietly();
+        }
+
+        Assert.assertEquals(transport.bodies.size(), 1);
+    }
+
+    public void clientErrorIsNotRetried() throws IOException {
+        final JobInputsTransport transport = new JobInputsTransport();
+        transport.statusCodes.add(404);
+
+        final MantaClient client = MockMantaClients.create(transport);
+
+        try {
+            client.addJobInputs(JOB_ID, inputs(4).iterator(), 2);
+            Assert.fail("Expected the batch to fail");
+        } catch (MantaClientHttpResponseException e) {
+            Assert.assertEquals(e.getStatusCode(), 404);
+        } finally {
+            client.closeQuietly();
+        }
+
+        // Neither retried nor followed by the next batch
+        Assert.assertEquals(transport.bodies.size(), 1);
+    }
+
+    public void createJobRetriesAsManyTimesAsBatches() throws IOException {
+        final AtomicInteger attempts = new AtomicInteger();
+        final MockHttpTransport transport = new MockHttpTransport() {
+            @Override
+            public LowLevelHttpRequest buildRequest(final String method, final String url) {
+                return new MockLowLevelHttpRequest(url) {
+                    @Override
+                    public LowLevelHttpResponse execute() throws IOException {
+                        attempts.incrementAndGet();
+                        throw new NoHttpResponseException("No response");
+                    }
+                };
+            }
+        };
+
+        final MantaClient client = MockMantaClients.create(MockMantaClients.config().setRetries(2), transport);
+
+        try {
+            client.createJob(new MantaJob("job", Collections.emptyList()));
+            Assert.fail("Expected creating the job to fail");
+        } catch (MantaIOException e) {
+            Assert.assertTrue(e.getCause() instanceof NoHttpResponseException);
+        } finally {
+            client.closeQuietly();
+        }
+
+        // The first attempt and two retries, like a batch of inputs
+        Assert.assertEquals(attempts.get(), 3);
+    }
+
+    public void closesStreamOfInputs() throws IOException {
+        final JobInputsTransport transport = new JobInputsTransport();
+        final boolean[] closed = new boolean[1];
+
+        final MantaClient client = MockMantaClients.create(transport);
+
+        try {
+            client.addJobInputs(JOB_ID, Stream.of("/user/stor/a").onClose(() -> closed[0] = true), 10);
+        } finally {
+            client.closeQuietly();
+        }
+
+        Assert.assertTrue(closed[0]);
+    }
+
+    public void encodesLinesAsUtf8AndCountsBytes() throws IOException {
+        final StringBuilder longLine = new StringBuilder();
+
+        while (longLine.length() < MantaBufferPool.DEFAULT_BUFFER_SIZE * 2) {
+            longLine.append("/user/stor/\u00fcber-\u6587\u5b57");
+        }
+
+        final List<String> lines = Arrays.asList("/user/stor/caf\u00e9", longLine.toString(), "/user/stor/plain");
+        final StringIteratorHttpContent content =
+                new StringIteratorHttpContent(lines, "text/plain; charset=utf-8");
+        final byte[] expected = lines(lines).getBytes(StandardCharsets.UTF_8);
+
+        // Collection content can be written again when a batch is retried
+        for (int i = 0; i < 2; i++) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            content.writeTo(out);
+
+            Assert.assertEquals(out.toByteArray(), expected);
+            Assert.assertEquals(content.getLength(), expected.length);
+        }
+
+        Assert.assertTrue(content.retrySupported());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsBatchSizeBelowOne() throws IOException {
+        final MantaClient client = MockMantaClients.create(new JobInputsTransport());
+
+        try {
+            client.addJobInputs(JOB_ID, inputs(1).iterator(), 0);
+        } finally {
+            client.closeQuietly();
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.joyent.manta.client;
 
+import com.google.api.client.http.HttpHeaders;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -30,4 +35,114 @@ public class MantaHttpHeadersTest {
             Assert.fail("Input and output roles, should be equal");
         }
     }
+
+    @Test
+    public void canReadHeadersCopiedFromGoogleClient() {
+        final HttpHeaders google = new HttpHeaders();
+        google.setContentLength(12L);
+        google.setContentType("text/plain");
+        google.setETag("abc");
+        google.set("m-color", Collections.singletonList("blue"));
+        google.set("result-set-size", Collections.singletonList("42"));
+
+        final MantaHttpHeaders headers = new MantaHttpHeaders(google);
+
+        Assert.assertEquals(headers.getContentLength(), Long.valueOf(12L));
+        Assert.assertEquals(headers.getContentType(), "text/plain");
+        Assert.assertEquals(headers.getETag(), "abc");
+        Assert.assertEquals(headers.getResultSetSize(), Long.valueOf(42L));
+        Assert.assertEquals(headers.metadataAsStrings(), Collections.singletonMap("m-color", "blue"));
+
+        final HttpHeaders converted = headers.asGoogleClientHttpHeaders();
+        Assert.assertEquals(converted.getContentLength(), Long.valueOf(12L));
+        Assert.assertEquals(converted.getETag(), "abc");
+        Assert.assertEquals(converted.getFirstHeaderStringValue("m-color"), "blue");
+    }
+
+    @Test
+    public void canModifyCompactHeaders() {
+        final MantaHttpHeaders headers = MantaHttpHeaders.compact(
+                "Content-Type", "application/json",
+                "Content-Length", "7",
+                "ETag", null);
+
+        Assert.assertNull(headers.getETag());
+        Assert.assertEquals(headers.getContentLength(), Long.valueOf(7L));
+
+        headers.setContentLength(9L);
+        headers.put("m-shape", "round");
+
+        Assert.assertEquals(headers.getContentLength(), Long.valueOf(9L));
+        Assert.assertEquals(headers.getContentType(), "application/json");
+
+        final Map<String, String> metadata = headers.metadataAsStrings();
+        Assert.assertEquals(metadata, Collections.singletonMap("m-shape", "round"));
+    }
+
+    @Test
+    public void canConvertCompactHeadersToApache() {
+        final MantaHttpHeaders headers = MantaHttpHeaders.compact(
+                "Content-Type", "text/plain",
+                MantaHttpHeaders.HTTP_DURABILITY_LEVEL, "3");
+
+        final Header[] apache = headers.asApacheHttpHeaders();
+        Assert.assertEquals(apache.length, 2);
+        Assert.assertEquals(apache[0].getName(), "Content-Type");
+        Assert.assertEquals(apache[1].getValue(), "3");
+        Assert.assertEquals(new MantaHttpHeaders(apache).getDurabilityLevel(), Integer.valueOf(3));
+    }
+
+    @Test
+    public void toStringDoesNotMaterializeCompactHeaders() {
+        final MantaHttpHeaders headers = MantaHttpHeaders.compact(
+                "Content-Type", "text/plain",
+                "m-color", "blue");
+
+        Assert.assertEquals(headers.toString(),
+                "MantaHttpHeaders{compact={Content-Type=text/plain, m-color=blue}}");
+        Assert.assertTrue(headers.isCompact());
+    }
+
+    @Test
+    public void compactHeadersEqualMaterializedHeaders() {
+        final MantaHttpHeaders compact = MantaHttpHeaders.compact(
+                "Content-Type", "text/plain",
+                "Content-Length", "12",
+                "m-color", "blue");
+
+        final MantaHttpHeaders materialized = new MantaHttpHeaders();
+        // Removes the Accept-Encoding header that HttpHeaders adds by default
+        materialized.setAcceptEncoding(null);
+        materialized.setContentType("text/plain");
+        materialized.setContentLength(12L);
+        materialized.put("m-color", "blue");
+
+        Assert.assertEquals(compact, materialized);
+        Assert.assertEquals(materialized, compact);
+        Assert.assertEquals(compact.hashCode(), materialized.hashCode());
+        Assert.assertTrue(compact.isCompact());
+
+        final MantaHttpHeaders converted = MantaHttpHeaders.compact(
+                "Content-Type", "text/plain",
+                "Content-Length", "12",
+                "m-color", "blue");
+        converted.asGoogleClientHttpHeaders();
+        Assert.assertFalse(converted.isCompact());
+        Assert.assertEquals(compact, converted);
+        Assert.assertEquals(compact.hashCode(), converted.hashCode());
+
+        materialized.put("m-color", "red");
+        Assert.assertNotEquals(compact, materialized);
+    }
+
+    @Test
+    public void apacheHeaderValuesAreKeptVerbatim() {
+        final MantaHttpHeaders headers = new MantaHttpHeaders(new Header[] {
+                new BasicHeader("Allow", "GET, PUT"),
+                new BasicHeader("Content-Length", "5")
+        });
+
+        Assert.assertEquals(headers.getHeaderStringValues("allow"), Collections.singletonList("GET, PUT"));
+        Assert.assertEquals(headers.getContentLength(), Long.valueOf(5L));
+    }
 }
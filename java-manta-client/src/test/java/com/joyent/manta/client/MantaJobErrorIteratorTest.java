@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Tests for verifying the behavior of {@link MantaJobErrorIterator} and the
+ * parsing of the line based job resources.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test(timeOut = 30000L)
+public class MantaJobErrorIteratorTest {
+    private static final UUID JOB_ID = UUID.fromString("5d3c1a0e-2c4b-4d7e-9a7f-1b2c3d4e5f60");
+
+    private static final String JOB_PATH = "/user/jobs/" + JOB_ID;
+
+    /**
+     * Transport serving the errors of a job, which grow by one chunk on
+     * each request after the first, and the job's state.
+     */
+    private static class ErrorsTransport extends MockHttpTransport {
+        private final ByteArrayOutputStream feed = new ByteArrayOutputStream();
+        private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+        private final List<String> ranges = new CopyOnWriteArrayList<>();
+        private volatile boolean honorRange = true;
+        private volatile boolean keepRunning = false;
+        private volatile List<String> inputs = Collections.emptyList();
+
+        @Override
+        public LowLevelHttpRequest buildRequest(final String method, final String url) {
+            return new MockLowLevelHttpRequest(url) {
+                @Override
+                public LowLevelHttpResponse execute() throws IOException {
+                    final String path = url.substring(MockMantaClients.URL.length());
+
+                    if (path.equals(JOB_PATH + "/live/status")) {
+                        final String state = keepRunning || !pending.isEmpty() ? "running" : "done";
+                        return new MockLowLevelHttpResponse()
+                                .setContentType("application/json")
+                                .setContent(String.format("{\"id\":\"%s\",\"name\":\"job\",\"state\":\"%s\"}",
+                                        JOB_ID, state));
+                    }
+
+                    if (path.equals(JOB_PATH + "/live/in")) {
+                        return new MockLowLevelHttpResponse()
+                                .setContentType("text/plain")
+                                .setContent(inputs.stream().map(i -> i + "\n").collect(Collectors.joining())
+                                        .getBytes(StandardCharsets.UTF_8));
+                    }
+
+                    return errors(getFirstHeaderValue("Range"));
+                }
+            };
+        }
+
+        private synchronized LowLevelHttpResponse errors(final String range) throws IOException {
+            if (!ranges.isEmpty() && !pending.isEmpty()) {
+                feed.write(pending.poll().getBytes(StandardCharsets.UTF_8));
+            }
+
+            ranges.add(String.valueOf(range));
+            final byte[] content = feed.toByteArray();
+
+            if (range == null || !honorRange) {
+                return new MockLowLevelHttpResponse()
+                        .setContentType("application/x-json-stream")
+                        .setContent(content);
+            }
+
+            final int start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+
+            if (start >= content.length) {
+                return new MockLowLevelHttpResponse()
+                        .setStatusCode(416)
+                        .setContentType("application/json")
+                        .setContent("{\"code\":\"RequestedRangeNotSatisfiable\",\"message\":\"bad range\"}");
+            }
+
+            return new MockLowLevelHttpResponse()
+                    .setStatusCode(206)
+                    .addHeader("Content-Range", String.format("bytes %d-%d/%d",
+                            start, content.length - 1, content.length))
+                    .setContentType("application/x-json-stream")
+                    .setContent(Arrays.copyOfRange(content, start, content.length));
+        }
+
+        private synchronized void append(final String... records) throws IOException {
+            for (String record : records) {
+                feed.write(record.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private ErrorsTransport transport;
+    private MantaClient client;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        transport = new ErrorsTransport();
+        client = MockMantaClients.create(transport);
+    }
+
+    @AfterMethod
+    public void cleanup() {
+        client.closeQuietly();
+    }
+
+    /**
+     * @param message message of the error, which contains multi-byte
+     *                characters so that byte and character offsets differ
+     * @return error record followed by a newline
+     */
+    private static String record(final String message) {
+        return String.format("{\"phase\":0,\"what\":\"phase 0\",\"code\":\"UserTaskError\","
+                + "\"message\":\"%s ünïcødé\"}\n", message);
+    }
+
+    private static List<String> messages(final Stream<MantaJobError> errors) {
+        return errors.map(e -> e.getMessage().replace(" ünïcødé", "")).collect(Collectors.toList());
+    }
+
+    /**
+     * @param records records read by the iterator
+     * @return offset of the end of the last record, before its trailing newline
+     */
+    private static int offset(final String... records) {
+        return String.join("", records).trim().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    public void parsesAllRecordsWithoutFollowing() throws IOException {
+        transport.append(record("one"), "\n", record("two").trim(), "  ", record("three"));
+
+        try (Stream<MantaJobError> errors = client.getJobErrors(JOB_ID)) {
+            Assert.assertEquals(messages(errors), Arrays.asList("one", "two", "three"));
+        }
+
+        Assert.assertEquals(transport.ranges, Collections.singletonList("null"));
+    }
+
+    public void followRequestsOnlyNewErrors() throws IOException {
+        transport.append(record("one"), record("two"));
+        transport.pending.add(record("three"));
+
+        try (Stream<MantaJobError> errors = client.followJobErrors(JOB_ID, Duration.ofMillis(5L))) {
+            Assert.assertEquals(messages(errors), Arrays.asList("one", "two", "three"));
+        }
+
+        Assert.assertEquals(transport.ranges, Arrays.asList("null",
+                String.format("bytes=%d-", offset(record("one"), record("two"))),
+                String.format("bytes=%d-", offset(record("one"), record("two"), record("three")))));
+    }
+
+    public void followSkipsReadErrorsWhenRangeIsIgnored() throws IOException {
+        transport.honorRange = false;
+        transport.append(record("one"));
+        transport.pending.add(record("two") + record("three"));
+        transport.pending.add(record("four"));
+
+        try (Stream<MantaJobError> errors = client.followJobErrors(JOB_ID, Duration.ofMillis(5L))) {
+            Assert.assertEquals(messages(errors), Arrays.asList("one", "two", "three", "four"));
+        }
+
+        Assert.assertEquals(transport.ranges.size(), 4);
+    }
+
+    public void closeEndsWaitForErrors() throws Exception {
+        transport.keepRunning = true;
+        transport.append(record("one"));
+
+        final Stream<MantaJobError> errors = client.followJobErrors(JOB_ID, Duration.ofHours(1L));
+        final Iterator<MantaJobError> itr = errors.iterator();
+        Assert.assertEquals(itr.next().getCode(), "UserTaskError");
+
+        final CompletableFuture<Boolean> hasNext = CompletableFuture.supplyAsync(itr::hasNext);
+        // Give the follower time to start waiting for the poll interval
+        Thread.sleep(100L);
+        Assert.assertFalse(hasNext.isDone());
+
+        errors.close();
+        Assert.assertFalse(hasNext.get(10L, TimeUnit.SECONDS));
+        Assert.assertEquals(transport.ranges.size(), 1);
+    }
+
+    public void lineStreamsDecodeUtf8() throws IOException {
+        transport.inputs = Arrays.asList("/user/stor/ünïcødé", "/user/stor/日本語", "/user/stor/plain");
+
+        try (Stream<String> inputs = client.getJobInputs(JOB_ID)) {
+            Assert.assertEquals(inputs.collect(Collectors.toList()), transport.inputs);
+        }
+    }
+}
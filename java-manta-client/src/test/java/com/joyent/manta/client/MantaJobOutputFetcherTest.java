@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Tests for verifying the behavior of {@link MantaJobOutputFetcher}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test(timeOut = 30000L)
+public class MantaJobOutputFetcherTest {
+    private static final UUID JOB_ID = UUID.fromString("0c4a1cb6-4a6b-4c0e-a3c7-7e8d94b1f1aa");
+
+    /**
+     * Transport listing the outputs of a job and serving each output after
+     * its configured delay, while tracking how many are fetched at once.
+     */
+    private static class OutputsTransport extends MockHttpTransport {
+        private final List<String> outputs = new ArrayList<>();
+        private final Map<String, Long> delays = new ConcurrentHashMap<>();
+        private final Set<String> failing = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        @Override
+        public LowLevelHttpRequest buildRequest(final String method, final String url) {
+            return new MockLowLevelHttpRequest(url) {
+                @Override
+                public LowLevelHttpResponse execute() throws IOException {
+                    final String path = url.substring(MockMantaClients.URL.length());
+
+                    if (path.equals("/user/jobs/" + JOB_ID + "/live/out")) {
+                        return new MockLowLevelHttpResponse()
+                                .setContentType("text/plain")
+                                .setContent(outputs.stream().map(o -> o + "\n").collect(Collectors.joining()));
+                    }
+
+                    final int now = concurrent.incrementAndGet();
+                    maxConcurrent.accumulateAndGet(now, Math::max);
+
+                    try {
+                        Thread.sleep(delays.getOrDefault(path, 0L));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    } finally {
+                        concurrent.decrementAndGet();
+                    }
+
+                    if (failing.contains(path)) {
+                        return new MockLowLevelHttpResponse().setStatusCode(404);
+                    }
+
+                    return new MockLowLevelHttpResponse()
+                            .setContentType("text/plain")
+                            .setContent("content of " + path);
+                }
+            };
+        }
+
+        private void addOutputs(final int count, final long delayMillis) {
+            IntStream.range(0, count).forEach(i -> {
+                final String path = "/user/jobs/" + JOB_ID + "/stor/output." + i;
+                outputs.add(path);
+                delays.put(path, delayMillis);
+            });
+        }
+
+        private List<String> contents() {
+            return outputs.stream().map(o -> "content of " + o).collect(Collectors.toList());
+        }
+    }
+
+    private OutputsTransport transport;
+    private MantaClient client;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        transport = new OutputsTransport();
+        client = MockMantaClients.create(transport);
+    }
+
+    @AfterMethod
+    public void cleanup() {
+        client.closeQuietly();
+    }
+
+    public void fetchesNoMoreThanTheWindowAtOnce() throws IOException {
+        transport.addOutputs(12, 30L);
+
+        try (MantaJobOutputFetcher fetcher = new MantaJobOutputFetcher(client, 3, true);
+             Stream<String> contents = fetcher.getOutputsAsStrings(JOB_ID)) {
+            Assert.assertEquals(contents.collect(Collectors.toList()), transport.contents());
+        }
+
+        Assert.assertTrue(transport.maxConcurrent.get() <= 3,
+                "Fetched " + transport.maxConcurrent.get() + " outputs at once");
+        Assert.assertTrue(transport.maxConcurrent.get() >= 2, "Outputs weren't fetched concurrently");
+    }
+
+    public void orderedResultsFollowListingOrder() throws IOException {
+        transport.addOutputs(8, 0L);
+        // The earliest outputs are the slowest to fetch
+        for (int i = 0; i < 4; i++) {
+            transport.delays.put(transport.outputs.get(i), 100L - i * 20L);
+        }
+
+        try (MantaJobOutputFetcher fetcher = new MantaJobOutputFetcher(client, 4, true);
+             Stream<String> contents = fetcher.getOutputsAsStrings(JOB_ID)) {
+            Assert.assertEquals(contents.collect(Collectors.toList()), transport.contents());
+        }
+    }
+
+    public void unorderedResultsArriveAsFetched() throws IOException {
+        transport.addOutputs(4, 0L);
+        transport.delays.put(transport.outputs.get(0), 300L);
+
+        final List<String> paths = new ArrayList<>();
+
+        try (MantaJobOutputFetcher fetcher = new MantaJobOutputFetcher(client, 4, false)) {
+            fetcher.forEachOutput(JOB_ID, (path, content) -> {
+                Assert.assertEquals(content, "content of " + path);
+                paths.add(path);
+            });
+        }
+
+        Assert.assertEquals(new HashSet<>(paths), new HashSet<>(transport.outputs));
+        // The slow first output is delivered after the others
+        Assert.assertEquals(paths.get(paths.size() - 1), transport.outputs.get(0));
+    }
+
+    public void failedOutputEndsStream() throws IOException {
+        transport.addOutputs(10, 10L);
+        transport.failing.add(transport.outputs.get(3));
+
+        for (boolean ordered : new boolean[] {true, false}) {
+            try (MantaJobOutputFetcher fetcher = new MantaJobOutputFetcher(client, 3, ordered);
+                 Stream<String> contents = fetcher.getOutputsAsStrings(JOB_ID)) {
+                contents.forEach(content -> { });
+                Assert.fail("Expected the failed output to end the stream");
+            } catch (UncheckedIOException e) {
+                Assert.assertTrue(e.getCause() instanceof MantaClientHttpResponseException);
+            }
+        }
+    }
+
+    public void failedOutputEndsCallback() throws IOException {
+        transport.addOutputs(10, 10L);
+        transport.failing.add(transport.outputs.get(3));
+
+        for (boolean ordered : new boolean[] {true, false}) {
+            final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+
+            try (MantaJobOutputFetcher fetcher = new MantaJobOutputFetcher(client, 3, ordered)) {
+                fetcher.forEachOutput(JOB_ID, (path, content) -> delivered.add(path));
+                Assert.fail("Expected the failed output to end the callback");
+            } catch (MantaClientHttpResponseException e) {
+                Assert.assertEquals(e.getStatusCode(), 404);
+            }
+
+            Assert.assertFalse(delivered.contains(transport.outputs.get(3)));
+
+            if (ordered) {
+                Assert.assertEquals(delivered, transport.outputs.subList(0, 3));
+            }
+        }
+    }
+
+    public void failingConsumerStopsFetching() throws IOException {
+        transport.addOutputs(20, 10L);
+        final AtomicInteger calls = new AtomicInteger();
+
+        try (MantaJobOutputFetcher fetcher = new MantaJobOutputFetcher(client, 2, true)) {
+            fetcher.forEachOutput(JOB_ID, (path, content) -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("consumer failed");
+            });
+            Assert.fail("Expected the consumer's exception");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(e.getMessage(), "consumer failed");
+        }
+
+        Assert.assertEquals(calls.get(), 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsEmptyWindow() {
+        new MantaJobOutputFetcher(client, 0, true);
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import com.joyent.manta.exception.MantaJobException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for verifying the behavior of {@link MantaJobWatcher}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test
+public class MantaJobWatcherTest {
+    /**
+     * Transport serving the states of jobs and listings of running jobs.
+     */
+    private static class JobsTransport extends MockHttpTransport {
+        private final Map<UUID, String> states = new ConcurrentHashMap<>();
+        private final Map<UUID, List<Long>> statusChecks = new ConcurrentHashMap<>();
+        private final AtomicInteger listings = new AtomicInteger();
+        private volatile int unrelatedRunning = 0;
+
+        @Override
+        public LowLevelHttpRequest buildRequest(final String method, final String url) {
+            return new MockLowLevelHttpRequest(url) {
+                @Override
+                public LowLevelHttpResponse execute() throws IOException {
+                    final String path = url.substring(MockMantaClients.URL.length());
+
+                    if (path.equals("/user/jobs?state=running")) {
+                        listings.incrementAndGet();
+                        return listRunning();
+                    }
+
+                    final UUID jobId = UUID.fromString(path.split("/")[3]);
+                    statusChecks.computeIfAbsent(jobId, id -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(System.nanoTime());
+                    final String state = states.get(jobId);
+
+                    if (state == null) {
+                        return new MockLowLevelHttpResponse()
+                                .setStatusCode(404)
+                                .setContentType("application/json")
+                                .setContent("{\"code\":\"ResourceNotFound\",\"message\":\"not found\"}");
+                    }
+
+                    return new MockLowLevelHttpResponse()
+                            .setContentType("application/json")
+                            .setContent(String.format("{\"id\":\"%s\",\"name\":\"job\",\"state\":\"%s\"}",
+                                    jobId, state));
+                }
+            };
+        }
+
+        private LowLevelHttpResponse listRunning() {
+            final StringBuilder body = new StringBuilder();
+
+            states.forEach((id, state) -> {
+                if (state.equals("running")) {
+                    body.append(String.format("{\"name\":\"%s\",\"type\":\"directory\"}\n", id));
+                }
+            });
+
+            for (int i = 0; i < unrelatedRunning; i++) {
+                body.append(String.format("{\"name\":\"%s\",\"type\":\"directory\"}\n", UUID.randomUUID()));
+            }
+
+            return new MockLowLevelHttpResponse()
+                    .setContentType("application/x-json-stream; type=directory")
+                    .setContent(body.toString());
+        }
+
+        private int checks(final UUID jobId) {
+            final List<Long> checks = statusChecks.get(jobId);
+            return checks == null ? 0 : checks.size();
+        }
+    }
+
+    private JobsTransport transport;
+    private MantaClient client;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        transport = new JobsTransport();
+        client = MockMantaClients.create(transport);
+    }
+
+    @AfterMethod
+    public void cleanup() {
+        client.closeQuietly();
+    }
+
+    private MantaJobWatcher watcher(final long initialMillis, final long maxMillis) {
+        return new MantaJobWatcher(client, Duration.ofMillis(initialMillis), Duration.ofMillis(maxMillis));
+    }
+
+    private static void awaitChecks(final JobsTransport transport, final UUID jobId,
+                                    final int count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+
+        while (transport.checks(jobId) < count) {
+            Assert.assertTrue(System.nanoTime() < deadline, "Job wasn't checked in time");
+            Thread.sleep(5L);
+        }
+    }
+
+    public void completesFutureWhenJobIsDone() throws Exception {
+        final UUID jobId = UUID.randomUUID();
+        transport.states.put(jobId, "running");
+
+        try (MantaJobWatcher watcher = watcher(10L, 20L)) {
+            final CompletableFuture<MantaJobBuilder.Done> future = watcher.watch(jobId);
+            Assert.assertSame(watcher.watch(jobId), future);
+
+            awaitChecks(transport, jobId, 2);
+            Assert.assertFalse(future.isDone());
+
+            transport.states.put(jobId, "done");
+            Assert.assertNotNull(future.get(10L, TimeUnit.SECONDS));
+            Assert.assertEquals(watcher.getWatchedCount(), 0);
+        }
+    }
+
+    public void intervalGrowsUpToMaximum() throws Exception {
+        final UUID jobId = UUID.randomUUID();
+        transport.states.put(jobId, "running");
+
+        try (MantaJobWatcher watcher = watcher(20L, 80L)) {
+            watcher.watch(jobId);
+            awaitChecks(transport, jobId, 6);
+        }
+
+        final List<Long> checks = new ArrayList<>(transport.statusChecks.get(jobId));
+        // The interval doubles after each check until it reaches the maximum
+        final long[] minimumGaps = {40L, 80L, 80L, 80L, 80L};
+
+        for (int i = 0; i < minimumGaps.length; i++) {
+            final long gap = TimeUnit.NANOSECONDS.toMillis(checks.get(i + 1) - checks.get(i));
+            Assert.assertTrue(gap >= minimumGaps[i] - 1L,
+                    String.format("Check %d came after %dms, expected at least %dms", i + 1, gap, minimumGaps[i]));
+        }
+
+        // Without the maximum, the last gap would have grown to 640ms
+        final long lastGap = TimeUnit.NANOSECONDS.toMillis(checks.get(5) - checks.get(4));
+        Assert.assertTrue(lastGap < 500L, "Interval wasn't capped: " + lastGap + "ms");
+    }
+
+    public void timeoutCompletesFutureExceptionally() throws Exception {
+        final UUID jobId = UUID.randomUUID();
+        transport.states.put(jobId, "running");
+
+        try (MantaJobWatcher watcher = watcher(10L, 20L)) {
+            final CompletableFuture<MantaJobBuilder.Done> future = watcher.watch(jobId, Duration.ofMillis(100L));
+
+            try {
+                future.get(10L, TimeUnit.SECONDS);
+                Assert.fail("Expected the watch to time out");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof MantaJobException);
+            }
+
+            Assert.assertEquals(watcher.getWatchedCount(), 0);
+        }
+    }
+
+    public void missingJobCompletesFutureExceptionally() throws Exception {
+        try (MantaJobWatcher watcher = watcher(10L, 20L)) {
+            final CompletableFuture<MantaJobBuilder.Done> future = watcher.watch(UUID.randomUUID());
+
+            try {
+                future.get(10L, TimeUnit.SECONDS);
+                Assert.fail("Expected the watch to fail");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof MantaClientHttpResponseException);
+            }
+        }
+    }
+
+    public void foreverTimeoutWaitsUntilDone() throws Exception {
+        final UUID jobId = UUID.randomUUID();
+        transport.states.put(jobId, "done");
+
+        try (MantaJobWatcher watcher = watcher(10L, 20L)) {
+            final CompletableFuture<MantaJobBuilder.Done> forever =
+                    watcher.watch(jobId, ChronoUnit.FOREVER.getDuration());
+
+            Assert.assertNotNull(forever.get(10L, TimeUnit.SECONDS));
+        }
+    }
+
+    public void saturatesLongDurations() {
+        final long max = Long.MAX_VALUE / 2;
+
+        Assert.assertEquals(MantaJobWatcher.saturatedNanos(ChronoUnit.FOREVER.getDuration()), max);
+        Assert.assertEquals(MantaJobWatcher.saturatedNanos(Duration.ofSeconds(Long.MAX_VALUE / 1000L)), max);
+        Assert.assertEquals(MantaJobWatcher.saturatedNanos(Duration.ofMillis(5L)), 5_000_000L);
+        Assert.assertEquals(MantaJobWatcher.saturatedNanos(Duration.ofMillis(-5L)), 0L);
+    }
+
+    public void closeCancelsWatches() {
+        final UUID jobId = UUID.randomUUID();
+        transport.states.put(jobId, "running");
+
+        final MantaJobWatcher watcher = watcher(1000L, 1000L);
+        final CompletableFuture<MantaJobBuilder.Done> future = watcher.watch(jobId);
+        watcher.close();
+
+        Assert.assertTrue(future.isCancelled());
+    }
+
+    public void listsRunningJobsOnlyWhenCheaperThanCheckingJobs() {
+        final long maxInterval = TimeUnit.SECONDS.toNanos(30L);
+        final int perJob = MantaJobWatcher.MAX_RUNNING_JOBS_PER_DUE_JOB;
+
+        // A single job is always checked individually
+        Assert.assertFalse(MantaJobWatcher.shouldListRunningJobs(1, -1, 0L, maxInterval));
+        // Nothing is known about the account before the first listing
+        Assert.assertTrue(MantaJobWatcher.shouldListRunningJobs(2, -1, 0L, maxInterval));
+        Assert.assertTrue(MantaJobWatcher.shouldListRunningJobs(2, 2 * perJob, 0L, maxInterval));
+        // Too many unrelated running jobs on the account
+        Assert.assertFalse(MantaJobWatcher.shouldListRunningJobs(2, 2 * perJob + 1, 0L, maxInterval));
+        Assert.assertTrue(MantaJobWatcher.shouldListRunningJobs(3, 2 * perJob + 1, 0L, maxInterval));
+        // Listed again once the maximum interval has passed
+        Assert.assertTrue(MantaJobWatcher.shouldListRunningJobs(2, 2 * perJob + 1, maxInterval, maxInterval));
+    }
+
+    public void checksJobsIndividuallyWhenAccountHasManyRunningJobs() throws Exception {
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+        transport.states.put(first, "running");
+        transport.states.put(second, "running");
+        transport.unrelatedRunning = 1000;
+
+        try (MantaJobWatcher watcher = watcher(10L, 10_000L)) {
+            final CompletableFuture<MantaJobBuilder.Done> firstDone = watcher.watch(first);
+            final CompletableFuture<MantaJobBuilder.Done> secondDone = watcher.watch(second);
+
+            awaitChecks(transport, first, 3);
+            awaitChecks(transport, second, 3);
+
+            // At most one listing before the maximum interval passed
+            Assert.assertTrue(transport.listings.get() <= 1,
+                    "Listed running jobs " + transport.listings.get() + " times");
+
+            transport.states.put(first, "done");
+            transport.states.put(second, "done");
+            Assert.assertNotNull(firstDone.get(30L, TimeUnit.SECONDS));
+            Assert.assertNotNull(secondDone.get(30L, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Tests for verifying the behavior of {@link MantaLeakTracker}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test
+public class MantaLeakTrackerTest {
+    public void closedObjectsAreReleased() throws Exception {
+        final MantaLeakTracker tracker = new MantaLeakTracker(false);
+        final AtomicBoolean resourceClosed = new AtomicBoolean();
+        final InputStream owner = new ByteArrayInputStream(new byte[0]);
+
+        final MantaLeakTracker.Registration registration = tracker.register(owner, "owner",
+                () -> resourceClosed.set(true));
+        Assert.assertEquals(tracker.size(), 1);
+
+        owner.close();
+        registration.release();
+
+        Assert.assertEquals(tracker.size(), 0);
+        Assert.assertFalse(resourceClosed.get());
+        Assert.assertNull(registration.get());
+    }
+
+    public void closedStreamsAreReleased() {
+        final MantaLeakTracker tracker = new MantaLeakTracker(false);
+
+        try (Stream<String> stream = tracker.track(Stream.of("line"), "stream", null)) {
+            Assert.assertEquals(tracker.size(), 1);
+            Assert.assertEquals(stream.count(), 1L);
+        }
+
+        Assert.assertEquals(tracker.size(), 0);
+    }
+
+    public void leakedObjectsHaveTheirResourcesClosed() throws Exception {
+        final MantaLeakTracker tracker = new MantaLeakTracker(true);
+        final AtomicInteger resourcesClosed = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            registerUnreachable(tracker, resourcesClosed);
+        }
+
+        final long deadline = System.currentTimeMillis() + 10000L;
+
+        while (tracker.size() > 0 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10L);
+        }
+
+        Assert.assertEquals(tracker.size(), 0);
+        Assert.assertEquals(tracker.getLeaked(), 10L);
+        Assert.assertEquals(resourcesClosed.get(), 10);
+    }
+
+    public void closeAllClosesReachableObjects() throws Exception {
+        final MantaLeakTracker tracker = new MantaLeakTracker(false);
+        final AtomicBoolean ownerClosed = new AtomicBoolean();
+        final AtomicBoolean resourceClosed = new AtomicBoolean();
+        final AutoCloseable owner = () -> ownerClosed.set(true);
+        tracker.register(owner, "owner", () -> resourceClosed.set(true));
+
+        final List<Exception> exceptions = new ArrayList<>();
+        tracker.closeAll(exceptions);
+
+        Assert.assertTrue(exceptions.isEmpty());
+        Assert.assertTrue(ownerClosed.get());
+        Assert.assertFalse(resourceClosed.get());
+        Assert.assertEquals(tracker.size(), 0);
+    }
+
+    public void resourceCanBeReplaced() throws Exception {
+        final MantaLeakTracker tracker = new MantaLeakTracker(false);
+        final AtomicBoolean firstClosed = new AtomicBoolean();
+        final AtomicBoolean secondClosed = new AtomicBoolean();
+
+        final MantaLeakTracker.Registration registration = tracker.register(
+                new ByteArrayInputStream(new byte[0]), "owner", () -> firstClosed.set(true));
+        registration.setResource(() -> secondClosed.set(true));
+        registration.clear();
+
+        final List<Exception> exceptions = new ArrayList<>();
+        tracker.closeAll(exceptions);
+
+        Assert.assertFalse(firstClosed.get());
+        Assert.assertTrue(secondClosed.get());
+    }
+
+    private static void registerUnreachable(final MantaLeakTracker tracker,
+                                            final AtomicInteger resourcesClosed) {
+        tracker.register(new ByteArrayInputStream(new byte[0]), "leaked",
+                resourcesClosed::incrementAndGet);
+    }
+}
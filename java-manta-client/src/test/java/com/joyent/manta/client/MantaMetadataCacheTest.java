@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for verifying the behavior of {@link MantaMetadataCache}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+public class MantaMetadataCacheTest {
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeMethod
+    public void reset() {
+        loads.set(0);
+    }
+
+    private MantaObjectResponse load(final String path) {
+        loads.incrementAndGet();
+        return new MantaObjectResponse(path, MantaHttpHeaders.compact("ETag", "abc"));
+    }
+
+    private MantaObjectResponse notFound() throws IOException {
+        loads.incrementAndGet();
+        final MockHttpTransport transport = new MockHttpTransport.Builder()
+                .setLowLevelHttpResponse(new MockLowLevelHttpResponse().setStatusCode(404))
+                .build();
+
+        try {
+            transport.createRequestFactory()
+                    .buildHeadRequest(new GenericUrl("http://localhost/user/stor/missing"))
+                    .execute();
+        } catch (HttpResponseException e) {
+            throw new MantaClientHttpResponseException(e);
+        }
+
+        throw new AssertionError("Request should have failed");
+    }
+
+    private void advanceMillis(final long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    public void resultIsCachedUntilItExpires() throws IOException {
+        final MantaMetadataCache cache = new MantaMetadataCache(10, 100L, now::get);
+        final String path = "/user/stor/object";
+
+        final MantaObjectResponse first = cache.get(path, () -> load(path));
+        advanceMillis(50L);
+        final MantaObjectResponse second = cache.get(path, () -> load(path));
+
+        Assert.assertEquals(loads.get(), 1);
+        Assert.assertNotSame(second, first);
+        Assert.assertEquals(second.getEtag(), "abc");
+        Assert.assertEquals(second.getPath(), path);
+
+        advanceMillis(51L);
+        cache.get(path, () -> load(path));
+
+        Assert.assertEquals(loads.get(), 2);
+        Assert.assertEquals(cache.getHitCount(), 1L);
+        Assert.assertEquals(cache.getMissCount(), 2L);
+    }
+
+    @Test
+    public void notFoundIsCached() throws IOException {
+        final MantaMetadataCache cache = new MantaMetadataCache(10, 100L, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                cache.get("/user/stor/missing", this::notFound);
+                Assert.fail("Expected not found exception");
+            } catch (MantaClientHttpResponseException e) {
+                Assert.assertEquals(e.getStatusCode(), 404);
+            }
+        }
+
+        Assert.assertEquals(loads.get(), 1);
+    }
+
+    @Test
+    public void invalidationRemovesPathAndParent() throws IOException {
+        final MantaMetadataCache cache = new MantaMetadataCache(10, 100L, now::get);
+        final String[] paths = {"/user/stor/dir", "/user/stor/dir/object", "/user/stor/other"};
+
+        for (String path : paths) {
+            cache.get(path, () -> load(path));
+        }
+
+        cache.invalidate("/user/stor/dir/object");
+
+        for (String path : paths) {
+            cache.get(path, () -> load(path));
+        }
+
+        Assert.assertEquals(loads.get(), 5);
+    }
+
+    @Test
+    public void resultIsNotCachedWhenInvalidatedWhileLoading() throws IOException {
+        final MantaMetadataCache cache = new MantaMetadataCache(10, 100L, now::get);
+        final String path = "/user/stor/object";
+
+        cache.get(path, () -> {
+            cache.invalidate(path);
+            return load(path);
+        });
+        cache.get(path, () -> load(path));
+
+        Assert.assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void leastRecentlyUsedResultIsEvicted() throws IOException {
+        final MantaMetadataCache cache = new MantaMetadataCache(2, 100L, now::get);
+
+        cache.get("/user/stor/a", () -> load("/user/stor/a"));
+        cache.get("/user/stor/b", () -> load("/user/stor/b"));
+        cache.get("/user/stor/a", () -> load("/user/stor/a"));
+        cache.get("/user/stor/c", () -> load("/user/stor/c"));
+        cache.get("/user/stor/a", () -> load("/user/stor/a"));
+        cache.get("/user/stor/b", () -> load("/user/stor/b"));
+
+        Assert.assertEquals(loads.get(), 4);
+    }
+}
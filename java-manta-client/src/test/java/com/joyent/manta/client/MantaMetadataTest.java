@@ -6,6 +6,15 @@ package com.joyent.manta.client;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
 /**
  * Unit test class that verifies the correct functioning of {@link MantaMetadata}.
  *
@@ -96,4 +105,67 @@ public class MantaMetadataTest {
         Assert.assertEquals(instance.get("M-HELLO"), "world");
         Assert.assertEquals(instance.get("M-HELlO"), "world");
     }
+
+
+    @Test
+    public void canAddLatin1MetadataKey() {
+        MantaMetadata instance = new MantaMetadata();
+        instance.put("m-caf\u00e9", "world");
+        Assert.assertEquals(instance.get("M-CAF\u00c9"), "world");
+    }
+
+
+    @Test(expectedExceptions = { IllegalArgumentException.class })
+    public void cantComputeInvalidMetadataKey() {
+        MantaMetadata instance = new MantaMetadata();
+        instance.computeIfAbsent("hello", k -> "world");
+    }
+
+
+    @Test
+    public void canAddAndRemoveManyKeys() {
+        MantaMetadata instance = new MantaMetadata();
+        Map<String, String> expected = new HashMap<>();
+
+        for (int i = 0; i < 500; i++) {
+            instance.put("M-Key-" + i, "value-" + i);
+            expected.put("m-key-" + i, "value-" + i);
+        }
+
+        for (int i = 0; i < 500; i += 3) {
+            Assert.assertEquals(instance.remove("m-key-" + i), "value-" + i);
+            expected.remove("m-key-" + i);
+        }
+
+        Iterator<Map.Entry<String, String>> itr = instance.entrySet().iterator();
+        while (itr.hasNext()) {
+            if (itr.next().getKey().endsWith("5")) {
+                itr.remove();
+            }
+        }
+        expected.keySet().removeIf(k -> k.endsWith("5"));
+
+        Assert.assertEquals(instance.size(), expected.size());
+        Assert.assertEquals(instance, expected);
+        Assert.assertEquals(instance.hashCode(), expected.hashCode());
+    }
+
+
+    @Test
+    public void canSerializeMetadata() throws IOException, ClassNotFoundException {
+        MantaMetadata instance = new MantaMetadata();
+        instance.put("m-hello", "world");
+        instance.put("m-deleted", null);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(instance);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            MantaMetadata actual = (MantaMetadata)in.readObject();
+            Assert.assertEquals(actual, instance);
+            Assert.assertTrue(actual.containsKey("m-deleted"));
+        }
+    }
 }
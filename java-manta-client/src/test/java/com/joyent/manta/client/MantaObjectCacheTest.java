@@ -0,0 +1,280 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Tests for verifying the behavior of {@link MantaObjectCache}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+public class MantaObjectCacheTest {
+    private static final String URL = "http://localhost";
+
+    /**
+     * Transport serving objects with an ETag that honors If-None-Match.
+     */
+    private static class ObjectTransport extends MockHttpTransport {
+        private final Map<String, String> objects = new ConcurrentHashMap<>();
+        private final Map<String, Long> lengths = new ConcurrentHashMap<>();
+        private final AtomicInteger downloads = new AtomicInteger();
+        private final AtomicInteger requests = new AtomicInteger();
+
+        @Override
+        public LowLevelHttpRequest buildRequest(final String method, final String url) {
+            return new MockLowLevelHttpRequest(url) {
+                @Override
+                public LowLevelHttpResponse execute() throws IOException {
+                    requests.incrementAndGet();
+                    final String content = objects.get(url.substring(URL.length()));
+
+                    if (content == null) {
+                        return new MockLowLevelHttpResponse().setStatusCode(404);
+                    }
+
+                    final String etag = Integer.toHexString(content.hashCode());
+
+                    if (etag.equals(getFirstHeaderValue("If-None-Match"))) {
+                        return new MockLowLevelHttpResponse().setStatusCode(304);
+                    }
+
+                    downloads.incrementAndGet();
+
+                    final MockLowLevelHttpResponse response = new MockLowLevelHttpResponse()
+                            .addHeader("ETag", etag)
+                            .addHeader("Content-Type", "text/plain")
+                            .setContent(content);
+                    final Long length = lengths.get(url.substring(URL.length()));
+
+                    if (length != null) {
+                        response.addHeader("Content-Length", String.valueOf(length));
+                    }
+
+                    return response;
+                }
+            };
+        }
+    }
+
+    private final AtomicLong now = new AtomicLong(1000L);
+    private Path directory;
+    private ObjectTransport transport;
+    private HttpHelper httpHelper;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("manta-object-cache");
+        transport = new ObjectTransport();
+        httpHelper = new HttpHelper(URL, transport.createRequestFactory());
+    }
+
+    @AfterMethod
+    public void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private MantaObjectCache cache(final long maxBytes, final long ttlMillis) throws IOException {
+        return new MantaObjectCache(directory, maxBytes, ttlMillis, 0, now::get);
+    }
+
+    private MantaObjectCache cache(final long maxBytes, final long ttlMillis,
+                                   final long maxAgeMillis) throws IOException {
+        return new MantaObjectCache(directory, maxBytes, ttlMillis, maxAgeMillis, now::get);
+    }
+
+    private static String read(final MantaObjectCache cache, final String path,
+                               final HttpHelper httpHelper) throws IOException {
+        try (InputStream in = cache.getAsInputStream(path, httpHelper, null)) {
+            return MantaUtils.inputStreamToString(in);
+        }
+    }
+
+    @Test
+    public void unchangedObjectIsReadFromCache() throws IOException {
+        transport.objects.put("/user/stor/config", "config content");
+        final MantaObjectCache cache = cache(1024L, 0L);
+
+        Assert.assertEquals(read(cache, "/user/stor/config", httpHelper), "config content");
+
+        try (MantaObjectInputStream in = cache.getAsInputStream("/user/stor/config", httpHelper, null)) {
+            Assert.assertEquals(MantaUtils.inputStreamToString(in), "config content");
+            Assert.assertEquals(in.getContentType(), "text/plain");
+        }
+
+        Assert.assertEquals(cache.get("/user/stor/config", httpHelper).getContentType(), "text/plain");
+        Assert.assertEquals(transport.downloads.get(), 1);
+        Assert.assertEquals(cache.getHitCount(), 2L);
+        Assert.assertEquals(cache.getMissCount(), 1L);
+        Assert.assertEquals(cache.getSize(), "config content".length());
+    }
+
+    @Test
+    public void freshObjectIsReadWithoutRequest() throws IOException {
+        transport.objects.put("/user/stor/dataset", "reference data");
+        final MantaObjectCache cache = cache(1024L, 0L, 5000L);
+
+        Assert.assertEquals(read(cache, "/user/stor/dataset", httpHelper), "reference data");
+        now.addAndGet(5000L);
+        Assert.assertEquals(read(cache, "/user/stor/dataset", httpHelper), "reference data");
+        Assert.assertEquals(cache.get("/user/stor/dataset", httpHelper).getContentType(), "text/plain");
+        Assert.assertEquals(transport.requests.get(), 1);
+
+        // Revalidated once the max age has passed
+        now.addAndGet(1L);
+        Assert.assertEquals(read(cache, "/user/stor/dataset", httpHelper), "reference data");
+        Assert.assertEquals(transport.requests.get(), 2);
+        Assert.assertEquals(transport.downloads.get(), 1);
+
+        // Fresh again after being revalidated
+        Assert.assertEquals(read(cache, "/user/stor/dataset", httpHelper), "reference data");
+        Assert.assertEquals(transport.requests.get(), 2);
+    }
+
+    @Test
+    public void loadedObjectIsRevalidatedBeforeReadingWithoutRequest() throws IOException {
+        transport.objects.put("/user/stor/dataset", "reference data");
+        read(cache(1024L, 0L, 5000L), "/user/stor/dataset", httpHelper);
+
+        final MantaObjectCache reloaded = cache(1024L, 0L, 5000L);
+        Assert.assertEquals(read(reloaded, "/user/stor/dataset", httpHelper), "reference data");
+        Assert.assertEquals(read(reloaded, "/user/stor/dataset", httpHelper), "reference data");
+        Assert.assertEquals(transport.requests.get(), 2);
+        Assert.assertEquals(transport.downloads.get(), 1);
+    }
+
+    @Test
+    public void readersOfMappedContentAreIndependent() throws IOException {
+        transport.objects.put("/user/stor/shared", "0123456789");
+        final MantaObjectCache cache = cache(1024L, 0L, 5000L);
+        read(cache, "/user/stor/shared", httpHelper);
+
+        try (InputStream first = cache.getAsInputStream("/user/stor/shared", httpHelper, null);
+             InputStream second = cache.getAsInputStream("/user/stor/shared", httpHelper, null)) {
+            Assert.assertEquals(first.skip(4L), 4L);
+            Assert.assertEquals(first.available(), 6);
+            first.mark(10);
+            Assert.assertEquals(first.read(), '4');
+            first.reset();
+
+            Assert.assertEquals(MantaUtils.inputStreamToString(second), "0123456789");
+            Assert.assertEquals(MantaUtils.inputStreamToString(first), "456789");
+            Assert.assertEquals(first.read(), -1);
+        }
+    }
+
+    @Test
+    public void changedObjectIsDownloadedAgain() throws IOException {
+        transport.objects.put("/user/stor/config", "version 1");
+        final MantaObjectCache cache = cache(1024L, 0L);
+        read(cache, "/user/stor/config", httpHelper);
+
+        transport.objects.put("/user/stor/config", "version 2");
+
+        Assert.assertEquals(read(cache, "/user/stor/config", httpHelper), "version 2");
+        Assert.assertEquals(read(cache, "/user/stor/config", httpHelper), "version 2");
+        Assert.assertEquals(transport.downloads.get(), 2);
+        Assert.assertEquals(cache.getSize(), "version 2".length());
+    }
+
+    @Test
+    public void partiallyReadObjectIsNotCached() throws IOException {
+        transport.objects.put("/user/stor/model", "model content");
+        final MantaObjectCache cache = cache(1024L, 0L);
+
+        try (InputStream in = cache.getAsInputStream("/user/stor/model", httpHelper, null)) {
+            Assert.assertEquals(in.read(), 'm');
+        }
+
+        Assert.assertEquals(cache.getSize(), 0L);
+        read(cache, "/user/stor/model", httpHelper);
+        Assert.assertEquals(transport.downloads.get(), 2);
+    }
+
+    @Test
+    public void objectTooLargeToMapIsNotCached() throws IOException {
+        transport.objects.put("/user/stor/archive", "archive content");
+        transport.lengths.put("/user/stor/archive", MantaObjectCache.MAX_OBJECT_BYTES + 1);
+        final MantaObjectCache cache = cache(Long.MAX_VALUE, 0L);
+
+        Assert.assertEquals(read(cache, "/user/stor/archive", httpHelper), "archive content");
+        Assert.assertEquals(read(cache, "/user/stor/archive", httpHelper), "archive content");
+
+        Assert.assertEquals(cache.getSize(), 0L);
+        Assert.assertEquals(cache.getHitCount(), 0L);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            Assert.assertEquals(files.count(), 0L);
+        }
+    }
+
+    @Test
+    public void leastRecentlyUsedObjectIsEvicted() throws IOException {
+        transport.objects.put("/user/stor/a", "aaaaaa");
+        transport.objects.put("/user/stor/b", "bbbbbb");
+        transport.objects.put("/user/stor/large", "large content");
+        final MantaObjectCache cache = cache(10L, 0L);
+
+        read(cache, "/user/stor/large", httpHelper);
+        Assert.assertEquals(cache.getSize(), 0L);
+
+        read(cache, "/user/stor/a", httpHelper);
+        now.addAndGet(10L);
+        read(cache, "/user/stor/b", httpHelper);
+        Assert.assertEquals(cache.getSize(), 6L);
+
+        read(cache, "/user/stor/b", httpHelper);
+        read(cache, "/user/stor/a", httpHelper);
+        Assert.assertEquals(transport.downloads.get(), 4);
+        Assert.assertEquals(cache.getHitCount(), 1L);
+    }
+
+    @Test
+    public void unusedObjectExpires() throws IOException {
+        transport.objects.put("/user/stor/config", "config content");
+        final MantaObjectCache cache = cache(1024L, 100L);
+
+        read(cache, "/user/stor/config", httpHelper);
+        now.addAndGet(50L);
+        read(cache, "/user/stor/config", httpHelper);
+        now.addAndGet(101L);
+        read(cache, "/user/stor/config", httpHelper);
+
+        Assert.assertEquals(transport.downloads.get(), 2);
+        Assert.assertEquals(cache.getHitCount(), 1L);
+    }
+
+    @Test
+    public void cachedObjectsAreLoadedFromDirectory() throws IOException {
+        transport.objects.put("/user/stor/config", "config content");
+        read(cache(1024L, 0L), "/user/stor/config", httpHelper);
+
+        final MantaObjectCache reloaded = cache(1024L, 0L);
+
+        Assert.assertEquals(reloaded.getSize(), "config content".length());
+        Assert.assertEquals(read(reloaded, "/user/stor/config", httpHelper), "config content");
+        Assert.assertEquals(transport.downloads.get(), 1);
+    }
+}
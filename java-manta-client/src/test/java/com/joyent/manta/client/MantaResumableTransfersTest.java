@@ -0,0 +1,257 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.joyent.manta.exception.MantaChecksumFailedException;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tests for verifying the behavior of the downloads of
+ * {@link MantaResumableTransfers}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test(timeOut = 30000L)
+public class MantaResumableTransfersTest {
+    private static final String PATH = "/user/stor/object";
+
+    private static final String ETAG = "5d3c1a0e-2c4b-4d7e-9a7f-1b2c3d4e5f60";
+
+    /**
+     * Transport serving a single object, which honors ranges of objects
+     * stored without a <code>Content-Encoding</code> and fails the first
+     * response after a number of bytes. Like Manta, it rejects ranges
+     * starting at the end of the object.
+     */
+    private static class ObjectTransport extends MockHttpTransport {
+        private final List<String> methods = new CopyOnWriteArrayList<>();
+        private final List<String> ranges = new CopyOnWriteArrayList<>();
+        private final List<String> ifMatches = new CopyOnWriteArrayList<>();
+        private volatile byte[] stored;
+        private volatile String encoding;
+        private volatile String md5;
+        private volatile int failAfter = -1;
+
+        @Override
+        public LowLevelHttpRequest buildRequest(final String method, final String url) {
+            return new MockLowLevelHttpRequest(url) {
+                @Override
+                public LowLevelHttpResponse execute() throws IOException {
+                    final String range = getFirstHeaderValue("Range");
+                    methods.add(method);
+                    ranges.add(String.valueOf(range));
+                    ifMatches.add(String.valueOf(getFirstHeaderValue("If-Match")));
+
+                    final MockLowLevelHttpResponse response = new MockLowLevelHttpResponse()
+                            .setContentType("application/octet-stream")
+                            .addHeader("ETag", ETAG)
+                            .addHeader("Content-MD5", md5);
+                    int start = 0;
+
+                    if (range != null && encoding == null) {
+                        start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+
+                        if (start >= stored.length) {
+                            return new MockLowLevelHttpResponse().setStatusCode(416);
+                        }
+
+                        response.setStatusCode(206).addHeader("Content-Range",
+                                String.format("bytes %d-%d/%d", start, stored.length - 1, stored.length));
+                    }
+
+                    if (encoding != null) {
+                        response.setContentEncoding(encoding).addHeader("Content-Encoding", encoding);
+                    }
+
+                    final byte[] content = Arrays.copyOfRange(stored, start, stored.length);
+                    final int fail = failAfter;
+                    failAfter = -1;
+
+                    return response.setContentLength(content.length)
+                            .setContent(fail < 0 ? new ByteArrayInputStream(content) : failing(content, fail));
+                }
+            };
+        }
+
+        private void store(final byte[] content, final String contentEncoding) {
+            this.stored = content;
+            this.encoding = contentEncoding;
+            this.md5 = Base64.encodeBase64String(DigestUtils.md5(content));
+        }
+    }
+
+    /**
+     * @param content content of the stream
+     * @param failAfter number of bytes read before the stream fails
+     * @return stream failing after the specified number of bytes
+     */
+    private static InputStream failing(final byte[] content, final int failAfter) {
+        return new FilterInputStream(new ByteArrayInputStream(content, 0, failAfter)) {
+            @Override
+            public int read() throws IOException {
+                return check(super.read());
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                return check(super.read(b, off, len));
+            }
+
+            private int check(final int read) throws IOException {
+                if (read == -1) {
+                    throw new IOException("Connection reset");
+                }
+
+                return read;
+            }
+        };
+    }
+
+    private ObjectTransport transport;
+    private MantaClient client;
+    private Path directory;
+    private Path destination;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        transport = new ObjectTransport();
+        client = MockMantaClients.create(transport);
+        directory = Files.createTempDirectory("manta-resumable-transfers");
+        destination = directory.resolve("object");
+    }
+
+    @AfterMethod
+    public void cleanup() throws IOException {
+        client.closeQuietly();
+
+        for (String name : new String[] {"", MantaResumableTransfers.PART_SUFFIX,
+                MantaResumableTransfers.JOURNAL_SUFFIX}) {
+            Files.deleteIfExists(directory.resolve("object" + name));
+        }
+
+        Files.deleteIfExists(directory);
+    }
+
+    private static byte[] content(final int length) {
+        final byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+        return content;
+    }
+
+    private static byte[] gzip(final byte[] content) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+
+        return out.toByteArray();
+    }
+
+    private void assertDownloaded(final byte[] expected) throws IOException {
+        Assert.assertEquals(Files.readAllBytes(destination), expected);
+        Assert.assertFalse(Files.exists(directory.resolve("object" + MantaResumableTransfers.PART_SUFFIX)));
+        Assert.assertFalse(Files.exists(directory.resolve("object" + MantaResumableTransfers.JOURNAL_SUFFIX)));
+    }
+
+    public void resumesFailedDownloadFromOffset() throws IOException {
+        final byte[] content = content(200000);
+        transport.store(content, null);
+        transport.failAfter = 70000;
+
+        new MantaResumableTransfers(client, directory).download(PATH, destination);
+
+        assertDownloaded(content);
+        Assert.assertEquals(transport.ranges.size(), 2);
+        Assert.assertEquals(transport.ranges.get(0), "null");
+        Assert.assertEquals(transport.ranges.get(1), "bytes=70000-");
+        Assert.assertEquals(transport.ifMatches.get(1), ETAG);
+    }
+
+    public void completesDownloadInterruptedAtEndOfObject() throws IOException {
+        final byte[] content = content(100000);
+        transport.store(content, null);
+        Files.write(directory.resolve("object" + MantaResumableTransfers.PART_SUFFIX), content);
+        new MantaTransferJournal(PATH).setEtag(ETAG).setMd5(transport.md5)
+                .setLength(content.length).setOffset(content.length)
+                .write(directory.resolve("object" + MantaResumableTransfers.JOURNAL_SUFFIX));
+
+        final MantaObjectResponse response = new MantaResumableTransfers(client, directory)
+                .download(PATH, destination);
+
+        assertDownloaded(content);
+        Assert.assertEquals(response.getEtag(), ETAG);
+        Assert.assertEquals(transport.methods, Arrays.asList("HEAD"));
+    }
+
+    public void restartsDownloadAtEndOfModifiedObject() throws IOException {
+        final byte[] content = content(100000);
+        transport.store(content, null);
+        Files.write(directory.resolve("object" + MantaResumableTransfers.PART_SUFFIX), content(50000));
+        new MantaTransferJournal(PATH).setEtag("modified").setMd5(transport.md5)
+                .setLength(50000).setOffset(50000)
+                .write(directory.resolve("object" + MantaResumableTransfers.JOURNAL_SUFFIX));
+
+        new MantaResumableTransfers(client, directory).download(PATH, destination);
+
+        assertDownloaded(content);
+        Assert.assertEquals(transport.methods, Arrays.asList("HEAD", "GET"));
+        Assert.assertEquals(transport.ranges, Arrays.asList("null", "null"));
+    }
+
+    public void restartsFailedDownloadOfEncodedObject() throws IOException {
+        final byte[] content = new byte[300000];
+        Arrays.fill(content, (byte)'m');
+        System.arraycopy(content(50000), 0, content, 0, 50000);
+
+        final byte[] compressed = gzip(content);
+        transport.store(compressed, "gzip");
+        transport.failAfter = compressed.length / 2;
+
+        new MantaResumableTransfers(client, directory).download(PATH, destination);
+
+        // The checksum of the compressed content isn't compared with the decoded file
+        assertDownloaded(content);
+        Assert.assertEquals(transport.ranges, Arrays.asList("null", "null"));
+    }
+
+    public void rejectsDownloadNotMatchingChecksum() throws IOException {
+        final byte[] content = content(5000);
+        transport.store(content, null);
+        transport.md5 = Base64.encodeBase64String(DigestUtils.md5("other content"));
+
+        try {
+            new MantaResumableTransfers(client, directory).download(PATH, destination);
+            Assert.fail("Expected the checksum to be rejected");
+        } catch (MantaChecksumFailedException e) {
+            Assert.assertTrue(e.getMessage().contains(transport.md5), e.getMessage());
+        }
+
+        Assert.assertFalse(Files.exists(destination));
+        Assert.assertFalse(Files.exists(directory.resolve("object" + MantaResumableTransfers.PART_SUFFIX)));
+    }
+}
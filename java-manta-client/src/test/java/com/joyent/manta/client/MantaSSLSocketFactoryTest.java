@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.joyent.manta.config.StandardConfigContext;
+import org.apache.http.params.BasicHttpParams;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+
+/**
+ * Tests for verifying the behavior of {@link MantaSSLSocketFactory}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+public class MantaSSLSocketFactoryTest {
+    private SSLContext context;
+    private String[] defaultProtocols;
+    private String[] defaultCiphers;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        context = SSLContext.getInstance("TLS");
+        context.init(null, null, null);
+        defaultProtocols = context.getDefaultSSLParameters().getProtocols();
+        defaultCiphers = context.getDefaultSSLParameters().getCipherSuites();
+    }
+
+    @Test
+    public void usesDefaultsWhenNotConfigured() throws Exception {
+        final MantaSSLSocketFactory factory = new MantaSSLSocketFactory(context,
+                new StandardConfigContext());
+
+        try (SSLSocket socket = (SSLSocket)factory.createSocket(new BasicHttpParams())) {
+            Assert.assertEquals(socket.getEnabledProtocols(), defaultProtocols);
+            Assert.assertEquals(socket.getEnabledCipherSuites(), defaultCiphers);
+        }
+    }
+
+    @Test
+    public void enablesSupportedConfiguredValuesInConfiguredOrder() throws Exception {
+        final String protocols = String.format("SSLv1, %s", defaultProtocols[0]);
+        final String ciphers = String.format("%s,NOT_A_CIPHER,%s,%s",
+                defaultCiphers[1], defaultCiphers[0], defaultCiphers[1]);
+        final MantaSSLSocketFactory factory = new MantaSSLSocketFactory(context,
+                new StandardConfigContext().setHttpsProtocols(protocols).setHttpsCiphers(ciphers));
+
+        for (int i = 0; i < 2; i++) {
+            try (SSLSocket socket = (SSLSocket)factory.createSocket(new BasicHttpParams())) {
+                Assert.assertEquals(socket.getEnabledProtocols(), new String[] {defaultProtocols[0]});
+                Assert.assertEquals(socket.getEnabledCipherSuites(),
+                        new String[] {defaultCiphers[1], defaultCiphers[0]});
+            }
+        }
+    }
+
+    @Test
+    public void usesDefaultsWhenNoConfiguredValueIsSupported() throws Exception {
+        final MantaSSLSocketFactory factory = new MantaSSLSocketFactory(context,
+                new StandardConfigContext().setHttpsCiphers("NOT_A_CIPHER"));
+
+        try (SSLSocket socket = (SSLSocket)factory.createSocket(new BasicHttpParams())) {
+            Assert.assertEquals(socket.getEnabledCipherSuites(), defaultCiphers);
+        }
+    }
+
+    @Test
+    public void configuresSessionCache() {
+        final MantaSSLSocketFactory factory = new MantaSSLSocketFactory(context,
+                new StandardConfigContext().setTlsSessionCacheSize(64).setTlsSessionTimeout(600));
+
+        Assert.assertEquals(context.getClientSessionContext().getSessionCacheSize(), 64);
+        Assert.assertEquals(context.getClientSessionContext().getSessionTimeout(), 600);
+        Assert.assertEquals(factory.getFullHandshakeCount(), 0L);
+        Assert.assertEquals(factory.getResumedHandshakeCount(), 0L);
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for verifying the behavior of {@link MantaSeekableByteChannel}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test
+public class MantaSeekableByteChannelTest {
+    private static final GenericUrl URL = new GenericUrl("http://localhost/user/stor/object");
+
+    public void positionCountsBytesReadByAllThreads() throws Exception {
+        final int threads = 8;
+        final byte[] content = new byte[threads * 20000];
+        final MantaSeekableByteChannel channel = channel(content);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            final List<Future<Integer>> futures = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    int read = 0;
+
+                    while (channel.read() != -1) {
+                        read++;
+                    }
+
+                    return read;
+                }));
+            }
+
+            int total = 0;
+
+            for (Future<Integer> future : futures) {
+                total += future.get(1, TimeUnit.MINUTES);
+            }
+
+            Assert.assertEquals(total, content.length);
+            Assert.assertEquals(channel.position(), content.length);
+        } finally {
+            executor.shutdownNow();
+            channel.close();
+        }
+    }
+
+    public void endOfContentDoesNotMovePosition() throws Exception {
+        final byte[] content = new byte[10];
+
+        try (MantaSeekableByteChannel channel = channel(content)) {
+            Assert.assertEquals(channel.read(new byte[20], 0, 20), content.length);
+            Assert.assertEquals(channel.read(), -1);
+            Assert.assertEquals(channel.read(new byte[20]), -1);
+            Assert.assertEquals(channel.position(), content.length);
+        }
+    }
+
+    private static MantaSeekableByteChannel channel(final byte[] content) {
+        final MockLowLevelHttpResponse response = new MockLowLevelHttpResponse()
+                .setContent(content)
+                .setContentType("application/octet-stream");
+        final MockHttpTransport transport = new MockHttpTransport.Builder()
+                .setLowLevelHttpResponse(response)
+                .build();
+
+        return new MantaSeekableByteChannel(URL, transport.createRequestFactory());
+    }
+}
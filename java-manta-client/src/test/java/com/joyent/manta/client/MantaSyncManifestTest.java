@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Tests for verifying the behavior of {@link MantaSyncManifest}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test
+public class MantaSyncManifestTest {
+    private Path directory;
+
+    private Path file;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("manta-sync-manifest");
+        file = directory.resolve("manifest");
+    }
+
+    @AfterMethod
+    public void cleanUp() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+    public void unchangedOnlyWhenAllAttributesMatch() throws IOException {
+        try (MantaSyncManifest manifest = new MantaSyncManifest(file)) {
+            manifest.record("dir/file", 10, 1000, "etag");
+
+            Assert.assertTrue(manifest.isUnchanged("dir/file", 10, 1000, "etag"));
+            Assert.assertFalse(manifest.isUnchanged("dir/file", 11, 1000, "etag"));
+            Assert.assertFalse(manifest.isUnchanged("dir/file", 10, 1001, "etag"));
+            Assert.assertFalse(manifest.isUnchanged("dir/file", 10, 1000, "other"));
+            Assert.assertFalse(manifest.isUnchanged("dir/other", 10, 1000, "etag"));
+        }
+    }
+
+    public void entriesAreJournaledBeforeClose() throws IOException {
+        final MantaSyncManifest manifest = new MantaSyncManifest(file);
+
+        try {
+            manifest.record("a", 1, 1, "etag-a");
+            manifest.record("a", 2, 2, "etag-b");
+
+            // Simulates a crash by reading the journal while it is still open
+            final MantaSyncManifest resumed = new MantaSyncManifest(file);
+            Assert.assertTrue(resumed.isUnchanged("a", 2, 2, "etag-b"));
+            resumed.close();
+        } finally {
+            manifest.close();
+        }
+    }
+
+    public void closeCompactsDuplicateEntries() throws IOException {
+        try (MantaSyncManifest manifest = new MantaSyncManifest(file)) {
+            manifest.record("a", 1, 1, "etag-1");
+            manifest.record("a", 1, 1, "etag-2");
+            manifest.record("b", 1, 1, "etag-3");
+        }
+
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assert.assertEquals(lines.size(), 2);
+
+        try (MantaSyncManifest manifest = new MantaSyncManifest(file)) {
+            Assert.assertEquals(manifest.size(), 2);
+            Assert.assertTrue(manifest.isUnchanged("a", 1, 1, "etag-2"));
+        }
+    }
+
+    public void pathsWithSeparatorsAreEncoded() throws IOException {
+        final String path = "dir with\ttab/and\nnewline %";
+
+        try (MantaSyncManifest manifest = new MantaSyncManifest(file)) {
+            manifest.record(path, 3, 3, "etag");
+        }
+
+        try (MantaSyncManifest manifest = new MantaSyncManifest(file)) {
+            Assert.assertTrue(manifest.isUnchanged(path, 3, 3, "etag"));
+        }
+    }
+
+    public void truncatedEntriesAreIgnored() throws IOException {
+        Files.write(file, "a\t1\t1\tetag\nb\t2\t".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE);
+
+        try (MantaSyncManifest manifest = new MantaSyncManifest(file)) {
+            Assert.assertEquals(manifest.size(), 1);
+            Assert.assertTrue(manifest.isUnchanged("a", 1, 1, "etag"));
+        }
+    }
+}
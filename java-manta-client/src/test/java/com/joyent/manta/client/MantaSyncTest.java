@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.joyent.manta.exception.MantaChecksumFailedException;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tests for verifying the behavior of the downloads of {@link MantaSync}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test(timeOut = 30000L)
+public class MantaSyncTest {
+    private static final String DIRECTORY = "/user/stor/dir";
+
+    private static final byte[] CONTENT = "content of the object, content of the object"
+            .getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Transport serving a directory containing a single object.
+     */
+    private static class DirectoryTransport extends MockHttpTransport {
+        private volatile byte[] stored = CONTENT;
+        private volatile String encoding;
+        private volatile String md5 = Base64.encodeBase64String(DigestUtils.md5(CONTENT));
+
+        @Override
+        public LowLevelHttpRequest buildRequest(final String method, final String url) {
+            return new MockLowLevelHttpRequest(url) {
+                @Override
+                public LowLevelHttpResponse execute() throws IOException {
+                    final String path = url.substring(MockMantaClients.URL.length());
+
+                    if (path.equals(DIRECTORY)) {
+                        return new MockLowLevelHttpResponse()
+                                .addHeader("Content-Type", MantaObjectResponse.DIRECTORY_RESPONSE_CONTENT_TYPE);
+                    }
+
+                    if (path.startsWith(DIRECTORY + "?")) {
+                        return new MockLowLevelHttpResponse()
+                                .addHeader("Content-Type", MantaObjectResponse.DIRECTORY_RESPONSE_CONTENT_TYPE)
+                                .setContent(String.format("{\"name\":\"object\",\"type\":\"object\","
+                                        + "\"mtime\":\"2016-10-10T00:00:00.000Z\",\"etag\":\"etag\","
+                                        + "\"size\":%d}\n", stored.length));
+                    }
+
+                    final MockLowLevelHttpResponse response = new MockLowLevelHttpResponse()
+                            .setContentType("application/octet-stream")
+                            .addHeader("ETag", "etag")
+                            .addHeader("Content-MD5", md5)
+                            .setContent(stored);
+
+                    if (encoding != null) {
+                        response.setContentEncoding(encoding).addHeader("Content-Encoding", encoding);
+                    }
+
+                    return response;
+                }
+            };
+        }
+    }
+
+    private DirectoryTransport transport;
+    private MantaClient client;
+    private Path directory;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        transport = new DirectoryTransport();
+        client = MockMantaClients.create(transport);
+        directory = Files.createTempDirectory("manta-sync");
+    }
+
+    @AfterMethod
+    public void cleanup() throws IOException {
+        client.closeQuietly();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>)files::iterator) {
+                Files.delete(file);
+            }
+        }
+
+        Files.delete(directory);
+    }
+
+    public void downloadsVerifiedObject() throws IOException {
+        try (MantaSync sync = new MantaSync(client, 1)) {
+            final MantaSync.Result result = sync.download(DIRECTORY, directory);
+            Assert.assertTrue(result.isSuccessful(), result.toString());
+            Assert.assertEquals(result.getTransferred(), 1L);
+        }
+
+        Assert.assertEquals(Files.readAllBytes(directory.resolve("object")), CONTENT);
+    }
+
+    public void downloadsEncodedObjectWithoutComparingChecksum() throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(CONTENT);
+        }
+
+        transport.stored = compressed.toByteArray();
+        transport.encoding = "gzip";
+        transport.md5 = Base64.encodeBase64String(DigestUtils.md5(transport.stored));
+
+        try (MantaSync sync = new MantaSync(client, 1)) {
+            final MantaSync.Result result = sync.download(DIRECTORY, directory);
+            Assert.assertTrue(result.isSuccessful(), result.toString());
+        }
+
+        Assert.assertEquals(Files.readAllBytes(directory.resolve("object")), CONTENT);
+    }
+
+    public void rejectsObjectNotMatchingChecksum() throws IOException {
+        transport.md5 = Base64.encodeBase64String(DigestUtils.md5("other content"));
+
+        try (MantaSync sync = new MantaSync(client, 1)) {
+            final MantaSync.Result result = sync.download(DIRECTORY, directory);
+            Assert.assertFalse(result.isSuccessful());
+            Assert.assertTrue(result.getFailures().get("object") instanceof MantaChecksumFailedException,
+                    result.toString());
+        }
+
+        Assert.assertFalse(Files.exists(directory.resolve("object")));
+    }
+}
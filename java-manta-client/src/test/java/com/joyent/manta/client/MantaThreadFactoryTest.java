@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.joyent.manta.config.ConfigContext;
+import com.joyent.manta.config.StandardConfigContext;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for verifying the behavior of {@link MantaThreadFactory}. The tests
+ * of virtual threads are skipped on JVMs without them, so they only run
+ * when building on Java 21 or later.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test
+public class MantaThreadFactoryTest {
+    public void platformThreadsAreNamedDaemonThreads() {
+        final AtomicInteger counter = new AtomicInteger();
+        final MantaThreadFactory factory = new MantaThreadFactory("manta-test-", counter, false);
+
+        final Thread first = factory.newThread(() -> { });
+        final Thread second = new MantaThreadFactory("manta-test-", counter, false).newThread(() -> { });
+
+        Assert.assertFalse(factory.isVirtual());
+        Assert.assertEquals(first.getName(), "manta-test-1");
+        Assert.assertEquals(second.getName(), "manta-test-2");
+        Assert.assertTrue(first.isDaemon());
+        Assert.assertFalse(isVirtual(first));
+    }
+
+    public void virtualThreadsAreCreatedWhenSupported() throws InterruptedException {
+        if (!MantaThreadFactory.isVirtualThreadSupported()) {
+            throw new SkipException("Virtual threads aren't supported by this JVM");
+        }
+
+        final MantaThreadFactory factory = new MantaThreadFactory("manta-test-", new AtomicInteger(), true);
+        final AtomicInteger runs = new AtomicInteger();
+
+        final Thread thread = factory.newThread(runs::incrementAndGet);
+        thread.start();
+        thread.join();
+
+        Assert.assertTrue(factory.isVirtual());
+        Assert.assertTrue(isVirtual(thread));
+        Assert.assertEquals(thread.getName(), "manta-test-1");
+        Assert.assertTrue(thread.isDaemon());
+        Assert.assertEquals(runs.get(), 1);
+    }
+
+    public void configuredExecutorsRunOnVirtualThreadsWhenSupported() throws Exception {
+        if (!MantaThreadFactory.isVirtualThreadSupported()) {
+            throw new SkipException("Virtual threads aren't supported by this JVM");
+        }
+
+        final ConfigContext config = new StandardConfigContext().setVirtualThreads(true);
+
+        for (ExecutorService executor : new ExecutorService[] {
+                MantaBulk.executor(config), MantaObjectOutputStream.executor(config)}) {
+            final Thread thread = executor.submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+            Assert.assertTrue(isVirtual(thread), thread.getName());
+        }
+    }
+
+    public void platformThreadsAreCreatedWhenVirtualThreadsAreUnsupported() {
+        if (MantaThreadFactory.isVirtualThreadSupported()) {
+            throw new SkipException("Virtual threads are supported by this JVM");
+        }
+
+        final MantaThreadFactory factory = new MantaThreadFactory("manta-test-", new AtomicInteger(), true);
+        final Thread thread = factory.newThread(() -> { });
+
+        Assert.assertFalse(factory.isVirtual());
+        Assert.assertFalse(isVirtual(thread));
+        Assert.assertEquals(thread.getName(), "manta-test-1");
+        Assert.assertTrue(thread.isDaemon());
+    }
+
+    public void virtualThreadsAreOptIn() {
+        Assert.assertFalse(MantaThreadFactory.useVirtualThreads(null));
+        Assert.assertFalse(MantaThreadFactory.useVirtualThreads(new StandardConfigContext()));
+        Assert.assertTrue(MantaThreadFactory.useVirtualThreads(
+                new StandardConfigContext().setVirtualThreads(true)));
+    }
+
+    private static boolean isVirtual(final Thread thread) {
+        try {
+            return (boolean)Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.joyent.manta.exception.MantaTimeoutException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for verifying the behavior of {@link MantaTimeouts} and
+ * {@link RequestDeadline}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+public class MantaTimeoutsTest {
+    private static final GenericUrl URL = new GenericUrl("http://localhost/user/stor/object");
+
+    private final HttpRequestFactory factory = new MockHttpTransport().createRequestFactory(request -> {
+        final MantaRetryHandler handler = new MantaRetryHandler(
+                new ExponentialBackoffRetryPolicy(1000L, 1000L), new RequestDeadline(0L));
+        request.setConnectTimeout(20000);
+        request.setReadTimeout(20000);
+        request.setUnsuccessfulResponseHandler(handler);
+        request.setIOExceptionHandler(handler);
+    });
+
+    @Test
+    public void overridesOnlySetTimeouts() throws IOException {
+        final HttpRequest request = factory.buildHeadRequest(URL);
+        new MantaTimeouts().setConnectTimeout(1000).applyTo(request);
+
+        Assert.assertEquals(request.getConnectTimeout(), 1000);
+        Assert.assertEquals(request.getReadTimeout(), 20000);
+    }
+
+    @Test
+    public void deadlineIsAppliedToRequest() throws IOException {
+        final HttpRequest request = factory.buildGetRequest(URL);
+        new MantaTimeouts().setDeadline(5000).applyTo(request);
+
+        final RequestDeadline deadline = RequestDeadline.of(request);
+        Assert.assertEquals(deadline.remainingMillis(), Long.MAX_VALUE);
+
+        deadline.beforeAttempt(request);
+
+        Assert.assertTrue(deadline.remainingMillis() <= 5000L);
+        Assert.assertTrue(request.getConnectTimeout() <= 5000);
+        Assert.assertEquals(request.getReadTimeout(), 20000);
+    }
+
+    @Test
+    public void deadlineShortensOnlyConnectTimeout() throws IOException {
+        final AtomicLong nanos = new AtomicLong();
+        final RequestDeadline deadline = new RequestDeadline(5000L, nanos::get);
+        final HttpRequest request = factory.buildGetRequest(URL);
+
+        deadline.beforeAttempt(request);
+        Assert.assertEquals(request.getConnectTimeout(), 5000);
+        Assert.assertEquals(request.getReadTimeout(), 20000);
+
+        nanos.set(TimeUnit.MILLISECONDS.toNanos(4000L));
+        deadline.beforeAttempt(request);
+        Assert.assertEquals(request.getConnectTimeout(), 1000);
+        Assert.assertEquals(request.getReadTimeout(), 20000);
+        Assert.assertEquals(deadline.remainingMillis(), 1000L);
+
+        // Shorter timeouts are kept
+        request.setConnectTimeout(300);
+        deadline.beforeAttempt(request);
+        Assert.assertEquals(request.getConnectTimeout(), 300);
+    }
+
+    @Test
+    public void deadlineKeepsReadTimeoutForResponseBody() throws IOException {
+        final List<Integer> readTimeouts = new CopyOnWriteArrayList<>();
+        final MockHttpTransport transport = new MockHttpTransport() {
+            @Override
+            public LowLevelHttpRequest buildRequest(final String method, final String url) {
+                return new MockLowLevelHttpRequest(url) {
+                    @Override
+                    public void setTimeout(final int connectTimeout, final int readTimeout) {
+                        readTimeouts.add(readTimeout);
+                    }
+
+                    @Override
+                    public LowLevelHttpResponse execute() {
+                        return new MockLowLevelHttpResponse().setContent("body");
+                    }
+                };
+            }
+        };
+
+        final RequestDeadline deadline = new RequestDeadline(50L);
+        final HttpRequest request = transport.createRequestFactory().buildGetRequest(URL)
+                .setReadTimeout(20000)
+                .setInterceptor(deadline::beforeAttempt);
+
+        final HttpResponse response = request.execute();
+
+        try {
+            Assert.assertEquals(response.parseAsString(), "body");
+        } finally {
+            response.disconnect();
+        }
+
+        // The connection reads the body with the configured read timeout
+        Assert.assertEquals(readTimeouts, Collections.singletonList(20000));
+    }
+
+    @Test
+    public void sharedDeadlineEndsWithOriginal() throws IOException {
+        final AtomicLong nanos = new AtomicLong();
+        final HttpRequestFactory clocked = new MockHttpTransport().createRequestFactory(request -> {
+            final MantaRetryHandler handler = new MantaRetryHandler(
+                    new ExponentialBackoffRetryPolicy(1000L, 1000L), new RequestDeadline(5000L, nanos::get));
+            request.setConnectTimeout(20000);
+            request.setUnsuccessfulResponseHandler(handler);
+        });
+        final HttpRequest original = clocked.buildGetRequest(URL);
+        final HttpRequest duplicate = clocked.buildGetRequest(URL);
+
+        RequestDeadline.of(original).beforeAttempt(original);
+        nanos.set(TimeUnit.MILLISECONDS.toNanos(3000L));
+        RequestDeadline.share(original, duplicate);
+
+        RequestDeadline.of(duplicate).beforeAttempt(duplicate);
+        Assert.assertEquals(duplicate.getConnectTimeout(), 2000);
+
+        nanos.set(TimeUnit.MILLISECONDS.toNanos(5000L));
+
+        try {
+            RequestDeadline.of(duplicate).beforeAttempt(duplicate);
+            Assert.fail("Expected the duplicate to end with the original's deadline");
+        } catch (MantaTimeoutException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Deadline of 5000ms exceeded"), e.getMessage());
+        }
+    }
+
+    @Test(expectedExceptions = MantaTimeoutException.class)
+    public void deadlineRejectsLateAttempts() throws Exception {
+        final HttpRequest request = factory.buildGetRequest(URL);
+        final RequestDeadline deadline = new RequestDeadline(1L);
+
+        deadline.beforeAttempt(request);
+        Thread.sleep(10L);
+        deadline.beforeAttempt(request);
+    }
+
+    @Test
+    public void doesNotRetryPastDeadline() throws Exception {
+        final HttpRequest request = factory.buildGetRequest(URL);
+        final RequestDeadline deadline = new RequestDeadline(1L);
+        final MantaRetryHandler handler = new MantaRetryHandler(
+                new ExponentialBackoffRetryPolicy(10L, 10L), deadline);
+
+        deadline.beforeAttempt(request);
+        Thread.sleep(10L);
+
+        Assert.assertFalse(handler.handleIOException(request, true));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsNegativeTimeouts() {
+        new MantaTimeouts().setReadTimeout(-1);
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests for verifying the behavior of {@link MantaTransferJournal}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test
+public class MantaTransferJournalTest {
+    private Path directory;
+
+    private Path file;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("manta-transfer-journal");
+        file = directory.resolve("transfer.journal");
+    }
+
+    @AfterMethod
+    public void cleanUp() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+    public void canReadWrittenCheckpoint() throws IOException {
+        new MantaTransferJournal("/user/stor/file")
+                .setEtag("etag")
+                .setMd5("1B2M2Y8AsgTpgAmY7PhCfg==")
+                .setLength(100)
+                .setOffset(42)
+                .setMtime(1000)
+                .write(file);
+
+        final MantaTransferJournal journal = MantaTransferJournal.read(file);
+
+        Assert.assertNotNull(journal);
+        Assert.assertEquals(journal.getPath(), "/user/stor/file");
+        Assert.assertEquals(journal.getEtag(), "etag");
+        Assert.assertEquals(journal.getMd5(), "1B2M2Y8AsgTpgAmY7PhCfg==");
+        Assert.assertEquals(journal.getLength(), 100);
+        Assert.assertEquals(journal.getOffset(), 42);
+        Assert.assertEquals(journal.getMtime(), 1000);
+    }
+
+    public void writeReplacesPreviousCheckpoint() throws IOException {
+        final MantaTransferJournal journal = new MantaTransferJournal("/user/stor/file").setEtag("etag");
+        journal.setOffset(10).write(file);
+        journal.setOffset(20).write(file);
+
+        Assert.assertEquals(MantaTransferJournal.read(file).getOffset(), 20);
+        Assert.assertFalse(Files.exists(directory.resolve("transfer.journal.tmp")));
+    }
+
+    public void unknownValuesAreOmitted() throws IOException {
+        new MantaTransferJournal("/user/stor/file").write(file);
+
+        final MantaTransferJournal journal = MantaTransferJournal.read(file);
+
+        Assert.assertNull(journal.getEtag());
+        Assert.assertNull(journal.getMd5());
+        Assert.assertEquals(journal.getLength(), -1);
+        Assert.assertEquals(journal.getOffset(), 0);
+        Assert.assertEquals(journal.getMtime(), -1);
+    }
+
+    public void missingJournalIsNull() throws IOException {
+        Assert.assertNull(MantaTransferJournal.read(file));
+    }
+
+    public void invalidJournalIsNull() throws IOException {
+        Files.write(file, "offset=abc\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertNull(MantaTransferJournal.read(file));
+
+        Files.write(file, "path=/user/stor/file\noffset=abc\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertNull(MantaTransferJournal.read(file));
+    }
+}
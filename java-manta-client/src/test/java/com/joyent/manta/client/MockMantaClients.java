@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.HttpTransport;
+import com.joyent.manta.config.BaseChainedConfigContext;
+import com.joyent.manta.config.ChainedConfigContext;
+import com.joyent.manta.config.DefaultsConfigContext;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+
+/**
+ * Creates {@link MantaClient} instances that send their requests to a mock
+ * transport, for testing client logic without a Manta service.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+final class MockMantaClients {
+    /**
+     * Base URL of the requests sent by the clients.
+     */
+    static final String URL = "http://localhost";
+
+    /**
+     * System property enabling virtual threads in the clients, set by the
+     * <code>jdk21</code> profile so that the tests using these clients also
+     * exercise virtual threads.
+     */
+    static final String VIRTUAL_THREADS_PROPERTY = "manta.test.virtual_threads";
+
+    /**
+     * PEM encoded private key used by all clients, because generating a key is slow.
+     */
+    private static final String PRIVATE_KEY = generatePrivateKey();
+
+    private MockMantaClients() {
+    }
+
+    private static String generatePrivateKey() {
+        try {
+            final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(1024);
+
+            final StringWriter writer = new StringWriter();
+
+            try (JcaPEMWriter pem = new JcaPEMWriter(writer)) {
+                pem.writeObject(generator.generateKeyPair().getPrivate());
+            }
+
+            return writer.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return configuration for the user "user" with fast retries and virtual
+     *         threads when {@link #VIRTUAL_THREADS_PROPERTY} is set, which tests
+     *         may change before creating a client
+     */
+    static BaseChainedConfigContext config() {
+        return new ChainedConfigContext(new DefaultsConfigContext())
+                .setMantaURL(URL)
+                .setMantaUser("user")
+                .setMantaKeyId("00:00:00:00:00:00:00:00:00:00:00:00:00:00:00:00")
+                .setPrivateKeyContent(PRIVATE_KEY)
+                .setDisableNativeSignatures(true)
+                .setRetryBaseDelay(1)
+                .setRetryMaxDelay(1)
+                .setVirtualThreads(Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY));
+    }
+
+    /**
+     * @param transport transport receiving the requests
+     * @return client using the default test configuration
+     * @throws IOException thrown when the client can't be created
+     */
+    static MantaClient create(final HttpTransport transport) throws IOException {
+        return create(config(), transport);
+    }
+
+    /**
+     * @param config configuration of the client
+     * @param transport transport receiving the requests
+     * @return client using the specified configuration
+     * @throws IOException thrown when the client can't be created
+     */
+    static MantaClient create(final BaseChainedConfigContext config,
+                              final HttpTransport transport) throws IOException {
+        return new MantaClient(config, transport);
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for verifying the behavior of {@link RequestHedger}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+public class RequestHedgerTest {
+    private static final GenericUrl URL = new GenericUrl("http://localhost/user/stor/object");
+
+    private static final String SLOW_HEADER = "x-slow";
+
+    private static final String NAME_HEADER = "x-name";
+
+    /**
+     * Transport that responds slowly to requests with the slow header.
+     */
+    private static class SlowTransport extends MockHttpTransport {
+        private final AtomicInteger requests = new AtomicInteger();
+        private final Map<String, String> threads = new ConcurrentHashMap<>();
+        private final CountDownLatch slowStarted = new CountDownLatch(1);
+        private volatile long slowMillis = TimeUnit.SECONDS.toMillis(5);
+
+        @Override
+        public LowLevelHttpRequest buildRequest(final String method, final String url) {
+            return new MockLowLevelHttpRequest(url) {
+                @Override
+                public LowLevelHttpResponse execute() throws IOException {
+                    requests.incrementAndGet();
+
+                    if (getFirstHeaderValue(NAME_HEADER) != null) {
+                        threads.put(getFirstHeaderValue(NAME_HEADER), Thread.currentThread().getName());
+                    }
+
+                    if (getFirstHeaderValue(SLOW_HEADER) != null) {
+                        slowStarted.countDown();
+
+                        try {
+                            Thread.sleep(slowMillis);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+
+                    return new MockLowLevelHttpResponse().setContent("ok");
+                }
+            };
+        }
+    }
+
+    @Test
+    public void doesNotHedgeWithoutEnoughSamples() throws IOException {
+        final SlowTransport transport = new SlowTransport();
+        final HttpRequestFactory factory = transport.createRequestFactory();
+
+        try (RequestHedger hedger = new RequestHedger(90)) {
+            for (int i = 0; i < RequestHedger.MIN_SAMPLES - 1; i++) {
+                hedger.execute(factory.buildGetRequest(URL), () -> factory.buildGetRequest(URL))
+                        .disconnect();
+            }
+
+            Assert.assertEquals(hedger.getHedgeDelayMillis(), -1L);
+            Assert.assertEquals(hedger.getHedgeCount(), 0L);
+            Assert.assertEquals(transport.requests.get(), RequestHedger.MIN_SAMPLES - 1);
+        }
+    }
+
+    @Test
+    public void slowRequestIsHedged() throws IOException {
+        final SlowTransport transport = new SlowTransport();
+        final HttpRequestFactory factory = transport.createRequestFactory();
+
+        try (RequestHedger hedger = new RequestHedger(90)) {
+            for (int i = 0; i < RequestHedger.MIN_SAMPLES; i++) {
+                hedger.execute(factory.buildGetRequest(URL), () -> factory.buildGetRequest(URL))
+                        .disconnect();
+            }
+
+            Assert.assertTrue(hedger.getHedgeDelayMillis() >= 0L);
+
+            final HttpRequest slow = factory.buildGetRequest(URL);
+            slow.getHeaders().set(SLOW_HEADER, "true");
+
+            final long start = System.nanoTime();
+            final HttpResponse response = hedger.execute(slow, () -> factory.buildGetRequest(URL));
+            final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            Assert.assertEquals(response.parseAsString(), "ok");
+            Assert.assertTrue(elapsed < TimeUnit.SECONDS.toMillis(4),
+                    "Hedged request took " + elapsed + "ms");
+            Assert.assertEquals(hedger.getHedgeCount(), 1L);
+            Assert.assertEquals(hedger.getHedgeWinCount(), 1L);
+        }
+    }
+
+    @Test(timeOut = 30000L)
+    public void saturatedHedgerRunsRequestsInline() throws Exception {
+        final SlowTransport transport = new SlowTransport();
+        transport.slowMillis = 500L;
+        final HttpRequestFactory factory = transport.createRequestFactory();
+
+        try (RequestHedger hedger = new RequestHedger(90, 1, false)) {
+            for (int i = 0; i < RequestHedger.MIN_SAMPLES; i++) {
+                hedger.execute(factory.buildGetRequest(URL), () -> factory.buildGetRequest(URL))
+                        .disconnect();
+            }
+
+            final HttpRequest slow = factory.buildGetRequest(URL);
+            slow.getHeaders().set(SLOW_HEADER, "true");
+            slow.getHeaders().set(NAME_HEADER, "slow");
+
+            // The slow request takes the only attempt thread
+            final CompletableFuture<String> slowResult = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return hedger.execute(slow, () -> factory.buildGetRequest(URL)).parseAsString();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            transport.slowStarted.await();
+
+            final HttpRequest inline = factory.buildGetRequest(URL);
+            inline.getHeaders().set(NAME_HEADER, "inline");
+            Assert.assertEquals(hedger.execute(inline, () -> factory.buildGetRequest(URL)).parseAsString(), "ok");
+
+            Assert.assertEquals(slowResult.get(10, TimeUnit.SECONDS), "ok");
+            Assert.assertEquals(transport.threads.get("inline"), Thread.currentThread().getName());
+            Assert.assertTrue(transport.threads.get("slow").startsWith("manta-hedged-request-"),
+                    transport.threads.get("slow"));
+            // The duplicate of the slow request found no free thread
+            Assert.assertEquals(hedger.getHedgeCount(), 0L);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsInvalidPercentile() {
+        new RequestHedger(100);
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.client;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.joyent.http.signature.google.httpclient.RequestHttpSigner;
+import com.joyent.manta.config.StandardConfigContext;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for verifying the behavior of {@link SigningInterceptor}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test
+public class SigningInterceptorTest {
+    private static final GenericUrl URL = new GenericUrl("http://localhost/user/stor/object");
+
+    private final HttpRequestFactory factory = new MockHttpTransport().createRequestFactory();
+
+    private RequestHttpSigner signer;
+
+    @BeforeClass
+    public void generateKey() throws Exception {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        final KeyPair keyPair = generator.generateKeyPair();
+
+        signer = new RequestHttpSigner(keyPair, "user", "00:00:00:00:00:00:00:00:00:00:00:00:00:00:00:00", false);
+    }
+
+    public void signatureIsReusedWithinTtl() throws Exception {
+        final SigningInterceptor interceptor = interceptor(60000);
+
+        final HttpRequest first = intercept(interceptor);
+        final HttpRequest second = intercept(interceptor);
+
+        Assert.assertEquals(second.getHeaders().getAuthorization(), first.getHeaders().getAuthorization());
+        Assert.assertEquals(second.getHeaders().getDate(), first.getHeaders().getDate());
+    }
+
+    public void signatureIsRenewedAfterTtl() throws Exception {
+        final SigningInterceptor interceptor = interceptor(10);
+
+        final HttpRequest first = intercept(interceptor);
+        // Dates have a resolution of a second
+        Thread.sleep(1100L);
+        final HttpRequest second = intercept(interceptor);
+
+        Assert.assertNotEquals(second.getHeaders().getDate(), first.getHeaders().getDate());
+        Assert.assertTrue(signer.verifyRequest(second));
+    }
+
+    public void cachedSignaturesMatchTheirDatesAcrossThreads() throws Exception {
+        final SigningInterceptor interceptor = interceptor(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            final List<Future<Integer>> futures = new ArrayList<>();
+
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> {
+                    int invalid = 0;
+
+                    for (int j = 0; j < 200; j++) {
+                        if (!signer.verifyRequest(intercept(interceptor))) {
+                            invalid++;
+                        }
+                    }
+
+                    return invalid;
+                }));
+            }
+
+            for (Future<Integer> future : futures) {
+                Assert.assertEquals(future.get(1, TimeUnit.MINUTES).intValue(), 0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private SigningInterceptor interceptor(final int cacheTTL) {
+        return new SigningInterceptor(new StandardConfigContext().setSignatureCacheTTL(cacheTTL), signer);
+    }
+
+    private HttpRequest intercept(final SigningInterceptor interceptor) throws Exception {
+        final HttpRequest request = factory.buildHeadRequest(URL);
+        interceptor.intercept(request);
+        return request;
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.emulator;
+
+import java.net.HttpURLConnection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides how much latency is added to each request and which requests
+ * fail, so that the behavior of the client under slow or failing servers
+ * can be reproduced. Settings can be changed while the emulator is running.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class FaultInjector {
+    /**
+     * Fault applied to a request.
+     */
+    enum Fault {
+        /**
+         * The request is processed normally.
+         */
+        NONE,
+        /**
+         * The request is answered with an error status code.
+         */
+        ERROR,
+        /**
+         * The connection is closed without sending a response.
+         */
+        DISCONNECT
+    }
+
+    /**
+     * Milliseconds added to every request.
+     */
+    private volatile long latencyMillis;
+
+    /**
+     * Upper bound of the random milliseconds added to every request on top
+     * of the fixed latency.
+     */
+    private volatile long jitterMillis;
+
+    /**
+     * Probability between 0 and 1 that a request fails with an error status code.
+     */
+    private volatile double errorRate;
+
+    /**
+     * Probability between 0 and 1 that the connection is closed without a response.
+     */
+    private volatile double disconnectRate;
+
+    /**
+     * Status code of injected errors.
+     */
+    private volatile int errorStatusCode = HttpURLConnection.HTTP_UNAVAILABLE;
+
+    /**
+     * Number of upcoming requests that fail regardless of the error rate.
+     */
+    private final AtomicInteger pendingErrors = new AtomicInteger();
+
+    /**
+     * @param latencyMillis milliseconds added to every request
+     */
+    void setLatencyMillis(final long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * @param jitterMillis upper bound of the random milliseconds added to every request
+     */
+    void setJitterMillis(final long jitterMillis) {
+        this.jitterMillis = jitterMillis;
+    }
+
+    /**
+     * @param errorRate probability between 0 and 1 that a request fails
+     */
+    void setErrorRate(final double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * @param disconnectRate probability between 0 and 1 that a connection is closed
+     */
+    void setDisconnectRate(final double disconnectRate) {
+        this.disconnectRate = disconnectRate;
+    }
+
+    /**
+     * @param errorStatusCode status code of injected errors
+     */
+    void setErrorStatusCode(final int errorStatusCode) {
+        this.errorStatusCode = errorStatusCode;
+    }
+
+    /**
+     * @return status code of injected errors
+     */
+    int getErrorStatusCode() {
+        return errorStatusCode;
+    }
+
+    /**
+     * @param count number of upcoming requests that fail
+     */
+    void failNext(final int count) {
+        pendingErrors.addAndGet(count);
+    }
+
+    /**
+     * Waits for the configured latency.
+     *
+     * @throws InterruptedException thrown when the thread is interrupted while waiting
+     */
+    void delay() throws InterruptedException {
+        long delay = latencyMillis;
+
+        if (jitterMillis > 0) {
+            delay += ThreadLocalRandom.current().nextLong(jitterMillis + 1);
+        }
+
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+    }
+
+    /**
+     * @return fault applied to the next request
+     */
+    Fault next() {
+        if (pendingErrors.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            return Fault.ERROR;
+        }
+
+        final double random = ThreadLocalRandom.current().nextDouble();
+
+        if (random < disconnectRate) {
+            return Fault.DISCONNECT;
+        }
+
+        if (random < disconnectRate + errorRate) {
+            return Fault.ERROR;
+        }
+
+        return Fault.NONE;
+    }
+}
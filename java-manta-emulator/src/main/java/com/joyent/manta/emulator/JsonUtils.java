@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.emulator;
+
+/**
+ * Minimal JSON helpers used to write directory listings and errors, so that
+ * the emulator doesn't depend on a JSON library.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class JsonUtils {
+    /**
+     * Lowest character that doesn't need to be escaped.
+     */
+    private static final char FIRST_PRINTABLE = ' ';
+
+    /**
+     * This is a utility class.
+     */
+    private JsonUtils() {
+    }
+
+    /**
+     * Escapes a value so that it can be written inside a JSON string.
+     *
+     * @param value value to escape
+     * @return escaped value
+     */
+    static String escape(final String value) {
+        if (value == null) {
+            return "";
+        }
+
+        final StringBuilder escaped = new StringBuilder(value.length());
+
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    escaped.append("\\\"");
+                    break;
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                default:
+                    if (c < FIRST_PRINTABLE) {
+                        escaped.append(String.format("\\u%04x", (int)c));
+                    } else {
+                        escaped.append(c);
+                    }
+            }
+        }
+
+        return escaped.toString();
+    }
+}
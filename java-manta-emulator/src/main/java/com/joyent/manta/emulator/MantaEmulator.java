@@ -0,0 +1,299 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.emulator;
+
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Embeddable in-process stand-in for the Manta storage API, so that the
+ * client can be exercised through its whole socket, connection pooling and
+ * signing path without a live Manta. It supports storing, reading and
+ * removing objects, directories with <code>limit</code> and
+ * <code>marker</code> paging, snaplinks, metadata updates, byte ranges and
+ * conditional requests. Jobs are not supported.</p>
+ *
+ * <p>Content is kept in memory. When a key is registered with
+ * {@link #addKey(String, PublicKey)}, requests must be signed by a key of
+ * the account owning the requested path, except reads of the account's
+ * <code>public</code> directory; otherwise signatures aren't checked.</p>
+ *
+ * <p>Latency and faults can be injected to reproduce slow or failing
+ * servers. All settings can be changed while the emulator is running.</p>
+ *
+ * <pre>{@code
+ * try (MantaEmulator emulator = new MantaEmulator().start()) {
+ *     ConfigContext config = new StandardConfigContext()
+ *             .setMantaURL(emulator.getURL())
+ *             ...
+ * }
+ * }</pre>
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public class MantaEmulator implements AutoCloseable {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MantaEmulator.class);
+
+    /**
+     * Number of pending connections queued by the server socket.
+     */
+    private static final int BACKLOG = 128;
+
+    /**
+     * Objects and directories.
+     */
+    private final ObjectStore store = new ObjectStore();
+
+    /**
+     * Signature verification of requests.
+     */
+    private final SignatureVerifier verifier = new SignatureVerifier();
+
+    /**
+     * Latency and faults added to requests.
+     */
+    private final FaultInjector faults = new FaultInjector();
+
+    /**
+     * Handler of all requests.
+     */
+    private final RequestHandler handler = new RequestHandler(store, verifier, faults);
+
+    /**
+     * Port to listen on or 0 to choose a free port.
+     */
+    private final int port;
+
+    /**
+     * Running server or null if not started.
+     */
+    private volatile HttpServer server;
+
+    /**
+     * Threads handling requests or null if not started.
+     */
+    private volatile ExecutorService executor;
+
+    /**
+     * Creates a new instance listening on a free port of the loopback address.
+     */
+    public MantaEmulator() {
+        this(0);
+    }
+
+    /**
+     * Creates a new instance listening on the loopback address.
+     *
+     * @param port port to listen on or 0 to choose a free port
+     */
+    public MantaEmulator(final int port) {
+        this.port = port;
+    }
+
+    /**
+     * Starts accepting requests.
+     *
+     * @return this instance
+     * @throws IOException thrown when the port can't be bound
+     */
+    public synchronized MantaEmulator start() throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Emulator is already running");
+        }
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable,
+                    "manta-emulator-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        server.createContext("/", handler);
+        server.setExecutor(executor);
+        server.start();
+
+        LOG.info("Manta emulator listening on {}", getURL());
+
+        return this;
+    }
+
+    /**
+     * @return base URL of the running emulator, used as <code>manta.url</code>
+     */
+    public String getURL() {
+        final HttpServer running = server;
+
+        if (running == null) {
+            throw new IllegalStateException("Emulator is not running");
+        }
+
+        final InetSocketAddress address = running.getAddress();
+        return String.format("http://%s:%d", address.getHostString(), address.getPort());
+    }
+
+    /**
+     * Registers a public key of an account, which enables the verification
+     * of signatures.
+     *
+     * @param account name of the account
+     * @param key RSA public key
+     * @return this instance
+     */
+    public MantaEmulator addKey(final String account, final PublicKey key) {
+        verifier.addKey(account, MantaEmulatorKeys.fingerprint(key), key);
+        return this;
+    }
+
+    /**
+     * Defines roles of an account. Like Manta, objects and directories can
+     * only be tagged with roles defined for their account.
+     *
+     * @param account name of the account
+     * @param roles names of the roles
+     * @return this instance
+     */
+    public MantaEmulator addRoles(final String account, final String... roles) {
+        store.addRoles(account, Arrays.asList(roles));
+        return this;
+    }
+
+    /**
+     * Sets the latency added to every request.
+     *
+     * @param latencyMillis fixed milliseconds added to every request
+     * @param jitterMillis upper bound of the random milliseconds added on top
+     * @return this instance
+     */
+    public MantaEmulator setLatency(final long latencyMillis, final long jitterMillis) {
+        if (latencyMillis < 0 || jitterMillis < 0) {
+            throw new IllegalArgumentException("Latency must be 0 or greater");
+        }
+
+        faults.setLatencyMillis(latencyMillis);
+        faults.setJitterMillis(jitterMillis);
+        return this;
+    }
+
+    /**
+     * Sets the probability that a request is answered with an error.
+     *
+     * @param errorRate probability between 0 and 1
+     * @param statusCode HTTP status code of the errors, such as 503
+     * @return this instance
+     */
+    public MantaEmulator setErrorRate(final double errorRate, final int statusCode) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Error rate must be between 0 and 1");
+        }
+
+        faults.setErrorRate(errorRate);
+        faults.setErrorStatusCode(statusCode);
+        return this;
+    }
+
+    /**
+     * Sets the probability that the connection is closed without answering
+     * a request.
+     *
+     * @param disconnectRate probability between 0 and 1
+     * @return this instance
+     */
+    public MantaEmulator setDisconnectRate(final double disconnectRate) {
+        if (disconnectRate < 0 || disconnectRate > 1) {
+            throw new IllegalArgumentException("Disconnect rate must be between 0 and 1");
+        }
+
+        faults.setDisconnectRate(disconnectRate);
+        return this;
+    }
+
+    /**
+     * Answers the next requests with the error status code set by
+     * {@link #setErrorRate(double, int)}, 503 by default.
+     *
+     * @param count number of requests that fail
+     * @return this instance
+     */
+    public MantaEmulator failNextRequests(final int count) {
+        faults.failNext(count);
+        return this;
+    }
+
+    /**
+     * @return number of requests received, including failed requests
+     */
+    public long getRequestCount() {
+        return handler.getRequestCount();
+    }
+
+    /**
+     * Stops accepting requests and waits for the requests in progress to
+     * complete. The stored content is kept, so the emulator can be started
+     * again.
+     */
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+    }
+
+    /**
+     * Runs the emulator from the command line until the process is stopped.
+     *
+     * @param argv port to listen on, followed optionally by an account name
+     *             and the path of the account's private key
+     * @throws Exception when something goes wrong
+     */
+    public static void main(final String[] argv) throws Exception {
+        int listenPort = 0;
+
+        if (argv.length > 0) {
+            listenPort = Integer.parseInt(argv[0]);
+        }
+
+        final MantaEmulator emulator = new MantaEmulator(listenPort);
+
+        if (argv.length > 2) {
+            final KeyPair keyPair = MantaEmulatorKeys.loadKeyPair(Paths.get(argv[2]));
+            emulator.addKey(argv[1], keyPair.getPublic());
+            System.out.printf("Verifying signatures of account %s with key %s\n",
+                    argv[1], MantaEmulatorKeys.fingerprint(keyPair.getPublic()));
+        }
+
+        final CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            emulator.close();
+            stopped.countDown();
+        }));
+
+        emulator.start();
+        System.out.printf("Manta emulator listening on %s\n", emulator.getURL());
+        stopped.await();
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.emulator;
+
+import org.bouncycastle.openssl.PEMKeyPair;
+import org.bouncycastle.openssl.PEMParser;
+import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+
+/**
+ * Utility methods for creating and loading the keys used to sign requests
+ * sent to a {@link MantaEmulator}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+public final class MantaEmulatorKeys {
+    /**
+     * Size in bits of generated RSA keys.
+     */
+    private static final int KEY_SIZE = 2048;
+
+    /**
+     * Mask used to format a byte as an unsigned value.
+     */
+    private static final int BYTE_MASK = 0xff;
+
+    /**
+     * This is a utility class.
+     */
+    private MantaEmulatorKeys() {
+    }
+
+    /**
+     * @return new RSA key pair
+     */
+    public static KeyPair generateKeyPair() {
+        try {
+            final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(KEY_SIZE);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Loads an unencrypted private key in PEM format, such as the one
+     * passed to the Manta client with <code>manta.key_path</code>.
+     *
+     * @param path path of the private key
+     * @return key pair of the private key
+     * @throws IOException thrown when the key can't be read
+     */
+    public static KeyPair loadKeyPair(final Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII);
+             PEMParser parser = new PEMParser(reader)) {
+            final Object parsed = parser.readObject();
+
+            if (!(parsed instanceof PEMKeyPair)) {
+                throw new IOException("Not an unencrypted PEM private key: " + path);
+            }
+
+            return new JcaPEMKeyConverter().getKeyPair((PEMKeyPair)parsed);
+        }
+    }
+
+    /**
+     * Formats a private key in the PEM format expected by the Manta client,
+     * so that it can be passed as <code>manta.key_content</code>.
+     *
+     * @param keyPair key pair to format
+     * @return PEM encoded private key
+     */
+    public static String toPem(final KeyPair keyPair) {
+        final StringWriter pem = new StringWriter();
+
+        try (JcaPEMWriter writer = new JcaPEMWriter(pem)) {
+            writer.writeObject(keyPair.getPrivate());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return pem.toString();
+    }
+
+    /**
+     * Calculates the MD5 fingerprint of an RSA public key, such as
+     * <code>7d:dd:93:d0:a8:62:e7:e0:e5:82:34:98:67:23:cd:22</code>, which
+     * is used as <code>manta.key_id</code>.
+     *
+     * @param key RSA public key
+     * @return colon separated hex encoded fingerprint
+     */
+    public static String fingerprint(final PublicKey key) {
+        if (!(key instanceof RSAPublicKey)) {
+            throw new IllegalArgumentException("Only RSA keys are supported");
+        }
+
+        final RSAPublicKey rsaKey = (RSAPublicKey)key;
+        final ByteArrayOutputStream blob = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(blob)) {
+            writeSshValue(out, "ssh-rsa".getBytes(StandardCharsets.US_ASCII));
+            writeSshValue(out, rsaKey.getPublicExponent().toByteArray());
+            writeSshValue(out, rsaKey.getModulus().toByteArray());
+
+            final byte[] digest = MessageDigest.getInstance("MD5").digest(blob.toByteArray());
+            final StringBuilder fingerprint = new StringBuilder();
+
+            for (byte b : digest) {
+                if (fingerprint.length() > 0) {
+                    fingerprint.append(':');
+                }
+
+                fingerprint.append(String.format("%02x", b & BYTE_MASK));
+            }
+
+            return fingerprint.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes a length prefixed value of the SSH public key format.
+     *
+     * @param out stream to write to
+     * @param value value to write
+     * @throws IOException never thrown for in-memory streams
+     */
+    private static void writeSshValue(final DataOutputStream out, final byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+}
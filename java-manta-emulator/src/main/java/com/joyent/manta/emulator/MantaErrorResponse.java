@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.emulator;
+
+/**
+ * Exception signaling that a request must be answered with a Manta error,
+ * consisting of an HTTP status code and a JSON body containing the error
+ * code and message.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+class MantaErrorResponse extends Exception {
+    private static final long serialVersionUID = 4021745634612977384L;
+
+    /**
+     * HTTP status code of the response.
+     */
+    private final int statusCode;
+
+    /**
+     * Manta error code, such as <code>ResourceNotFound</code>.
+     */
+    private final String code;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param statusCode HTTP status code of the response
+     * @param code Manta error code
+     * @param message error message returned to the client
+     */
+    MantaErrorResponse(final int statusCode, final String code, final String message) {
+        super(message);
+        this.statusCode = statusCode;
+        this.code = code;
+    }
+
+    /**
+     * @return HTTP status code of the response
+     */
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return Manta error code
+     */
+    String getCode() {
+        return code;
+    }
+
+    /**
+     * @return JSON body of the response
+     */
+    String toJson() {
+        return String.format("{\"code\":\"%s\",\"message\":\"%s\"}",
+                code, JsonUtils.escape(getMessage()));
+    }
+}
@@ -0,0 +1,427 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.emulator;
+
+import java.net.HttpURLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * In-memory tree of objects and directories. Every account has the
+ * directories <code>stor</code>, <code>public</code>, <code>jobs</code> and
+ * <code>reports</code>, which are created on first use and can't be
+ * removed. All methods are thread-safe; content is copied into memory
+ * before it is stored, so no I/O happens while the store is locked.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class ObjectStore {
+    /**
+     * Durability level of objects stored without one.
+     */
+    static final String DEFAULT_DURABILITY = "2";
+
+    /**
+     * Highest durability level accepted.
+     */
+    private static final int MAX_DURABILITY = 6;
+
+    /**
+     * Directories that are created in the home directory of every account.
+     */
+    private static final String[] ROOT_DIRECTORIES = {"stor", "public", "jobs", "reports"};
+
+    /**
+     * Number of path elements of the root directories of an account.
+     */
+    private static final int ROOT_DEPTH = 2;
+
+    /**
+     * Path separator.
+     */
+    private static final String SEPARATOR = "/";
+
+    /**
+     * Nodes keyed by their normalized path, guarded by this instance.
+     */
+    private final Map<String, StoredNode> nodes = new HashMap<>();
+
+    /**
+     * Roles defined for each account, guarded by this instance.
+     */
+    private final Map<String, Set<String>> roles = new HashMap<>();
+
+    /**
+     * Defines roles of an account that can be used as role tags.
+     *
+     * @param account name of the account
+     * @param names names of the roles
+     */
+    synchronized void addRoles(final String account, final Collection<String> names) {
+        roles.computeIfAbsent(account, key -> new HashSet<>()).addAll(names);
+    }
+
+    /**
+     * Rejects role tags naming roles that aren't defined for the account
+     * owning a path.
+     *
+     * @param path normalized path of the node being stored
+     * @param headers headers stored with the node
+     * @throws MantaErrorResponse thrown when a role isn't defined
+     */
+    synchronized void validateRoles(final String path, final Map<String, String> headers)
+            throws MantaErrorResponse {
+        final String roleTag = headers.get("role-tag");
+
+        if (roleTag == null) {
+            return;
+        }
+
+        final String account = path.split(SEPARATOR)[1];
+        final Set<String> defined = roles.getOrDefault(account, Collections.emptySet());
+
+        for (String role : roleTag.split(",")) {
+            if (!defined.contains(role.trim())) {
+                throw new MantaErrorResponse(HttpURLConnection.HTTP_CONFLICT,
+                        "InvalidRoleTag", "Role " + role.trim() + " is not defined");
+            }
+        }
+    }
+
+    /**
+     * Creates the home directory of an account and its root directories
+     * unless they already exist.
+     *
+     * @param account name of the account
+     */
+    synchronized void ensureHome(final String account) {
+        final String home = SEPARATOR + account;
+
+        if (nodes.containsKey(home)) {
+            return;
+        }
+
+        nodes.put(home, StoredNode.directory(account, newEtag(), Collections.emptyMap()));
+
+        for (String name : ROOT_DIRECTORIES) {
+            nodes.put(home + SEPARATOR + name,
+                    StoredNode.directory(name, newEtag(), Collections.emptyMap()));
+            nodes.get(home).getChildren().add(name);
+        }
+    }
+
+    /**
+     * Finds a node.
+     *
+     * @param path normalized path of the node
+     * @return node at the path
+     * @throws MantaErrorResponse thrown when the node doesn't exist
+     */
+    synchronized StoredNode get(final String path) throws MantaErrorResponse {
+        final StoredNode node = nodes.get(path);
+
+        if (node == null) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_NOT_FOUND, "ResourceNotFound",
+                    path + " was not found");
+        }
+
+        return node;
+    }
+
+    /**
+     * Stores an object, replacing any object at the same path.
+     *
+     * @param path normalized path of the object
+     * @param content content of the object, which must not be modified afterwards
+     * @param contentType content type of the object
+     * @param headers headers stored with the object
+     * @return stored object
+     * @throws MantaErrorResponse thrown when the object can't be stored
+     */
+    StoredNode putObject(final String path, final byte[] content, final String contentType,
+                         final Map<String, String> headers) throws MantaErrorResponse {
+        validateDurability(headers);
+
+        final StoredNode object = StoredNode.object(name(path), content, contentType,
+                newEtag(), md5(content), headers);
+
+        synchronized (this) {
+            final StoredNode existing = nodes.get(path);
+
+            if (existing != null && existing.isDirectory()) {
+                throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                        "InvalidUpdate", path + " is a directory");
+            }
+
+            put(path, object);
+        }
+
+        return object;
+    }
+
+    /**
+     * Creates a directory or updates the headers of an existing one. Like
+     * Manta, an object at the same path is silently replaced.
+     *
+     * @param path normalized path of the directory
+     * @param headers headers stored with the directory
+     * @return true if the directory already existed
+     * @throws MantaErrorResponse thrown when the directory can't be created
+     */
+    synchronized boolean putDirectory(final String path, final Map<String, String> headers)
+            throws MantaErrorResponse {
+        final StoredNode existing = nodes.get(path);
+
+        if (existing != null && existing.isDirectory()) {
+            nodes.put(path, existing.withHeaders(null, headers));
+            return true;
+        }
+
+        put(path, StoredNode.directory(name(path), newEtag(), headers));
+        return false;
+    }
+
+    /**
+     * Creates a snaplink, which is a new object sharing the content and
+     * headers of an existing object.
+     *
+     * @param path normalized path of the link
+     * @param source normalized path of the existing object
+     * @return stored link
+     * @throws MantaErrorResponse thrown when the link can't be created
+     */
+    synchronized StoredNode putSnapLink(final String path, final String source) throws MantaErrorResponse {
+        final StoredNode sourceNode = nodes.get(source);
+
+        if (sourceNode == null) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_NOT_FOUND,
+                    "SourceObjectNotFound", source + " was not found");
+        }
+
+        if (sourceNode.isDirectory()) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                    "LinkNotObject", source + " is a directory");
+        }
+
+        final StoredNode existing = nodes.get(path);
+
+        if (existing != null && existing.isDirectory()) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                    "OperationNotAllowedOnDirectory", path + " is a directory");
+        }
+
+        final StoredNode link = sourceNode.withName(name(path));
+        put(path, link);
+
+        return link;
+    }
+
+    /**
+     * Replaces the headers, such as the metadata, of an existing object.
+     *
+     * @param path normalized path of the object
+     * @param contentType new content type or null to keep the current one
+     * @param headers new headers of the object
+     * @return updated object
+     * @throws MantaErrorResponse thrown when the object doesn't exist or is a directory
+     */
+    synchronized StoredNode putMetadata(final String path, final String contentType,
+                                        final Map<String, String> headers) throws MantaErrorResponse {
+        validateDurability(headers);
+
+        final StoredNode existing = get(path);
+
+        if (existing.isDirectory()) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                    "InvalidUpdate", "Metadata of directory " + path + " can't be updated");
+        }
+
+        final StoredNode updated = existing.withHeaders(contentType, headers);
+        nodes.put(path, updated);
+
+        return updated;
+    }
+
+    /**
+     * Lists the children of a directory in order of their names.
+     *
+     * @param path normalized path of the directory
+     * @param marker name of the first child to list or null to start at the first child
+     * @param limit maximum number of children to list
+     * @return listed children
+     * @throws MantaErrorResponse thrown when the path isn't a directory
+     */
+    synchronized List<StoredNode> list(final String path, final String marker, final int limit)
+            throws MantaErrorResponse {
+        final StoredNode directory = get(path);
+
+        if (!directory.isDirectory()) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                    "InvalidResource", path + " is not a directory");
+        }
+
+        final Iterable<String> names;
+
+        if (marker == null) {
+            names = directory.getChildren();
+        } else {
+            names = directory.getChildren().tailSet(marker, true);
+        }
+
+        final List<StoredNode> listed = new ArrayList<>();
+
+        for (String name : names) {
+            if (listed.size() >= limit) {
+                break;
+            }
+
+            listed.add(nodes.get(path + SEPARATOR + name));
+        }
+
+        return listed;
+    }
+
+    /**
+     * Removes an object or an empty directory.
+     *
+     * @param path normalized path of the node
+     * @throws MantaErrorResponse thrown when the node can't be removed
+     */
+    synchronized void delete(final String path) throws MantaErrorResponse {
+        final StoredNode node = get(path);
+
+        if (depth(path) <= ROOT_DEPTH) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                    "OperationNotAllowedOnRootDirectory", path + " can't be removed");
+        }
+
+        if (node.isDirectory() && !node.getChildren().isEmpty()) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                    "DirectoryNotEmpty", path + " is not empty");
+        }
+
+        nodes.remove(path);
+        nodes.get(parent(path)).getChildren().remove(node.getName());
+    }
+
+    /**
+     * Adds a node to its parent directory. Must be called while holding
+     * the lock of this instance.
+     *
+     * @param path normalized path of the node
+     * @param node node to add
+     * @throws MantaErrorResponse thrown when the parent directory doesn't exist
+     */
+    private void put(final String path, final StoredNode node) throws MantaErrorResponse {
+        if (depth(path) <= ROOT_DEPTH) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                    "OperationNotAllowedOnRootDirectory", path + " can't be modified");
+        }
+
+        final StoredNode parent = nodes.get(parent(path));
+
+        if (parent == null) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_NOT_FOUND,
+                    "DirectoryDoesNotExist", parent(path) + " was not found");
+        }
+
+        if (!parent.isDirectory()) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                    "ParentNotDirectory", parent(path) + " is not a directory");
+        }
+
+        nodes.put(path, node);
+        parent.getChildren().add(node.getName());
+    }
+
+    /**
+     * Rejects durability levels that Manta wouldn't accept.
+     *
+     * @param headers headers of the request
+     * @throws MantaErrorResponse thrown when the durability level is invalid
+     */
+    private static void validateDurability(final Map<String, String> headers) throws MantaErrorResponse {
+        final String level = headers.get("durability-level");
+
+        if (level == null) {
+            return;
+        }
+
+        try {
+            final int parsed = Integer.parseInt(level);
+
+            if (parsed >= 1 && parsed <= MAX_DURABILITY) {
+                return;
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+
+        throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                "InvalidDurabilityLevel", "durability-level must be between 1 and " + MAX_DURABILITY);
+    }
+
+    /**
+     * @param path normalized path
+     * @return number of elements in the path
+     */
+    private static int depth(final String path) {
+        int depth = 0;
+
+        for (char c : path.toCharArray()) {
+            if (c == '/') {
+                depth++;
+            }
+        }
+
+        return depth;
+    }
+
+    /**
+     * @param path normalized path
+     * @return path of the parent directory
+     */
+    private static String parent(final String path) {
+        return path.substring(0, path.lastIndexOf(SEPARATOR));
+    }
+
+    /**
+     * @param path normalized path
+     * @return last element of the path
+     */
+    private static String name(final String path) {
+        return path.substring(path.lastIndexOf(SEPARATOR) + 1);
+    }
+
+    /**
+     * @return new random entity tag
+     */
+    private static String newEtag() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * @param content content of an object
+     * @return base64 encoded MD5 checksum of the content
+     */
+    static String md5(final byte[] content) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("MD5");
+            return Base64.getEncoder().encodeToString(digest.digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,692 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.emulator;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Handles every request sent to a {@link MantaEmulator} by applying the
+ * injected faults, verifying the signature and performing the requested
+ * operation on the {@link ObjectStore}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class RequestHandler implements HttpHandler {
+    /**
+     * Logger instance.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(RequestHandler.class);
+
+    /**
+     * Content type of directory creation requests.
+     */
+    private static final String DIRECTORY_REQUEST_CONTENT_TYPE = "application/json; type=directory";
+
+    /**
+     * Content type of snaplink creation requests.
+     */
+    private static final String LINK_REQUEST_CONTENT_TYPE = "application/json; type=link";
+
+    /**
+     * Content type of objects stored without one.
+     */
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    /**
+     * Content type of error responses.
+     */
+    private static final String ERROR_CONTENT_TYPE = "application/json";
+
+    /**
+     * Number of directory entries returned when no limit is requested.
+     */
+    private static final int DEFAULT_LIMIT = 256;
+
+    /**
+     * Highest number of directory entries returned by a single request.
+     */
+    private static final int MAX_LIMIT = 1024;
+
+    /**
+     * HTTP status code of partial content responses.
+     */
+    private static final int HTTP_PARTIAL_CONTENT = 206;
+
+    /**
+     * HTTP status code of unsatisfiable range responses.
+     */
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    /**
+     * Size of the buffer used to read request bodies.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Pattern matching a single byte range of a <code>Range</code> header.
+     */
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    /**
+     * Format of the <code>Last-Modified</code> header.
+     */
+    private static final DateTimeFormatter HTTP_DATE =
+            DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    /**
+     * Name of the directory in each account that can be read without signing.
+     */
+    private static final String PUBLIC_DIRECTORY = "public";
+
+    /**
+     * Name of the exchange attribute holding the time the request was
+     * received in nanoseconds.
+     */
+    private static final String START_ATTRIBUTE = RequestHandler.class.getName() + ".start";
+
+    /**
+     * Objects and directories.
+     */
+    private final ObjectStore store;
+
+    /**
+     * Signature verification of requests.
+     */
+    private final SignatureVerifier verifier;
+
+    /**
+     * Latency and faults added to requests.
+     */
+    private final FaultInjector faults;
+
+    /**
+     * Number of requests received.
+     */
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param store objects and directories
+     * @param verifier signature verification of requests
+     * @param faults latency and faults added to requests
+     */
+    RequestHandler(final ObjectStore store, final SignatureVerifier verifier,
+                   final FaultInjector faults) {
+        this.store = store;
+        this.verifier = verifier;
+        this.faults = faults;
+    }
+
+    /**
+     * @return number of requests received
+     */
+    long getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        exchange.setAttribute(START_ATTRIBUTE, System.nanoTime());
+
+        final Headers responseHeaders = exchange.getResponseHeaders();
+        String requestId = exchange.getRequestHeaders().getFirst("x-request-id");
+
+        if (requestId == null) {
+            requestId = UUID.randomUUID().toString();
+        }
+
+        responseHeaders.set("x-request-id", requestId);
+        responseHeaders.set("Server", "Manta Emulator");
+
+        try {
+            faults.delay();
+
+            switch (faults.next()) {
+                case DISCONNECT:
+                    LOG.debug("{} {} disconnected by fault injection",
+                            exchange.getRequestMethod(), exchange.getRequestURI());
+                    exchange.close();
+                    return;
+                case ERROR:
+                    final int status = faults.getErrorStatusCode();
+                    String code = "InternalError";
+
+                    if (status == HttpURLConnection.HTTP_UNAVAILABLE) {
+                        code = "ServiceUnavailable";
+                    }
+
+                    throw new MantaErrorResponse(status, code, "Error injected by the emulator");
+                default:
+                    dispatch(exchange);
+            }
+        } catch (MantaErrorResponse e) {
+            LOG.debug("{} {} failed: [{}] {}", exchange.getRequestMethod(),
+                    exchange.getRequestURI(), e.getStatusCode(), e.getMessage());
+            responseHeaders.set("Content-Type", ERROR_CONTENT_TYPE);
+            send(exchange, e.getStatusCode(), e.toJson().getBytes(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        } catch (RuntimeException e) {
+            LOG.error("Error handling request", e);
+            responseHeaders.set("Content-Type", ERROR_CONTENT_TYPE);
+            final MantaErrorResponse error = new MantaErrorResponse(
+                    HttpURLConnection.HTTP_INTERNAL_ERROR, "InternalError", e.toString());
+            send(exchange, error.getStatusCode(), error.toJson().getBytes(StandardCharsets.UTF_8));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Authenticates a request and performs the requested operation.
+     *
+     * @param exchange request and response
+     * @throws IOException thrown when the request can't be read or the response can't be written
+     * @throws MantaErrorResponse thrown when the request fails
+     */
+    private void dispatch(final HttpExchange exchange) throws IOException, MantaErrorResponse {
+        final String method = exchange.getRequestMethod().toUpperCase(Locale.ENGLISH);
+        final String path = normalize(exchange.getRequestURI().getRawPath());
+        final String[] elements = path.split("/");
+
+        if (elements.length < 2) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_NOT_FOUND,
+                    "ResourceNotFound", path + " was not found");
+        }
+
+        final String account = elements[1];
+        final boolean isRead = method.equals("GET") || method.equals("HEAD");
+        final boolean isPublic = elements.length > 2 && elements[2].equals(PUBLIC_DIRECTORY);
+
+        if (verifier.isEnabled() && !(isRead && isPublic)) {
+            final Headers requestHeaders = exchange.getRequestHeaders();
+            verifier.verify(account, method, exchange.getRequestURI().getRawPath(),
+                    requestHeaders::getFirst);
+        }
+
+        store.ensureHome(account);
+
+        switch (method) {
+            case "GET":
+            case "HEAD":
+                get(exchange, path, method.equals("HEAD"));
+                break;
+            case "PUT":
+                put(exchange, path);
+                break;
+            case "DELETE":
+                store.delete(path);
+                send(exchange, HttpURLConnection.HTTP_NO_CONTENT, null);
+                break;
+            default:
+                throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_METHOD,
+                        "BadRequest", method + " is not supported");
+        }
+    }
+
+    /**
+     * Answers a GET or HEAD request.
+     *
+     * @param exchange request and response
+     * @param path normalized path of the request
+     * @param headOnly true to send only the headers
+     * @throws IOException thrown when the response can't be written
+     * @throws MantaErrorResponse thrown when the request fails
+     */
+    private void get(final HttpExchange exchange, final String path, final boolean headOnly)
+            throws IOException, MantaErrorResponse {
+        final StoredNode node = store.get(path);
+        final Headers responseHeaders = exchange.getResponseHeaders();
+        final Headers requestHeaders = exchange.getRequestHeaders();
+
+        addNodeHeaders(responseHeaders, node);
+
+        if (node.isDirectory()) {
+            final Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            final List<StoredNode> listing = store.list(path, query.get("marker"), parseLimit(query));
+            final StringBuilder body = new StringBuilder();
+
+            for (StoredNode child : listing) {
+                body.append(child.toListingJson()).append('\n');
+            }
+
+            synchronized (store) {
+                responseHeaders.set("result-set-size", String.valueOf(node.getChildren().size()));
+            }
+
+            if (headOnly) {
+                send(exchange, HttpURLConnection.HTTP_OK, null);
+            } else {
+                send(exchange, HttpURLConnection.HTTP_OK, body.toString().getBytes(StandardCharsets.UTF_8));
+            }
+
+            return;
+        }
+
+        if (isNotModified(requestHeaders, node)) {
+            send(exchange, HttpURLConnection.HTTP_NOT_MODIFIED, null);
+            return;
+        }
+
+        final String ifMatch = requestHeaders.getFirst("If-Match");
+
+        if (ifMatch != null && !ifMatch.equals("*") && !ifMatch.contains(node.getEtag())) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_PRECON_FAILED,
+                    "PreconditionFailed", "if-match '" + ifMatch + "' didn't match etag");
+        }
+
+        final byte[] content = node.getContent();
+        final String range = requestHeaders.getFirst("Range");
+        responseHeaders.set("Accept-Ranges", "bytes");
+
+        if (range == null) {
+            sendContent(exchange, HttpURLConnection.HTTP_OK, content, headOnly);
+            return;
+        }
+
+        final long[] bounds = parseRange(range, content.length);
+
+        if (bounds == null) {
+            responseHeaders.set("Content-Range", "bytes */" + content.length);
+            throw new MantaErrorResponse(HTTP_RANGE_NOT_SATISFIABLE,
+                    "RequestedRangeNotSatisfiable", range + " is not satisfiable");
+        }
+
+        final int start = (int)bounds[0];
+        final int end = (int)bounds[1];
+        final byte[] partial = new byte[end - start + 1];
+        System.arraycopy(content, start, partial, 0, partial.length);
+
+        responseHeaders.set("Content-Range",
+                String.format("bytes %d-%d/%d", start, end, content.length));
+        sendContent(exchange, HTTP_PARTIAL_CONTENT, partial, headOnly);
+    }
+
+    /**
+     * Answers a PUT request, which creates an object, a directory or a
+     * snaplink, or updates metadata.
+     *
+     * @param exchange request and response
+     * @param path normalized path of the request
+     * @throws IOException thrown when the request can't be read or the response can't be written
+     * @throws MantaErrorResponse thrown when the request fails
+     */
+    private void put(final HttpExchange exchange, final String path)
+            throws IOException, MantaErrorResponse {
+        final Headers requestHeaders = exchange.getRequestHeaders();
+        final Headers responseHeaders = exchange.getResponseHeaders();
+        final Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        final Map<String, String> stored = storedHeaders(requestHeaders);
+        final byte[] content = readContent(exchange.getRequestBody());
+        String contentType = requestHeaders.getFirst("Content-Type");
+
+        store.validateRoles(path, stored);
+
+        if ("true".equals(query.get("metadata"))) {
+            addNodeHeaders(responseHeaders, store.putMetadata(path, contentType, stored));
+            send(exchange, HttpURLConnection.HTTP_NO_CONTENT, null);
+            return;
+        }
+
+        if (contentType != null && contentType.startsWith(DIRECTORY_REQUEST_CONTENT_TYPE)) {
+            if (store.putDirectory(path, stored)) {
+                addNodeHeaders(responseHeaders, store.get(path));
+            }
+
+            send(exchange, HttpURLConnection.HTTP_NO_CONTENT, null);
+            return;
+        }
+
+        if (contentType != null && contentType.startsWith(LINK_REQUEST_CONTENT_TYPE)) {
+            final String location = requestHeaders.getFirst("Location");
+
+            if (location == null) {
+                throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                        "LocationRequired", "Location header is required for snaplinks");
+            }
+
+            addNodeHeaders(responseHeaders, store.putSnapLink(path, normalize(location)));
+            send(exchange, HttpURLConnection.HTTP_NO_CONTENT, null);
+            return;
+        }
+
+        if (contentType == null) {
+            contentType = DEFAULT_CONTENT_TYPE;
+        }
+
+        final String expectedMd5 = requestHeaders.getFirst("Content-MD5");
+
+        if (expectedMd5 != null && !expectedMd5.equals(ObjectStore.md5(content))) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                    "ContentMD5Mismatch", "Content-MD5 expected to be " + expectedMd5
+                    + ", but was " + ObjectStore.md5(content));
+        }
+
+        final StoredNode object = store.putObject(path, content, contentType, stored);
+        responseHeaders.set("ETag", object.getEtag());
+        responseHeaders.set("Last-Modified", formatDate(object.getLastModified()));
+        responseHeaders.set("computed-md5", object.getContentMd5());
+        send(exchange, HttpURLConnection.HTTP_NO_CONTENT, null);
+    }
+
+    /**
+     * Adds the headers describing a node to a response.
+     *
+     * @param responseHeaders headers of the response
+     * @param node node described by the response
+     */
+    private static void addNodeHeaders(final Headers responseHeaders, final StoredNode node) {
+        for (Map.Entry<String, String> header : node.getHeaders().entrySet()) {
+            responseHeaders.set(header.getKey(), header.getValue());
+        }
+
+        responseHeaders.set("Content-Type", node.getContentType());
+        responseHeaders.set("Last-Modified", formatDate(node.getLastModified()));
+
+        // Manta doesn't send an entity tag for directories
+        if (!node.isDirectory()) {
+            responseHeaders.set("ETag", node.getEtag());
+        }
+
+        if (node.getContentMd5() != null) {
+            responseHeaders.set("Content-MD5", node.getContentMd5());
+        }
+    }
+
+    /**
+     * Selects the request headers stored with an object or directory.
+     *
+     * @param requestHeaders headers of the request
+     * @return stored headers keyed by their lower case name
+     */
+    private static Map<String, String> storedHeaders(final Headers requestHeaders) {
+        final Map<String, String> stored = new HashMap<>();
+
+        for (Map.Entry<String, List<String>> header : requestHeaders.entrySet()) {
+            final String name = header.getKey().toLowerCase(Locale.ENGLISH);
+
+            final String value = String.join(", ", header.getValue()).trim();
+
+            /* An empty value removes the header, which is how role tags are
+             * cleared. */
+            if (value.isEmpty()) {
+                continue;
+            }
+
+            if (name.startsWith("m-") || name.equals("durability-level")
+                    || name.equals("role-tag") || name.equals("cache-control")
+                    || name.equals("content-disposition")) {
+                stored.put(name, value);
+            }
+        }
+
+        return stored;
+    }
+
+    /**
+     * Checks the conditional headers of a GET request.
+     *
+     * @param requestHeaders headers of the request
+     * @param node requested object
+     * @return true if the client's copy of the object is current
+     */
+    private static boolean isNotModified(final Headers requestHeaders, final StoredNode node) {
+        final String ifNoneMatch = requestHeaders.getFirst("If-None-Match");
+
+        if (ifNoneMatch != null) {
+            return ifNoneMatch.equals("*") || ifNoneMatch.contains(node.getEtag());
+        }
+
+        final String ifModifiedSince = requestHeaders.getFirst("If-Modified-Since");
+
+        if (ifModifiedSince == null) {
+            return false;
+        }
+
+        try {
+            final long since = ZonedDateTime.parse(ifModifiedSince, HTTP_DATE).toInstant().getEpochSecond();
+            return Instant.ofEpochMilli(node.getLastModified()).getEpochSecond() <= since;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses a <code>Range</code> header with a single byte range.
+     *
+     * @param range value of the header
+     * @param length length of the object
+     * @return first and last byte of the range or null if it can't be satisfied
+     * @throws MantaErrorResponse thrown when the header can't be parsed
+     */
+    private static long[] parseRange(final String range, final int length) throws MantaErrorResponse {
+        final Matcher matcher = RANGE.matcher(range.trim());
+
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                    "InvalidHeader", "Invalid range: " + range);
+        }
+
+        long start;
+        long end = length - 1;
+
+        if (matcher.group(1).isEmpty()) {
+            start = Math.max(0, length - Long.parseLong(matcher.group(2)));
+        } else {
+            start = Long.parseLong(matcher.group(1));
+
+            if (!matcher.group(2).isEmpty()) {
+                end = Math.min(end, Long.parseLong(matcher.group(2)));
+            }
+        }
+
+        if (start >= length || start > end) {
+            return null;
+        }
+
+        return new long[] {start, end};
+    }
+
+    /**
+     * Parses the <code>limit</code> query parameter of a directory listing.
+     *
+     * @param query query parameters of the request
+     * @return maximum number of entries to list
+     * @throws MantaErrorResponse thrown when the limit is invalid
+     */
+    private static int parseLimit(final Map<String, String> query) throws MantaErrorResponse {
+        final String limit = query.get("limit");
+
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+
+        try {
+            final int parsed = Integer.parseInt(limit);
+
+            if (parsed > 0 && parsed <= MAX_LIMIT) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+
+        throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                "InvalidLimit", "limit must be between 1 and " + MAX_LIMIT);
+    }
+
+    /**
+     * Parses a query string.
+     *
+     * @param rawQuery encoded query string or null
+     * @return decoded query parameters
+     * @throws UnsupportedEncodingException never thrown for UTF-8
+     */
+    private static Map<String, String> parseQuery(final String rawQuery) throws UnsupportedEncodingException {
+        final Map<String, String> query = new HashMap<>();
+
+        if (rawQuery == null) {
+            return query;
+        }
+
+        for (String parameter : rawQuery.split("&")) {
+            final int separator = parameter.indexOf('=');
+
+            if (separator > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+
+        return query;
+    }
+
+    /**
+     * Decodes a path and removes empty elements, so that the same object is
+     * found regardless of duplicate or trailing slashes.
+     *
+     * @param rawPath encoded path
+     * @return decoded path starting with a slash and without trailing slashes
+     * @throws UnsupportedEncodingException never thrown for UTF-8
+     */
+    static String normalize(final String rawPath) throws UnsupportedEncodingException {
+        final StringBuilder path = new StringBuilder();
+
+        for (String element : rawPath.split("/")) {
+            if (!element.isEmpty()) {
+                path.append('/').append(URLDecoder.decode(element, "UTF-8"));
+            }
+        }
+
+        if (path.length() == 0) {
+            return "/";
+        }
+
+        return path.toString();
+    }
+
+    /**
+     * @param millis milliseconds since the epoch
+     * @return date formatted for an HTTP header
+     */
+    private static String formatDate(final long millis) {
+        return HTTP_DATE.format(Instant.ofEpochMilli(millis));
+    }
+
+    /**
+     * Reads the whole body of a request.
+     *
+     * @param in body of the request
+     * @return content of the body
+     * @throws IOException thrown when the body can't be read
+     */
+    private static byte[] readContent(final InputStream in) throws IOException {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+
+        while ((read = in.read(buffer)) != -1) {
+            content.write(buffer, 0, read);
+        }
+
+        return content.toByteArray();
+    }
+
+    /**
+     * Sends a response whose body is the content of an object or listing,
+     * or only its headers for HEAD requests.
+     *
+     * @param exchange request and response
+     * @param status HTTP status code
+     * @param content content of the response
+     * @param headOnly true to send only the headers
+     * @throws IOException thrown when the response can't be written
+     */
+    private static void sendContent(final HttpExchange exchange, final int status,
+                                    final byte[] content, final boolean headOnly) throws IOException {
+        if (headOnly) {
+            setResponseTime(exchange);
+            exchange.getRequestBody().close();
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(content.length));
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+
+        send(exchange, status, content);
+    }
+
+    /**
+     * Sends a response.
+     *
+     * @param exchange request and response
+     * @param status HTTP status code
+     * @param body body of the response or null
+     * @throws IOException thrown when the response can't be written
+     */
+    private static void send(final HttpExchange exchange, final int status, final byte[] body)
+            throws IOException {
+        setResponseTime(exchange);
+
+        if (body == null || body.length == 0) {
+            /* Responses without a body are completed as soon as the headers
+             * are sent, so the request must be consumed first or the server
+             * closes the connection instead of keeping it alive. */
+            exchange.getRequestBody().close();
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+
+        exchange.sendResponseHeaders(status, body.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Adds the <code>x-response-time</code> header, which Manta uses to
+     * report the milliseconds spent processing a request.
+     *
+     * @param exchange request and response
+     */
+    private static void setResponseTime(final HttpExchange exchange) {
+        final Object start = exchange.getAttribute(START_ATTRIBUTE);
+
+        if (start instanceof Long) {
+            final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - (Long)start);
+            exchange.getResponseHeaders().set("x-response-time", String.valueOf(elapsed));
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.emulator;
+
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Verifies the HTTP signatures in the <code>Authorization</code> header of
+ * requests against the public keys registered for each account, in the
+ * same way as Manta.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class SignatureVerifier {
+    /**
+     * Pattern matching the parameters of a signature.
+     */
+    private static final Pattern PARAMETER = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+
+    /**
+     * Prefix of the value of the <code>Authorization</code> header.
+     */
+    private static final String SCHEME = "Signature ";
+
+    /**
+     * Header pseudo name that signs the method and path of the request.
+     */
+    private static final String REQUEST_TARGET = "(request-target)";
+
+    /**
+     * JCA algorithm names keyed by HTTP signature algorithm.
+     */
+    private static final Map<String, String> ALGORITHMS = new HashMap<>();
+
+    static {
+        ALGORITHMS.put("rsa-sha1", "SHA1withRSA");
+        ALGORITHMS.put("rsa-sha256", "SHA256withRSA");
+        ALGORITHMS.put("rsa-sha512", "SHA512withRSA");
+    }
+
+    /**
+     * Public keys keyed by account and then by fingerprint.
+     */
+    private final Map<String, Map<String, PublicKey>> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a public key of an account.
+     *
+     * @param account name of the account
+     * @param fingerprint MD5 fingerprint of the key
+     * @param key public key
+     */
+    void addKey(final String account, final String fingerprint, final PublicKey key) {
+        keys.computeIfAbsent(account, a -> new ConcurrentHashMap<>()).put(fingerprint, key);
+    }
+
+    /**
+     * @return true when at least one key is registered and requests must be signed
+     */
+    boolean isEnabled() {
+        return !keys.isEmpty();
+    }
+
+    /**
+     * Verifies the signature of a request.
+     *
+     * @param account account owning the requested path
+     * @param method HTTP method of the request
+     * @param target raw path and query of the request
+     * @param headers function returning the value of a request header or null
+     * @throws MantaErrorResponse thrown when the request isn't signed by a key of the account
+     */
+    void verify(final String account, final String method, final String target,
+                final Function<String, String> headers) throws MantaErrorResponse {
+        final String authorization = headers.apply("authorization");
+
+        if (authorization == null || !authorization.startsWith(SCHEME)) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_UNAUTHORIZED,
+                    "AuthorizationRequired", "Authorization header missing");
+        }
+
+        final Map<String, String> parameters = new HashMap<>();
+        final Matcher matcher = PARAMETER.matcher(authorization);
+
+        while (matcher.find()) {
+            parameters.put(matcher.group(1), matcher.group(2));
+        }
+
+        final String keyId = parameters.get("keyId");
+        final String algorithm = ALGORITHMS.get(parameters.getOrDefault("algorithm", "rsa-sha256"));
+        final String signature = parameters.get("signature");
+
+        if (keyId == null || algorithm == null || signature == null || !keyId.contains("/keys/")) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                    "InvalidHttpAuthenticationToken", "Invalid Authorization header");
+        }
+
+        final String[] keyIdParts = keyId.split("/");
+        final String keyAccount = keyIdParts[1];
+        final String fingerprint = keyIdParts[keyIdParts.length - 1];
+        final PublicKey key = keys.getOrDefault(keyAccount, new HashMap<>()).get(fingerprint);
+
+        if (key == null) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_FORBIDDEN,
+                    "KeyDoesNotExist", keyId + " does not exist");
+        }
+
+        final String signingString = signingString(method, target,
+                parameters.getOrDefault("headers", "date"), headers);
+
+        if (!isValid(algorithm, key, signingString, signature)) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_FORBIDDEN,
+                    "InvalidSignature", "The signature we calculated does not match the one you sent");
+        }
+
+        if (!keyAccount.equals(account)) {
+            throw new MantaErrorResponse(HttpURLConnection.HTTP_FORBIDDEN,
+                    "AuthorizationFailed", keyAccount + " is not allowed to access " + account);
+        }
+    }
+
+    /**
+     * Builds the string that was signed by the client.
+     *
+     * @param method HTTP method of the request
+     * @param target raw path and query of the request
+     * @param signedHeaders space separated names of the signed headers
+     * @param headers function returning the value of a request header or null
+     * @return signing string
+     * @throws MantaErrorResponse thrown when a signed header is missing
+     */
+    private static String signingString(final String method, final String target,
+                                        final String signedHeaders,
+                                        final Function<String, String> headers)
+            throws MantaErrorResponse {
+        final StringBuilder signingString = new StringBuilder();
+
+        for (String name : signedHeaders.toLowerCase(Locale.ENGLISH).split(" ")) {
+            if (signingString.length() > 0) {
+                signingString.append('\n');
+            }
+
+            final String value;
+
+            if (name.equals(REQUEST_TARGET)) {
+                value = method.toLowerCase(Locale.ENGLISH) + " " + target;
+            } else {
+                value = headers.apply(name);
+            }
+
+            if (value == null) {
+                throw new MantaErrorResponse(HttpURLConnection.HTTP_BAD_REQUEST,
+                        "InvalidHttpAuthenticationToken", "Signed header missing: " + name);
+            }
+
+            signingString.append(name).append(": ").append(value);
+        }
+
+        return signingString.toString();
+    }
+
+    /**
+     * @param algorithm JCA name of the signature algorithm
+     * @param key public key of the client
+     * @param signingString string that was signed
+     * @param signature base64 encoded signature
+     * @return true if the signature is valid
+     */
+    private static boolean isValid(final String algorithm, final PublicKey key,
+                                   final String signingString, final String signature) {
+        try {
+            final Signature verifier = Signature.getInstance(algorithm);
+            verifier.initVerify(key);
+            verifier.update(signingString.getBytes(StandardCharsets.UTF_8));
+            return verifier.verify(Base64.getDecoder().decode(signature));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.emulator;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Object or directory held by the {@link ObjectStore}. Instances are
+ * immutable except for the names of the children of a directory, which
+ * are guarded by the store.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ * @since 2.6.0
+ */
+final class StoredNode {
+    /**
+     * Content type returned for directories.
+     */
+    static final String DIRECTORY_CONTENT_TYPE = "application/x-json-stream; type=directory";
+
+    /**
+     * Format of the mtime values of directory listings.
+     */
+    private static final DateTimeFormatter ISO_8601 =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    /**
+     * Name of the node within its parent directory.
+     */
+    private final String name;
+
+    /**
+     * Content of an object or null for directories. The array is shared by
+     * snaplinks and must never be modified.
+     */
+    private final byte[] content;
+
+    /**
+     * Content type of the node.
+     */
+    private final String contentType;
+
+    /**
+     * Entity tag of the node.
+     */
+    private final String etag;
+
+    /**
+     * Base64 encoded MD5 checksum of the content or null for directories.
+     */
+    private final String contentMd5;
+
+    /**
+     * Time of the last modification in milliseconds since the epoch.
+     */
+    private final long lastModified;
+
+    /**
+     * Stored headers, such as metadata, keyed by their lower case name.
+     */
+    private final Map<String, String> headers;
+
+    /**
+     * Names of the children of a directory or null for objects.
+     */
+    private final NavigableSet<String> children;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param name name of the node within its parent directory
+     * @param content content of an object or null for directories
+     * @param contentType content type of the node
+     * @param etag entity tag of the node
+     * @param contentMd5 base64 encoded MD5 checksum of the content or null
+     * @param lastModified time of the last modification in milliseconds
+     * @param headers stored headers keyed by their lower case name
+     * @param children names of the children of a directory or null for objects
+     */
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    private StoredNode(final String name, final byte[] content, final String contentType,
+                       final String etag, final String contentMd5, final long lastModified,
+                       final Map<String, String> headers, final NavigableSet<String> children) {
+        this.name = name;
+        this.content = content;
+        this.contentType = contentType;
+        this.etag = etag;
+        this.contentMd5 = contentMd5;
+        this.lastModified = lastModified;
+        this.headers = Collections.unmodifiableMap(new TreeMap<>(headers));
+        this.children = children;
+    }
+
+    /**
+     * Creates a new object.
+     *
+     * @param name name of the object within its parent directory
+     * @param content content of the object, which must not be modified afterwards
+     * @param contentType content type of the object
+     * @param etag entity tag of the object
+     * @param contentMd5 base64 encoded MD5 checksum of the content
+     * @param headers stored headers keyed by their lower case name
+     * @return new object
+     */
+    static StoredNode object(final String name, final byte[] content, final String contentType,
+                             final String etag, final String contentMd5,
+                             final Map<String, String> headers) {
+        return new StoredNode(name, content, contentType, etag, contentMd5,
+                System.currentTimeMillis(), headers, null);
+    }
+
+    /**
+     * Creates a new empty directory.
+     *
+     * @param name name of the directory within its parent directory
+     * @param etag entity tag of the directory
+     * @param headers stored headers keyed by their lower case name
+     * @return new directory
+     */
+    static StoredNode directory(final String name, final String etag, final Map<String, String> headers) {
+        return new StoredNode(name, null, DIRECTORY_CONTENT_TYPE, etag, null,
+                System.currentTimeMillis(), headers, new TreeSet<>());
+    }
+
+    /**
+     * Creates a copy of this node with a different name, as done by a snaplink.
+     *
+     * @param newName name of the copy
+     * @return copy sharing the content of this node
+     */
+    StoredNode withName(final String newName) {
+        return new StoredNode(newName, content, contentType, etag, contentMd5,
+                System.currentTimeMillis(), headers, children);
+    }
+
+    /**
+     * Creates a copy of this node with different headers, as done by a
+     * metadata update.
+     *
+     * @param newContentType content type of the copy or null to keep the current one
+     * @param newHeaders stored headers of the copy
+     * @return copy of this node
+     */
+    StoredNode withHeaders(final String newContentType, final Map<String, String> newHeaders) {
+        String type = contentType;
+
+        if (newContentType != null && !isDirectory()) {
+            type = newContentType;
+        }
+
+        return new StoredNode(name, content, type, etag, contentMd5,
+                System.currentTimeMillis(), newHeaders, children);
+    }
+
+    /**
+     * @return true if the node is a directory
+     */
+    boolean isDirectory() {
+        return children != null;
+    }
+
+    /**
+     * @return name of the node within its parent directory
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return content of an object, which must not be modified
+     */
+    byte[] getContent() {
+        return content;
+    }
+
+    /**
+     * @return content type of the node
+     */
+    String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return entity tag of the node
+     */
+    String getEtag() {
+        return etag;
+    }
+
+    /**
+     * @return base64 encoded MD5 checksum of the content or null for directories
+     */
+    String getContentMd5() {
+        return contentMd5;
+    }
+
+    /**
+     * @return time of the last modification in milliseconds since the epoch
+     */
+    long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return stored headers keyed by their lower case name
+     */
+    Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return names of the children of a directory, guarded by the store
+     */
+    NavigableSet<String> getChildren() {
+        return children;
+    }
+
+    /**
+     * @return JSON line describing the node in a directory listing
+     */
+    String toListingJson() {
+        final String mtime = ISO_8601.format(Instant.ofEpochMilli(lastModified));
+
+        if (isDirectory()) {
+            return String.format("{\"name\":\"%s\",\"type\":\"directory\",\"mtime\":\"%s\"}",
+                    JsonUtils.escape(name), mtime);
+        }
+
+        return String.format("{\"name\":\"%s\",\"etag\":\"%s\",\"size\":%d,"
+                        + "\"type\":\"object\",\"mtime\":\"%s\",\"durability\":%s}",
+                JsonUtils.escape(name), etag, content.length, mtime,
+                durability());
+    }
+
+    /**
+     * @return durability level of an object
+     */
+    private String durability() {
+        final String level = headers.get("durability-level");
+
+        if (level == null) {
+            return ObjectStore.DEFAULT_DURABILITY;
+        }
+
+        return level;
+    }
+}
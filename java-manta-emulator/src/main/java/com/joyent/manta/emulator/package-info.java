@@ -0,0 +1,6 @@
+/**
+ * Package containing an in-process emulator of the Manta storage API used
+ * for benchmarks and integration tests.
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+package com.joyent.manta.emulator;
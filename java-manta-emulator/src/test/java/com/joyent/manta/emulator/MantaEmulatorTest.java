@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2016, Joyent, Inc. All rights reserved.
+ */
+package com.joyent.manta.emulator;
+
+import com.joyent.manta.client.MantaClient;
+import com.joyent.manta.client.MantaHttpHeaders;
+import com.joyent.manta.client.MantaMetadata;
+import com.joyent.manta.client.MantaObject;
+import com.joyent.manta.client.MantaObjectInputStream;
+import com.joyent.manta.client.MantaObjectResponse;
+import com.joyent.manta.config.ChainedConfigContext;
+import com.joyent.manta.config.ConfigContext;
+import com.joyent.manta.config.DefaultsConfigContext;
+import com.joyent.manta.config.StandardConfigContext;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import com.joyent.manta.exception.MantaErrorCode;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Test
+public class MantaEmulatorTest {
+    private static final String USER = "emulated";
+
+    private MantaEmulator emulator;
+
+    private KeyPair keyPair;
+
+    private MantaClient client;
+
+    @BeforeClass
+    public void setup() throws IOException {
+        keyPair = MantaEmulatorKeys.generateKeyPair();
+        emulator = new MantaEmulator().addKey(USER, keyPair.getPublic()).start();
+        client = new MantaClient(config(keyPair));
+    }
+
+    @AfterClass
+    public void tearDown() {
+        client.closeQuietly();
+        emulator.close();
+    }
+
+    private ConfigContext config(final KeyPair signingKey) {
+        return new ChainedConfigContext(new DefaultsConfigContext(), new StandardConfigContext()
+                .setMantaURL(emulator.getURL())
+                .setMantaUser(USER)
+                .setMantaKeyId(MantaEmulatorKeys.fingerprint(signingKey.getPublic()))
+                .setPrivateKeyContent(MantaEmulatorKeys.toPem(signingKey))
+                .setRetries(0)
+                .setTimeout(5000));
+    }
+
+    public void canPutGetAndDeleteObject() throws IOException {
+        final String path = "/" + USER + "/stor/object.txt";
+        final MantaHttpHeaders headers = new MantaHttpHeaders();
+        headers.setContentType("text/plain");
+
+        final MantaObjectResponse put = client.put(path, "hello emulator", headers);
+        Assert.assertNotNull(put.getEtag());
+
+        Assert.assertEquals(client.getAsString(path), "hello emulator");
+
+        final MantaObjectResponse head = client.head(path);
+        Assert.assertEquals(head.getContentLength(), Long.valueOf(14));
+        Assert.assertEquals(head.getContentType(), "text/plain");
+        Assert.assertEquals(head.getEtag(), put.getEtag());
+
+        client.delete(path);
+        Assert.assertFalse(client.existsAndIsAccessible(path));
+    }
+
+    public void canReadRange() throws IOException {
+        final String path = "/" + USER + "/stor/range.txt";
+        client.put(path, "0123456789");
+
+        final MantaHttpHeaders headers = new MantaHttpHeaders();
+        headers.setRange("bytes=2-5");
+
+        try (MantaObjectInputStream in = client.getAsInputStream(path, headers)) {
+            final byte[] content = new byte[10];
+            final int read = in.read(content);
+            Assert.assertEquals(new String(content, 0, read, StandardCharsets.UTF_8), "2345");
+        }
+    }
+
+    public void canStoreMetadata() throws IOException {
+        final String path = "/" + USER + "/stor/metadata.txt";
+        final MantaMetadata metadata = new MantaMetadata();
+        metadata.put("m-color", "blue");
+        client.put(path, "content", metadata);
+
+        Assert.assertEquals(client.head(path).getMetadata().get("m-color"), "blue");
+
+        final MantaMetadata updated = new MantaMetadata();
+        updated.put("m-color", "red");
+        client.putMetadata(path, updated);
+
+        Assert.assertEquals(client.head(path).getMetadata().get("m-color"), "red");
+    }
+
+    public void canCreateSnapLink() throws IOException {
+        final String source = "/" + USER + "/stor/source.txt";
+        final String link = "/" + USER + "/stor/link.txt";
+        client.put(source, "linked");
+        client.putSnapLink(link, source, null);
+        client.put(source, "replaced");
+
+        Assert.assertEquals(client.getAsString(link), "linked");
+    }
+
+    public void canListDirectories() throws IOException {
+        final String dir = "/" + USER + "/stor/listing";
+        Assert.assertTrue(client.putDirectory(dir, null));
+        Assert.assertFalse(client.putDirectory(dir, null));
+        client.putDirectory(dir + "/sub", null);
+        client.put(dir + "/b.txt", "b");
+        client.put(dir + "/a.txt", "a");
+
+        try (Stream<MantaObject> listing = client.listObjects(dir)) {
+            final List<String> names = listing.map(MantaObject::getPath).collect(Collectors.toList());
+            Assert.assertEquals(names.size(), 3);
+        }
+
+        Assert.assertTrue(client.head(dir).isDirectory());
+
+        try {
+            client.delete(dir);
+            Assert.fail("Non-empty directory was deleted");
+        } catch (MantaClientHttpResponseException e) {
+            Assert.assertEquals(e.getServerCode(), MantaErrorCode.DIRECTORY_NOT_EMPTY_ERROR);
+        }
+    }
+
+    public void pagesDirectoryListingsWithMarker() throws IOException {
+        try (MantaEmulator unsigned = new MantaEmulator().start()) {
+            final MantaClient unsignedClient = new MantaClient(new ChainedConfigContext(config(keyPair),
+                    new StandardConfigContext().setMantaURL(unsigned.getURL())));
+
+            try {
+                for (String name : new String[] {"c", "a", "d", "b"}) {
+                    unsignedClient.put("/" + USER + "/stor/" + name, name);
+                }
+            } finally {
+                unsignedClient.closeQuietly();
+            }
+
+            final List<String> first = listNames(unsigned.getURL() + "/" + USER + "/stor?limit=2");
+            Assert.assertEquals(first.size(), 2);
+            Assert.assertTrue(first.get(0).contains("\"name\":\"a\""));
+            Assert.assertTrue(first.get(1).contains("\"name\":\"b\""));
+
+            final List<String> second = listNames(unsigned.getURL() + "/" + USER + "/stor?limit=2&marker=b");
+            Assert.assertEquals(second.size(), 2);
+            Assert.assertTrue(second.get(0).contains("\"name\":\"b\""));
+            Assert.assertTrue(second.get(1).contains("\"name\":\"c\""));
+        }
+    }
+
+    public void rejectsUnknownKey() throws IOException {
+        final KeyPair otherKey = MantaEmulatorKeys.generateKeyPair();
+        final MantaClient otherClient = new MantaClient(config(otherKey));
+
+        try {
+            otherClient.put("/" + USER + "/stor/rejected.txt", "rejected");
+            Assert.fail("Request signed with an unknown key was accepted");
+        } catch (MantaClientHttpResponseException e) {
+            Assert.assertEquals(e.getStatusCode(), 403);
+            Assert.assertEquals(e.getServerCode(), MantaErrorCode.KEY_DOES_NOT_EXIST_ERROR);
+        } finally {
+            otherClient.closeQuietly();
+        }
+    }
+
+    public void injectsErrors() throws IOException {
+        final String path = "/" + USER + "/stor/faulty.txt";
+        client.put(path, "faulty");
+        emulator.failNextRequests(1);
+
+        try {
+            client.getAsString(path);
+            Assert.fail("Injected error was not returned");
+        } catch (MantaClientHttpResponseException e) {
+            Assert.assertEquals(e.getStatusCode(), 503);
+        }
+
+        Assert.assertEquals(client.getAsString(path), "faulty");
+    }
+
+    private static List<String> listNames(final String url) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection)new URL(url).openConnection();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                connection.getInputStream(), StandardCharsets.UTF_8))) {
+            Assert.assertEquals(connection.getHeaderField("result-set-size"), "4");
+            return reader.lines().collect(Collectors.toList());
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
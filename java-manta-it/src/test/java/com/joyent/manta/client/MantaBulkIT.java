@@ -0,0 +1,148 @@
+package com.joyent.manta.client;
+
+import com.joyent.manta.client.config.IntegrationTestConfigContext;
+import com.joyent.manta.config.ConfigContext;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Tests for verifying the behavior of bulk operations run with
+ * {@link MantaClient#bulk()}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test(groups = { "bulk" })
+public class MantaBulkIT {
+    private static final String TEST_DATA = "EPISODEII_IS_BEST_EPISODE";
+
+    private MantaClient mantaClient;
+
+    private String testPathPrefix;
+
+    @BeforeClass
+    @Parameters({"manta.url", "manta.user", "manta.key_path", "manta.key_id", "manta.timeout", "manta.http_transport"})
+    public void beforeClass(@Optional String mantaUrl,
+                            @Optional String mantaUser,
+                            @Optional String mantaKeyPath,
+                            @Optional String mantaKeyId,
+                            @Optional Integer mantaTimeout,
+                            @Optional String mantaHttpTransport)
+            throws IOException {
+
+        // Let TestNG configuration take precedence over environment variables
+        ConfigContext config = new IntegrationTestConfigContext(
+                mantaUrl, mantaUser, mantaKeyPath, mantaKeyId, mantaTimeout,
+                mantaHttpTransport);
+
+        mantaClient = new MantaClient(config);
+        testPathPrefix = String.format("%s/stor/%s",
+                config.getMantaHomeDirectory(), UUID.randomUUID());
+        mantaClient.putDirectory(testPathPrefix);
+    }
+
+    @AfterClass
+    public void afterClass() throws IOException {
+        if (mantaClient != null) {
+            mantaClient.deleteRecursive(testPathPrefix);
+            mantaClient.closeWithWarning();
+        }
+    }
+
+    @Test
+    public void canRunHeterogeneousOperations() throws IOException {
+        final String dir = testPathPrefix + "/mixed";
+        final String object = dir + "/object";
+        final String link = dir + "/link";
+        final String removed = testPathPrefix + "/removed";
+
+        mantaClient.put(removed, TEST_DATA);
+
+        final MantaMetadata metadata = new MantaMetadata();
+        metadata.put("m-bulk", "yes");
+
+        final List<MantaBulk.Result> created = mantaClient.bulk()
+                .putDirectory(dir)
+                .delete(removed)
+                .execute();
+
+        for (MantaBulk.Result result : created) {
+            Assert.assertTrue(result.isSuccessful(), result.toString());
+        }
+
+        mantaClient.put(object, TEST_DATA);
+
+        final List<MantaBulk.Result> results = mantaClient.bulk()
+                .putMetadata(object, metadata)
+                .putSnapLink(link, object)
+                .head(dir)
+                .execute();
+
+        Assert.assertEquals(results.size(), 3);
+
+        for (MantaBulk.Result result : results) {
+            Assert.assertTrue(result.isSuccessful(), result.toString());
+        }
+
+        Assert.assertEquals(results.get(0).getOperation().getType(), MantaBulk.OperationType.PUT_METADATA);
+        Assert.assertTrue(results.get(2).getResponse().isDirectory());
+        Assert.assertEquals(mantaClient.head(object).getMetadata().get("m-bulk"), "yes");
+        Assert.assertTrue(mantaClient.existsAndIsAccessible(link));
+        Assert.assertFalse(mantaClient.existsAndIsAccessible(removed));
+    }
+
+    @Test
+    public void failuresDoNotStopOtherOperations() throws IOException {
+        final String existing = testPathPrefix + "/" + UUID.randomUUID();
+        final String missing = testPathPrefix + "/" + UUID.randomUUID();
+        mantaClient.put(existing, TEST_DATA);
+
+        final List<MantaBulk.Result> results = mantaClient.bulk()
+                .setParallelism(2)
+                .head(missing)
+                .head(existing)
+                .delete(missing)
+                .execute();
+
+        Assert.assertFalse(results.get(0).isSuccessful());
+        Assert.assertTrue(results.get(0).getError() instanceof MantaClientHttpResponseException);
+        Assert.assertTrue(results.get(1).isSuccessful());
+        Assert.assertEquals(results.get(1).getResponse().getContentLength(), Long.valueOf(TEST_DATA.length()));
+        Assert.assertFalse(results.get(2).isSuccessful());
+    }
+
+    @Test
+    public void resultsCanBeConsumedAsTheyComplete() throws IOException {
+        final String dir = testPathPrefix + "/many";
+        mantaClient.putDirectory(dir);
+
+        final MantaBulk bulk = mantaClient.bulk().setParallelism(8);
+
+        for (int i = 0; i < 50; i++) {
+            bulk.putDirectory(dir + "/" + i);
+        }
+
+        final List<Integer> indexes = new ArrayList<>();
+        bulk.execute(result -> {
+            Assert.assertTrue(result.isSuccessful(), result.toString());
+            indexes.add(result.getIndex());
+        });
+
+        Assert.assertEquals(indexes.size(), 50);
+        Assert.assertEquals(indexes.stream().distinct().count(), 50);
+
+        try (Stream<MantaObject> listing = mantaClient.listObjects(dir)) {
+            Assert.assertEquals(listing.count(), 50);
+        }
+    }
+}
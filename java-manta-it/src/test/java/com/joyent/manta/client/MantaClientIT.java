@@ -424,13 +424,14 @@ public class MantaClientIT {
         final String subDir = pathPrefix + "/" + UUID.randomUUID().toString();
         mantaClient.putDirectory(subDir, null);
         mantaClient.put(String.format("%s/%s", subDir, UUID.randomUUID()), "");
-        final Stream<MantaObject> objs = mantaClient.listObjects(pathPrefix);
-
         final AtomicInteger count = new AtomicInteger(0);
-        objs.forEach(obj -> {
-            count.incrementAndGet();
-            Assert.assertTrue(obj.getPath().startsWith(testPathPrefix));
-        });
+
+        try (Stream<MantaObject> objs = mantaClient.listObjects(pathPrefix)) {
+            objs.forEach(obj -> {
+                count.incrementAndGet();
+                Assert.assertTrue(obj.getPath().startsWith(testPathPrefix));
+            });
+        }
 
         Assert.assertEquals(3, count.get());
     }
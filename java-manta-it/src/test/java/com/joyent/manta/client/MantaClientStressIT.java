@@ -0,0 +1,321 @@
+package com.joyent.manta.client;
+
+import com.joyent.manta.client.config.IntegrationTestConfigContext;
+import com.joyent.manta.exception.MantaClientHttpResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Stress tests sharing clients, interceptors and channels between many
+ * threads to find data races in shared client state, and reporting the
+ * throughput lost to contention and the growth of the client's memory.
+ * Leaked streams are checked to be reported and to return their connections.
+ * These tests are run with <code>mvn verify -Pstress</code> against the
+ * emulator. The number of threads and of iterations per thread can be set
+ * with the <code>manta.stress.threads</code> and
+ * <code>manta.stress.iterations</code> system properties.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test(groups = { "stress" })
+public class MantaClientStressIT {
+    private static final Logger LOG = LoggerFactory.getLogger(MantaClientStressIT.class);
+
+    private static final int THREADS = Integer.getInteger("manta.stress.threads", 32);
+
+    private static final int ITERATIONS = Integer.getInteger("manta.stress.iterations", 50);
+
+    private IntegrationTestConfigContext config;
+
+    private MantaClient mantaClient;
+
+    private String testPathPrefix;
+
+    private ExecutorService executor;
+
+    @BeforeClass
+    @Parameters({"manta.url", "manta.user", "manta.key_path", "manta.key_id", "manta.timeout", "manta.http_transport"})
+    public void beforeClass(@Optional String mantaUrl,
+                            @Optional String mantaUser,
+                            @Optional String mantaKeyPath,
+                            @Optional String mantaKeyId,
+                            @Optional Integer mantaTimeout,
+                            @Optional String mantaHttpTransport)
+            throws IOException {
+
+        // Let TestNG configuration take precedence over environment variables
+        config = new IntegrationTestConfigContext(
+                mantaUrl, mantaUser, mantaKeyPath, mantaKeyId, mantaTimeout,
+                mantaHttpTransport);
+        config.setMaximumConnections(THREADS);
+
+        mantaClient = new MantaClient(config);
+        testPathPrefix = String.format("%s/stor/%s",
+                config.getMantaHomeDirectory(), UUID.randomUUID());
+        mantaClient.putDirectory(testPathPrefix);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterClass
+    public void afterClass() throws IOException {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+
+        if (mantaClient != null) {
+            mantaClient.deleteRecursive(testPathPrefix);
+            mantaClient.closeWithWarning();
+        }
+    }
+
+    @Test
+    public void concurrentOperationsKeepDataIntact() throws Exception {
+        final String dir = testPathPrefix + "/mixed";
+        mantaClient.putDirectory(dir);
+
+        final long elapsed = runConcurrently(THREADS, (thread, iteration) -> {
+            final String path = String.format("%s/%d-%d", dir, thread, iteration);
+            final String data = "thread " + thread + " iteration " + iteration;
+
+            mantaClient.put(path, data);
+            Assert.assertEquals(mantaClient.getAsString(path), data);
+            Assert.assertEquals(mantaClient.head(path).getContentLength().longValue(),
+                    data.getBytes(StandardCharsets.UTF_8).length);
+
+            try (Stream<MantaObject> listing = mantaClient.listObjects(dir)) {
+                Assert.assertTrue(listing.anyMatch(o -> o.getPath().equals(path)),
+                        "Listing didn't contain " + path);
+            }
+
+            mantaClient.delete(path);
+        });
+
+        report("mixed operations", THREADS, elapsed, 4);
+    }
+
+    @Test
+    public void cachedSignaturesAreConsistentAcrossThreads() throws Exception {
+        final IntegrationTestConfigContext cachingConfig = new IntegrationTestConfigContext(config);
+        cachingConfig.setSignatureCacheTTL(1);
+        final String path = testPathPrefix + "/signed";
+        mantaClient.put(path, "signed");
+
+        final MantaClient cachingClient = new MantaClient(cachingConfig);
+
+        try {
+            final long elapsed = runConcurrently(THREADS, (thread, iteration) -> cachingClient.head(path));
+
+            report("cached signature HEADs", THREADS, elapsed, 1);
+        } finally {
+            cachingClient.closeWithWarning();
+        }
+    }
+
+    @Test
+    public void sharedChannelCountsEveryByte() throws Exception {
+        final byte[] data = new byte[THREADS * ITERATIONS * 64];
+        Arrays.fill(data, (byte)'x');
+        final String path = testPathPrefix + "/channel";
+        mantaClient.put(path, data);
+
+        try (MantaSeekableByteChannel channel = mantaClient.getSeekableByteChannel(path)) {
+            final AtomicLong total = new AtomicLong();
+
+            runConcurrently(THREADS, (thread, iteration) -> {
+                final byte[] buffer = new byte[64];
+                final int read = channel.read(buffer, 0, buffer.length);
+
+                if (read > 0) {
+                    total.addAndGet(read);
+                }
+            });
+
+            final byte[] rest = new byte[1024];
+            int read;
+
+            while ((read = channel.read(rest)) != -1) {
+                total.addAndGet(read);
+            }
+
+            Assert.assertEquals(total.get(), data.length);
+            Assert.assertEquals(channel.position(), data.length);
+        }
+    }
+
+    @Test
+    public void measureContention() throws Exception {
+        final String path = testPathPrefix + "/contended";
+        mantaClient.put(path, "contended");
+
+        final long single = runConcurrently(1, (thread, iteration) -> mantaClient.head(path));
+        final long concurrent = runConcurrently(THREADS, (thread, iteration) -> mantaClient.head(path));
+
+        final double singleRate = ITERATIONS * 1e9 / single;
+        final double concurrentRate = (double)THREADS * ITERATIONS * 1e9 / concurrent;
+
+        LOG.info("HEAD throughput: {} req/s with 1 thread, {} req/s with {} threads ({}x)",
+                String.format("%.0f", singleRate), String.format("%.0f", concurrentRate), THREADS,
+                String.format("%.1f", concurrentRate / singleRate));
+    }
+
+    @Test
+    public void closedStreamsAreNotRetained() throws Exception {
+        final String dir = testPathPrefix + "/dangling";
+        mantaClient.putDirectory(dir);
+        mantaClient.put(dir + "/object", "dangling");
+
+        final MantaLeakTracker tracker = leakTracker(mantaClient);
+        final int before = tracker.size();
+
+        runConcurrently(THREADS, (thread, iteration) -> {
+            try (Stream<MantaObject> listing = mantaClient.listObjects(dir)) {
+                Assert.assertEquals(listing.count(), 1L);
+            }
+
+            try (InputStream in = mantaClient.getAsInputStream(dir + "/object")) {
+                Assert.assertEquals(MantaUtils.inputStreamToString(in), "dangling");
+            }
+        });
+
+        System.gc();
+        final Runtime runtime = Runtime.getRuntime();
+        final int after = tracker.size();
+
+        LOG.info("Tracked streams went from {} to {} after {} closed streams, heap used: {} MiB",
+                before, after, THREADS * ITERATIONS * 2,
+                (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+
+        Assert.assertTrue(after <= before, "Closed streams are still tracked: " + tracker);
+    }
+
+    @Test
+    public void leakedStreamsReturnTheirConnections() throws Exception {
+        final String path = testPathPrefix + "/leaked";
+        mantaClient.put(path, "leaked");
+
+        final MantaLeakTracker tracker = leakTracker(mantaClient);
+        final long before = tracker.getLeaked();
+        // More leaks than pooled connections would exhaust the pool if they weren't returned
+        final int leaks = config.getMaximumConnections() * 2;
+
+        for (int i = 1; i <= leaks; i++) {
+            openWithoutClosing(path);
+
+            final long deadline = System.currentTimeMillis() + 10000L;
+
+            while (tracker.getLeaked() < before + i && System.currentTimeMillis() < deadline) {
+                System.gc();
+                tracker.purge();
+            }
+        }
+
+        Assert.assertEquals(tracker.getLeaked(), before + leaks);
+        Assert.assertEquals(mantaClient.getAsString(path), "leaked");
+    }
+
+    /**
+     * Opens a stream that becomes unreachable without being closed.
+     */
+    private void openWithoutClosing(final String path) throws IOException {
+        Assert.assertEquals(mantaClient.getAsInputStream(path).read(), 'l');
+    }
+
+    /**
+     * Reads the client's registry of the streams left open.
+     */
+    private static MantaLeakTracker leakTracker(final MantaClient client) throws ReflectiveOperationException {
+        final Field field = MantaClient.class.getDeclaredField("leakTracker");
+        field.setAccessible(true);
+        return (MantaLeakTracker)field.get(client);
+    }
+
+    private void report(final String name, final int threads, final long elapsedNanos,
+                        final int requestsPerIteration) {
+        final long requests = (long)threads * ITERATIONS * requestsPerIteration;
+
+        LOG.info("{}: {} requests from {} threads in {} ms ({} req/s)", name, requests, threads,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                String.format("%.0f", requests * 1e9 / elapsedNanos));
+    }
+
+    /**
+     * Runs the task {@link #ITERATIONS} times on each thread, with all
+     * threads starting at the same time, and fails with the first error.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    private long runConcurrently(final int threads, final StressTask task) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        final List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            final int thread = i;
+
+            futures.add(executor.submit(() -> {
+                start.await();
+
+                for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                    try {
+                        task.run(thread, iteration);
+                    } catch (Exception | AssertionError e) {
+                        errors.add(e);
+                    }
+                }
+
+                return null;
+            }));
+        }
+
+        final long started = System.nanoTime();
+        start.countDown();
+
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+
+        final long elapsed = System.nanoTime() - started;
+
+        if (!errors.isEmpty()) {
+            final Throwable first = errors.peek();
+
+            if (first instanceof MantaClientHttpResponseException) {
+                LOG.error("Server error: {}", ((MantaClientHttpResponseException)first).getServerCode());
+            }
+
+            throw new AssertionError(errors.size() + " of " + threads * ITERATIONS
+                    + " iterations failed", first);
+        }
+
+        return elapsed;
+    }
+
+    @FunctionalInterface
+    private interface StressTask {
+        void run(int thread, int iteration) throws Exception;
+    }
+}
@@ -0,0 +1,175 @@
+package com.joyent.manta.client;
+
+import com.joyent.manta.client.config.IntegrationTestConfigContext;
+import com.joyent.manta.config.ConfigContext;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for verifying the behavior of the publishers created by
+ * {@link MantaPublishers}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test(groups = { "publishers" })
+public class MantaPublishersIT {
+    private static final String TEST_DATA = "EPISODEII_IS_BEST_EPISODE";
+
+    private MantaClient mantaClient;
+
+    private MantaPublishers publishers;
+
+    private String testPathPrefix;
+
+    @BeforeClass
+    @Parameters({"manta.url", "manta.user", "manta.key_path", "manta.key_id", "manta.timeout", "manta.http_transport"})
+    public void beforeClass(@Optional String mantaUrl,
+                            @Optional String mantaUser,
+                            @Optional String mantaKeyPath,
+                            @Optional String mantaKeyId,
+                            @Optional Integer mantaTimeout,
+                            @Optional String mantaHttpTransport)
+            throws IOException {
+
+        // Let TestNG configuration take precedence over environment variables
+        ConfigContext config = new IntegrationTestConfigContext(
+                mantaUrl, mantaUser, mantaKeyPath, mantaKeyId, mantaTimeout,
+                mantaHttpTransport);
+
+        mantaClient = new MantaClient(config);
+        publishers = new MantaPublishers(mantaClient);
+        testPathPrefix = String.format("%s/stor/%s",
+                config.getMantaHomeDirectory(), UUID.randomUUID());
+        mantaClient.putDirectory(testPathPrefix);
+    }
+
+    @AfterClass
+    public void afterClass() throws IOException {
+        if (publishers != null) {
+            publishers.close();
+        }
+
+        if (mantaClient != null) {
+            mantaClient.deleteRecursive(testPathPrefix);
+            mantaClient.closeWithWarning();
+        }
+    }
+
+    @Test
+    public void canPublishDirectoryListing() throws Throwable {
+        final String dir = testPathPrefix + "/listing";
+        mantaClient.putDirectory(dir);
+
+        final List<String> expected = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            final String path = dir + "/object-" + i;
+            mantaClient.put(path, TEST_DATA);
+            expected.add(path);
+        }
+
+        final CollectingSubscriber<MantaObject> subscriber = new CollectingSubscriber<>(1);
+        publishers.listObjects(dir).subscribe(subscriber);
+        subscriber.await();
+
+        final List<String> actual = new ArrayList<>();
+
+        for (MantaObject object : subscriber.items) {
+            actual.add(object.getPath());
+        }
+
+        Collections.sort(actual);
+        Assert.assertEquals(actual, expected);
+    }
+
+    @Test
+    public void canPublishObjectContent() throws Throwable {
+        final String path = testPathPrefix + "/content";
+        final StringBuilder content = new StringBuilder();
+
+        for (int i = 0; i < 100; i++) {
+            content.append(TEST_DATA);
+        }
+
+        mantaClient.put(path, content.toString());
+
+        final CollectingSubscriber<ByteBuffer> subscriber = new CollectingSubscriber<>(2);
+        publishers.getAsByteBuffers(path, 100).subscribe(subscriber);
+        subscriber.await();
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for (ByteBuffer buffer : subscriber.items) {
+            Assert.assertTrue(buffer.remaining() <= 100);
+            out.write(buffer.array(), buffer.position(), buffer.remaining());
+        }
+
+        Assert.assertEquals(out.toString("UTF-8"), content.toString());
+    }
+
+    /**
+     * Subscriber requesting a few items at a time until completion.
+     */
+    private static class CollectingSubscriber<T> implements MantaPublisher.Subscriber<T> {
+        private final long batch;
+        private final List<T> items = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch done = new CountDownLatch(1);
+        private MantaPublisher.Subscription subscription;
+        private long outstanding;
+        private volatile Throwable error;
+
+        CollectingSubscriber(final long batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(final MantaPublisher.Subscription subscription) {
+            this.subscription = subscription;
+            outstanding = batch;
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(final T item) {
+            items.add(item);
+
+            if (--outstanding == 0) {
+                outstanding = batch;
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+
+        void await() throws Throwable {
+            Assert.assertTrue(done.await(30, TimeUnit.SECONDS), "Publisher didn't complete");
+
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+}
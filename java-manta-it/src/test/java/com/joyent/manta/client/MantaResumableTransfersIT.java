@@ -0,0 +1,185 @@
+package com.joyent.manta.client;
+
+import com.joyent.manta.client.config.IntegrationTestConfigContext;
+import com.joyent.manta.config.ConfigContext;
+import com.joyent.manta.exception.MantaChecksumFailedException;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Tests for verifying the behavior of {@link MantaResumableTransfers}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test(groups = { "resumable" })
+public class MantaResumableTransfersIT {
+    private static final int CONTENT_SIZE = 256 * 1024;
+
+    private MantaClient mantaClient;
+
+    private String testPathPrefix;
+
+    private Path localDirectory;
+
+    private MantaResumableTransfers transfers;
+
+    private byte[] content;
+
+    @BeforeClass
+    @Parameters({"manta.url", "manta.user", "manta.key_path", "manta.key_id", "manta.timeout", "manta.http_transport"})
+    public void beforeClass(@Optional String mantaUrl,
+                            @Optional String mantaUser,
+                            @Optional String mantaKeyPath,
+                            @Optional String mantaKeyId,
+                            @Optional Integer mantaTimeout,
+                            @Optional String mantaHttpTransport)
+            throws IOException {
+
+        // Let TestNG configuration take precedence over environment variables
+        ConfigContext config = new IntegrationTestConfigContext(
+                mantaUrl, mantaUser, mantaKeyPath, mantaKeyId, mantaTimeout,
+                mantaHttpTransport);
+
+        mantaClient = new MantaClient(config);
+        testPathPrefix = String.format("%s/stor/%s",
+                config.getMantaHomeDirectory(), UUID.randomUUID());
+        mantaClient.putDirectory(testPathPrefix);
+        localDirectory = Files.createTempDirectory("manta-resumable-it");
+        transfers = new MantaResumableTransfers(mantaClient, localDirectory.resolve("journals"));
+
+        content = new byte[CONTENT_SIZE];
+        new Random().nextBytes(content);
+    }
+
+    @AfterClass
+    public void afterClass() throws IOException {
+        try (Stream<Path> files = Files.walk(localDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+
+        if (mantaClient != null) {
+            mantaClient.deleteRecursive(testPathPrefix);
+            mantaClient.closeWithWarning();
+        }
+    }
+
+    @Test
+    public void canUploadAndDownload() throws IOException {
+        final String path = testPathPrefix + "/round-trip";
+        final Path source = localDirectory.resolve("round-trip-source");
+        final Path destination = localDirectory.resolve("round-trip-destination");
+        Files.write(source, content);
+
+        final MantaObjectResponse uploaded = transfers.upload(source, path);
+        Assert.assertEquals(uploaded.getMd5Bytes(), DigestUtils.md5(content));
+
+        transfers.download(path, destination);
+        Assert.assertEquals(Files.readAllBytes(destination), content);
+        Assert.assertFalse(Files.exists(localDirectory.resolve("round-trip-destination.part")));
+        Assert.assertFalse(Files.exists(localDirectory.resolve("round-trip-destination.journal")));
+
+        try (Stream<Path> journals = Files.list(localDirectory.resolve("journals"))) {
+            Assert.assertEquals(journals.count(), 0);
+        }
+    }
+
+    @Test
+    public void continuesInterruptedDownload() throws IOException {
+        final String path = testPathPrefix + "/interrupted";
+        mantaClient.put(path, content);
+        final MantaObjectResponse head = mantaClient.head(path);
+
+        final Path destination = localDirectory.resolve("interrupted");
+        final int written = CONTENT_SIZE / 3;
+        // Bytes after the checkpoint are discarded, so they can be garbage
+        final byte[] partial = Arrays.copyOf(content, written + 100);
+        Files.write(localDirectory.resolve("interrupted.part"), partial);
+        new MantaTransferJournal(path)
+                .setEtag(head.getEtag())
+                .setMd5(Base64.encodeBase64String(DigestUtils.md5(content)))
+                .setLength(CONTENT_SIZE)
+                .setOffset(written)
+                .write(localDirectory.resolve("interrupted.journal"));
+
+        transfers.download(path, destination);
+
+        Assert.assertEquals(Files.readAllBytes(destination), content);
+        Assert.assertFalse(Files.exists(localDirectory.resolve("interrupted.journal")));
+    }
+
+    @Test
+    public void restartsDownloadOfModifiedObject() throws IOException {
+        final String path = testPathPrefix + "/modified";
+        mantaClient.put(path, content);
+
+        final Path destination = localDirectory.resolve("modified");
+        Files.write(localDirectory.resolve("modified.part"), new byte[1024]);
+        new MantaTransferJournal(path)
+                .setEtag("previous-version")
+                .setOffset(1024)
+                .write(localDirectory.resolve("modified.journal"));
+
+        transfers.download(path, destination);
+
+        Assert.assertEquals(Files.readAllBytes(destination), content);
+    }
+
+    @Test(expectedExceptions = MantaChecksumFailedException.class)
+    public void rejectsCorruptedDownload() throws IOException {
+        final String path = testPathPrefix + "/corrupted";
+        mantaClient.put(path, content);
+        final MantaObjectResponse head = mantaClient.head(path);
+
+        final Path destination = localDirectory.resolve("corrupted");
+        Files.write(localDirectory.resolve("corrupted.part"), new byte[1024]);
+        new MantaTransferJournal(path)
+                .setEtag(head.getEtag())
+                .setMd5(Base64.encodeBase64String(head.getMd5Bytes()))
+                .setLength(CONTENT_SIZE)
+                .setOffset(1024)
+                .write(localDirectory.resolve("corrupted.journal"));
+
+        transfers.download(path, destination);
+    }
+
+    @Test
+    public void skipsCompletedUpload() throws IOException {
+        final String path = testPathPrefix + "/completed";
+        final Path source = localDirectory.resolve("completed-source");
+        Files.write(source, content);
+        mantaClient.put(path, content);
+        final String etag = mantaClient.head(path).getEtag();
+
+        // Journal of an upload whose response was lost
+        final Path journalDirectory = Files.createDirectories(localDirectory.resolve("completed-journals"));
+        final Path journalFile = journalDirectory.resolve(DigestUtils.sha256Hex(
+                source.toAbsolutePath() + "\n" + path) + MantaResumableTransfers.JOURNAL_SUFFIX);
+        new MantaTransferJournal(path)
+                .setMd5(Base64.encodeBase64String(DigestUtils.md5(content)))
+                .setLength(CONTENT_SIZE)
+                .setMtime(Files.getLastModifiedTime(source).toMillis())
+                .write(journalFile);
+
+        final MantaObjectResponse response = new MantaResumableTransfers(mantaClient, journalDirectory)
+                .upload(source, path);
+
+        // The object wasn't uploaded again
+        Assert.assertEquals(response.getEtag(), etag);
+        Assert.assertFalse(Files.exists(journalFile));
+    }
+}
@@ -0,0 +1,148 @@
+package com.joyent.manta.client;
+
+import com.joyent.manta.client.config.IntegrationTestConfigContext;
+import com.joyent.manta.config.ConfigContext;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Optional;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Tests for verifying the synchronization of local directories with Manta
+ * directories using {@link MantaSync}.
+ *
+ * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
+ */
+@Test(groups = { "sync" })
+public class MantaSyncIT {
+    private MantaClient mantaClient;
+
+    private String testPathPrefix;
+
+    private Path localDirectory;
+
+    @BeforeClass
+    @Parameters({"manta.url", "manta.user", "manta.key_path", "manta.key_id", "manta.timeout", "manta.http_transport"})
+    public void beforeClass(@Optional String mantaUrl,
+                            @Optional String mantaUser,
+                            @Optional String mantaKeyPath,
+                            @Optional String mantaKeyId,
+                            @Optional Integer mantaTimeout,
+                            @Optional String mantaHttpTransport)
+            throws IOException {
+
+        // Let TestNG configuration take precedence over environment variables
+        ConfigContext config = new IntegrationTestConfigContext(
+                mantaUrl, mantaUser, mantaKeyPath, mantaKeyId, mantaTimeout,
+                mantaHttpTransport);
+
+        mantaClient = new MantaClient(config);
+        testPathPrefix = String.format("%s/stor/%s",
+                config.getMantaHomeDirectory(), UUID.randomUUID());
+        mantaClient.putDirectory(testPathPrefix);
+        localDirectory = Files.createTempDirectory("manta-sync-it");
+    }
+
+    @AfterClass
+    public void afterClass() throws IOException {
+        try (Stream<Path> files = Files.walk(localDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+
+        if (mantaClient != null) {
+            mantaClient.deleteRecursive(testPathPrefix);
+            mantaClient.closeWithWarning();
+        }
+    }
+
+    @Test
+    public void uploadsOnlyChangedFiles() throws IOException {
+        final Path source = Files.createDirectories(localDirectory.resolve("upload"));
+        final Path manifest = localDirectory.resolve("upload.manifest");
+        final String remote = testPathPrefix + "/upload";
+        write(source.resolve("a.txt"), "alpha");
+        write(source.resolve("nested/b.txt"), "bravo");
+        write(source.resolve("nested/deeper/c.txt"), "charlie");
+
+        try (MantaSync sync = new MantaSync(mantaClient, 4)) {
+            final MantaSync.Result first = sync.upload(source, remote, manifest);
+            Assert.assertTrue(first.isSuccessful(), first.getFailures().toString());
+            Assert.assertEquals(first.getTransferred(), 3);
+
+            Assert.assertEquals(mantaClient.getAsString(remote + "/nested/deeper/c.txt"), "charlie");
+
+            final MantaSync.Result unchanged = sync.upload(source, remote, manifest);
+            Assert.assertEquals(unchanged.getTransferred(), 0);
+            Assert.assertEquals(unchanged.getSkipped(), 3);
+
+            write(source.resolve("nested/b.txt"), "bravo, changed");
+
+            final MantaSync.Result changed = sync.upload(source, remote, manifest);
+            Assert.assertEquals(changed.getTransferred(), 1);
+            Assert.assertEquals(changed.getSkipped(), 2);
+            Assert.assertEquals(mantaClient.getAsString(remote + "/nested/b.txt"), "bravo, changed");
+        }
+    }
+
+    @Test
+    public void identicalFilesAreNotUploadedWithoutManifest() throws IOException {
+        final Path source = Files.createDirectories(localDirectory.resolve("checksum"));
+        final String remote = testPathPrefix + "/checksum";
+        write(source.resolve("same.txt"), "same");
+
+        try (MantaSync sync = new MantaSync(mantaClient)) {
+            Assert.assertEquals(sync.upload(source, remote).getTransferred(), 1);
+
+            final MantaSync.Result second = sync.upload(source, remote);
+            Assert.assertEquals(second.getTransferred(), 0);
+            Assert.assertEquals(second.getSkipped(), 1);
+        }
+    }
+
+    @Test
+    public void downloadsOnlyChangedObjects() throws IOException {
+        final String remote = testPathPrefix + "/download";
+        mantaClient.putDirectory(remote + "/nested", true);
+        mantaClient.put(remote + "/x.txt", "x-ray");
+        mantaClient.put(remote + "/nested/y.txt", "yankee");
+
+        final Path target = localDirectory.resolve("download");
+        final Path manifest = localDirectory.resolve("download.manifest");
+
+        try (MantaSync sync = new MantaSync(mantaClient)) {
+            final MantaSync.Result first = sync.download(remote, target, manifest);
+            Assert.assertTrue(first.isSuccessful(), first.getFailures().toString());
+            Assert.assertEquals(first.getTransferred(), 2);
+            Assert.assertEquals(read(target.resolve("nested/y.txt")), "yankee");
+
+            final MantaSync.Result unchanged = sync.download(remote, target, manifest);
+            Assert.assertEquals(unchanged.getTransferred(), 0);
+            Assert.assertEquals(unchanged.getSkipped(), 2);
+
+            mantaClient.put(remote + "/x.txt", "x-ray, changed");
+
+            final MantaSync.Result changed = sync.download(remote, target, manifest);
+            Assert.assertEquals(changed.getTransferred(), 1);
+            Assert.assertEquals(read(target.resolve("x.txt")), "x-ray, changed");
+        }
+    }
+
+    private static void write(final Path file, final String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(final Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -3,21 +3,45 @@
  */
 package com.joyent.manta.client;
 
+import com.joyent.manta.config.MapConfigContext;
+import com.joyent.manta.emulator.MantaEmulator;
+import com.joyent.manta.emulator.MantaEmulatorKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.bridge.SLF4JBridgeHandler;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeSuite;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyPair;
+
 
 /**
  * Class containing one time test suite setup methods.
  * @author <a href="https://github.com/dekobon">Elijah Zupancic</a>
  */
 public class TestSuiteSetup {
+    /**
+     * System property that runs the suite against an in-process emulator.
+     */
+    public static final String EMULATOR_PROPERTY = "manta.it.emulator";
+
+    private static MantaEmulator emulator;
+
     private Logger logger = LoggerFactory.getLogger(getClass());
 
+    /**
+     * @return true when the suite runs against an in-process emulator
+     */
+    public static boolean isEmulated() {
+        return Boolean.getBoolean(EMULATOR_PROPERTY);
+    }
+
     @BeforeSuite
-    public void setupSuite() {
+    public void setupSuite() throws IOException {
         logger.info("Setting up Java util logging to SLF4J bridge");
 
         // Remove existing handlers attached to j.u.l root logger
@@ -26,5 +50,43 @@ public class TestSuiteSetup {
         // add SLF4JBridgeHandler to j.u.l's root logger, should be done once during
         // the initialization phase of your application
         SLF4JBridgeHandler.install();
+
+        if (isEmulated()) {
+            startEmulator();
+        }
+    }
+
+    @AfterSuite
+    public void tearDownSuite() {
+        if (emulator != null) {
+            emulator.close();
+            emulator = null;
+        }
+    }
+
+    /**
+     * Starts the emulator with a new key and points the configuration at it
+     * through system properties, which take precedence over TestNG parameters.
+     */
+    private void startEmulator() throws IOException {
+        final String user = System.getProperty(MapConfigContext.MANTA_USER_KEY, "emulated");
+        final KeyPair keyPair = MantaEmulatorKeys.generateKeyPair();
+        final File keyFile = File.createTempFile("manta-emulator", ".pem");
+        keyFile.deleteOnExit();
+        Files.write(keyFile.toPath(), MantaEmulatorKeys.toPem(keyPair).getBytes(StandardCharsets.US_ASCII));
+
+        // Roles used by the role tag tests
+        emulator = new MantaEmulator()
+                .addKey(user, keyPair.getPublic())
+                .addRoles(user, "manta", "role2")
+                .start();
+
+        System.setProperty(MapConfigContext.MANTA_URL_KEY, emulator.getURL());
+        System.setProperty(MapConfigContext.MANTA_USER_KEY, user);
+        System.setProperty(MapConfigContext.MANTA_KEY_PATH_KEY, keyFile.getAbsolutePath());
+        System.setProperty(MapConfigContext.MANTA_KEY_ID_KEY,
+                MantaEmulatorKeys.fingerprint(keyPair.getPublic()));
+
+        logger.info("Running integration tests against Manta emulator at {}", emulator.getURL());
     }
 }
@@ -1,5 +1,6 @@
 package com.joyent.manta.client.config;
 
+import com.joyent.manta.client.TestSuiteSetup;
 import com.joyent.manta.config.BaseChainedConfigContext;
 import com.joyent.manta.config.ConfigContext;
 import com.joyent.manta.config.EnvVarConfigContext;
@@ -37,7 +38,8 @@ public class IntegrationTestConfigContext extends BaseChainedConfigContext {
         // overwrite with system properties
         overwriteWithContext(new MapConfigContext(properties));
 
-        if (includeEnvironmentVars) {
+        // the emulator's settings must not be replaced by a live Manta's
+        if (includeEnvironmentVars && !TestSuiteSetup.isEmulated()) {
             overwriteWithContext(new EnvVarConfigContext());
         }
     }